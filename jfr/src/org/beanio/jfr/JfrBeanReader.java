@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import java.io.PrintStream;
+
+import org.beanio.*;
+
+/**
+ * A {@link BeanReader} that records an {@link UnmarshalEvent} for each bean object
+ * read, and a {@link StreamEvent} when closed.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+class JfrBeanReader implements BeanReader {
+
+    private String streamName;
+    private BeanReader reader;
+    private StreamEvent streamEvent = new StreamEvent();
+
+    /**
+     * Constructs a new <tt>JfrBeanReader</tt>.
+     * @param streamName the stream name
+     * @param reader the {@link BeanReader} to delegate to
+     */
+    public JfrBeanReader(String streamName, BeanReader reader) {
+        this.streamName = streamName;
+        this.reader = reader;
+        streamEvent.begin();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#read()
+     */
+    public Object read() throws BeanReaderIOException, MalformedRecordException,
+        UnidentifiedRecordException, UnexpectedRecordException, InvalidRecordException {
+
+        UnmarshalEvent event = new UnmarshalEvent();
+        event.begin();
+        Object bean = reader.read();
+        if (bean != null) {
+            ++streamEvent.beanCount;
+
+            // the stream event counts characters even if unmarshal events are disabled
+            long characters = 0;
+            if (streamEvent.isEnabled() || event.isEnabled()) {
+                for (int i=0, n=reader.getRecordCount(); i<n; i++) {
+                    String text = reader.getRecordContext(i).getRecordText();
+                    if (text != null) {
+                        characters += text.length();
+                    }
+                }
+                streamEvent.characters += characters;
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.streamName = streamName;
+                event.recordName = reader.getRecordName();
+                event.lineNumber = reader.getLineNumber();
+                event.recordCount = reader.getRecordCount();
+                event.characters = characters;
+                event.commit();
+            }
+        }
+        return bean;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#skip(int)
+     */
+    public int skip(int count) throws BeanReaderIOException, MalformedRecordException,
+        UnidentifiedRecordException, UnexpectedRecordException {
+        return reader.skip(count);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getRecordName()
+     */
+    public String getRecordName() {
+        return reader.getRecordName();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getLineNumber()
+     */
+    public int getLineNumber() {
+        return reader.getLineNumber();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getRecordCount()
+     */
+    public int getRecordCount() {
+        return reader.getRecordCount();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getRecordContext(int)
+     */
+    public RecordContext getRecordContext(int index) throws IndexOutOfBoundsException {
+        return reader.getRecordContext(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#close()
+     */
+    public void close() throws BeanReaderIOException {
+        reader.close();
+
+        streamEvent.end();
+        if (streamEvent.shouldCommit()) {
+            streamEvent.streamName = streamName;
+            streamEvent.mode = "read";
+            streamEvent.commit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#setErrorHandler(org.beanio.BeanReaderErrorHandler)
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler) {
+        reader.setErrorHandler(errorHandler);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#setRecordFilter(java.lang.String, org.beanio.RecordFilter, java.lang.String[])
+     */
+    public void setRecordFilter(String recordName, RecordFilter filter, String... fieldNames) {
+        reader.setRecordFilter(recordName, filter, fieldNames);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getFilteredRecordCount()
+     */
+    public int getFilteredRecordCount() {
+        return reader.getFilteredRecordCount();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug()
+     */
+    public void debug() {
+        reader.debug();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug(java.io.PrintStream)
+     */
+    public void debug(PrintStream out) {
+        reader.debug(out);
+    }
+}
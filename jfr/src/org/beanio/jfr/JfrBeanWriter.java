@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import java.io.PrintStream;
+
+import org.beanio.*;
+import org.beanio.jfr.JfrStreamFactory.Counter;
+
+/**
+ * A {@link BeanWriter} that records a {@link MarshalEvent} for each bean object
+ * written, and a {@link StreamEvent} when closed.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+class JfrBeanWriter implements BeanWriter {
+
+    private String streamName;
+    private BeanWriter writer;
+    private Counter counter;
+    private StreamEvent streamEvent = new StreamEvent();
+
+    /**
+     * Constructs a new <tt>JfrBeanWriter</tt>.
+     * @param streamName the stream name
+     * @param writer the {@link BeanWriter} to delegate to
+     * @param counter the output stream passed to the delegate writer
+     */
+    public JfrBeanWriter(String streamName, BeanWriter writer, Counter counter) {
+        this.streamName = streamName;
+        this.writer = writer;
+        this.counter = counter;
+        streamEvent.begin();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.Object)
+     */
+    public void write(Object bean) throws BeanWriterException, BeanWriterIOException {
+        write(null, bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.String, java.lang.Object)
+     */
+    public void write(String recordName, Object bean) throws BeanWriterException {
+        long count = counter.getCount();
+
+        MarshalEvent event = new MarshalEvent();
+        event.begin();
+        writer.write(recordName, bean);
+        ++streamEvent.beanCount;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.streamName = streamName;
+            event.recordName = recordName;
+            event.beanClass = bean == null ? null : bean.getClass();
+            event.characters = counter.getCount() - count;
+            event.commit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#flush()
+     */
+    public void flush() throws BeanWriterIOException {
+        writer.flush();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#close()
+     */
+    public void close() throws BeanWriterIOException {
+        writer.close();
+
+        streamEvent.end();
+        if (streamEvent.shouldCommit()) {
+            streamEvent.streamName = streamName;
+            streamEvent.mode = "write";
+            streamEvent.characters = counter.getCount();
+            streamEvent.commit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug()
+     */
+    public void debug() {
+        writer.debug();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug(java.io.PrintStream)
+     */
+    public void debug(PrintStream out) {
+        writer.debug(out);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.beanio.*;
+import org.w3c.dom.Document;
+
+/**
+ * A {@link Marshaller} that records a {@link MarshalEvent} for each bean
+ * object marshalled.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+class JfrMarshaller implements Marshaller {
+
+    private String streamName;
+    private Marshaller marshaller;
+
+    /**
+     * Constructs a new <tt>JfrMarshaller</tt>.
+     * @param streamName the stream name
+     * @param marshaller the {@link Marshaller} to delegate to
+     */
+    public JfrMarshaller(String streamName, Marshaller marshaller) {
+        this.streamName = streamName;
+        this.marshaller = marshaller;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#marshal(java.lang.Object)
+     */
+    public Marshaller marshal(Object bean) throws BeanWriterException {
+        return marshal(null, bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#marshal(java.lang.String, java.lang.Object)
+     */
+    public Marshaller marshal(String recordName, Object bean) throws BeanWriterException {
+        MarshalEvent event = new MarshalEvent();
+        event.begin();
+        marshaller.marshal(recordName, bean);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.streamName = streamName;
+            event.recordName = recordName;
+            event.beanClass = bean == null ? null : bean.getClass();
+            event.commit();
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#toString()
+     */
+    @Override
+    public String toString() throws BeanWriterException {
+        return marshaller.toString();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#toArray()
+     */
+    public String[] toArray() throws BeanWriterException {
+        return marshaller.toArray();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#toList()
+     */
+    public List<String> toList() throws BeanWriterException {
+        return marshaller.toList();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Marshaller#toDocument()
+     */
+    public Document toDocument() throws BeanWriterException {
+        return marshaller.toDocument();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug()
+     */
+    public void debug() {
+        marshaller.debug();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug(java.io.PrintStream)
+     */
+    public void debug(PrintStream out) {
+        marshaller.debug(out);
+    }
+}
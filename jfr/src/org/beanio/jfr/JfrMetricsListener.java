@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import org.beanio.metrics.*;
+
+/**
+ * A {@link MetricsListener} that records a {@link RecordRejectedEvent} for each field
+ * or record error, and a {@link SlowConversionEvent} for each sampled type conversion
+ * that takes longer than a threshold.  All metrics are also forwarded to an optional
+ * delegate listener.
+ *
+ * <p>This class is thread safe if the delegate listener is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class JfrMetricsListener implements MetricsListener {
+
+    private volatile MetricsListener delegate;
+    private volatile long slowConversionThreshold;
+
+    /**
+     * Constructs a new <tt>JfrMetricsListener</tt>.
+     * @param slowConversionThreshold the minimum time in nanoseconds taken by a type
+     *   conversion to record a {@link SlowConversionEvent}
+     */
+    public JfrMetricsListener(long slowConversionThreshold) {
+        this.slowConversionThreshold = slowConversionThreshold;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordRead(java.lang.String, java.lang.String)
+     */
+    public void recordRead(String streamName, String recordName) {
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.recordRead(streamName, recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordFiltered(java.lang.String, java.lang.String)
+     */
+    public void recordFiltered(String streamName, String recordName) {
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.recordFiltered(streamName, recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordWritten(java.lang.String, java.lang.String)
+     */
+    public void recordWritten(String streamName, String recordName) {
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.recordWritten(streamName, recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersRead(java.lang.String, int)
+     */
+    public void charactersRead(String streamName, int count) {
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.charactersRead(streamName, count);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersWritten(java.lang.String, int)
+     */
+    public void charactersWritten(String streamName, int count) {
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.charactersWritten(streamName, count);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#fieldError(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void fieldError(String streamName, String recordName, String fieldName, String rule) {
+        RecordRejectedEvent event = new RecordRejectedEvent();
+        if (event.shouldCommit()) {
+            event.streamName = streamName;
+            event.recordName = recordName;
+            event.fieldName = fieldName;
+            event.rule = rule;
+            event.commit();
+        }
+
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.fieldError(streamName, recordName, fieldName, rule);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordError(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void recordError(String streamName, String recordName, String rule) {
+        RecordRejectedEvent event = new RecordRejectedEvent();
+        if (event.shouldCommit()) {
+            event.streamName = streamName;
+            event.recordName = recordName;
+            event.rule = rule;
+            event.commit();
+        }
+
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.recordError(streamName, recordName, rule);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#timing(java.lang.String, org.beanio.metrics.Phase, java.lang.String, long)
+     */
+    public void timing(String streamName, Phase phase, String componentName, long nanos) {
+        if (phase == Phase.CONVERT && nanos >= slowConversionThreshold) {
+            SlowConversionEvent event = new SlowConversionEvent();
+            if (event.shouldCommit()) {
+                event.streamName = streamName;
+                event.fieldName = componentName;
+                event.conversionTime = nanos;
+                event.commit();
+            }
+        }
+
+        MetricsListener listener = delegate;
+        if (listener != null) {
+            listener.timing(streamName, phase, componentName, nanos);
+        }
+    }
+
+    /**
+     * Returns the listener that metrics are forwarded to.
+     * @return the delegate {@link MetricsListener}, or <tt>null</tt> if not set
+     */
+    public MetricsListener getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Sets the listener that metrics are forwarded to.
+     * @param delegate the delegate {@link MetricsListener}, or <tt>null</tt>
+     */
+    public void setDelegate(MetricsListener delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the minimum time taken by a type conversion to record a
+     * {@link SlowConversionEvent}.
+     * @return the threshold in nanoseconds
+     */
+    public long getSlowConversionThreshold() {
+        return slowConversionThreshold;
+    }
+
+    /**
+     * Sets the minimum time taken by a type conversion to record a
+     * {@link SlowConversionEvent}.  Only type conversions in bean objects sampled
+     * for timing are measured.
+     * @param slowConversionThreshold the threshold in nanoseconds
+     */
+    public void setSlowConversionThreshold(long slowConversionThreshold) {
+        this.slowConversionThreshold = slowConversionThreshold;
+    }
+}
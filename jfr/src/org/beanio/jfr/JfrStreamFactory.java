@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import java.io.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.internal.DefaultStreamFactory;
+import org.beanio.internal.util.Settings;
+import org.beanio.metrics.MetricsListener;
+
+/**
+ * A {@link StreamFactory} that records Java Flight Recorder events for the bean readers,
+ * bean writers, unmarshallers and marshallers it creates.  To use it in place of the
+ * default stream factory, set the BeanIO configuration setting
+ * <tt>org.beanio.streamFactory</tt> to <tt>org.beanio.jfr.JfrStreamFactory</tt>.
+ *
+ * <p>The following events are recorded, and are only created if enabled in the
+ * active recording:</p>
+ * <ul>
+ *   <li>{@link StreamEvent} when a bean reader or writer is closed</li>
+ *   <li>{@link UnmarshalEvent} for each bean object read</li>
+ *   <li>{@link MarshalEvent} for each bean object written</li>
+ *   <li>{@link RecordRejectedEvent} for each field or record error</li>
+ *   <li>{@link SlowConversionEvent} for each type conversion that takes longer than
+ *     the <tt>org.beanio.jfr.slowConversionThreshold</tt> setting in microseconds
+ *     (1000 by default)</li>
+ * </ul>
+ *
+ * <p>Errors and slow type conversions are reported by a {@link JfrMetricsListener}.  Type
+ * conversions are only timed for bean objects sampled according to the metrics sampling
+ * interval.  A listener set using {@link #setMetricsListener(MetricsListener, int)} still
+ * receives all metrics.</p>
+ *
+ * <p>Bean readers and writers created by this factory cannot be cast to their
+ * implementation classes.  Push-mode parsers and parallel writers are not instrumented.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class JfrStreamFactory extends DefaultStreamFactory {
+
+    /** The minimum time in microseconds taken by a type conversion to record a {@link SlowConversionEvent} */
+    public static final String SLOW_CONVERSION_THRESHOLD = "org.beanio.jfr.slowConversionThreshold";
+
+    private JfrMetricsListener jfrListener = new JfrMetricsListener(1000000L);
+
+    /**
+     * Constructs a new <tt>JfrStreamFactory</tt>.
+     */
+    public JfrStreamFactory() { }
+
+    @Override
+    protected void init() {
+        super.init();
+        jfrListener.setSlowConversionThreshold(
+            Settings.getInstance().getInt(SLOW_CONVERSION_THRESHOLD, 1000) * 1000L);
+        setMetricsListener(null);
+    }
+
+    @Override
+    public void setMetricsListener(MetricsListener listener, int samplingInterval) {
+        jfrListener.setDelegate(listener);
+        super.setMetricsListener(jfrListener, samplingInterval);
+    }
+
+    /**
+     * Returns the {@link JfrMetricsListener} used to record errors and slow type conversions.
+     * @return the {@link JfrMetricsListener}
+     */
+    public JfrMetricsListener getJfrMetricsListener() {
+        return jfrListener;
+    }
+
+    @Override
+    public BeanReader createReader(String name, Reader in, Locale locale, Set<String> properties) {
+        return new JfrBeanReader(name, super.createReader(name, in, locale, properties));
+    }
+
+    @Override
+    public BeanReader createReader(String name, InputStream in, Locale locale) {
+        return new JfrBeanReader(name, super.createReader(name, in, locale));
+    }
+
+    @Override
+    public BeanWriter createWriter(String name, Writer out) {
+        if (out == null) {
+            throw new NullPointerException("null writer");
+        }
+        CountingWriter counter = new CountingWriter(out);
+        return new JfrBeanWriter(name, super.createWriter(name, counter), counter);
+    }
+
+    @Override
+    public BeanWriter createWriter(String name, OutputStream out) {
+        if (out == null) {
+            throw new NullPointerException("null output stream");
+        }
+        CountingOutputStream counter = new CountingOutputStream(out);
+        return new JfrBeanWriter(name, super.createWriter(name, counter), counter);
+    }
+
+    @Override
+    public Unmarshaller createUnmarshaller(String name, Locale locale, Set<String> properties) {
+        return new JfrUnmarshaller(name, super.createUnmarshaller(name, locale, properties));
+    }
+
+    @Override
+    public Marshaller createMarshaller(String name) {
+        return new JfrMarshaller(name, super.createMarshaller(name));
+    }
+
+    /**
+     * Counts the characters or bytes written to an output stream.
+     */
+    interface Counter {
+        long getCount();
+    }
+
+    /**
+     * A {@link Writer} that counts the characters written to it.
+     */
+    static class CountingWriter extends FilterWriter implements Counter {
+        long count;
+
+        public CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            ++count;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            super.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            super.write(str, off, len);
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * An {@link OutputStream} that counts the bytes written to it.
+     */
+    static class CountingOutputStream extends FilterOutputStream implements Counter {
+        long count;
+
+        public CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
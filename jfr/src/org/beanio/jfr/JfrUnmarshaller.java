@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.beanio.*;
+import org.w3c.dom.Node;
+
+/**
+ * An {@link Unmarshaller} that records an {@link UnmarshalEvent} for each bean
+ * object unmarshalled.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+class JfrUnmarshaller implements Unmarshaller {
+
+    private String streamName;
+    private Unmarshaller unmarshaller;
+
+    /**
+     * Constructs a new <tt>JfrUnmarshaller</tt>.
+     * @param streamName the stream name
+     * @param unmarshaller the {@link Unmarshaller} to delegate to
+     */
+    public JfrUnmarshaller(String streamName, Unmarshaller unmarshaller) {
+        this.streamName = streamName;
+        this.unmarshaller = unmarshaller;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#unmarshal(java.lang.String)
+     */
+    public Object unmarshal(String record) throws BeanReaderException, MalformedRecordException,
+        UnidentifiedRecordException, UnexpectedRecordException, InvalidRecordException {
+
+        UnmarshalEvent event = new UnmarshalEvent();
+        event.begin();
+        Object bean = unmarshaller.unmarshal(record);
+        commit(event, record == null ? 0 : record.length());
+        return bean;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#unmarshal(java.util.List)
+     */
+    public Object unmarshal(List<String> fields) throws BeanReaderException,
+        UnidentifiedRecordException, UnexpectedRecordException, InvalidRecordException {
+
+        UnmarshalEvent event = new UnmarshalEvent();
+        event.begin();
+        Object bean = unmarshaller.unmarshal(fields);
+        commit(event, 0);
+        return bean;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#unmarshal(java.lang.String[])
+     */
+    public Object unmarshal(String[] fields) throws BeanReaderException,
+        UnidentifiedRecordException, UnexpectedRecordException, InvalidRecordException {
+
+        UnmarshalEvent event = new UnmarshalEvent();
+        event.begin();
+        Object bean = unmarshaller.unmarshal(fields);
+        commit(event, 0);
+        return bean;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#unmarshal(org.w3c.dom.Node)
+     */
+    public Object unmarshal(Node node) throws BeanReaderException,
+        UnidentifiedRecordException, UnexpectedRecordException, InvalidRecordException {
+
+        UnmarshalEvent event = new UnmarshalEvent();
+        event.begin();
+        Object bean = unmarshaller.unmarshal(node);
+        commit(event, 0);
+        return bean;
+    }
+
+    private void commit(UnmarshalEvent event, int characters) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.streamName = streamName;
+            event.recordName = unmarshaller.getRecordName();
+            event.recordCount = 1;
+            event.characters = characters;
+            event.commit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#getRecordName()
+     */
+    public String getRecordName() {
+        return unmarshaller.getRecordName();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.Unmarshaller#getRecordContext()
+     */
+    public RecordContext getRecordContext() {
+        return unmarshaller.getRecordContext();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug()
+     */
+    public void debug() {
+        unmarshaller.debug();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.util.Debuggable#debug(java.io.PrintStream)
+     */
+    public void debug(PrintStream out) {
+        unmarshaller.debug(out);
+    }
+}
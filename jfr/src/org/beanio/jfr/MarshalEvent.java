@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when a bean object is written by a bean writer or marshaller.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+@Name("org.beanio.Marshal")
+@Label("Marshal")
+@Category("BeanIO")
+@Description("A bean object written to a record or group of records")
+public class MarshalEvent extends Event {
+
+    @Label("Stream Name")
+    String streamName;
+
+    @Label("Record Name")
+    @Description("The record or group name passed by the caller, if any")
+    String recordName;
+
+    @Label("Bean Class")
+    Class<?> beanClass;
+
+    @Label("Characters")
+    @Description("The number of characters written to the output stream, or 0 if not applicable")
+    long characters;
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when a record or field fails validation, or a record cannot be read or matched.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+@Name("org.beanio.RecordRejected")
+@Label("Record Rejected")
+@Category("BeanIO")
+@Description("A record or field that failed validation")
+public class RecordRejectedEvent extends Event {
+
+    @Label("Stream Name")
+    String streamName;
+
+    @Label("Record Name")
+    @Description("The record or group name, if identified")
+    String recordName;
+
+    @Label("Field Name")
+    @Description("The name of the invalid field, if any")
+    String fieldName;
+
+    @Label("Rule")
+    @Description("The name of the failed validation rule")
+    String rule;
+}
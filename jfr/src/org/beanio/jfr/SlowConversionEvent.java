@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when parsing field text using a type handler takes longer than the
+ * configured threshold.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see JfrMetricsListener#setSlowConversionThreshold(long)
+ */
+@Name("org.beanio.SlowConversion")
+@Label("Slow Type Conversion")
+@Category("BeanIO")
+@Description("Field text that took longer than the configured threshold to parse")
+public class SlowConversionEvent extends Event {
+
+    @Label("Stream Name")
+    String streamName;
+
+    @Label("Field Name")
+    String fieldName;
+
+    @Label("Conversion Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long conversionTime;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when a bean reader or writer created by a {@link JfrStreamFactory} is closed,
+ * with a duration beginning when it was created.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+@Name("org.beanio.Stream")
+@Label("Stream")
+@Category("BeanIO")
+@Description("A bean reader or writer, from when it was created until it was closed")
+public class StreamEvent extends Event {
+
+    @Label("Stream Name")
+    String streamName;
+
+    @Label("Mode")
+    @Description("'read' or 'write'")
+    String mode;
+
+    @Label("Bean Objects")
+    @Description("The number of bean objects read or written")
+    long beanCount;
+
+    @Label("Characters")
+    @Description("The number of characters read or written")
+    long characters;
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when a bean object is read by a bean reader or unmarshaller.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+@Name("org.beanio.Unmarshal")
+@Label("Unmarshal")
+@Category("BeanIO")
+@Description("A bean object read from a record or group of records")
+public class UnmarshalEvent extends Event {
+
+    @Label("Stream Name")
+    String streamName;
+
+    @Label("Record Name")
+    @Description("The name of the record or group")
+    String recordName;
+
+    @Label("Line Number")
+    @Description("The line number of the first record, or 0 if not applicable")
+    int lineNumber;
+
+    @Label("Record Count")
+    @Description("The number of records read for the bean object")
+    int recordCount;
+
+    @Label("Characters")
+    @Description("The length of the record text")
+    long characters;
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.jfr;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.*;
+
+import org.beanio.*;
+import org.junit.*;
+
+/**
+ * JUnit test cases for the {@link JfrStreamFactory}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class JfrStreamFactoryTest {
+
+    private static final String[] EVENT_NAMES = { "org.beanio.Stream", "org.beanio.Unmarshal",
+        "org.beanio.Marshal", "org.beanio.RecordRejected", "org.beanio.SlowConversion" };
+
+    private JfrStreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = new JfrStreamFactory();
+        factory.init();
+        factory.setMetricsListener(null, 1);
+        factory.getJfrMetricsListener().setSlowConversionThreshold(0);
+
+        InputStream in = getClass().getResourceAsStream("jfr_mapping.xml");
+        try {
+            factory.load(in);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        final String input =
+            "H,2014-01-01\n" +
+            "D,1,ab\n" +
+            "D,2,a\n" +
+            "D,3,abc\n";
+
+        List<RecordedEvent> events = record(new Runnable() {
+            public void run() {
+                BeanReader in = factory.createReader("s1", new StringReader(input));
+                in.setErrorHandler(new BeanReaderErrorHandler() {
+                    public void handleError(BeanReaderException ex) { }
+                });
+                while (in.read() != null) { }
+                in.close();
+
+                StringWriter text = new StringWriter();
+                BeanWriter out = factory.createWriter("s1", text);
+                Map<String,Object> record = new HashMap<String,Object>();
+                record.put("type", "H");
+                record.put("date", new Date(0));
+                out.write("header", record);
+                out.close();
+
+                Unmarshaller unmarshaller = factory.createUnmarshaller("s1");
+                unmarshaller.unmarshal("H,2014-01-02");
+            }
+        });
+
+        List<RecordedEvent> unmarshalled = filter(events, "org.beanio.Unmarshal");
+        assertEquals(4, unmarshalled.size());
+        assertEquals("header", unmarshalled.get(0).getString("recordName"));
+        assertEquals(1, unmarshalled.get(0).getInt("lineNumber"));
+        assertEquals(12, unmarshalled.get(0).getLong("characters"));
+        assertEquals(4, unmarshalled.get(2).getInt("lineNumber"));
+        assertEquals(12, unmarshalled.get(3).getLong("characters"));
+
+        List<RecordedEvent> rejected = filter(events, "org.beanio.RecordRejected");
+        assertEquals(1, rejected.size());
+        assertEquals("name", rejected.get(0).getString("fieldName"));
+        assertEquals("minLength", rejected.get(0).getString("rule"));
+
+        List<RecordedEvent> marshalled = filter(events, "org.beanio.Marshal");
+        assertEquals(1, marshalled.size());
+        assertEquals("header", marshalled.get(0).getString("recordName"));
+
+        List<RecordedEvent> streams = filter(events, "org.beanio.Stream");
+        assertEquals(2, streams.size());
+        assertEquals("read", streams.get(0).getString("mode"));
+        assertEquals(3, streams.get(0).getLong("beanCount"));
+        assertEquals("write", streams.get(1).getString("mode"));
+
+        // every type conversion exceeds a threshold of 0
+        assertFalse(filter(events, "org.beanio.SlowConversion").isEmpty());
+    }
+
+    @Test
+    public void testStreamEventOnly() throws Exception {
+        final String input =
+            "H,2014-01-01\n" +
+            "D,1,ab\n";
+
+        List<RecordedEvent> events = record(new Runnable() {
+            public void run() {
+                BeanReader in = factory.createReader("s1", new StringReader(input));
+                while (in.read() != null) { }
+                in.close();
+            }
+        }, "org.beanio.Stream");
+
+        // characters are counted even though unmarshal events are disabled
+        assertTrue(filter(events, "org.beanio.Unmarshal").isEmpty());
+        List<RecordedEvent> streams = filter(events, "org.beanio.Stream");
+        assertEquals(1, streams.size());
+        assertEquals(2, streams.get(0).getLong("beanCount"));
+        assertEquals(18, streams.get(0).getLong("characters"));
+    }
+
+    private List<RecordedEvent> record(Runnable task) throws IOException {
+        return record(task, EVENT_NAMES);
+    }
+
+    private List<RecordedEvent> record(Runnable task, String... eventNames) throws IOException {
+        Path file = Files.createTempFile("beanio", ".jfr");
+        try {
+            Recording recording = new Recording();
+            try {
+                for (String name : EVENT_NAMES) {
+                    recording.disable(name);
+                }
+                for (String name : eventNames) {
+                    recording.enable(name).withoutThreshold();
+                }
+                recording.start();
+                task.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            finally {
+                recording.close();
+            }
+
+            List<RecordedEvent> events = new ArrayList<RecordedEvent>(RecordingFile.readAllEvents(file));
+            Collections.sort(events, new Comparator<RecordedEvent>() {
+                public int compare(RecordedEvent e1, RecordedEvent e2) {
+                    return e1.getEndTime().compareTo(e2.getEndTime());
+                }
+            });
+            return events;
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> list = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                list.add(event);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.util.*;
+
+/**
+ * Defines the fields of a record, typically a header, that are set to a count or total of
+ * other records written to a file, and patched in place when the writer is closed.
+ *
+ * <p>For example, a header that includes the number of detail records and the sum of
+ * their amounts can be written first, without buffering the file or writing it twice:</p>
+ * <pre>
+ * Backfill header = new Backfill("header")
+ *     .count("recordCount", "detail")
+ *     .sum("totalAmount", "detail", "amount");
+ * BeanWriter out = factory.createWriter("stream", file, header);
+ * out.write(headerBean);
+ * ...
+ * out.close();
+ * </pre>
+ *
+ * <p>Each time the record is written, its backfilled fields are set to the current count or
+ * total, so a trailer written last is written with its final values.  When the writer is
+ * closed, the last instance of the record written is marshalled again with the final values,
+ * and written over the original.  The record must be formatted to the same number of bytes,
+ * which is guaranteed for fixed length records, and otherwise requires padded fields.</p>
+ *
+ * <p>Counts and totals only include records written individually, and not records written
+ * as part of a record group bound to a bean object.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createWriter(String, java.io.File, Backfill...)
+ */
+public class Backfill {
+
+    private String recordName;
+    private List<Aggregate> aggregates = new ArrayList<Aggregate>();
+
+    /**
+     * Constructs a new <tt>Backfill</tt>.
+     * @param recordName the name of the record to backfill
+     */
+    public Backfill(String recordName) {
+        if (recordName == null) {
+            throw new NullPointerException("null recordName");
+        }
+        this.recordName = recordName;
+    }
+
+    /**
+     * Sets a field to the number of records written with the given name.
+     * @param field the name of the field to set
+     * @param recordName the name of the records to count
+     * @return this <tt>Backfill</tt>
+     */
+    public Backfill count(String field, String recordName) {
+        aggregates.add(new Aggregate(field, recordName, null));
+        return this;
+    }
+
+    /**
+     * Sets a field to the sum of the values of a numeric field of the records written
+     * with the given name.  Null values are ignored.
+     * @param field the name of the field to set
+     * @param recordName the name of the records to total
+     * @param sumField the name of the field to total
+     * @return this <tt>Backfill</tt>
+     */
+    public Backfill sum(String field, String recordName, String sumField) {
+        if (sumField == null) {
+            throw new NullPointerException("null sumField");
+        }
+        aggregates.add(new Aggregate(field, recordName, sumField));
+        return this;
+    }
+
+    /**
+     * Returns the name of the record to backfill.
+     * @return the record name
+     */
+    public String getRecordName() {
+        return recordName;
+    }
+
+    /**
+     * Returns the counts and totals of this backfill.
+     * @return the unmodifiable list of {@link Aggregate}'s
+     */
+    public List<Aggregate> getAggregates() {
+        return Collections.unmodifiableList(aggregates);
+    }
+
+    /**
+     * A count or total of records written, that is set on a field of a backfilled record.
+     *
+     * @author Kevin Seim
+     * @since 3.0
+     */
+    public static final class Aggregate {
+
+        private final String field;
+        private final String recordName;
+        private final String sumField;
+
+        private Aggregate(String field, String recordName, String sumField) {
+            if (field == null) {
+                throw new NullPointerException("null field");
+            }
+            if (recordName == null) {
+                throw new NullPointerException("null recordName");
+            }
+            this.field = field;
+            this.recordName = recordName;
+            this.sumField = sumField;
+        }
+
+        /**
+         * Returns the name of the field set to the count or total.
+         * @return the field name
+         */
+        public String getField() {
+            return field;
+        }
+
+        /**
+         * Returns the name of the records counted or totaled.
+         * @return the record name
+         */
+        public String getRecordName() {
+            return recordName;
+        }
+
+        /**
+         * Returns the name of the field totaled.
+         * @return the field name, or <tt>null</tt> if records are counted
+         */
+        public String getSumField() {
+            return sumField;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.nio.ByteBuffer;
+
+import org.beanio.internal.util.Debuggable;
+
+/**
+ * Interface for unmarshalling bean objects from input that is pushed to the
+ * parser in chunks, instead of pulled from a blocking {@link java.io.Reader}.
+ *
+ * <p>A <tt>BeanParser</tt> is created using a {@link StreamFactory} and a mapping file.
+ * Each time a chunk of input is fed to the parser, all records completed by the chunk
+ * are unmarshalled and passed to the configured {@link BeanParserListener}.  Framing state
+ * (such as quoted fields, escapes, line continuations and multi-line records) is retained
+ * across chunk boundaries.</p>
+ *
+ * <p>Push parsing is supported for fixed length, delimited and CSV formatted streams.
+ * XML and JSON formatted streams must be read using a {@link BeanReader}.</p>
+ *
+ * <p>A <tt>BeanParser</tt> is not thread safe, but it can be fed by different threads
+ * as long as calls are not made concurrently.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createParser(String, java.nio.charset.Charset, BeanParserListener)
+ */
+public interface BeanParser extends Debuggable {
+
+    /**
+     * Decodes and parses a chunk of bytes.  Any bytes that do not form a complete
+     * character are retained until the next chunk is fed.  Upon return, the
+     * buffer's position is equal to its limit.
+     * @param buffer the {@link ByteBuffer} to parse
+     * @throws BeanReaderIOException if the end of input was already reached
+     * @throws BeanReaderException if an unmarshalled record fails validation and
+     *   no error handler is set, in which case remaining records can be
+     *   parsed by feeding the next chunk (which may be empty)
+     */
+    public void feed(ByteBuffer buffer) throws BeanReaderException;
+
+    /**
+     * Parses a chunk of decoded characters.
+     * @param text the characters to parse
+     * @throws BeanReaderIOException if the end of input was already reached
+     * @throws BeanReaderException if an unmarshalled record fails validation and
+     *   no error handler is set
+     * @see #feed(ByteBuffer)
+     */
+    public void feed(CharSequence text) throws BeanReaderException;
+
+    /**
+     * Signals the end of input.  The last record (if not terminated) is unmarshalled,
+     * and all record groups are validated as if the end of a stream was reached.
+     * @throws BeanReaderIOException if the end of input was already reached
+     * @throws BeanReaderException if an unmarshalled record fails validation and
+     *   no error handler is set
+     */
+    public void endOfInput() throws BeanReaderException;
+
+    /**
+     * Returns the record or group name of the most recent bean object
+     * passed to the listener.
+     * @return the record or group name
+     * @see BeanReader#getRecordName()
+     */
+    public String getRecordName();
+
+    /**
+     * Returns the starting line number of the first record for the most recent bean
+     * object passed to the listener.
+     * @return the line number
+     * @see BeanReader#getLineNumber()
+     */
+    public int getLineNumber();
+
+    /**
+     * Returns the number of records parsed for the most recent bean object passed
+     * to the listener.
+     * @return the record count
+     * @see BeanReader#getRecordCount()
+     */
+    public int getRecordCount();
+
+    /**
+     * Returns record information for the most recent bean object passed to the listener.
+     * @param index the index of the record, starting at 0
+     * @return the {@link RecordContext}
+     * @throws IndexOutOfBoundsException if there is no record for the given index
+     * @see BeanReader#getRecordContext(int)
+     */
+    public RecordContext getRecordContext(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Sets the error handler to handle exceptions thrown while parsing records.
+     * @param errorHandler the {@link BeanReaderErrorHandler}
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+/**
+ * A callback interface for receiving bean objects unmarshalled by a {@link BeanParser}.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see BeanParser
+ */
+public interface BeanParserListener {
+
+    /**
+     * Callback method invoked each time a bean object is unmarshalled.  The
+     * record name, line number and record context of the bean object can be
+     * queried from the parser until this method returns.
+     * @param parser the {@link BeanParser} that unmarshalled the bean object
+     * @param bean the unmarshalled bean object
+     */
+    public void beanRead(BeanParser parser, Object bean);
+
+}
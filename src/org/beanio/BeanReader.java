@@ -117,4 +117,34 @@ public interface BeanReader extends Debuggable, Closeable {
      * @param errorHandler the {@link BeanReaderErrorHandler}
      */
     public void setErrorHandler(BeanReaderErrorHandler errorHandler);
+    
+    /**
+     * Sets a filter that decides whether a record is unmarshalled based on the text of
+     * one or more of its fields.  Records rejected by the filter are skipped without
+     * validating or converting their fields, and are not returned by {@link #read()} or
+     * counted by {@link #skip(int)}.
+     * 
+     * <p>Filters only apply to records that are read as individual bean objects, and
+     * not to records that make up a group bound to a bean object.  Only one filter can
+     * be set per record.</p>
+     * 
+     * @param recordName the name of the record to filter
+     * @param filter the {@link RecordFilter}, or <tt>null</tt> to remove the filter
+     *   for the record
+     * @param fieldNames the names of the fields passed to the filter, which for fields
+     *   in a segment is the segment name followed by a period and the field name
+     * @throws IllegalArgumentException if the record or a field is not found, if a field
+     *   repeats, or if the record is read as part of a group
+     * @since 3.0
+     */
+    public void setRecordFilter(String recordName, RecordFilter filter, String... fieldNames)
+        throws IllegalArgumentException;
+    
+    /**
+     * Returns the number of records rejected by record filters since this reader
+     * was created.
+     * @return the number of filtered records
+     * @since 3.0
+     */
+    public int getFilteredRecordCount();
 }
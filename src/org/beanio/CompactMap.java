@@ -0,0 +1,358 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A {@link Map} that stores the values of a fixed set of keys in an array.  A
+ * <tt>CompactMap</tt> is created for each record or segment mapped using
+ * <tt>class="compactmap"</tt>, in place of a <tt>HashMap</tt>.
+ *
+ * <p>The keys of a record or segment are held in a {@link Keys} table that is created
+ * once for each stream definition, and shared by all of its <tt>CompactMap</tt>'s.  Each
+ * <tt>CompactMap</tt> only allocates an array of values, and values can be retrieved by index
+ * using {@link #get(int)} without a key lookup.  The index of a key can be found using
+ * {@link Keys#indexOf(Object)}.</p>
+ *
+ * <p>A <tt>CompactMap</tt> supports all optional <tt>Map</tt> operations.  Values for keys
+ * not included in its key table are stored in a separate <tt>LinkedHashMap</tt>.  Entries
+ * are iterated in the order of the key table, followed by any other entries in the order they
+ * were added.  Like <tt>HashMap</tt>, a <tt>CompactMap</tt> is not thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CompactMap extends AbstractMap<String,Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // marks an index that has no value, an enum so that it survives serialization
+    private enum Absent { VALUE }
+
+    private final Keys keys;
+    private final Object[] values;
+    private int count;
+    private Map<String,Object> overflow;
+    private transient Set<Map.Entry<String,Object>> entrySet;
+
+    /**
+     * Constructs a new empty <tt>CompactMap</tt>.
+     * @param keys the key table
+     */
+    public CompactMap(Keys keys) {
+        if (keys == null) {
+            throw new NullPointerException("null keys");
+        }
+        this.keys = keys;
+        this.values = new Object[keys.size()];
+        Arrays.fill(values, Absent.VALUE);
+    }
+
+    /**
+     * Returns the key table of this map.
+     * @return the {@link Keys}
+     */
+    public Keys getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the value of the key at the given index of the key table.
+     * @param index the key index
+     * @return the value, or null if the key is not mapped
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Object get(int index) {
+        Object value = values[index];
+        return value == Absent.VALUE ? null : value;
+    }
+
+    /**
+     * Sets the value of the key at the given index of the key table.
+     * @param index the key index
+     * @param value the value
+     * @return the previous value, or null if the key was not mapped
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Object set(int index, Object value) {
+        Object old = values[index];
+        values[index] = value;
+        if (old == Absent.VALUE) {
+            ++count;
+            return null;
+        }
+        return old;
+    }
+
+    /**
+     * Returns whether the key at the given index of the key table is mapped.
+     * @param index the key index
+     * @return true if mapped, false otherwise
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public boolean isSet(int index) {
+        return values[index] != Absent.VALUE;
+    }
+
+    @Override
+    public int size() {
+        return overflow == null ? count : count + overflow.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = keys.indexOf(key);
+        if (index >= 0) {
+            return values[index] != Absent.VALUE;
+        }
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = keys.indexOf(key);
+        if (index >= 0) {
+            return get(index);
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = keys.indexOf(key);
+        if (index >= 0) {
+            return set(index, value);
+        }
+        if (overflow == null) {
+            overflow = new LinkedHashMap<String,Object>();
+        }
+        return overflow.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = keys.indexOf(key);
+        if (index >= 0) {
+            return unset(index);
+        }
+        return overflow == null ? null : overflow.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, Absent.VALUE);
+        count = 0;
+        overflow = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String,Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String,Object>>() {
+                public Iterator<Map.Entry<String,Object>> iterator() {
+                    return new EntryIterator();
+                }
+                public int size() {
+                    return CompactMap.this.size();
+                }
+                public void clear() {
+                    CompactMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private Object unset(int index) {
+        Object old = values[index];
+        if (old == Absent.VALUE) {
+            return null;
+        }
+        values[index] = Absent.VALUE;
+        --count;
+        return old;
+    }
+
+    /**
+     * Iterates over the mapped keys of the key table, and then the overflow map.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String,Object>> {
+        private int next = advance(0);
+        // the index of the last entry returned, -2 if from the overflow map, or -1 if none
+        private int last = -1;
+        private Iterator<Map.Entry<String,Object>> overflowIterator;
+
+        private int advance(int index) {
+            while (index < values.length && values[index] == Absent.VALUE) {
+                ++index;
+            }
+            return index;
+        }
+
+        public boolean hasNext() {
+            if (next < values.length) {
+                return true;
+            }
+            if (overflowIterator == null) {
+                if (overflow == null) {
+                    return false;
+                }
+                overflowIterator = overflow.entrySet().iterator();
+            }
+            return overflowIterator.hasNext();
+        }
+
+        public Map.Entry<String,Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (next < values.length) {
+                last = next;
+                next = advance(next + 1);
+                return new IndexEntry(last);
+            }
+            Map.Entry<String,Object> entry = overflowIterator.next();
+            last = -2;
+            return entry;
+        }
+
+        public void remove() {
+            if (last == -2) {
+                overflowIterator.remove();
+            }
+            else if (last >= 0) {
+                unset(last);
+            }
+            else {
+                throw new IllegalStateException();
+            }
+            last = -1;
+        }
+    }
+
+    /**
+     * A map entry for a key of the key table.
+     */
+    private class IndexEntry implements Map.Entry<String,Object> {
+        private final int index;
+
+        IndexEntry(int index) {
+            this.index = index;
+        }
+
+        public String getKey() {
+            return keys.get(index);
+        }
+
+        public Object getValue() {
+            return CompactMap.this.get(index);
+        }
+
+        public Object setValue(Object value) {
+            return set(index, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object value = getValue();
+            return getKey().equals(e.getKey()) &&
+                (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * An immutable table of keys shared by {@link CompactMap}'s.
+     *
+     * @author Kevin Seim
+     * @since 3.0
+     */
+    public static final class Keys implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;
+        private final Map<String,Integer> index;
+
+        /**
+         * Constructs a new <tt>Keys</tt> table.
+         * @param names the keys, in iteration order
+         * @throws IllegalArgumentException if a key is null or duplicated
+         */
+        public Keys(String... names) {
+            this.names = names.clone();
+            this.index = new HashMap<String,Integer>();
+            for (int i=0; i<this.names.length; i++) {
+                String name = this.names[i];
+                if (name == null) {
+                    throw new IllegalArgumentException("null key");
+                }
+                if (index.put(name, i) != null) {
+                    throw new IllegalArgumentException("Duplicate key '" + name + "'");
+                }
+            }
+        }
+
+        /**
+         * Returns the index of a key.
+         * @param key the key
+         * @return the key index, or -1 if the key is not in this table
+         */
+        public int indexOf(Object key) {
+            Integer i = index.get(key);
+            return i == null ? -1 : i;
+        }
+
+        /**
+         * Returns the key at the given index.
+         * @param index the key index
+         * @return the key
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public String get(int index) {
+            return names[index];
+        }
+
+        /**
+         * Returns the number of keys in this table.
+         * @return the number of keys
+         */
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(names);
+        }
+    }
+}
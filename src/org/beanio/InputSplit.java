@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.io.Serializable;
+
+/**
+ * A range of bytes of a file that starts and ends on a record boundary, so that
+ * it can be read independently of the rest of the file.
+ *
+ * <p>Input splits are planned using {@link StreamFactory#planSplits(String, java.io.File, int)}
+ * and read using {@link StreamFactory#createReader(String, java.io.File, InputSplit)}.  An
+ * <tt>InputSplit</tt> is immutable and serializable, so that it can be passed to another
+ * process.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class InputSplit implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+    private final long end;
+    private final int lineNumber;
+
+    /**
+     * Constructs a new <tt>InputSplit</tt>.
+     * @param start the byte offset of the first record
+     * @param end the byte offset following the last record
+     * @param lineNumber the line number of the first record
+     */
+    public InputSplit(long start, long end, int lineNumber) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid byte range [" + start + ", " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Returns the byte offset of the first record of this split.  If the first record
+     * is preceded by commented lines, the offset of the first comment is returned.
+     * @return the start offset
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the byte offset following the last record of this split, which is
+     * the start of the next split.
+     * @return the end offset, exclusive
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes in this split.
+     * @return the length in bytes
+     */
+    public long getLength() {
+        return end - start;
+    }
+
+    /**
+     * Returns the line number of the first record of this split.
+     * @return the line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + start + ", " + end + ", line=" + lineNumber + "]";
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+/**
+ * A {@link BeanWriter} that marshals batches of bean objects using multiple threads.
+ *
+ * <p>Bean objects passed to {@link #writeAll(Iterable)} are identified (and checked
+ * against the record and group layout of the mapping file) serially by the calling thread,
+ * and then marshalled to text in slices by a pool of worker threads.  The formatted text
+ * is written to the output stream by the calling thread in the same order the bean objects
+ * were iterated.  Bean objects must not be modified until <tt>writeAll</tt> returns.</p>
+ *
+ * <p>If a bean object cannot be identified or marshalled, the records of all preceding
+ * bean objects are written before the exception is thrown, so that the output stream
+ * is left in the same state as if each bean object was passed to {@link #write(Object)}.</p>
+ *
+ * <p>Parallel marshalling is supported for fixed length, delimited, CSV and JSON
+ * formatted streams.  Each worker thread uses its own {@link org.beanio.stream.RecordWriter},
+ * so a custom record writer must format each record independently of the records
+ * written before it.</p>
+ *
+ * <p>A <tt>ParallelBeanWriter</tt> is not thread safe, and must be closed to release
+ * its worker threads.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createParallelWriter(String, java.io.Writer, int)
+ */
+public interface ParallelBeanWriter extends BeanWriter {
+
+    /**
+     * Writes a batch of bean objects to this output stream.
+     * @param beans the bean objects to write
+     * @throws BeanWriterException if a record could not be identified for marshalling,
+     *   or in a few other rare (but fatal) cases
+     * @throws BeanWriterIOException if the underlying output stream throws an
+     *   {@link java.io.IOException}, or if this writer is closed
+     * @throws InvalidBeanException if BeanIO is configured to validate fields during marshalling,
+     *   and a field does not meet the configured validation rules
+     * @see #write(Object)
+     */
+    public void writeAll(Iterable<?> beans) throws BeanWriterException;
+
+    /**
+     * Writes a batch of bean objects to this output stream.
+     * @param recordName the record or group name bound to every bean object from the mapping file
+     * @param beans the bean objects to write
+     * @throws BeanWriterException if a record could not be identified for marshalling,
+     *   or in a few other rare (but fatal) cases
+     * @throws BeanWriterIOException if the underlying output stream throws an
+     *   {@link java.io.IOException}, or if this writer is closed
+     * @throws InvalidBeanException if BeanIO is configured to validate fields during marshalling,
+     *   and a field does not meet the configured validation rules
+     * @see #write(String, Object)
+     */
+    public void writeAll(String recordName, Iterable<?> beans) throws BeanWriterException;
+
+}
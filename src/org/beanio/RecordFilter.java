@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+/**
+ * A callback interface for deciding whether a record read by a {@link BeanReader} is
+ * unmarshalled, based on the text of one or more of its fields.
+ *
+ * <p>A filter is evaluated after a record is identified, and before any field is
+ * validated or converted.  A rejected record is skipped as if by {@link BeanReader#skip(int)},
+ * so that its field and bean objects are never created.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see BeanReader#setRecordFilter(String, RecordFilter, String...)
+ */
+public interface RecordFilter {
+
+    /**
+     * Returns whether a record should be unmarshalled.
+     * @param fieldText the text of the fields the filter was registered for, in the
+     *   same order, as extracted from the record before any padding is removed or the
+     *   field length is validated, with <tt>null</tt> for a field that is not present
+     *   in the record
+     * @return <tt>true</tt> to unmarshal the record, or <tt>false</tt> to skip it
+     */
+    public boolean accept(String[] fieldText);
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.io.File;
+
+/**
+ * Controls how a sharded {@link BeanWriter} divides its output among files.
+ *
+ * <p>Each bean object written is assigned a key by {@link #getKey(String, Object)}, and
+ * bean objects with equal keys are written to the same sequence of files.  By default, all
+ * bean objects are assigned a <tt>null</tt> key.  Each file of a key is named by
+ * {@link #getFile(Object, int)}, and a new file is started when the current file reaches
+ * the maximum number of records or bytes, if set.</p>
+ *
+ * <p>Every file is written by its own <tt>BeanWriter</tt>, so the record order and
+ * occurrences of the stream layout are enforced for each file.
+ * {@link #writeHeader(BeanWriter, Object, int)} is called when a file is opened, and
+ * {@link #writeTrailer(BeanWriter, Object, int, long)} before it is closed, so that header
+ * and trailer records can be written to every file.</p>
+ *
+ * <p>When bean objects are written by <tt>writeAll</tt> using more than one thread, the
+ * bean objects of different keys are marshalled concurrently, and the methods of this class
+ * may be called concurrently for different keys.  {@link #getKey(String, Object)} is
+ * always called by the thread writing the bean objects.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createShardedWriter(String, ShardPolicy, java.nio.charset.Charset, int)
+ */
+public abstract class ShardPolicy {
+
+    private long maxRecords;
+    private long maxBytes;
+
+    /**
+     * Constructs a new <tt>ShardPolicy</tt>.
+     */
+    public ShardPolicy() { }
+
+    /**
+     * Returns the key of a bean object, which determines the files it may be written to.
+     * Keys are compared using <tt>equals</tt>.  By default, <tt>null</tt> is returned.
+     * @param recordName the record or group name passed to the writer, or <tt>null</tt>
+     * @param bean the bean object to write
+     * @return the key of the bean object
+     */
+    public Object getKey(String recordName, Object bean) {
+        return null;
+    }
+
+    /**
+     * Returns the file to write for a key.
+     * @param key the key of the bean objects written to the file
+     * @param index the index of the file among the files of the key, starting at 0
+     * @return the {@link File} to write
+     */
+    public abstract File getFile(Object key, int index);
+
+    /**
+     * Called after a file is opened and before any bean objects are written to it.
+     * By default, this method does nothing.
+     * @param out the {@link BeanWriter} of the file
+     * @param key the key of the bean objects written to the file
+     * @param index the index of the file among the files of the key
+     * @throws BeanWriterException if a header record could not be written
+     */
+    public void writeHeader(BeanWriter out, Object key, int index) throws BeanWriterException { }
+
+    /**
+     * Called before a file is closed.  By default, this method does nothing.
+     * @param out the {@link BeanWriter} of the file
+     * @param key the key of the bean objects written to the file
+     * @param index the index of the file among the files of the key
+     * @param count the number of bean objects written to the file, excluding records
+     *   written by {@link #writeHeader(BeanWriter, Object, int)}
+     * @throws BeanWriterException if a trailer record could not be written
+     */
+    public void writeTrailer(BeanWriter out, Object key, int index, long count) throws BeanWriterException { }
+
+    /**
+     * Returns the maximum number of bean objects written to a file.
+     * @return the maximum number of bean objects, or 0 if not limited
+     */
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * Sets the maximum number of bean objects written to a file, excluding records
+     * written by {@link #writeHeader(BeanWriter, Object, int)} and
+     * {@link #writeTrailer(BeanWriter, Object, int, long)}.
+     * @param maxRecords the maximum number of bean objects, or 0 if not limited
+     */
+    public void setMaxRecords(long maxRecords) {
+        if (maxRecords < 0) {
+            throw new IllegalArgumentException("maxRecords must not be negative");
+        }
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * Returns the number of bytes after which a new file is started.
+     * @return the number of bytes, or 0 if not limited
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the number of bytes after which a new file is started.  A file is closed once
+     * its size reaches this limit after a bean object is written, so the size of a file
+     * may exceed the limit by the length of its last record and any trailer records.
+     * @param maxBytes the number of bytes, or 0 if not limited
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+}
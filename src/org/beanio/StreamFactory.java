@@ -16,10 +16,13 @@
 package org.beanio;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.*;
 
 import org.beanio.builder.StreamBuilder;
+import org.beanio.columnar.ColumnarReader;
 import org.beanio.internal.util.*;
+import org.beanio.metrics.MetricsListener;
 
 /**
  * A <tt>StreamFactory</tt> is used to load BeanIO mapping files and create 
@@ -38,6 +41,8 @@ import org.beanio.internal.util.*;
 public abstract class StreamFactory {
 
     private ClassLoader classLoader;
+    private MetricsListener metricsListener;
+    private int metricsSamplingInterval;
     
     /**
      * Constructs a new <tt>StreamFactory</tt>.
@@ -86,6 +91,293 @@ public abstract class StreamFactory {
         }
     }
 
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading from a file that may be compressed.
+     * 
+     * <p>Gzip and zlib (deflate) compressed files are detected from their first bytes,
+     * and other files are read as is.  Gzip files made up of members that include their 
+     * compressed size, such as files written by {@link #createCompressedWriter(String, File, Charset, int)}
+     * or <tt>bgzip</tt>, are decompressed by multiple threads ahead of the reader.
+     * Other gzip files are decompressed by a single background thread.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to read
+     * @param charset the character set of the decompressed file
+     * @param threads the number of threads used to decompress gzip files
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support reading an input stream
+     * @throws BeanReaderIOException if the file could not be opened for reading
+     * @since 3.0
+     */
+    public BeanReader createCompressedReader(String name, File file, Charset charset, int threads) 
+        throws IllegalArgumentException, BeanReaderIOException {
+        if (!isMapped(name)) {
+            throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        
+        InputStream fin = null;
+        try {
+            fin = new FileInputStream(file);
+            Reader in = new BufferedReader(new InputStreamReader(IOUtil.decompress(fin, threads), charset));
+            fin = null;
+            try {
+                return createReader(name, in);
+            }
+            catch (RuntimeException ex) {
+                IOUtil.closeQuietly(in);
+                throw ex;
+            }
+        }
+        catch (IOException ex) {
+            throw new BeanReaderIOException("Failed to open file '" + file + "' for reading", ex);
+        }
+        finally {
+            IOUtil.closeQuietly(fin);
+        }
+    }
+
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading an input split of a file using the
+     * default character set.
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to read
+     * @param split the {@link InputSplit} to read
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode or format does not support reading an input split
+     * @throws BeanReaderIOException if the file could not be opened for reading
+     * @since 3.0
+     * @see #planSplits(String, File, int)
+     */
+    public BeanReader createReader(String name, File file, InputSplit split)
+        throws IllegalArgumentException, BeanReaderIOException {
+        return createReader(name, file, Charset.defaultCharset(), split);
+    }
+    
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading an input split of a file.
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to read
+     * @param charset the character set of the file
+     * @param split the {@link InputSplit} to read
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode or format does not support reading an input split
+     * @throws BeanReaderIOException if the file could not be opened for reading
+     * @since 3.0
+     * @see #planSplits(String, File, Charset, int)
+     */
+    public BeanReader createReader(String name, File file, Charset charset, InputSplit split)
+        throws IllegalArgumentException, BeanReaderIOException {
+        if (!isMapped(name)) {
+            throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+        }
+        
+        FileInputStream fin = null;
+        try {
+            fin = new FileInputStream(file);
+            fin.getChannel().position(split.getStart());
+            Reader in = new BufferedReader(new InputStreamReader(
+                new BoundedInputStream(fin, split.getLength()), charset));
+            return createReader(name, in, split);
+        }
+        catch (IOException ex) {
+            IOUtil.closeQuietly(fin);
+            throw new BeanReaderIOException("Failed to open file '" + file + "' for reading", ex);
+        }
+        catch (RuntimeException ex) {
+            IOUtil.closeQuietly(fin);
+            throw ex;            
+        }
+    }
+    
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading an input split.  Line numbers of the
+     * records read are relative to the start of the file that was split.
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from, which must start at the first byte of
+     *   the split and end after its last byte
+     * @param split the {@link InputSplit} to read
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode or format does not support reading an input split
+     * @since 3.0
+     */
+    public abstract BeanReader createReader(String name, Reader in, InputSplit split)
+        throws IllegalArgumentException;
+    
+    /**
+     * Divides a file into input splits using the default character set.
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to divide
+     * @param count the maximum number of splits
+     * @return the list of {@link InputSplit}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode, format or character set does not support input splits
+     * @throws BeanReaderIOException if the file could not be read
+     * @since 3.0
+     * @see #planSplits(String, File, Charset, int)
+     */
+    public List<InputSplit> planSplits(String name, File file, int count)
+        throws IllegalArgumentException, BeanReaderIOException {
+        return planSplits(name, file, Charset.defaultCharset(), count);
+    }
+    
+    /**
+     * Divides a file into input splits that start and end on record boundaries, so
+     * that each split can be read independently, for example by another process.
+     * 
+     * <p>Record boundaries are found by reading the file once using the record reader of
+     * the stream format, so that quoted line breaks, line continuations, escaped characters
+     * and comments are handled exactly as when the file is read.  Records are not unmarshalled.
+     * Splits are of roughly equal size, and each split is read using
+     * {@link #createReader(String, File, Charset, InputSplit)}.</p>
+     * 
+     * <p>Record order and occurrences are validated within each split only, so a record that
+     * may only occur at the start or end of a file, such as a header, may fail validation
+     * when read from another split.  Only character based formats where records are
+     * read independently are supported, which excludes XML, and the file must be encoded
+     * using UTF-8 or a single byte character set.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to divide
+     * @param charset the character set of the file
+     * @param count the maximum number of splits
+     * @return the list of {@link InputSplit} in file order, which may have fewer splits
+     *   than requested if the file has fewer records, or none if the file is empty
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode, format or character set does not support input splits, or if
+     *   the count is less than 1
+     * @throws BeanReaderIOException if the file could not be read
+     * @since 3.0
+     */
+    public abstract List<InputSplit> planSplits(String name, File file, Charset charset, int count)
+        throws IllegalArgumentException, BeanReaderIOException;
+    
+    /**
+     * Reads the last records of a file using the default character set.
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to read
+     * @param recordName the name of the record to read, or null to read any record
+     * @param count the maximum number of records to read
+     * @return the list of unmarshalled bean objects
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode or format does not support reading the tail of a file,
+     *   or if the record is not found
+     * @throws BeanReaderIOException if the file could not be read
+     * @throws BeanReaderException if a record read is malformed or invalid
+     * @since 3.0
+     * @see #readTail(String, File, Charset, String, int)
+     */
+    public List<Object> readTail(String name, File file, String recordName, int count)
+        throws IllegalArgumentException, BeanReaderException {
+        return readTail(name, file, Charset.defaultCharset(), recordName, count);
+    }
+    
+    /**
+     * Reads the last records of a file without reading the rest of the file, for
+     * example to check the control totals of a trailer record before the file is loaded.
+     * 
+     * <p>Lines are read backwards from the end of the file, and each line is identified
+     * and unmarshalled using the record definitions of the stream, until the requested
+     * number of records is found or the start of the file is reached.  Lines that are not
+     * identified, or that do not match the requested record, are skipped.  Since the
+     * rest of the file is not read, record order and occurrences are not validated, and
+     * records are reported with a line number of 0.</p>
+     * 
+     * <p>Only fixed length, delimited and CSV formats where each record is terminated by a
+     * line break are supported, excluding multi-line CSV records and line continuation.
+     * The file must be encoded using UTF-8 or a single byte character set.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param file the {@link File} to read
+     * @param charset the character set of the file
+     * @param recordName the name of the record to read, or null to read any record
+     * @param count the maximum number of records to read
+     * @return the list of unmarshalled bean objects, in the order they appear in the file
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode, format or character set does not support reading the tail
+     *   of a file, or if the record is not found
+     * @throws BeanReaderIOException if the file could not be read
+     * @throws BeanReaderException if a record read is malformed or invalid
+     * @since 3.0
+     */
+    public abstract List<Object> readTail(String name, File file, Charset charset, String recordName, int count)
+        throws IllegalArgumentException, BeanReaderException;
+    
+    /**
+     * Sorts the records of a file by the values of one or more key fields, and writes them
+     * to another file using bounded memory.  Files are read and written using the default 
+     * character set.
+     * @param name the name of the stream in the mapping file
+     * @param in the {@link File} to read
+     * @param out the {@link File} to write
+     * @param keyFields the names of the key fields, in order of precedence
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode or format does not support sorting, or if a key field is 
+     *   not found
+     * @throws BeanReaderIOException if the input file could not be read
+     * @throws BeanWriterIOException if the output file could not be written
+     * @throws BeanReaderException if a record read is malformed, unidentified, or has an 
+     *   invalid key field
+     * @since 3.0
+     * @see StreamSorter
+     */
+    public void sort(String name, File in, File out, String... keyFields) 
+        throws IllegalArgumentException, BeanIOException {
+        StreamSorter sorter = createSorter(name, keyFields);
+        
+        Reader reader = null;
+        Writer writer = null;
+        try {
+            try {
+                reader = new BufferedReader(new FileReader(in));
+            }
+            catch (IOException ex) {
+                throw new BeanReaderIOException("Failed to open file '" + in + "' for reading", ex);
+            }
+            try {
+                writer = new BufferedWriter(new FileWriter(out));
+            }
+            catch (IOException ex) {
+                throw new BeanWriterIOException("Failed to open file '" + out + "' for writing", ex);
+            }
+            
+            sorter.sort(reader, writer);
+            
+            try {
+                writer.close();
+                writer = null;
+            }
+            catch (IOException ex) {
+                throw new BeanWriterIOException("Failed to write file '" + out + "'", ex);
+            }
+        }
+        finally {
+            IOUtil.closeQuietly(reader);
+            IOUtil.closeQuietly(writer);
+        }
+    }
+    
+    /**
+     * Creates a new {@link StreamSorter} for sorting the records of a stream by the 
+     * values of one or more key fields.  Only fixed length, delimited and CSV formatted
+     * streams are supported.
+     * @param name the name of the stream in the mapping file
+     * @param keyFields the names of the key fields, in order of precedence
+     * @return the new {@link StreamSorter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode or format does not support sorting, if no record maps 
+     *   every key field, or if a key field is not comparable
+     * @since 3.0
+     */
+    public abstract StreamSorter createSorter(String name, String... keyFields)
+        throws IllegalArgumentException;
+    
     /**
      * Creates a new <tt>BeanReader</tt> for reading from the given input stream.
      * @param name the name of the stream in the mapping file
@@ -109,7 +401,184 @@ public abstract class StreamFactory {
      */
     public abstract BeanReader createReader(String name, Reader in, Locale locale)
         throws IllegalArgumentException;
+    
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading from a byte input stream.  Streams
+     * configured with a {@link org.beanio.stream.ByteRecordParserFactory} read bytes
+     * directly, and all other streams decode bytes using the default character set.
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support reading an input stream
+     * @since 3.0
+     */
+    public BeanReader createReader(String name, InputStream in) throws IllegalArgumentException {
+        return createReader(name, in, Locale.getDefault());
+    }
+    
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading from a byte input stream.
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from
+     * @param locale the {@link Locale} used to format error messages, or null to use {@link Locale#getDefault()}
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support reading an input stream
+     * @since 3.0
+     * @see #createReader(String, InputStream)
+     */
+    public abstract BeanReader createReader(String name, InputStream in, Locale locale)
+        throws IllegalArgumentException;
+    
+    /**
+     * Creates a new <tt>BeanReader</tt> for reading from a stream that only unmarshals
+     * the given bean properties.
+     * 
+     * <p>A property path is a list of segment and field names separated by a period, relative
+     * to the record or group a bean object is read from (for example <tt>header.id</tt>), and
+     * may be prefixed by the name of the record or group.  A path that names a segment, record
+     * or group includes all of its fields.  Fields that are not included are not extracted,
+     * validated or converted, and their properties are left unset, except for fields used to
+     * identify records.  For delimited and CSV streams, fields after the last included field of
+     * any record are not materialized by the record reader.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from
+     * @param locale the {@link Locale} used to format error messages, or null to use {@link Locale#getDefault()}
+     * @param properties the property paths to unmarshal, or null to unmarshal all properties
+     * @return the created {@link BeanReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support reading an input stream, or if a property
+     *   path does not match any field in the stream
+     * @since 3.0
+     */
+    public abstract BeanReader createReader(String name, Reader in, Locale locale, Set<String> properties)
+        throws IllegalArgumentException;
 
+    /**
+     * Validates every record read from an input stream without creating bean objects.
+     * This method is equivalent to calling {@link #validate(String, Reader, BeanReaderErrorHandler, int)}
+     * using a single thread.
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from, which is read to the end but not closed
+     * @param errorHandler the {@link BeanReaderErrorHandler} to pass errors to,
+     *   or null to throw the first error
+     * @return the number of records read
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support reading an input stream
+     * @throws BeanReaderException if an error is not handled by the error handler
+     * @since 3.0
+     */
+    public long validate(String name, Reader in, BeanReaderErrorHandler errorHandler)
+        throws IllegalArgumentException, BeanReaderException {
+        return validate(name, in, errorHandler, 1);
+    }
+    
+    /**
+     * Validates every record read from an input stream without creating bean objects.
+     * 
+     * <p>Records are identified and validated against the stream layout exactly as by a
+     * {@link BeanReader}, and every field is validated and converted to its property type,
+     * but no bean object or collection is created.  Each exception that would have been
+     * thrown by {@link BeanReader#read()} is passed to the error handler, in the order the
+     * records were read.</p>
+     * 
+     * <p>If more than one thread is used, records are still read and identified by the
+     * calling thread, and the fields of records that are not part of a record group bound
+     * to a bean object are validated in batches by a pool of worker threads.  The error
+     * handler is always invoked by the calling thread.  XML formatted streams are always
+     * validated by the calling thread.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from, which is read to the end but not closed
+     * @param errorHandler the {@link BeanReaderErrorHandler} to pass errors to,
+     *   or null to throw the first error
+     * @param threads the number of threads used to validate records
+     * @return the number of records read
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support reading an input stream, or if the
+     *   number of threads is less than 1
+     * @throws BeanReaderException if an error is not handled by the error handler
+     * @since 3.0
+     */
+    public abstract long validate(String name, Reader in, BeanReaderErrorHandler errorHandler, int threads)
+        throws IllegalArgumentException, BeanReaderException;
+    
+    /**
+     * Creates a new {@link ColumnarReader} for reading the fields of the only record of a stream
+     * into batches of column vectors.
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from
+     * @param batchSize the maximum number of records in a batch
+     * @return the created {@link ColumnarReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode does not support reading an input stream, if the stream
+     *   has more than one record, or if the batch size is less than 1
+     * @since 3.0
+     * @see #createColumnarReader(String, Reader, String, int)
+     */
+    public ColumnarReader createColumnarReader(String name, Reader in, int batchSize)
+        throws IllegalArgumentException {
+        return createColumnarReader(name, in, null, batchSize);
+    }
+    
+    /**
+     * Creates a new {@link ColumnarReader} for reading the fields of a record into batches
+     * of column vectors, without creating a bean object for each record.
+     * 
+     * <p>Each batch holds one column for each field of the record, including the fields
+     * of nested segments, but excluding repeating segments and fields.  Primitive and primitive
+     * wrapper values are stored in primitive arrays, strings in a shared character array,
+     * and nulls in a bitmap.  Records of other types are validated but not returned.  A record
+     * that belongs to a record group bound to a bean object cannot be read.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param in the input stream to read from
+     * @param recordName the name of the record to read, or null if the stream has only one record
+     * @param batchSize the maximum number of records in a batch
+     * @return the created {@link ColumnarReader}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, if
+     *   the stream mapping mode does not support reading an input stream, if the record is
+     *   not found or cannot be read into columns, or if the batch size is less than 1
+     * @since 3.0
+     */
+    public abstract ColumnarReader createColumnarReader(String name, Reader in, String recordName, int batchSize)
+        throws IllegalArgumentException;
+    
+    /**
+     * Creates a new <tt>BeanParser</tt> for parsing input that is pushed to the parser
+     * in chunks.
+     * @param name the name of the stream in the mapping file
+     * @param charset the {@link Charset} used to decode fed bytes, or null to use the
+     *   default charset
+     * @param listener the {@link BeanParserListener} notified of each unmarshalled bean object
+     * @return the created {@link BeanParser}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode or format does not support push parsing
+     * @since 3.0
+     */
+    public BeanParser createParser(String name, Charset charset, BeanParserListener listener)
+        throws IllegalArgumentException {
+        return createParser(name, charset, listener, Locale.getDefault());
+    }
+    
+    /**
+     * Creates a new <tt>BeanParser</tt> for parsing input that is pushed to the parser
+     * in chunks.
+     * @param name the name of the stream in the mapping file
+     * @param charset the {@link Charset} used to decode fed bytes, or null to use the
+     *   default charset
+     * @param listener the {@link BeanParserListener} notified of each unmarshalled bean object
+     * @param locale the {@link Locale} used to format error messages, or null to use {@link Locale#getDefault()}
+     * @return the created {@link BeanParser}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode or format does not support push parsing
+     * @since 3.0
+     */
+    public abstract BeanParser createParser(String name, Charset charset, BeanParserListener listener, 
+        Locale locale) throws IllegalArgumentException;
+    
     /**
      * Creates a new {@link Unmarshaller} for unmarshalling records.
      * @param name the name of the stream in the mapping file
@@ -131,6 +600,22 @@ public abstract class StreamFactory {
      */
     public abstract Unmarshaller createUnmarshaller(String name, Locale locale);
     
+    /**
+     * Creates a new {@link Unmarshaller} for unmarshalling records that only unmarshals
+     * the given bean properties.  Property paths are described by
+     * {@link #createReader(String, Reader, Locale, Set)}.
+     * @param name the name of the stream in the mapping file
+     * @param locale the {@link Locale} used to format error messages, or null to use {@link Locale#getDefault()}
+     * @param properties the property paths to unmarshal, or null to unmarshal all properties
+     * @return the created {@link Unmarshaller}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support unmarshalling, or if a property
+     *   path does not match any field in the stream
+     * @since 3.0
+     */
+    public abstract Unmarshaller createUnmarshaller(String name, Locale locale, Set<String> properties)
+        throws IllegalArgumentException;
+    
     /**
      * Creates a new <tt>BeanWriter</tt> for writing to the given file.
      * @param name the name of the stream in the mapping file
@@ -159,7 +644,124 @@ public abstract class StreamFactory {
             throw ex;
         }
     }
+    
+    /**
+     * Creates a new <tt>BeanWriter</tt> for writing to a gzip compressed file.
+     * 
+     * <p>Written text is compressed in blocks by multiple threads, and each block is written
+     * as a separate gzip member that includes its compressed size.  The file can be read
+     * by any gzip reader, and decompressed in parallel by 
+     * {@link #createCompressedReader(String, File, Charset, int)}.  Calling 
+     * <tt>flush()</tt> on the writer ends the current block, so frequent flushing reduces
+     * the compression ratio.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param file the file to write to
+     * @param charset the character set used to encode text before it is compressed
+     * @param threads the number of threads used to compress blocks
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support writing to an output stream
+     * @throws BeanWriterIOException if the file could not be opened for writing
+     * @since 3.0
+     */
+    public BeanWriter createCompressedWriter(String name, File file, Charset charset, int threads) 
+        throws IllegalArgumentException, BeanWriterIOException {
+        if (!isMapped(name)) {
+            throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        
+        Writer out = null;
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(new ParallelGzipOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 65536), threads), charset));
+            return createWriter(name, out);
+        }
+        catch (IOException ex) {
+            IOUtil.closeQuietly(out);
+            throw new BeanWriterIOException("Failed to open file '" + file + "' for writing", ex);
+        }
+        catch (RuntimeException ex) {
+            IOUtil.closeQuietly(out);
+            throw ex;
+        }
+    }
 
+    /**
+     * Creates a new <tt>BeanWriter</tt> for writing to a file, that backfills counts and
+     * totals known only after all records are written into records written earlier,
+     * such as a header.  Records are encoded using the default character set.
+     * @param name the name of the stream in the mapping file
+     * @param file the file to write to
+     * @param backfills the records to backfill when the writer is closed
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing, or if a backfilled record
+     *   or field is not found
+     * @throws BeanWriterIOException if the file could not be opened for writing
+     * @since 3.0
+     * @see Backfill
+     */
+    public BeanWriter createWriter(String name, File file, Backfill... backfills) 
+        throws IllegalArgumentException, BeanWriterIOException {
+        return createWriter(name, file, Charset.defaultCharset(), backfills);
+    }
+    
+    /**
+     * Creates a new <tt>BeanWriter</tt> for writing to a file, that backfills counts and
+     * totals known only after all records are written into records written earlier,
+     * such as a header.  
+     * 
+     * <p>When the writer is closed, each backfilled record is marshalled again and written
+     * over the original, so its length in bytes must not change.  Fixed length streams, or
+     * fields with a fixed <tt>length</tt> or padding, should be used.  Only records that
+     * are not part of a group bound to a bean object are counted.  XML streams are not
+     * supported.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param file the file to write to
+     * @param charset the character set used to encode records, ignored by streams that
+     *   write bytes
+     * @param backfills the records to backfill when the writer is closed
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing, or if a backfilled record
+     *   or field is not found
+     * @throws BeanWriterIOException if the file could not be opened for writing
+     * @since 3.0
+     * @see Backfill
+     */
+    public abstract BeanWriter createWriter(String name, File file, Charset charset, Backfill... backfills)
+        throws IllegalArgumentException, BeanWriterIOException;
+    
+    /**
+     * Creates a new <tt>ParallelBeanWriter</tt> that divides the bean objects written
+     * among files, by the key of each bean object or by the size of each file.
+     * 
+     * <p>Each file is written by its own <tt>BeanWriter</tt>, and the {@link ShardPolicy} 
+     * may write header and trailer records to each file.  Bean objects passed to 
+     * <tt>writeAll</tt> are grouped by key, and if more than one thread is used, the bean
+     * objects of different keys are marshalled concurrently.  If a bean object fails to
+     * marshal, bean objects of other keys passed to the same call may still be written.
+     * All files are closed when the writer is closed.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param policy the {@link ShardPolicy} that names files and assigns bean objects to them
+     * @param charset the character set used to encode records, ignored by streams that
+     *   write bytes
+     * @param threads the number of threads used to marshal bean objects of different keys
+     * @return the created {@link ParallelBeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing, or if the number of threads
+     *   is less than 1
+     * @since 3.0
+     */
+    public abstract ParallelBeanWriter createShardedWriter(String name, ShardPolicy policy, Charset charset, int threads)
+        throws IllegalArgumentException;
+    
     /**
      * Creates a new <tt>BeanWriter</tt> for writing to a stream.
      * @param name the name of the stream in the mapping file
@@ -170,7 +772,109 @@ public abstract class StreamFactory {
      */
     public abstract BeanWriter createWriter(String name, Writer out)
         throws IllegalArgumentException;
+    
+    /**
+     * Creates a new <tt>BeanWriter</tt> for writing to a byte output stream.  Streams
+     * configured with a {@link org.beanio.stream.ByteRecordParserFactory} write bytes
+     * directly, and all other streams encode characters using the default character set.
+     * @param name the name of the stream in the mapping file
+     * @param out the output stream to write to
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support writing to an output stream
+     * @since 3.0
+     */
+    public abstract BeanWriter createWriter(String name, OutputStream out)
+        throws IllegalArgumentException;
 
+    /**
+     * Creates a new <tt>BeanWriter</tt> that marshals bean objects on the calling thread,
+     * and writes the marshalled text to a stream from a dedicated background thread.
+     * Eight buffers of 8192 characters are used.
+     * @param name the name of the stream in the mapping file
+     * @param out the output stream to write to
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name, or
+     *   if the stream mapping mode does not support writing to an output stream
+     * @since 3.0
+     * @see #createAsyncWriter(String, Writer, int, int)
+     */
+    public BeanWriter createAsyncWriter(String name, Writer out) throws IllegalArgumentException {
+        return createAsyncWriter(name, out, 8, 8192);
+    }
+    
+    /**
+     * Creates a new <tt>BeanWriter</tt> that marshals bean objects on the calling thread,
+     * and writes the marshalled text to a stream from a dedicated background thread.
+     * 
+     * <p>Marshalled text is copied into a bounded ring of buffers.  When every buffer is
+     * waiting to be written, <tt>write</tt> blocks until the background thread catches up.
+     * <tt>flush()</tt> and <tt>close()</tt> block until all buffered text has been written
+     * and the output stream has been flushed or closed.  An {@link IOException} thrown by
+     * the output stream is rethrown as a {@link BeanWriterIOException} by the next call
+     * to the writer.  The background thread runs until the writer is closed.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param out the output stream to write to
+     * @param bufferCount the number of buffers, which must be at least 2
+     * @param bufferSize the size of each buffer in characters
+     * @return the created {@link BeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing to an output stream, or if
+     *   the buffer count or size is invalid
+     * @since 3.0
+     */
+    public BeanWriter createAsyncWriter(String name, Writer out, int bufferCount, int bufferSize)
+        throws IllegalArgumentException {
+        
+        if (!isMapped(name)) {
+            throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+        }
+        
+        return createWriter(name, new AsyncWriter(out, bufferCount, bufferSize));
+    }
+    
+    /**
+     * Creates a new {@link ParallelBeanWriter} for marshalling batches of bean objects
+     * to a stream using multiple threads.  Worker threads marshal 256 bean objects at a time.
+     * @param name the name of the stream in the mapping file
+     * @param out the output stream to write to
+     * @param threads the number of worker threads
+     * @return the created {@link ParallelBeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing to an output stream, or if
+     *   the stream format does not support parallel marshalling
+     * @since 3.0
+     * @see #createParallelWriter(String, Writer, int, int)
+     */
+    public ParallelBeanWriter createParallelWriter(String name, Writer out, int threads)
+        throws IllegalArgumentException {
+        return createParallelWriter(name, out, threads, 256);
+    }
+    
+    /**
+     * Creates a new {@link ParallelBeanWriter} for marshalling batches of bean objects
+     * to a stream using multiple threads.
+     * 
+     * <p>Bean objects are identified serially, and marshalled to text in slices of
+     * <tt>batchSize</tt> bean objects by a pool of worker threads.  The text is written
+     * to the output stream in order by the calling thread.  Parallel marshalling is not
+     * supported for XML formatted streams.</p>
+     * 
+     * @param name the name of the stream in the mapping file
+     * @param out the output stream to write to
+     * @param threads the number of worker threads
+     * @param batchSize the number of bean objects marshalled by a worker thread at a time
+     * @return the created {@link ParallelBeanWriter}
+     * @throws IllegalArgumentException if there is no stream configured for the given name,
+     *   if the stream mapping mode does not support writing to an output stream, if
+     *   the stream format does not support parallel marshalling, or if the number of
+     *   threads or batch size is less than 1
+     * @since 3.0
+     */
+    public abstract ParallelBeanWriter createParallelWriter(String name, Writer out, int threads, int batchSize)
+        throws IllegalArgumentException;
+    
     /**
      * Creates a new {@link Marshaller} for marshalling bean objects.
      * @param name the name of the stream in the mapping file
@@ -363,6 +1067,81 @@ public abstract class StreamFactory {
      */
     public abstract boolean isMapped(String streamName);
     
+    /**
+     * Compiles named streams that have been loaded but not yet compiled, so that
+     * the cost of compiling them (and any configuration error) is not deferred until
+     * they are first used.  Streams are only compiled lazily if the 
+     * <tt>org.beanio.lazyStreamCompilation</tt> setting is enabled.
+     * @param names the names of the streams to compile, or none to compile
+     *   every loaded stream
+     * @throws IllegalArgumentException if there is no stream configured for a given name
+     * @throws BeanIOConfigurationException if a stream configuration is invalid
+     * @since 3.0
+     */
+    public void precompile(String... names) throws IllegalArgumentException, BeanIOConfigurationException {
+        for (String name : names) {
+            if (!isMapped(name)) {
+                throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+            }
+        }
+    }
+    
+    /**
+     * Sets the {@link MetricsListener} notified by bean readers and writers created
+     * by this factory.  Bean objects are sampled for timing according to the
+     * <tt>org.beanio.metricsSamplingInterval</tt> setting.
+     * @param listener the {@link MetricsListener}, or <tt>null</tt> to disable metrics
+     * @since 3.0
+     * @see #setMetricsListener(MetricsListener, int)
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, Settings.getInstance().getInt(Settings.METRICS_SAMPLING_INTERVAL, 100));
+    }
+    
+    /**
+     * Sets the {@link MetricsListener} notified by bean readers and writers created
+     * by this factory.  Readers and writers already created are not affected.
+     * 
+     * <p>Counts and errors are reported for every record.  Timings are only measured
+     * and reported for one in every <tt>samplingInterval</tt> bean objects read or
+     * written by a reader or writer, starting with the first.  If no listener is set,
+     * metrics add no overhead.</p>
+     * 
+     * @param listener the {@link MetricsListener}, or <tt>null</tt> to disable metrics
+     * @param samplingInterval the number of bean objects read or written for each
+     *   bean object that is timed, 1 to time every bean object, or 0 to disable timing
+     * @throws IllegalArgumentException if <tt>samplingInterval</tt> is negative
+     * @since 3.0
+     */
+    public void setMetricsListener(MetricsListener listener, int samplingInterval)
+        throws IllegalArgumentException {
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException("samplingInterval must not be negative");
+        }
+        this.metricsListener = listener;
+        this.metricsSamplingInterval = samplingInterval;
+    }
+    
+    /**
+     * Returns the {@link MetricsListener} notified by bean readers and writers created
+     * by this factory.
+     * @return the {@link MetricsListener}, or <tt>null</tt> if metrics are disabled
+     * @since 3.0
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+    
+    /**
+     * Returns the number of bean objects read or written for each bean object
+     * that is timed.
+     * @return the sampling interval
+     * @since 3.0
+     */
+    public int getMetricsSamplingInterval() {
+        return metricsSamplingInterval;
+    }
+    
     /**
      * This method is invoked after a StreamFactory is loaded and all attributes
      * have been set.
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio;
+
+import java.io.*;
+
+/**
+ * Sorts the records of a stream by the values of one or more mapped key fields, using
+ * bounded memory.
+ *
+ * <p>Records are read using the record reader of the stream format, and only the key
+ * fields of each record are unmarshalled.  Records are sorted in runs of at most
+ * <tt>runSize</tt> records by a pool of worker threads, and runs are spilled to temporary
+ * files until the end of the input stream is reached.  Runs are then merged, and each
+ * record is written using the record writer of the stream format without being marshalled.
+ * Records with equal keys are written in the order they were read.</p>
+ *
+ * <p>Key field values are compared using their natural order, with null values first.
+ * Key fields must be mapped to a type that implements <tt>Comparable</tt> and
+ * <tt>Serializable</tt>.  Records that do not map every key field, such as a header or
+ * trailer, are not sorted.
+ * They are written before the sorted records if they are read before the first sorted
+ * record, and after the sorted records otherwise.</p>
+ *
+ * <p>Since the input stream is not validated against the layout of the mapping file,
+ * record order and occurrences are not validated, and fields other than key fields are
+ * not validated.  Sorting is supported for fixed length, delimited and CSV formatted
+ * streams.</p>
+ *
+ * <p>A <tt>StreamSorter</tt> is not thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createSorter(String, String...)
+ */
+public interface StreamSorter {
+
+    /**
+     * Sorts the records of an input stream, and writes them to an output stream.  Neither
+     * stream is closed.
+     * @param in the input stream to read from
+     * @param out the output stream to write to
+     * @throws BeanReaderException if a record is malformed, unidentified, or has an invalid
+     *   key field
+     * @throws BeanReaderIOException if the input stream throws an {@link IOException}
+     * @throws BeanWriterIOException if the output stream throws an {@link IOException}
+     * @throws BeanIOException if a temporary file could not be written or read
+     */
+    public void sort(Reader in, Writer out) throws BeanIOException;
+
+    /**
+     * Sets the maximum number of records sorted in memory at a time by each thread.
+     * Defaults to 100,000.
+     * @param runSize the maximum number of records in a run
+     * @throws IllegalArgumentException if <tt>runSize</tt> is less than 1
+     */
+    public void setRunSize(int runSize) throws IllegalArgumentException;
+
+    /**
+     * Sets the number of worker threads used to sort and spill runs.  A run is held in
+     * memory by each thread, in addition to the run being read.  Defaults to 1.
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if <tt>threads</tt> is less than 1
+     */
+    public void setThreads(int threads) throws IllegalArgumentException;
+
+    /**
+     * Sets the directory in which runs are spilled to temporary files.
+     * @param directory the directory, or <tt>null</tt> to use the default temporary-file
+     *   directory
+     */
+    public void setTempDirectory(File directory);
+
+}
@@ -81,6 +81,22 @@ public @interface Field {
      */
     boolean lenientPadding() default false;
     
+    /**
+     * Whether to deduplicate unmarshalled <tt>String</tt> values.  Useful
+     * for fields with a small number of distinct values.
+     * @return true to deduplicate values, false otherwise
+     * @since 3.0
+     */
+    boolean dedupe() default false;
+    
+    /**
+     * Whether to cache values parsed by the type handler, so that repeated
+     * field text is only parsed once.
+     * @return true to cache parsed values, false otherwise
+     * @since 3.0
+     */
+    boolean memoize() default false;
+    
     /**
      * The alignment of a padded field.
      * @return {@link Align}
@@ -209,6 +209,29 @@ public class FieldBuilder extends PropertyBuilderSupport<FieldBuilder> {
         return this;
     }
     
+    /**
+     * Indicates unmarshalled <tt>String</tt> values should be replaced with a cached
+     * instance of an equal value.  Useful for fields with a small number of distinct values.
+     * @return this {@link FieldBuilder}
+     * @since 3.0
+     */
+    public FieldBuilder dedupe() {
+        config.setDedupe(true);
+        return this;
+    }
+    
+    /**
+     * Indicates values parsed by the type handler should be cached, so that repeated
+     * field text is only parsed once.  Useful for date and number fields with a small
+     * number of distinct values.
+     * @return this {@link FieldBuilder}
+     * @since 3.0
+     */
+    public FieldBuilder memoize() {
+        config.setMemoize(true);
+        return this;
+    }
+    
     /**
      * Sets the alignment or justification of this field if padded.
      * @param align the alignment
@@ -187,6 +187,18 @@ public class StreamBuilder extends GroupBuilderSupport<StreamBuilder> {
         return this;
     }
     
+    /**
+     * Sets the number of records read ahead by a background thread, so that
+     * reading from the input stream overlaps with unmarshalling.
+     * @param records the number of records to read ahead, or 0 to disable
+     * @return this
+     * @since 3.0
+     */
+    public StreamBuilder prefetch(int records) {
+        config.setPrefetch(records);
+        return this;
+    }
+    
     /**
      * Builds the stream configuration.
      * @return the stream configuration
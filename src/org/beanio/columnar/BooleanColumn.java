@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+/**
+ * A {@link Column} that stores boolean values in a <tt>boolean</tt> array.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class BooleanColumn extends Column {
+
+    private final boolean[] values;
+
+    /**
+     * Constructs a new <tt>BooleanColumn</tt>.
+     * @param name the column name
+     * @param type the field property type
+     * @param capacity the maximum number of rows
+     */
+    public BooleanColumn(String name, Class<?> type, int capacity) {
+        super(name, type, capacity);
+        this.values = new boolean[capacity];
+    }
+
+    /**
+     * Returns the value of a row.
+     * @param row the row index
+     * @return the value, or false if the row value is null
+     */
+    public boolean get(int row) {
+        return values[row];
+    }
+
+    /**
+     * Returns the array backing this column.  Only the elements up to the size of
+     * the current batch are valid.
+     * @return the <tt>boolean</tt> array
+     */
+    public boolean[] getValues() {
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#getObject(int)
+     */
+    @Override
+    public Object getObject(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return values[row];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#set(int, java.lang.Object)
+     */
+    @Override
+    void set(int row, Object value) {
+        values[row] = value == null ? false : ((Boolean) value).booleanValue();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+import java.util.Arrays;
+
+/**
+ * A column vector holding the values of one field for each row of a {@link ColumnBatch}.
+ *
+ * <p>Values of primitive and primitive wrapper types are stored in a primitive array by
+ * {@link IntColumn}, {@link LongColumn}, {@link DoubleColumn} and {@link BooleanColumn}.
+ * Strings are stored in a shared character array by {@link StringColumn}, and values of any
+ * other type are stored by an {@link ObjectColumn}.  Null values are tracked using a bitmap,
+ * and the primitive value of a null row is always zero or false.</p>
+ *
+ * <p>A column is allocated once for the capacity of its batch and reused for each
+ * batch read.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public abstract class Column {
+
+    private final String name;
+    private final Class<?> type;
+    private final long[] nulls;
+    private int nullCount;
+
+    /**
+     * Constructs a new <tt>Column</tt>.
+     * @param name the column name
+     * @param type the field property type
+     * @param capacity the maximum number of rows
+     */
+    Column(String name, Class<?> type, int capacity) {
+        this.name = name;
+        this.type = type;
+        this.nulls = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Creates a column for storing values of the given type.
+     * @param name the column name
+     * @param type the field property type
+     * @param capacity the maximum number of rows
+     * @return the new {@link Column}
+     */
+    public static Column newColumn(String name, Class<?> type, int capacity) {
+        if (type == Integer.class || type == Integer.TYPE || type == Short.class || type == Short.TYPE ||
+            type == Byte.class || type == Byte.TYPE) {
+            return new IntColumn(name, type, capacity);
+        }
+        else if (type == Long.class || type == Long.TYPE) {
+            return new LongColumn(name, type, capacity);
+        }
+        else if (type == Double.class || type == Double.TYPE || type == Float.class || type == Float.TYPE) {
+            return new DoubleColumn(name, type, capacity);
+        }
+        else if (type == Boolean.class || type == Boolean.TYPE) {
+            return new BooleanColumn(name, type, capacity);
+        }
+        else if (type == String.class) {
+            return new StringColumn(name, capacity);
+        }
+        else {
+            return new ObjectColumn(name, type, capacity);
+        }
+    }
+
+    /**
+     * Returns the name of this column.
+     * @return the column name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the property type of the field stored in this column.
+     * @return the property type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns whether the value of a row is null.
+     * @param row the row index
+     * @return true if null, false otherwise
+     */
+    public boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Returns the number of null values in the current batch.
+     * @return the number of null values
+     */
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Returns the value of a row as an object, boxing a primitive value.
+     * @param row the row index
+     * @return the value, or <tt>null</tt> if the row value is null
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Sets the value of a row.
+     * @param row the row index
+     * @param value the value, or <tt>null</tt>
+     */
+    void add(int row, Object value) {
+        if (value == null) {
+            nulls[row >>> 6] |= 1L << row;
+            ++nullCount;
+        }
+        set(row, value);
+    }
+
+    /**
+     * Stores the value of a row.
+     * @param row the row index
+     * @param value the value, or <tt>null</tt> to store the default value
+     */
+    abstract void set(int row, Object value);
+
+    /**
+     * Clears this column before the next batch is read.
+     * @param size the number of rows in the current batch
+     */
+    void clear(int size) {
+        if (nullCount > 0) {
+            Arrays.fill(nulls, 0, (size + 63) >>> 6, 0L);
+            nullCount = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[name=" + name + ", type=" + type.getName() + "]";
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+import java.util.*;
+
+/**
+ * A batch of records read by a {@link ColumnarReader}, stored as one {@link Column}
+ * for each field of the record.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ColumnBatch {
+
+    private final Column[] columns;
+    private final int capacity;
+    private final Map<String,Column> columnMap;
+    private int size;
+
+    /**
+     * Constructs a new <tt>ColumnBatch</tt>.
+     * @param columns the columns of the batch, which must have the same capacity
+     * @param capacity the maximum number of rows in the batch
+     */
+    public ColumnBatch(List<Column> columns, int capacity) {
+        this.columns = columns.toArray(new Column[columns.size()]);
+        this.capacity = capacity;
+        this.columnMap = new LinkedHashMap<String,Column>();
+        for (Column column : this.columns) {
+            columnMap.put(column.getName(), column);
+        }
+    }
+
+    /**
+     * Returns the number of rows in this batch.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of rows in this batch.
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns whether this batch holds its maximum number of rows.
+     * @return true if full, false otherwise
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Returns the columns of this batch in the order their fields are declared.
+     * @return the unmodifiable list of {@link Column}'s
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Returns the column at the given index.
+     * @param index the column index
+     * @return the {@link Column}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Returns the column with the given name.  The name of a column is the name
+     * of its field, prefixed by the names of any enclosing segments separated by a
+     * period, for example <tt>address.city</tt>.
+     * @param name the column name
+     * @return the {@link Column}, or <tt>null</tt> if there is no column with the given name
+     */
+    public Column getColumn(String name) {
+        return columnMap.get(name);
+    }
+
+    /**
+     * Adds a row to this batch.
+     * @param values the value of each column, where <tt>null</tt> is stored as a null
+     * @throws IllegalStateException if this batch is full
+     */
+    public void add(Object[] values) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        for (int i=0; i<columns.length; i++) {
+            columns[i].add(size, values[i]);
+        }
+        ++size;
+    }
+
+    /**
+     * Removes all rows from this batch.  Column arrays are retained.
+     */
+    public void clear() {
+        for (Column column : columns) {
+            column.clear(size);
+        }
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size + ", columns=" + columnMap.keySet() + "]";
+    }
+}
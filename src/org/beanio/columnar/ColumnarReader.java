@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+import org.beanio.*;
+
+/**
+ * Reads the fields of one record type from an input stream into batches of column vectors,
+ * without creating a bean object for each record.
+ *
+ * <p>Records are identified and validated against the stream layout exactly as by a
+ * {@link BeanReader}.  The field values of each record read for the selected record type are
+ * added as a row to the current {@link ColumnBatch}.  Other records are validated and
+ * discarded.</p>
+ *
+ * <p>The same <tt>ColumnBatch</tt> is returned by every call to {@link #read()}, and is
+ * cleared before the next batch is read, so that column arrays are allocated only once.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamFactory#createColumnarReader(String, java.io.Reader, int)
+ */
+public interface ColumnarReader {
+
+    /**
+     * Reads the next batch of records.
+     * @return the {@link ColumnBatch} holding at least one record, or <tt>null</tt> if the
+     *   end of the stream was reached
+     * @throws BeanReaderException if an exception is not handled by the error handler
+     */
+    public ColumnBatch read() throws BeanReaderException;
+
+    /**
+     * Sets the error handler to handle exceptions thrown while reading records.  Records
+     * that fail validation are not added to a batch.
+     * @param errorHandler the {@link BeanReaderErrorHandler}, or <tt>null</tt> to
+     *   throw the first exception
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler);
+
+    /**
+     * Closes the underlying input stream.
+     * @throws BeanReaderIOException if an I/O error occurs
+     */
+    public void close() throws BeanReaderIOException;
+
+}
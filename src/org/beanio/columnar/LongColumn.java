@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+/**
+ * A {@link Column} that stores long values in a <tt>long</tt> array.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class LongColumn extends Column {
+
+    private final long[] values;
+
+    /**
+     * Constructs a new <tt>LongColumn</tt>.
+     * @param name the column name
+     * @param type the field property type
+     * @param capacity the maximum number of rows
+     */
+    public LongColumn(String name, Class<?> type, int capacity) {
+        super(name, type, capacity);
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Returns the value of a row.
+     * @param row the row index
+     * @return the value, or 0 if the row value is null
+     */
+    public long get(int row) {
+        return values[row];
+    }
+
+    /**
+     * Returns the array backing this column.  Only the elements up to the size of
+     * the current batch are valid.
+     * @return the <tt>long</tt> array
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#getObject(int)
+     */
+    @Override
+    public Object getObject(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return values[row];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#set(int, java.lang.Object)
+     */
+    @Override
+    void set(int row, Object value) {
+        values[row] = value == null ? 0 : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+import java.util.Arrays;
+
+/**
+ * A {@link Column} that stores values of a type without a primitive representation,
+ * such as <tt>BigDecimal</tt> or <tt>Date</tt>, in an <tt>Object</tt> array.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ObjectColumn extends Column {
+
+    private final Object[] values;
+
+    /**
+     * Constructs a new <tt>ObjectColumn</tt>.
+     * @param name the column name
+     * @param type the field property type
+     * @param capacity the maximum number of rows
+     */
+    public ObjectColumn(String name, Class<?> type, int capacity) {
+        super(name, type, capacity);
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Returns the array backing this column.  Only the elements up to the size of
+     * the current batch are valid.
+     * @return the <tt>Object</tt> array
+     */
+    public Object[] getValues() {
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#getObject(int)
+     */
+    @Override
+    public Object getObject(int row) {
+        return values[row];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#set(int, java.lang.Object)
+     */
+    @Override
+    void set(int row, Object value) {
+        values[row] = value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#clear(int)
+     */
+    @Override
+    void clear(int size) {
+        super.clear(size);
+        // release references to the values of the last batch
+        Arrays.fill(values, 0, size, null);
+    }
+}
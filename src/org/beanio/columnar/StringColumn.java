@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.columnar;
+
+import java.util.Arrays;
+
+/**
+ * A {@link Column} that stores the characters of each string value in a single
+ * <tt>char</tt> array, so that no <tt>String</tt> is retained for each row.
+ *
+ * <p>The characters of a row start at {@link #getOffset(int)} in the array returned by
+ * {@link #getChars()}, and the array grows as needed.  Rows must be added in order.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StringColumn extends Column {
+
+    private char[] chars;
+    // the offset of each row in the character array, and the end of the last row
+    private final int[] offsets;
+
+    /**
+     * Constructs a new <tt>StringColumn</tt>.
+     * @param name the column name
+     * @param capacity the maximum number of rows
+     */
+    public StringColumn(String name, int capacity) {
+        super(name, String.class, capacity);
+        this.chars = new char[Math.max(Math.min(capacity, 1 << 16) * 16, 16)];
+        this.offsets = new int[capacity + 1];
+    }
+
+    /**
+     * Returns the value of a row.  A new <tt>String</tt> is created by each call.
+     * @param row the row index
+     * @return the value, or <tt>null</tt> if the row value is null
+     */
+    public String get(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+    }
+
+    /**
+     * Returns the array holding the characters of all rows.  The returned array
+     * is replaced when the column grows.
+     * @return the character array
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * Returns the offset of the first character of a row.
+     * @param row the row index
+     * @return the offset in the character array
+     */
+    public int getOffset(int row) {
+        return offsets[row];
+    }
+
+    /**
+     * Returns the number of characters of a row.
+     * @param row the row index
+     * @return the number of characters, or 0 if the row value is null
+     */
+    public int getLength(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#getObject(int)
+     */
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.Column#set(int, java.lang.Object)
+     */
+    @Override
+    void set(int row, Object value) {
+        int start = offsets[row];
+        if (value == null) {
+            offsets[row + 1] = start;
+            return;
+        }
+
+        String s = value.toString();
+        int end = start + s.length();
+        if (end > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(end, chars.length * 2));
+        }
+        s.getChars(0, s.length(), chars, start);
+        offsets[row + 1] = end;
+    }
+}
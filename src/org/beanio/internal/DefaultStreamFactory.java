@@ -16,13 +16,17 @@
 package org.beanio.internal;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 
 import org.beanio.*;
 import org.beanio.builder.StreamBuilder;
-import org.beanio.internal.compiler.StreamCompiler;
+import org.beanio.columnar.ColumnarReader;
+import org.beanio.internal.compiler.*;
 import org.beanio.internal.parser.Stream;
+import org.beanio.internal.util.Settings;
+import org.beanio.metrics.MetricsListener;
 
 /**
  * The <tt>DefaultStreamFactory</tt> stores configured stream definitions used
@@ -36,6 +40,9 @@ public class DefaultStreamFactory extends StreamFactory {
 
     private StreamCompiler compiler;
     private Map<String, Stream> contextMap = new ConcurrentHashMap<String, Stream>();
+    // loaded streams that have not been compiled
+    private ConcurrentMap<String, DeferredStream> deferredMap = new ConcurrentHashMap<String, DeferredStream>();
+    private boolean lazyCompilation;
 
     /**
      * Constructs a new <tt>DefaultStreamFactory</tt>.
@@ -46,6 +53,7 @@ public class DefaultStreamFactory extends StreamFactory {
     protected void init() {
         super.init();
         this.compiler = new StreamCompiler(getClassLoader());
+        this.lazyCompilation = Settings.getInstance().getBoolean(Settings.LAZY_STREAM_COMPILATION);
     }
 
     @Override
@@ -55,14 +63,42 @@ public class DefaultStreamFactory extends StreamFactory {
     
     @Override
     public void load(InputStream in, Properties properties) throws IOException, BeanIOConfigurationException {
-        Collection<Stream> streams = compiler.loadMapping(in, properties);
-        for (Stream stream : streams) {
-            addStream(stream);
+        if (lazyCompilation) {
+            for (DeferredStream stream : compiler.loadDeferredMapping(in, properties)) {
+                addStream(stream);
+            }
+        }
+        else {
+            Collection<Stream> streams = compiler.loadMapping(in, properties);
+            for (Stream stream : streams) {
+                addStream(stream);
+            }
         }
     }
     
     @Override
     public BeanReader createReader(String name, Reader in, Locale locale) {
+        return createReader(name, in, locale, null);
+    }
+    
+    @Override
+    public BeanReader createReader(String name, Reader in, Locale locale, Set<String> properties) {
+        if (locale == null) {
+            locale = Locale.getDefault();
+        }
+        
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.createBeanReader(in, locale, properties);
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public BeanReader createReader(String name, InputStream in, Locale locale) {
         if (locale == null) {
             locale = Locale.getDefault();
         }
@@ -77,8 +113,111 @@ public class DefaultStreamFactory extends StreamFactory {
         }
     }
     
+    @Override
+    public long validate(String name, Reader in, BeanReaderErrorHandler errorHandler, int threads) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.validate(in, Locale.getDefault(), errorHandler, threads);
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public BeanReader createReader(String name, Reader in, InputSplit split) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.createBeanReader(in, Locale.getDefault(), split);
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public List<InputSplit> planSplits(String name, File file, Charset charset, int count) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                try {
+                    return stream.planSplits(file, charset, count);
+                }
+                catch (IOException ex) {
+                    throw new BeanReaderIOException("Failed to read file '" + file + "'", ex);
+                }
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public List<Object> readTail(String name, File file, Charset charset, String recordName, int count) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                try {
+                    return stream.readTail(file, charset, recordName, count, Locale.getDefault());
+                }
+                catch (IOException ex) {
+                    throw new BeanReaderIOException("Failed to read file '" + file + "'", ex);
+                }
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public StreamSorter createSorter(String name, String... keyFields) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.createSorter(keyFields, Locale.getDefault());
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public ColumnarReader createColumnarReader(String name, Reader in, String recordName, int batchSize) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.createColumnarReader(in, Locale.getDefault(), recordName, batchSize);
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public BeanParser createParser(String name, Charset charset, BeanParserListener listener, Locale locale) {
+        if (locale == null) {
+            locale = Locale.getDefault();
+        }
+        
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.READ_ONLY_MODE:
+                return stream.createBeanParser(charset, listener, locale);
+            default:
+                throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
     @Override
     public Unmarshaller createUnmarshaller(String name, Locale locale) {
+        return createUnmarshaller(name, locale, null);
+    }
+    
+    @Override
+    public Unmarshaller createUnmarshaller(String name, Locale locale, Set<String> properties) {
         if (locale == null) {
             locale = Locale.getDefault();
         }
@@ -87,7 +226,7 @@ public class DefaultStreamFactory extends StreamFactory {
         switch (stream.getMode()) {
             case Stream.READ_WRITE_MODE:
             case Stream.READ_ONLY_MODE:
-                return stream.createUnmarshaller(locale);
+                return stream.createUnmarshaller(locale, properties);
             default:
                 throw new IllegalArgumentException("Read mode not supported for stream mapping '" + name + "'");
         }
@@ -105,6 +244,59 @@ public class DefaultStreamFactory extends StreamFactory {
         }
     }
     
+    @Override
+    public BeanWriter createWriter(String name, OutputStream out) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.WRITE_ONLY_MODE:
+                return stream.createBeanWriter(out);
+            default:
+                throw new IllegalArgumentException("Write mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public BeanWriter createWriter(String name, File file, Charset charset, Backfill... backfills) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.WRITE_ONLY_MODE:
+                try {
+                    return stream.createBeanWriter(file, charset, Arrays.asList(backfills));
+                }
+                catch (IOException ex) {
+                    throw new BeanWriterIOException("Failed to open file '" + file + "' for writing", ex);
+                }
+            default:
+                throw new IllegalArgumentException("Write mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public ParallelBeanWriter createShardedWriter(String name, ShardPolicy policy, Charset charset, int threads) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.WRITE_ONLY_MODE:
+                return stream.createShardedWriter(policy, charset, threads);
+            default:
+                throw new IllegalArgumentException("Write mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
+    @Override
+    public ParallelBeanWriter createParallelWriter(String name, Writer out, int threads, int batchSize) {
+        Stream stream = getStream(name);
+        switch (stream.getMode()) {
+            case Stream.READ_WRITE_MODE:
+            case Stream.WRITE_ONLY_MODE:
+                return stream.createParallelBeanWriter(out, threads, batchSize);
+            default:
+                throw new IllegalArgumentException("Write mode not supported for stream mapping '" + name + "'");
+        }
+    }
+    
     @Override
     public Marshaller createMarshaller(String name) {
         Stream stream = getStream(name);
@@ -117,16 +309,48 @@ public class DefaultStreamFactory extends StreamFactory {
         }
     }
 
+    @Override
+    public void setMetricsListener(MetricsListener listener, int samplingInterval) {
+        super.setMetricsListener(listener, samplingInterval);
+        for (Stream stream : contextMap.values()) {
+            stream.setMetricsListener(listener, samplingInterval);
+        }
+    }
+    
+    @Override
+    public void precompile(String... names) throws IllegalArgumentException, BeanIOConfigurationException {
+        if (names.length == 0) {
+            names = deferredMap.keySet().toArray(new String[0]);
+        }
+        for (String name : names) {
+            getStream(name);
+        }
+    }
+    
     /**
-     * Returns the named stream.
+     * Returns the named stream, compiling it if it was loaded lazily.
      * @param name the name of the stream
      * @return the {@link Stream}
      * @throws IllegalArgumentException if there is no stream configured for the given name
+     * @throws BeanIOConfigurationException if the stream was loaded lazily and its
+     *   configuration is invalid
      */
     protected Stream getStream(String name) throws IllegalArgumentException {
         Stream s = contextMap.get(name);
         if (s == null) {
-            throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+            DeferredStream deferred = deferredMap.get(name);
+            if (deferred == null) {
+                throw new IllegalArgumentException("No stream mapping configured for name '" + name + "'");
+            }
+            
+            s = deferred.compile();
+            s.setMetricsListener(getMetricsListener(), getMetricsSamplingInterval());
+            // publish the compiled stream before it is removed from the deferred streams
+            // so that concurrent lookups always find one or the other
+            if (deferredMap.get(name) == deferred) {
+                contextMap.put(name, s);
+                deferredMap.remove(name, deferred);
+            }
         }
         return s;
     }
@@ -136,17 +360,46 @@ public class DefaultStreamFactory extends StreamFactory {
      * @param stream the {@link Stream} to add
      */
     public void addStream(Stream stream) {
+        stream.setMetricsListener(getMetricsListener(), getMetricsSamplingInterval());
         contextMap.put(stream.getName(), stream);
+        deferredMap.remove(stream.getName());
+    }
+    
+    /**
+     * Adds a stream to this manager that is compiled when first used.
+     * @param stream the {@link DeferredStream} to add
+     * @since 3.0
+     */
+    public void addStream(DeferredStream stream) {
+        deferredMap.put(stream.getName(), stream);
+        contextMap.remove(stream.getName());
     }
 
     /**
      * Removes the named stream from this manager.
      * @param name the name of the stream to remove
      * @return the removed {@link Stream}, or <tt>null</tt> if
-     *   the there was no stream for the given name
+     *   the there was no stream for the given name, or if the stream
+     *   was loaded lazily and never compiled
      */
     public Stream removeStream(String name) {
-        return contextMap.remove(name);
+        Stream s = contextMap.remove(name);
+        DeferredStream deferred = deferredMap.remove(name);
+        if (s == null && deferred != null) {
+            s = deferred.getStream();
+        }
+        return s;
+    }
+    
+    /**
+     * Sets whether streams loaded from a mapping file are compiled when first used,
+     * instead of when the mapping file is loaded.  Defaults to the
+     * <tt>org.beanio.lazyStreamCompilation</tt> setting.
+     * @param lazyCompilation <tt>true</tt> to compile streams when first used
+     * @since 3.0
+     */
+    public void setLazyCompilation(boolean lazyCompilation) {
+        this.lazyCompilation = lazyCompilation;
     }
 
     /**
@@ -159,6 +412,6 @@ public class DefaultStreamFactory extends StreamFactory {
 
     @Override
     public boolean isMapped(String streamName) {
-        return contextMap.containsKey(streamName);
+        return contextMap.containsKey(streamName) || deferredMap.containsKey(streamName);
     }
 }
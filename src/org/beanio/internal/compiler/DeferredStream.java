@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.compiler;
+
+import org.beanio.BeanIOConfigurationException;
+import org.beanio.internal.config.StreamConfig;
+import org.beanio.internal.parser.Stream;
+import org.beanio.internal.util.TypeHandlerFactory;
+
+/**
+ * A stream configuration that is compiled into a {@link Stream} when first used.
+ *
+ * <p>This class is thread safe.  If multiple threads call {@link #compile()}
+ * concurrently, the stream is compiled once by the first thread, and the other
+ * threads wait for the result.  If compilation fails, the same exception is thrown
+ * by every call.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see StreamCompiler#loadDeferredMapping(java.io.InputStream, java.util.Properties)
+ */
+public class DeferredStream {
+
+    private String name;
+    private StreamCompiler compiler;
+    private StreamConfig config;
+    private TypeHandlerFactory typeHandlerFactory;
+    private String source;
+
+    private volatile Stream stream;
+    private RuntimeException error;
+
+    /**
+     * Constructs a new <tt>DeferredStream</tt>.
+     * @param compiler the {@link StreamCompiler} to compile the stream with
+     * @param config the stream configuration
+     * @param typeHandlerFactory the {@link TypeHandlerFactory} for global type handlers
+     * @param source the mapping file the stream was configured in, or <tt>null</tt> if unknown
+     */
+    DeferredStream(StreamCompiler compiler, StreamConfig config, TypeHandlerFactory typeHandlerFactory,
+        String source) {
+        this.name = config.getName();
+        this.compiler = compiler;
+        this.config = config;
+        this.typeHandlerFactory = typeHandlerFactory;
+        this.source = source;
+    }
+
+    /**
+     * Returns the name of the stream.
+     * @return the stream name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the compiled stream.
+     * @return the {@link Stream}, or <tt>null</tt> if not yet compiled
+     */
+    public Stream getStream() {
+        return stream;
+    }
+
+    /**
+     * Returns the compiled stream, compiling it if this is the first call.
+     * @return the {@link Stream}
+     * @throws BeanIOConfigurationException if the stream configuration is invalid
+     */
+    public Stream compile() throws BeanIOConfigurationException {
+        Stream s = stream;
+        if (s != null) {
+            return s;
+        }
+
+        synchronized (this) {
+            if (stream == null) {
+                if (error != null) {
+                    throw error;
+                }
+
+                try {
+                    stream = compiler.createStream(config, typeHandlerFactory, source);
+                }
+                catch (RuntimeException ex) {
+                    // the configuration may have been partially preprocessed,
+                    // so it cannot be compiled again
+                    error = ex;
+                    throw ex;
+                }
+
+                // release the configuration
+                compiler = null;
+                config = null;
+                typeHandlerFactory = null;
+            }
+            return stream;
+        }
+    }
+}
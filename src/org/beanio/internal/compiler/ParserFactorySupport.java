@@ -21,6 +21,7 @@ import java.util.*;
 import java.util.regex.PatternSyntaxException;
 
 import org.beanio.BeanIOConfigurationException;
+import org.beanio.CompactMap;
 import org.beanio.internal.compiler.accessor.*;
 import org.beanio.internal.config.*;
 import org.beanio.internal.parser.*;
@@ -261,7 +262,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         
         // find a suitable constructor
         Constructor<?> constructor = null;
-        CONSTRUCTOR_LOOP: for (Constructor<?> c : bean.getType().getDeclaredConstructors()) {
+        CONSTRUCTOR_LOOP: for (Constructor<?> c : IntrospectionCache.getDeclaredConstructors(bean.getType())) {
             if (c.getParameterTypes().length != count) {
                 continue;
             }
@@ -361,6 +362,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
 
         stream.setMessageFactory(messageFactory);
         stream.setIgnoreUnidentifiedRecords(config.isIgnoreUnidentifiedRecords());
+        stream.setPrefetch(config.getPrefetch());
         initializeGroup(config);
     }
     
@@ -586,6 +588,17 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
 
     }
     
+    /**
+     * Invoked by {@link #handleField(FieldConfig)} after the {@link FieldFormat} is set
+     * to allow subclasses to perform further initialization of the created {@link Field}.
+     * @param config the field configuration
+     * @param field the {@link Field} being initialized
+     * @since 3.0
+     */
+    protected void finalizeField(FieldConfig config, Field field) {
+        
+    }
+    
     private Property findTarget(Component segment, String name) {
         Component c = findDescendant("value", segment, name);
         if (c == null) {
@@ -596,8 +609,8 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         if (c instanceof Property) {
             property = (Property) c;
         }
-        if (property == null || property.getType() == null) {
-            throw new BeanIOConfigurationException("No class defined for value '" + name + "'");
+        if (property == null || property.getType() == null) {
+            throw new BeanIOConfigurationException("No class defined for value '" + name + "'");
         }
         return property;
     }
@@ -645,7 +658,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
     protected void initializeSegmentIteration(SegmentConfig config, Property property) {
         // wrap the segment in an aggregation component
         Aggregation aggregation = createAggregation(config, property);
-        
+        
         if (config.getOccursRef() != null) {
             Field occurs = findDynamicOccurs(parserStack.getLast(), config.getOccursRef());
             aggregation.setOccurs(occurs);
@@ -653,7 +666,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         
         pushParser(aggregation);
         if (property != null || config.getTarget() != null) {
-            pushProperty(aggregation);
+            pushProperty(aggregation);
         }
     }
     
@@ -798,6 +811,12 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         field.setMinLength(config.getMinLength());
         field.setMaxLength(config.getMaxLength());
         field.setBound(config.isBound());
+        if (config.isDedupe()) {
+            Settings settings = Settings.getInstance();
+            field.setStringCache(new StringCache(
+                settings.getInt(Settings.DEDUPE_CACHE_SIZE, 1024),
+                settings.getInt(Settings.DEDUPE_MAX_LENGTH, 64)));
+        }
 
         try {
             field.setRegex(config.getRegex());
@@ -839,12 +858,18 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         }
 
         // if not already determined, this will update the field type
-        field.setHandler(findTypeHandler(config, field));           
+        TypeHandler handler = findTypeHandler(config, field);
+        if (config.isMemoize()) {
+            handler = new MemoizingTypeHandler(handler,
+                Settings.getInstance().getInt(Settings.MEMOIZE_CACHE_SIZE, 256));
+        }
+        field.setHandler(handler);
         
         // set the default field value using the configured type handler
         field.setDefaultValue(parseDefaultValue(field, config.getDefault()));
 
         field.setFormat(createFieldFormat(config, field.getType()));
+        finalizeField(config, field);
         
         pushParser(field);
         if (bind) {
@@ -1124,7 +1149,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
             case Property.AGGREGATION_MAP:
                 return null;
             case Property.MAP:
-                iteration.setAccessor(new MapAccessor(iteration.getName()));
+                iteration.setAccessor(createMapAccessor(parent, iteration.getName()));
                 return null;
         }
         
@@ -1236,7 +1261,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
             case Property.AGGREGATION_MAP:
                 return;
             case Property.MAP:
-                property.setAccessor(new MapAccessor(config.getName()));
+                property.setAccessor(createMapAccessor(parent, config.getName()));
                 return;
         }
         
@@ -1324,14 +1349,8 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
                 descriptor = new PropertyDescriptor(property, beanClass, getter, setter);
             }
             else {
-                // the Introspector class caches BeanInfo so subsequent calls shouldn't be a concern
-                BeanInfo info = Introspector.getBeanInfo(beanClass);
-                for (PropertyDescriptor pd : info.getPropertyDescriptors()) {
-                    if (pd.getName().equals(property)) {
-                        descriptor = pd;
-                        break;
-                    }
-                }
+                // property descriptors are cached across stream factories
+                descriptor = IntrospectionCache.getPropertyDescriptor(beanClass, property);
                 
                 if (descriptor == null) {
                     if (setter == null && getter == null && !isConstructorArgument) {
@@ -1388,12 +1407,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         Class<?> c = beanClass;
         while (field == null && c != null) {
             for (Class<?> i : c.getInterfaces()) {
-                for (java.lang.reflect.Field f : i.getDeclaredFields()) {
-                    if (f.getName().equals(property)) {
-                        field = f;
-                        break;
-                    }
-                }
+                field = IntrospectionCache.getDeclaredField(i, property);
                 if (field != null) {
                     break;
                 }
@@ -1403,11 +1417,9 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
                 break;
             }
         
-            for (java.lang.reflect.Field f : c.getDeclaredFields()) {
-                if (f.getName().equals(property)) {
-                    field = f;
-                    break;
-                }
+            java.lang.reflect.Field f = IntrospectionCache.getDeclaredField(c, property);
+            if (f != null) {
+                field = f;
             }
             
             c = c.getSuperclass();
@@ -1509,6 +1521,19 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
         return handler;
     }
     
+    /**
+     * Creates an accessor for getting and setting a value of a {@link Map} bean.
+     * @param parent the {@link Map} property
+     * @param key the map key
+     * @return the {@link PropertyAccessor}
+     */
+    private PropertyAccessor createMapAccessor(Property parent, String key) {
+        if (parent instanceof CompactMapBean) {
+            return new CompactMapAccessor(key, ((CompactMapBean) parent).addKey(key));
+        }
+        return new MapAccessor(key);
+    }
+    
     /**
      * Creates a property for holding other properties.
      * @param config the {@link PropertyConfig}
@@ -1540,7 +1565,7 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
             boolean required = propertyStack.isEmpty();
             boolean matchNull = !required && new Integer(0).equals(config.getMinOccurs());
             
-            Bean bean = new Bean();
+            Bean bean = beanClass == CompactMap.class ? new CompactMapBean() : new Bean();
             bean.setName(config.getName());
             bean.setType(beanClass);
             bean.setLazy(config.isLazy());
@@ -1565,6 +1590,9 @@ public abstract class ParserFactorySupport extends ProcessorSupport implements P
             if ("map".equals(config.getType())) {
                 beanClass = HashMap.class;
             }
+            else if ("compactmap".equals(config.getType())) {
+                beanClass = CompactMap.class;
+            }
             else if ("list".equals(config.getType()) || "collection".equals(config.getType())) {
                 beanClass = ArrayList.class;
             }
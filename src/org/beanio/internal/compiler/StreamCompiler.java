@@ -46,6 +46,12 @@ public class StreamCompiler {
     public StreamCompiler(ClassLoader classLoader) {
         this.classLoader = classLoader;
         this.defaultConfigurationLoader = new XmlConfigurationLoader(classLoader);
+        
+        String cacheDirectory = Settings.getInstance().getProperty(Settings.CONFIGURATION_CACHE_DIRECTORY);
+        if (cacheDirectory != null && !"".equals(cacheDirectory)) {
+            this.defaultConfigurationLoader = new CachingConfigurationLoader(
+                defaultConfigurationLoader, classLoader, new File(cacheDirectory));
+        }
     }
     
     /**
@@ -76,15 +82,61 @@ public class StreamCompiler {
      */
     public Collection<Stream> loadMapping(InputStream in, Properties properties) throws IOException,
         BeanIOConfigurationException {
+        
+        Collection<BeanIOConfig> configList = loadConfiguration(in, properties);
+        if (configList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        // create the stream definitions
+        if (configList.size() == 1) {
+            return createStreamDefinitions(configList.iterator().next());
+        }
+        else {
+            List<Stream> list = new ArrayList<Stream>();
+            for (BeanIOConfig config : configList) {
+                list.addAll(createStreamDefinitions(config));
+            }
+            return list;
+        }
+    }
+    
+    /**
+     * Loads a mapping file without compiling its streams.  Each stream is compiled
+     * the first time {@link DeferredStream#compile()} is called.
+     * @param in the {@link InputStream} to load the mapping file from
+     * @param properties the {@link Properties}
+     * @return the {@link DeferredStream} for each stream configured in the loaded mapping file
+     * @throws IOException if an I/O error occurs reading the mapping file
+     * @throws BeanIOConfigurationException if the mapping file is invalid
+     * @since 3.0
+     */
+    public Collection<DeferredStream> loadDeferredMapping(InputStream in, Properties properties) throws IOException,
+        BeanIOConfigurationException {
+        
+        List<DeferredStream> list = new ArrayList<DeferredStream>();
+        for (BeanIOConfig config : loadConfiguration(in, properties)) {
+            TypeHandlerFactory parent = createTypeHandlerFactory(TypeHandlerFactory.getDefault(), 
+                config.getTypeHandlerList());
+            
+            for (StreamConfig streamConfig : config.getStreamList()) {
+                list.add(new DeferredStream(this, streamConfig, parent, config.getSource()));
+            }
+        }
+        return list;
+    }
+    
+    /*
+     * Loads the configuration of a mapping file and checks for duplicate stream names.
+     */
+    private Collection<BeanIOConfig> loadConfiguration(InputStream in, Properties properties) throws IOException,
+        BeanIOConfigurationException {
         ConfigurationLoader loader = configurationLoader;
         if (loader == null) {
             loader = getDefaultConfigurationLoader();
         }
         
         Collection<BeanIOConfig> configList = loader.loadConfiguration(in, properties);
-        if (configList.isEmpty()) {
-            return Collections.emptyList();
-        }
         
         // check for duplicate stream names...
         HashSet<String> set = new HashSet<String>();
@@ -96,19 +148,8 @@ public class StreamCompiler {
                 }
             }
         }
-        set = null;
         
-        // create the stream definitions
-        if (configList.size() == 1) {
-            return createStreamDefinitions(configList.iterator().next());
-        }
-        else {
-            List<Stream> list = new ArrayList<Stream>();
-            for (BeanIOConfig config : configList) {
-                list.addAll(createStreamDefinitions(config));
-            }
-            return list;
-        }
+        return configList;
     }
     
     /**
@@ -138,27 +179,40 @@ public class StreamCompiler {
         Collection<Stream> streamDefinitionList = new ArrayList<Stream>(streamConfigList.size());
         
         for (StreamConfig streamConfig : streamConfigList) {
-            
-            TypeHandlerFactory typeHandlerFactory = createTypeHandlerFactory(parent, streamConfig.getHandlerList());
-            
-            ParserFactory factory = createParserFactory(streamConfig.getFormat());
-            factory.setClassLoader(classLoader);
-            factory.setTypeHandlerFactory(typeHandlerFactory);
-            
-            try {
-                streamDefinitionList.add(factory.createStream(streamConfig));
+            streamDefinitionList.add(createStream(streamConfig, parent, config.getSource()));
+        }
+        return streamDefinitionList;
+    }
+    
+    /**
+     * Creates a stream definition from its configuration.
+     * @param streamConfig the stream configuration
+     * @param parent the {@link TypeHandlerFactory} for global type handlers
+     * @param source the mapping file the stream was configured in, or <tt>null</tt> if unknown
+     * @return the stream definition
+     * @throws BeanIOConfigurationException if a configuration setting is invalid
+     */
+    Stream createStream(StreamConfig streamConfig, TypeHandlerFactory parent, String source)
+        throws BeanIOConfigurationException {
+        
+        TypeHandlerFactory typeHandlerFactory = createTypeHandlerFactory(parent, streamConfig.getHandlerList());
+        
+        ParserFactory factory = createParserFactory(streamConfig.getFormat());
+        factory.setClassLoader(classLoader);
+        factory.setTypeHandlerFactory(typeHandlerFactory);
+        
+        try {
+            return factory.createStream(streamConfig);
+        }
+        catch (BeanIOConfigurationException ex) {
+            if (source != null) {
+                throw new BeanIOConfigurationException("Invalid mapping file '" +
+                    source + "': " + ex.getMessage());
             }
-            catch (BeanIOConfigurationException ex) {
-                if (config.getSource() != null) {
-                    throw new BeanIOConfigurationException("Invalid mapping file '" +
-                        config.getSource() + "': " + ex.getMessage());
-                }
-                else {
-                    throw ex;
-                }
+            else {
+                throw ex;
             }
         }
-        return streamDefinitionList;
     }
 
     /**
@@ -20,7 +20,7 @@ import java.util.*;
 import org.beanio.internal.compiler.*;
 import org.beanio.internal.config.*;
 import org.beanio.internal.parser.*;
-import org.beanio.internal.parser.format.flat.FlatFieldFormat;
+import org.beanio.internal.parser.format.flat.*;
 
 /**
  * Base class for flat file format parser factories including CSV, delimited and fixed
@@ -44,6 +44,16 @@ public abstract class FlatParserFactory extends ParserFactorySupport {
         //record.sort(new NodeComparator());
     }
     
+    @Override
+    protected void finalizeField(FieldConfig config, Field field) {
+        super.finalizeField(config, field);
+        
+        // look up deduplicated field text by its position in the record
+        if (field.getFormat() instanceof FlatFieldFormatSupport) {
+            ((FlatFieldFormatSupport) field.getFormat()).setStringCache(field.getStringCache());
+        }
+    }
+    
     @SuppressWarnings("unused")
     private static class NodeComparator implements Comparator<Component> {
 
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.config;
+
+import java.io.*;
+import java.net.URL;
+import java.security.*;
+import java.util.*;
+
+import org.beanio.BeanIOConfigurationException;
+import org.beanio.internal.config.annotation.AnnotationParser;
+import org.beanio.internal.util.IOUtil;
+
+/**
+ * A {@link ConfigurationLoader} that caches loaded mapping configurations in a directory
+ * so that parsing and validating a mapping file can be skipped by later loads, including
+ * loads by other JVMs.
+ *
+ * <p>Cache entries are keyed by a SHA-256 digest of the mapping file content and the
+ * properties used for property substitution.  Each entry also records a digest of
+ * every imported mapping file, and of the class files of bean classes named in the
+ * mapping (whose annotations may have been parsed), of the configuration loader
+ * itself, and of the configuration classes that were serialized.  An entry is ignored
+ * and replaced if any of them has changed, or if it cannot be deserialized.  Errors
+ * reading or writing the cache are otherwise ignored.</p>
+ *
+ * <p>Configurations that reference object instances (which is only possible using the
+ * {@link org.beanio.builder.StreamBuilder} API) are not cached.  Since the cache directory
+ * may be writable by others, a cache file may only deserialize configuration classes,
+ * and the few <tt>java.lang</tt> and <tt>java.util</tt> classes they hold.  A cache file
+ * that references any other class is ignored and replaced.</p>
+ *
+ * <p>This class is thread safe if the delegate loader is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CachingConfigurationLoader implements ConfigurationLoader {
+
+    private static final String CACHE_FILE_SUFFIX = ".mapping";
+    private static final int CACHE_FORMAT_VERSION = 1;
+
+    // the classes other than configuration classes that a cache file may deserialize
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays.asList(
+        "java.lang.Number", "java.lang.String", "java.lang.Boolean", "java.lang.Character",
+        "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+        "java.lang.Float", "java.lang.Double", "java.util.ArrayList", "java.util.HashMap",
+        "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.Hashtable",
+        "java.util.Properties"));
+    private static final String CONFIG_PACKAGE = "org.beanio.internal.config.";
+
+    private ConfigurationLoader delegate;
+    private ClassLoader classLoader;
+    private File directory;
+
+    /**
+     * Constructs a new <tt>CachingConfigurationLoader</tt>.
+     * @param delegate the {@link ConfigurationLoader} used to load a mapping file
+     *   that is not cached
+     * @param classLoader the {@link ClassLoader} used to resolve imported
+     *   resources and bean classes
+     * @param directory the cache directory, which is created if it does not exist
+     */
+    public CachingConfigurationLoader(ConfigurationLoader delegate, ClassLoader classLoader, File directory) {
+        if (delegate == null) {
+            throw new NullPointerException("null delegate");
+        }
+        if (directory == null) {
+            throw new NullPointerException("null directory");
+        }
+        this.delegate = delegate;
+        this.classLoader = classLoader;
+        this.directory = directory;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.config.ConfigurationLoader#loadConfiguration(java.io.InputStream, java.util.Properties)
+     */
+    public Collection<BeanIOConfig> loadConfiguration(InputStream in, Properties properties)
+        throws IOException, BeanIOConfigurationException {
+
+        byte[] mapping = readFully(in);
+
+        MessageDigest digest = newDigest();
+        digest.update(mapping);
+        if (properties != null) {
+            // sort the properties so that the key does not depend on hash order
+            for (String name : new TreeSet<String>(properties.stringPropertyNames())) {
+                digest.update(("\n" + name + "=" + properties.getProperty(name)).getBytes("UTF-8"));
+            }
+        }
+        File file = new File(directory, toHex(digest.digest()) + CACHE_FILE_SUFFIX);
+
+        Collection<BeanIOConfig> configList = readCache(file);
+        if (configList != null) {
+            return configList;
+        }
+
+        configList = delegate.loadConfiguration(new ByteArrayInputStream(mapping), properties);
+        writeCache(file, configList);
+        return configList;
+    }
+
+    /**
+     * Reads a cached configuration.
+     * @param file the cache file
+     * @return the cached configuration, or <tt>null</tt> if the cache file does not exist,
+     *   cannot be read, or is stale
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<BeanIOConfig> readCache(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file))) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    String name = desc.getName();
+                    if (ALLOWED_CLASSES.contains(name)) {
+                        return super.resolveClass(desc);
+                    }
+                    if (!isConfigClass(name)) {
+                        throw new InvalidClassException(name, "Class not allowed in a mapping cache file");
+                    }
+                    // resolve configuration classes using the BeanIO class loader
+                    return Class.forName(name, false, CachingConfigurationLoader.class.getClassLoader());
+                }
+                @Override
+                protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+                    throw new InvalidClassException("Proxy classes not allowed in a mapping cache file");
+                }
+            };
+
+            if (in.readInt() != CACHE_FORMAT_VERSION) {
+                return null;
+            }
+            Map<String,String> dependencies = (Map<String,String>) in.readObject();
+            for (Map.Entry<String,String> entry : dependencies.entrySet()) {
+                if (!entry.getValue().equals(getVersion(entry.getKey()))) {
+                    return null;
+                }
+            }
+            return (Collection<BeanIOConfig>) in.readObject();
+        }
+        catch (Exception ex) {
+            // the cache entry is corrupt or incompatible, and will be replaced
+            return null;
+        }
+        finally {
+            IOUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes a configuration to the cache.  The cache file is written to a temporary
+     * file and then renamed, so that concurrent loads never read a partial cache file.
+     * @param file the cache file
+     * @param configList the configuration to cache
+     */
+    protected void writeCache(File file, Collection<BeanIOConfig> configList) {
+        if (!isCacheable(configList)) {
+            return;
+        }
+        
+        File temp = null;
+        ObjectOutputStream out = null;
+        try {
+            Map<String,String> dependencies = new TreeMap<String,String>();
+            for (String dependency : getDependencies(configList)) {
+                String version = getVersion(dependency);
+                if (version != null) {
+                    dependencies.put(dependency, version);
+                }
+            }
+
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+            temp = File.createTempFile("beanio", ".tmp", directory);
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(CACHE_FORMAT_VERSION);
+            out.writeObject(dependencies);
+            out.writeObject(new ArrayList<BeanIOConfig>(configList));
+            out.close();
+            out = null;
+
+            if (!temp.renameTo(file)) {
+                // another loader may have just cached the same mapping file
+                file.delete();
+                temp.renameTo(file);
+            }
+        }
+        catch (IOException ex) {
+            // the mapping file is not cached
+        }
+        finally {
+            IOUtil.closeQuietly(out);
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns whether a configuration class may be deserialized from a cache file.
+     * @param name the class name
+     * @return true if the class is in the configuration package
+     */
+    private static boolean isConfigClass(String name) {
+        return name.startsWith(CONFIG_PACKAGE) && name.indexOf('.', CONFIG_PACKAGE.length()) < 0;
+    }
+
+    /**
+     * Returns whether a configuration can be cached.  A configuration that references
+     * an object instance is not cached, since the instance could not be read back.
+     * @param configList the loaded configuration
+     * @return true if the configuration can be cached
+     */
+    protected boolean isCacheable(Collection<BeanIOConfig> configList) {
+        for (BeanIOConfig config : configList) {
+            for (TypeHandlerConfig handler : config.getTypeHandlerList()) {
+                if (handler.getInstance() != null) {
+                    return false;
+                }
+            }
+            for (StreamConfig stream : config.getStreamList()) {
+                if (stream.getParserFactory() != null && stream.getParserFactory().getInstance() != null) {
+                    return false;
+                }
+                for (TypeHandlerConfig handler : stream.getHandlerList()) {
+                    if (handler.getInstance() != null) {
+                        return false;
+                    }
+                }
+                if (!isCacheable(stream)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isCacheable(ComponentConfig config) {
+        if (config instanceof SimplePropertyConfig &&
+            ((SimplePropertyConfig) config).getTypeHandlerInstance() != null) {
+            return false;
+        }
+        for (ComponentConfig child : config.getChildren()) {
+            if (!isCacheable(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the resources a loaded configuration was derived from, in addition to
+     * the mapping file itself.  Each dependency is either the name of a class, or
+     * an imported mapping file in the form of <tt>classpath:</tt> or <tt>file:</tt>
+     * followed by the resource name.
+     * @param configList the loaded configuration
+     * @return the set of dependencies
+     */
+    protected Set<String> getDependencies(Collection<BeanIOConfig> configList) {
+        Set<String> set = new HashSet<String>();
+        set.add(delegate.getClass().getName());
+        set.add(AnnotationParser.class.getName());
+        set.add("org.beanio.internal.config.xml.XmlMappingParser");
+        set.add(BeanIOConfig.class.getName());
+        set.add(BeanConfig.class.getName());
+        set.add(TypeHandlerConfig.class.getName());
+
+        for (BeanIOConfig config : configList) {
+            // the source of an imported mapping file is its import resource name
+            if (config.getSource() != null) {
+                set.add(config.getSource());
+            }
+            for (TypeHandlerConfig handler : config.getTypeHandlerList()) {
+                addClassName(set, handler.getClassName());
+            }
+            for (StreamConfig stream : config.getStreamList()) {
+                for (TypeHandlerConfig handler : stream.getHandlerList()) {
+                    addClassName(set, handler.getClassName());
+                }
+                addClassNames(set, stream);
+            }
+        }
+        return set;
+    }
+
+    private void addClassNames(Set<String> set, ComponentConfig config) {
+        // configuration classes declare a fixed serialVersionUID, so a change to
+        // their fields must be detected by their version
+        for (Class<?> c = config.getClass(); c != Object.class; c = c.getSuperclass()) {
+            if (c.getName().startsWith("org.beanio.internal.config.")) {
+                set.add(c.getName());
+            }
+        }
+        if (config instanceof PropertyConfig) {
+            addClassName(set, ((PropertyConfig) config).getType());
+        }
+        for (ComponentConfig child : config.getChildren()) {
+            addClassNames(set, child);
+        }
+    }
+
+    private void addClassName(Set<String> set, String className) {
+        // type aliases and classes without a package are skipped by the version check
+        if (className != null && className.indexOf('.') > 0 &&
+            !className.startsWith("java.") && !className.startsWith("javax.")) {
+            set.add(className);
+        }
+    }
+
+    /**
+     * Returns a digest of the current content of a dependency.
+     * @param dependency the dependency name
+     * @return the version digest, or <tt>null</tt> if the dependency cannot be found
+     */
+    protected String getVersion(String dependency) {
+        URL url;
+        if (dependency.startsWith("classpath:")) {
+            url = IOUtil.getResource(classLoader, dependency.substring("classpath:".length()).trim());
+        }
+        else if (dependency.startsWith("file:")) {
+            File file = new File(dependency.substring("file:".length()).trim());
+            if (!file.canRead()) {
+                return null;
+            }
+            try {
+                url = file.toURI().toURL();
+            }
+            catch (IOException ex) {
+                return null;
+            }
+        }
+        else {
+            url = IOUtil.getResource(classLoader, dependency.replace('.', '/') + ".class");
+        }
+        if (url == null) {
+            return null;
+        }
+
+        InputStream in = null;
+        try {
+            in = url.openStream();
+            return toHex(newDigest().digest(readFully(in)));
+        }
+        catch (IOException ex) {
+            return null;
+        }
+        finally {
+            IOUtil.closeQuietly(in);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) >= 0) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder s = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            s.append(Character.forDigit((b >> 4) & 0xF, 16));
+            s.append(Character.forDigit(b & 0xF, 16));
+        }
+        return s.toString();
+    }
+}
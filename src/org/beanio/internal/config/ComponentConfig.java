@@ -15,6 +15,8 @@
  */
 package org.beanio.internal.config;
 
+import java.io.*;
+
 import org.beanio.internal.util.TreeNode;
 
 /**
@@ -35,10 +37,16 @@ import org.beanio.internal.util.TreeNode;
  * <li>xmlNamespaceAware</li>
  * </ul>
  * 
+ * <p>A configuration tree is serializable so that it can be cached.  Since
+ * <tt>TreeNode</tt> is not serializable, the name and children of a node are
+ * written explicitly.
+ * 
  * @author Kevin Seim
  * @since 2.0
  */
-public abstract class ComponentConfig extends TreeNode<ComponentConfig> {
+public abstract class ComponentConfig extends TreeNode<ComponentConfig> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /** Group component type */
     public static final char GROUP = 'G';
@@ -157,4 +165,27 @@ public abstract class ComponentConfig extends TreeNode<ComponentConfig> {
     public void setXmlNamespaceAware(boolean xmlNamespaceAware) {
         this.xmlNamespaceAware = xmlNamespaceAware;
     }
+    
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(getName());
+        out.writeInt(size());
+        for (ComponentConfig child : getChildren()) {
+            out.writeObject(child);
+        }
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setName((String) in.readObject());
+        int size = in.readInt();
+        for (int i=0; i<size; i++) {
+            try {
+                add((ComponentConfig) in.readObject());
+            }
+            catch (IllegalArgumentException ex) {
+                throw new InvalidObjectException(ex.getMessage());
+            }
+        }
+    }
 }
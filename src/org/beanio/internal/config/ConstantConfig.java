@@ -26,6 +26,8 @@ package org.beanio.internal.config;
  */
 public class ConstantConfig extends SimplePropertyConfig {
 
+    private static final long serialVersionUID = 1L;
+
     private String value;
     
     /**
@@ -31,6 +31,8 @@ package org.beanio.internal.config;
  */
 public class FieldConfig extends SimplePropertyConfig {
 
+    private static final long serialVersionUID = 1L;
+
     /** Left justification setting */
     public static final String LEFT = "left";
     /** Right justification setting */
@@ -50,6 +52,8 @@ public class FieldConfig extends SimplePropertyConfig {
     private String justify = LEFT;
     private boolean keepPadding;
     private boolean lenientPadding;
+    private boolean dedupe;
+    private boolean memoize;
     
     /**
      * Constructs a new <tt>FieldConfig</tt>.
@@ -289,6 +293,44 @@ public class FieldConfig extends SimplePropertyConfig {
         this.lenientPadding = lenientPadding;
     }
     
+    /**
+     * Returns whether unmarshalled <tt>String</tt> values are deduplicated by replacing
+     * them with a cached instance of an equal value.  Defaults to false.
+     * @return true to deduplicate values, false otherwise
+     * @since 3.0
+     */
+    public boolean isDedupe() {
+        return dedupe;
+    }
+
+    /**
+     * Sets whether unmarshalled <tt>String</tt> values are deduplicated.
+     * @param dedupe true to deduplicate values, false otherwise
+     * @since 3.0
+     */
+    public void setDedupe(boolean dedupe) {
+        this.dedupe = dedupe;
+    }
+    
+    /**
+     * Returns whether values parsed by the type handler are cached, so that repeated
+     * field text is only parsed once.  Defaults to false.
+     * @return true to cache parsed values, false otherwise
+     * @since 3.0
+     */
+    public boolean isMemoize() {
+        return memoize;
+    }
+
+    /**
+     * Sets whether values parsed by the type handler are cached.
+     * @param memoize true to cache parsed values, false otherwise
+     * @since 3.0
+     */
+    public void setMemoize(boolean memoize) {
+        this.memoize = memoize;
+    }
+    
     /**
      * Returns true if this field is referenced by another component. 
      * @return true if referenced
@@ -25,6 +25,8 @@ package org.beanio.internal.config;
  */
 public class RecordConfig extends SegmentConfig implements SelectorConfig {
 
+    private static final long serialVersionUID = 1L;
+
     private Integer order;
     private Integer minLength;
     private Integer maxLength;
@@ -38,6 +38,8 @@ import java.util.*;
  */
 public class SegmentConfig extends PropertyConfig {
 
+    private static final long serialVersionUID = 1L;
+
     private String key;
     private String target;
     private boolean constant;
@@ -29,6 +29,8 @@ import org.beanio.types.TypeHandler;
  */
 public abstract class SimplePropertyConfig extends PropertyConfig {
 
+    private static final long serialVersionUID = 1L;
+
     private String handler;
     private TypeHandler typeHandlerInstance;
     private String format;
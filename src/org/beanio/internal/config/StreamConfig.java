@@ -32,6 +32,8 @@ import org.beanio.stream.RecordParserFactory;
  */
 public class StreamConfig extends GroupConfig {
 
+    private static final long serialVersionUID = 1L;
+
     /** Stream configuration supports reading and writing */
     public static final String READ_WRITE_MODE = "readwrite";
     /** Stream configuration supports reading only */
@@ -44,6 +46,7 @@ public class StreamConfig extends GroupConfig {
     private String resourceBundle;
     private boolean strict = false;
     private boolean ignoreUnidentifiedRecords = false;
+    private int prefetch = 0;
     
     private List<TypeHandlerConfig> handlerList = new ArrayList<TypeHandlerConfig>();
     private BeanConfig<RecordParserFactory> parserFactory;
@@ -188,4 +191,24 @@ public class StreamConfig extends GroupConfig {
     public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
         this.ignoreUnidentifiedRecords = ignoreUnidentifiedRecords;
     }
+
+    /**
+     * Returns the number of records read ahead by a background thread when
+     * reading this stream.  Defaults to 0.
+     * @return the number of records to read ahead, or 0 if disabled
+     * @since 3.0
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Sets the number of records read ahead by a background thread when
+     * reading this stream.
+     * @param prefetch the number of records to read ahead, or 0 to disable
+     * @since 3.0
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
 }
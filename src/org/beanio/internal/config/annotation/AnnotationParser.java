@@ -619,6 +619,8 @@ public class AnnotationParser {
         fc.setJustify(fa.align().toString().toLowerCase());
         fc.setKeepPadding(fa.keepPadding());
         fc.setLenientPadding(fa.lenientPadding());
+        fc.setDedupe(fa.dedupe());
+        fc.setMemoize(fa.memoize());
         
         fc.setTypeHandler(toValue(fa.handlerName()));
         Class<?> handler = toValue(fa.handlerClass());
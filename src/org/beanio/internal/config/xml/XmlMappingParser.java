@@ -390,6 +390,10 @@ public class XmlMappingParser implements StringUtil.PropertySource {
         config.setStrict(getBooleanAttribute(element, "strict", config.isStrict()));
         config.setIgnoreUnidentifiedRecords(getBooleanAttribute(element, 
             "ignoreUnidentifiedRecords", config.isIgnoreUnidentifiedRecords()));
+        Integer prefetch = getIntegerAttribute(element, "prefetch");
+        if (prefetch != null) {
+            config.setPrefetch(prefetch);
+        }
         populatePropertyConfigOccurs(config, element);
         
         config.setXmlName(getAttribute(element, "xmlName"));
@@ -705,6 +709,8 @@ public class XmlMappingParser implements StringUtil.PropertySource {
         config.setPadding(getCharacterAttribute(element, "padding"));
         config.setKeepPadding(getBooleanAttribute(element, "keepPadding", config.isKeepPadding()));
         config.setLenientPadding(getBooleanAttribute(element, "lenientPadding", config.isLenientPadding()));
+        config.setDedupe(getBooleanAttribute(element, "dedupe", config.isDedupe()));
+        config.setMemoize(getBooleanAttribute(element, "memoize", config.isMemoize()));
         if (hasAttribute(element, "justify")) {
             if (hasAttribute(element, "align")) {
                 throw new BeanIOConfigurationException("Only one of 'align' or 'justify' can be configured");
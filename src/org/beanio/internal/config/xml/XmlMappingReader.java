@@ -16,10 +16,12 @@
 package org.beanio.internal.config.xml;
 
 import java.io.*;
+import java.lang.ref.*;
 import java.util.*;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.*;
+import javax.xml.validation.*;
 
 import org.beanio.*;
 import org.w3c.dom.Document;
@@ -31,6 +33,10 @@ import org.xml.sax.*;
  * 
  * <p>This class can safely parse multiple input streams concurrently.
  * 
+ * <p>The BeanIO mapping schema is compiled once for each context class loader, and
+ * shared by all <tt>XmlMappingReader</tt>'s.  Compiled schemas are held in a
+ * <tt>WeakHashMap</tt> so that a class loader can still be unloaded.
+ * 
  * @author Kevin Seim
  * @since 1.2.1
  */
@@ -41,6 +47,10 @@ public class XmlMappingReader {
 
     private static final EntityResolver defaultEntityResolver = new DefaultEntityResolver();
     
+    // compiled mapping schemas keyed by context class loader
+    private static final Map<ClassLoader,Reference<Schema>> schemaCache = 
+        new WeakHashMap<ClassLoader,Reference<Schema>>();
+    
     private DocumentBuilderFactory factory;
     
     /**
@@ -113,20 +123,53 @@ public class XmlMappingReader {
         factory.setIgnoringComments(true);
         factory.setCoalescing(true);
         factory.setNamespaceAware(true);
-        factory.setValidating(true);
 
+        // validation is performed by the compiled schema, and not the parser
         try {
-            factory.setAttribute("http://java.sun.com/xml/jaxp/properties/schemaLanguage",
-                XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            factory.setAttribute("http://java.sun.com/xml/jaxp/properties/schemaSource", 
-                XmlMappingReader.class.getResource(BEANIO_XSD).toExternalForm());
+            factory.setSchema(getSchema());
         }
-        catch (IllegalArgumentException ex) {
+        catch (UnsupportedOperationException ex) {
             throw new BeanIOException("Unable to validate using XSD: JAXP provider [" +
                 factory + "] does not support XML Schema.", ex);
         }
         return factory;
     }
+    
+    /**
+     * Returns the compiled BeanIO mapping schema, compiling it if it is not already
+     * cached for the current thread's context class loader.
+     * @return the mapping {@link Schema}
+     */
+    protected Schema getSchema() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        synchronized (schemaCache) {
+            Reference<Schema> ref = schemaCache.get(loader);
+            Schema schema = ref == null ? null : ref.get();
+            if (schema == null) {
+                schema = compileSchema();
+                schemaCache.put(loader, new SoftReference<Schema>(schema));
+            }
+            return schema;
+        }
+    }
+    
+    private Schema compileSchema() {
+        SchemaFactory schemaFactory;
+        try {
+            schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        }
+        catch (IllegalArgumentException ex) {
+            throw new BeanIOException("Unable to validate using XSD: no JAXP provider " +
+                "supports XML Schema.", ex);
+        }
+        
+        try {
+            return schemaFactory.newSchema(XmlMappingReader.class.getResource(BEANIO_XSD));
+        }
+        catch (SAXException ex) {
+            throw new BeanIOException("Failed to compile BeanIO mapping schema", ex);
+        }
+    }
 
     /**
      * Returns the XML entity resolver for loading the BeanIO schema definition or 
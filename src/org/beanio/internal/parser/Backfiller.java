@@ -0,0 +1,349 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.math.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.internal.util.CountingOutputStream;
+import org.beanio.stream.RecordWriter;
+
+/**
+ * Accumulates counts and totals of records written by a {@link BeanWriterImpl}, and patches
+ * them into previously written records when the writer is closed.
+ *
+ * <p>The byte offset and length of each backfilled record are determined by flushing the
+ * record writer before and after the record is written.  When closed, each backfilled
+ * record is marshalled again into memory and written over the original using a
+ * <tt>RandomAccessFile</tt>.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see Backfill
+ */
+public class Backfiller {
+
+    private StreamFormat format;
+    private File file;
+    private Charset charset;
+    private boolean binary;
+    private CountingOutputStream counter;
+
+    private List<Target> targets = new ArrayList<Target>();
+    private List<Total> totals = new ArrayList<Total>();
+
+    /**
+     * Constructs a new <tt>Backfiller</tt>.
+     * @param layout the root component of the parser tree
+     * @param format the {@link StreamFormat}
+     * @param backfills the list of {@link Backfill}
+     * @param file the file written to
+     * @param charset the character set used to encode records, ignored if binary
+     * @param binary true if records are written as bytes
+     * @throws IllegalArgumentException if a record or field is not found, or if the type of
+     *   a backfilled field is not numeric
+     */
+    public Backfiller(Selector layout, StreamFormat format, List<Backfill> backfills, File file,
+        Charset charset, boolean binary) throws IllegalArgumentException {
+        this.format = format;
+        this.file = file;
+        this.charset = charset;
+        this.binary = binary;
+
+        for (Backfill backfill : backfills) {
+            Target target = new Target(findRecord(layout, backfill.getRecordName()));
+            for (Backfill.Aggregate aggregate : backfill.getAggregates()) {
+                Field field = findField(target.record, aggregate.getField());
+                if (!isSupported(field.getPropertyType())) {
+                    throw new IllegalArgumentException("Type of backfilled field '" + aggregate.getField() +
+                        "' must be numeric or String");
+                }
+                Record source = findRecord(layout, aggregate.getRecordName());
+                Field sumField = null;
+                if (aggregate.getSumField() != null) {
+                    sumField = findField(source, aggregate.getSumField());
+                }
+
+                Total total = new Total(field, source, sumField);
+                target.totals.add(total);
+                totals.add(total);
+            }
+            targets.add(target);
+        }
+    }
+
+    /**
+     * Creates the {@link RecordWriter} for writing to the file.
+     * @param out the file output stream
+     * @param metrics the {@link MetricsRecorder} to count characters written, or null
+     * @return the new {@link RecordWriter}
+     */
+    public RecordWriter createRecordWriter(OutputStream out, MetricsRecorder metrics) {
+        counter = new CountingOutputStream(out);
+        if (metrics == null) {
+            return createRecordWriter(counter, format, charset, binary);
+        }
+        // characters are counted before they are encoded, unless written as bytes
+        if (binary) {
+            return format.createRecordWriter(metrics.wrap(new BufferedOutputStream(counter)));
+        }
+        return format.createRecordWriter(metrics.wrap(
+            new BufferedWriter(new OutputStreamWriter(counter, charset))));
+    }
+
+    private static RecordWriter createRecordWriter(OutputStream out, StreamFormat format,
+        Charset charset, boolean binary) {
+        if (binary) {
+            return format.createRecordWriter(new BufferedOutputStream(out));
+        }
+        return format.createRecordWriter(new BufferedWriter(new OutputStreamWriter(out, charset)));
+    }
+
+    /**
+     * Called before a record or group is marshalled, after its field values are set.
+     * @param context the {@link MarshallingContext}
+     * @param matched the matched record or group
+     * @param bean the bean object being written
+     * @throws IOException if an I/O error occurs
+     */
+    public void prepare(MarshallingContext context, Selector matched, Object bean) throws IOException {
+        for (Total total : totals) {
+            if (total.source == matched) {
+                total.pending = total.sumField == null ? null : total.sumField.getValue(context);
+            }
+        }
+
+        Target target = getTarget(matched);
+        if (target != null) {
+            target.apply(context);
+
+            context.getRecordWriter().flush();
+            target.offset = counter.getCount();
+            target.bean = bean;
+        }
+    }
+
+    /**
+     * Called after a record or group is successfully marshalled.
+     * @param context the {@link MarshallingContext}
+     * @param matched the matched record or group
+     * @throws IOException if an I/O error occurs
+     */
+    public void complete(MarshallingContext context, Selector matched) throws IOException {
+        for (Total total : totals) {
+            if (total.source == matched) {
+                total.add();
+            }
+        }
+
+        Target target = getTarget(matched);
+        if (target != null) {
+            context.getRecordWriter().flush();
+            target.length = counter.getCount() - target.offset;
+        }
+    }
+
+    /**
+     * Patches backfilled records after the record writer is closed.
+     * @param context the {@link MarshallingContext}
+     * @throws IOException if an I/O error occurs
+     * @throws BeanWriterException if a backfilled record does not fit its original length
+     */
+    public void close(MarshallingContext context) throws IOException, BeanWriterException {
+        RandomAccessFile out = null;
+        try {
+            for (Target target : targets) {
+                if (target.offset < 0) {
+                    continue;
+                }
+
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                RecordWriter writer = createRecordWriter(buffer, format, charset, binary);
+                context.setRecordWriter(writer);
+                if (target.bean != null) {
+                    target.record.setValue(context, target.bean);
+                }
+                target.apply(context);
+                target.record.marshal(context);
+                writer.flush();
+
+                byte[] b = buffer.toByteArray();
+                if (b.length != target.length) {
+                    throw new BeanWriterException("Backfilled record '" + target.record.getName() +
+                        "' length changed from " + target.length + " to " + b.length + " bytes");
+                }
+
+                if (out == null) {
+                    out = new RandomAccessFile(file, "rw");
+                }
+                out.seek(target.offset);
+                out.write(b);
+            }
+        }
+        finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private Target getTarget(Selector matched) {
+        for (Target target : targets) {
+            if (target.record == matched) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private static Record findRecord(Selector layout, String name) {
+        Record record = findRecord((Component) layout, name);
+        if (record == null) {
+            throw new IllegalArgumentException("Record '" + name + "' not found");
+        }
+        return record;
+    }
+
+    private static Record findRecord(Component node, String name) {
+        if (node instanceof Record) {
+            return name.equals(node.getName()) ? (Record) node : null;
+        }
+        for (Component child : node.getChildren()) {
+            Record record = findRecord(child, name);
+            if (record != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Record record, String name) {
+        for (Component child : record.getChildren()) {
+            Component node = child.find(name);
+            if (node instanceof Field) {
+                return (Field) node;
+            }
+        }
+        throw new IllegalArgumentException("Field '" + name + "' not found in record '" + record.getName() + "'");
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == null || type == String.class || Number.class.isAssignableFrom(type) ||
+            type == Integer.TYPE || type == Long.TYPE || type == Short.TYPE || type == Byte.TYPE ||
+            type == Double.TYPE || type == Float.TYPE;
+    }
+
+    /*
+     * Converts a count or total to the property type of a field.
+     */
+    private static Object convert(BigDecimal value, Class<?> type) {
+        try {
+            if (type == Integer.class || type == Integer.TYPE) {
+                return value.intValueExact();
+            }
+            else if (type == Long.class || type == Long.TYPE) {
+                return value.longValueExact();
+            }
+            else if (type == Short.class || type == Short.TYPE) {
+                return value.shortValueExact();
+            }
+            else if (type == Byte.class || type == Byte.TYPE) {
+                return value.byteValueExact();
+            }
+            else if (type == Double.class || type == Double.TYPE) {
+                return value.doubleValue();
+            }
+            else if (type == Float.class || type == Float.TYPE) {
+                return value.floatValue();
+            }
+            else if (type == BigInteger.class) {
+                return value.toBigIntegerExact();
+            }
+            else if (type == String.class) {
+                return value.toPlainString();
+            }
+            return value;
+        }
+        catch (ArithmeticException ex) {
+            throw new BeanWriterException("Backfilled value " + value + " cannot be converted to " +
+                type.getSimpleName(), ex);
+        }
+    }
+
+    /**
+     * A record to backfill.
+     */
+    private static class Target {
+        private Record record;
+        private List<Total> totals = new ArrayList<Total>();
+        private Object bean;
+        // the byte offset and length of the record, or -1 if not written
+        private long offset = -1;
+        private long length;
+
+        public Target(Record record) {
+            this.record = record;
+        }
+
+        public void apply(MarshallingContext context) {
+            for (Total total : totals) {
+                total.field.setValue(context, convert(total.getValue(), total.field.getPropertyType()));
+            }
+        }
+    }
+
+    /**
+     * A count or total of the records written.
+     */
+    private static class Total {
+        private Field field;
+        private Record source;
+        private Field sumField;
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private Object pending;
+
+        public Total(Field field, Record source, Field sumField) {
+            this.field = field;
+            this.source = source;
+            this.sumField = sumField;
+        }
+
+        public void add() {
+            ++count;
+            if (pending instanceof BigDecimal) {
+                sum = sum.add((BigDecimal) pending);
+            }
+            else if (pending instanceof BigInteger) {
+                sum = sum.add(new BigDecimal((BigInteger) pending));
+            }
+            else if (pending instanceof Double || pending instanceof Float) {
+                sum = sum.add(BigDecimal.valueOf(((Number) pending).doubleValue()));
+            }
+            else if (pending instanceof Number) {
+                sum = sum.add(BigDecimal.valueOf(((Number) pending).longValue()));
+            }
+            pending = null;
+        }
+
+        public BigDecimal getValue() {
+            return sumField == null ? BigDecimal.valueOf(count) : sum;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.*;
 
 import org.beanio.*;
 import org.beanio.internal.util.StringUtil;
+import org.beanio.metrics.Phase;
 
 /**
  * A component used to aggregate {@link Property}'s into a bean object, which
@@ -293,19 +294,37 @@ public class Bean extends PropertyComponent implements Property {
             return null;
         }
         
+        MetricsRecorder metrics = context.getMetrics();
+        long start = (metrics != null && metrics.isSampling()) ? System.nanoTime() : 0;
         try {
+            Object bean;
             if (constructor == null) {
-                return beanClass.newInstance();
+                bean = createInstance();
             }
             else {
-                return constructor.newInstance(constructorArgs.get(context));
+                bean = constructor.newInstance(constructorArgs.get(context));
             }
+            
+            if (metrics != null) {
+                metrics.time(Phase.CREATE, getName(), start);
+            }
+            return bean;
         }
         catch (Exception e) {
             throw new BeanReaderException("Failed to instantiate class '" + beanClass.getName() + "'", e);
         }
     }
 
+    /**
+     * Creates a new instance of this bean object using its no-arg constructor.
+     * @return the new bean <tt>Object</tt>
+     * @throws Exception if the bean class cannot be instantiated
+     * @since 3.0
+     */
+    protected Object createInstance() throws Exception {
+        return getType().newInstance();
+    }
+
     @Override
     protected boolean isSupportedChild(Component child) {
         return child instanceof Property;
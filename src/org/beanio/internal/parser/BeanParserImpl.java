@@ -0,0 +1,598 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.stream.*;
+import org.beanio.stream.json.JsonReader;
+import org.beanio.stream.xml.XmlReader;
+
+/**
+ * A {@link BeanParser} implementation.
+ *
+ * <p>Records are framed by the stream format's {@link RecordReader}, which reads from
+ * the characters fed so far.  If the record reader runs out of characters before a
+ * record is complete, it is discarded, and a new record reader is created at the
+ * start of the incomplete record once more input is available.  Framed records are
+ * queued and unmarshalled by a {@link BeanReaderImpl}.  If a bean object spans
+ * multiple records and runs out of framed records, the layout state saved before
+ * the bean object was started is restored, and the bean object is unmarshalled
+ * again when more records are framed.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class BeanParserImpl implements BeanParser {
+
+    private static final String STATE_NAMESPACE = "parser";
+
+    private StreamFormat format;
+    private UnmarshallingContext context;
+    private Selector layout;
+    private BeanReaderImpl reader;
+    private BeanParserListener listener;
+    private CharsetDecoder decoder;
+
+    // characters that have been fed but not yet framed
+    private InputBuffer input = new InputBuffer();
+    // framed records that have not been unmarshalled
+    private RecordQueue queue = new RecordQueue();
+    // the record reader used to frame records, or null if not yet created
+    private RecordReader framer;
+    // the number of lines framed before the current framer was created
+    private int framerLineOffset;
+    // set to true if the stream format terminates records using new lines
+    private boolean lineNumbered;
+    // bytes left over from the last chunk that did not form a complete character
+    private ByteBuffer remainingBytes = ByteBuffer.allocate(16);
+    // the layout state saved before each bean object is unmarshalled
+    private Map<String, Object> state = new HashMap<String, Object>();
+    // set to true when the end of the stream was reached
+    private boolean done;
+
+    /**
+     * Constructs a new <tt>BeanParserImpl</tt>.
+     * @param context the {@link UnmarshallingContext}
+     * @param layout the root component of the parser tree
+     * @param format the {@link StreamFormat} used to create record readers
+     * @param charset the {@link Charset} used to decode bytes, or null to use the
+     *   default charset
+     * @param listener the {@link BeanParserListener} to notify of unmarshalled bean objects
+     * @throws IllegalArgumentException if the stream format does not support push parsing
+     */
+    public BeanParserImpl(UnmarshallingContext context, Selector layout, StreamFormat format,
+        Charset charset, BeanParserListener listener) throws IllegalArgumentException {
+
+        if (listener == null) {
+            throw new NullPointerException("null listener");
+        }
+
+        this.context = context;
+        this.layout = layout;
+        this.format = format;
+        this.listener = listener;
+
+        if (charset == null) {
+            charset = Charset.defaultCharset();
+        }
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        // XML and JSON record readers maintain document state, so a new record
+        // reader cannot be created at the start of any record
+        try {
+            framer = format.createRecordReader(input);
+        }
+        catch (RuntimeException ex) {
+            framer = null;
+        }
+        if (framer == null || framer instanceof XmlReader || framer instanceof JsonReader) {
+            throw new IllegalArgumentException("BeanParser not supported for stream format");
+        }
+
+        context.setRecordReader(queue);
+        this.reader = new BeanReaderImpl(context, layout);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#feed(java.nio.ByteBuffer)
+     */
+    public void feed(ByteBuffer buffer) throws BeanReaderException {
+        ensureOpen();
+
+        // complete any partial character left over from the last chunk
+        while (remainingBytes.position() > 0 && buffer.hasRemaining()) {
+            remainingBytes.put(buffer.get());
+            remainingBytes.flip();
+            input.decode(remainingBytes, decoder, false);
+            remainingBytes.compact();
+        }
+
+        input.decode(buffer, decoder, false);
+        if (buffer.hasRemaining()) {
+            if (buffer.remaining() > remainingBytes.remaining()) {
+                ByteBuffer b = ByteBuffer.allocate(remainingBytes.position() + buffer.remaining());
+                remainingBytes.flip();
+                b.put(remainingBytes);
+                remainingBytes = b;
+            }
+            remainingBytes.put(buffer);
+        }
+
+        parse();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#feed(java.lang.CharSequence)
+     */
+    public void feed(CharSequence text) throws BeanReaderException {
+        ensureOpen();
+
+        if (remainingBytes.position() > 0) {
+            throw new BeanReaderIOException("Characters fed after an incomplete byte sequence");
+        }
+
+        input.append(text);
+        parse();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#endOfInput()
+     */
+    public void endOfInput() throws BeanReaderException {
+        if (done) {
+            throw new BeanReaderIOException("End of input already reached");
+        }
+
+        // this method may be called again if an exception was thrown
+        if (!input.eof) {
+            remainingBytes.flip();
+            input.decode(remainingBytes, decoder, true);
+            remainingBytes.clear();
+            input.eof = true;
+        }
+
+        parse();
+    }
+
+    /**
+     * Frames all complete records, and unmarshals and passes to the listener
+     * as many bean objects as possible.
+     */
+    private void parse() {
+        frame();
+
+        while (!done) {
+            boolean pending = context.isRecordPending();
+            if (!pending && !queue.isReady()) {
+                break;
+            }
+
+            // save the layout state in case the bean object spans more records than framed
+            int mark = queue.getPosition() - (pending ? 1 : 0);
+            state.clear();
+            layout.updateState(context, STATE_NAMESPACE, state);
+
+            Object bean;
+            try {
+                bean = reader.read();
+            }
+            catch (InputUnderflowException ex) {
+                layout.restoreState(context, STATE_NAMESPACE, state);
+                context.discardRecord();
+                queue.setPosition(mark);
+                break;
+            }
+            finally {
+                queue.discard(queue.getPosition() - (context.isRecordPending() ? 1 : 0));
+            }
+
+            if (bean == null) {
+                done = true;
+            }
+            else {
+                listener.beanRead(this, bean);
+            }
+        }
+    }
+
+    /**
+     * Frames and queues all complete records.
+     */
+    private void frame() {
+        while (!queue.complete) {
+            if (framer == null) {
+                if (!input.rewind(lineNumbered)) {
+                    break;
+                }
+                framerLineOffset = input.lineCount;
+                framer = format.createRecordReader(input);
+            }
+
+            Object value;
+            RecordIOException error = null;
+            try {
+                value = framer.read();
+            }
+            catch (InputUnderflowException ex) {
+                framer = null;
+                break;
+            }
+            catch (RecordIOException ex) {
+                value = null;
+                error = ex;
+            }
+            catch (IOException ex) {
+                throw new BeanReaderIOException("IOException caught framing record", ex);
+            }
+
+            if (value == null && error == null) {
+                queue.complete = true;
+                break;
+            }
+
+            int lineNumber = framer.getRecordLineNumber();
+            if (lineNumber > 0) {
+                lineNumbered = true;
+                lineNumber += framerLineOffset;
+            }
+            queue.add(new FramedRecord(value, framer.getRecordText(), lineNumber, error));
+            input.commit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#getRecordName()
+     */
+    public String getRecordName() {
+        return reader.getRecordName();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#getLineNumber()
+     */
+    public int getLineNumber() {
+        return reader.getLineNumber();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#getRecordCount()
+     */
+    public int getRecordCount() {
+        return reader.getRecordCount();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#getRecordContext(int)
+     */
+    public RecordContext getRecordContext(int index) throws IndexOutOfBoundsException {
+        return reader.getRecordContext(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanParser#setErrorHandler(org.beanio.BeanReaderErrorHandler)
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler) {
+        reader.setErrorHandler(errorHandler);
+    }
+
+    /**
+     * Sets whether to ignore unidentified records.  Defaults to false.
+     * @param ignoreUnidentifiedRecords true to ignore unidentified records, false otherwise
+     */
+    public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
+        reader.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+    }
+
+    /*
+     * Throws an exception if the end of input was already signaled.
+     */
+    private void ensureOpen() {
+        if (input.eof) {
+            throw new BeanReaderIOException("End of input already reached");
+        }
+    }
+
+    public void debug() {
+        reader.debug();
+    }
+    public void debug(PrintStream out) {
+        reader.debug(out);
+    }
+
+    /**
+     * Thrown by the {@link InputBuffer} or {@link RecordQueue} when more input is
+     * needed to complete a record or bean object.
+     */
+    private static class InputUnderflowException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public InputUnderflowException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A framed record.
+     */
+    private static class FramedRecord {
+        private Object value;
+        private String text;
+        private int lineNumber;
+        private RecordIOException error;
+
+        public FramedRecord(Object value, String text, int lineNumber, RecordIOException error) {
+            this.value = value;
+            this.text = text;
+            this.lineNumber = lineNumber;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The {@link RecordReader} used by the unmarshalling context to read framed records.
+     */
+    private static class RecordQueue implements RecordReader {
+
+        private List<FramedRecord> records = new ArrayList<FramedRecord>();
+        // the index of the next record to read
+        private int position;
+        // the last record read
+        private FramedRecord current;
+        // set to true when all records have been framed
+        private boolean complete;
+
+        public void add(FramedRecord record) {
+            records.add(record);
+        }
+
+        /**
+         * Returns whether a call to {@link #read()} will not underflow.
+         * @return true if a record is available or all records have been read
+         */
+        public boolean isReady() {
+            return position < records.size() || complete;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public void setPosition(int position) {
+            this.position = position;
+        }
+
+        /**
+         * Discards records that will never be read again.
+         * @param count the number of records to discard
+         */
+        public void discard(int count) {
+            if (count > 0) {
+                records.subList(0, count).clear();
+                position -= count;
+            }
+        }
+
+        public Object read() throws IOException, RecordIOException {
+            if (position < records.size()) {
+                current = records.get(position++);
+                if (current.error != null) {
+                    throw current.error;
+                }
+                return current.value;
+            }
+            if (complete) {
+                current = null;
+                return null;
+            }
+            throw new InputUnderflowException();
+        }
+
+        public void close() throws IOException { }
+
+        public int getRecordLineNumber() {
+            return current == null ? -1 : current.lineNumber;
+        }
+
+        public String getRecordText() {
+            return current == null ? null : current.text;
+        }
+    }
+
+    /**
+     * Buffers fed characters that have not been framed, and serves them to the framing
+     * record reader.  Reading past the available characters throws an
+     * {@link InputUnderflowException} until the end of input is signaled.
+     */
+    private static class InputBuffer extends Reader {
+
+        private char[] buf = new char[1024];
+        // the start of the first unframed character
+        private int start;
+        // the next character to read
+        private int pos;
+        // the number of buffered characters
+        private int limit;
+        // the marked position, or -1 if not marked
+        private int mark = -1;
+        // set to true when the end of input is signaled
+        private boolean eof;
+        // the number of lines framed
+        private int lineCount;
+        // whether the last framed character was a carriage return
+        private boolean lastCR;
+
+        /**
+         * Appends characters to this buffer.
+         * @param text the characters to append
+         */
+        public void append(CharSequence text) {
+            int length = text.length();
+            ensureCapacity(length);
+            if (text instanceof String) {
+                ((String)text).getChars(0, length, buf, limit);
+                limit += length;
+            }
+            else {
+                for (int i=0; i<length; i++) {
+                    buf[limit++] = text.charAt(i);
+                }
+            }
+        }
+
+        /**
+         * Decodes and appends bytes to this buffer.
+         * @param in the bytes to decode
+         * @param decoder the {@link CharsetDecoder}
+         * @param endOfInput true if there are no more bytes to decode
+         */
+        public void decode(ByteBuffer in, CharsetDecoder decoder, boolean endOfInput) {
+            while (true) {
+                ensureCapacity((int) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte()) + 16);
+
+                CharBuffer out = CharBuffer.wrap(buf, limit, buf.length - limit);
+                CoderResult result = decoder.decode(in, out, endOfInput);
+                if (!result.isOverflow() && endOfInput) {
+                    result = decoder.flush(out);
+                }
+                limit = out.position();
+
+                if (!result.isOverflow()) {
+                    break;
+                }
+            }
+        }
+
+        /*
+         * Compacts the buffer and makes room for at least the given number of characters.
+         */
+        private void ensureCapacity(int length) {
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, limit - start);
+                limit -= start;
+                pos -= start;
+                start = 0;
+                mark = -1;
+            }
+            if (limit + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, limit + length));
+            }
+        }
+
+        /**
+         * Prepares this buffer for a new record reader.
+         * @param skipLF true to skip a line feed that completes a carriage return and
+         *   line feed combination that ended the last framed record
+         * @return false if more input is required before a new record reader can be created
+         */
+        public boolean rewind(boolean skipLF) {
+            pos = start;
+            mark = -1;
+
+            if (start == limit) {
+                return eof;
+            }
+            if (skipLF && lastCR && buf[start] == '\n') {
+                ++start;
+                ++pos;
+                lastCR = false;
+            }
+            return start < limit || eof;
+        }
+
+        /**
+         * Marks all characters read as framed.
+         */
+        public void commit() {
+            for (int i=start; i<pos; i++) {
+                char c = buf[i];
+                if (c == '\r' || (c == '\n' && !lastCR)) {
+                    ++lineCount;
+                }
+                lastCR = (c == '\r');
+            }
+            start = pos;
+        }
+
+        @Override
+        public int read() {
+            if (pos < limit) {
+                return buf[pos++];
+            }
+            if (eof) {
+                return -1;
+            }
+            throw new InputUnderflowException();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            // a partial read could mislead a reader looking ahead (e.g. for comments),
+            // so more input is requested unless all characters are available
+            int n = limit - pos;
+            if (n < len && !eof) {
+                throw new InputUnderflowException();
+            }
+            if (n <= 0) {
+                return -1;
+            }
+
+            n = Math.min(n, len);
+            System.arraycopy(buf, pos, cbuf, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readAheadLimit) {
+            mark = pos;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            if (mark < 0) {
+                throw new IOException("Stream not marked");
+            }
+            pos = mark;
+        }
+
+        @Override
+        public void close() { }
+    }
+}
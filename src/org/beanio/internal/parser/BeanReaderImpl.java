@@ -16,8 +16,11 @@
 package org.beanio.internal.parser;
 
 import java.io.*;
+import java.util.*;
 
 import org.beanio.*;
+import org.beanio.internal.parser.format.flat.FlatFieldFormat;
+import org.beanio.metrics.Phase;
 
 /**
  * A {@link BeanReader} implementation.
@@ -39,6 +42,10 @@ public class BeanReaderImpl implements BeanReader {
     private BeanReaderErrorHandler errorHandler;
     // whether to ignore unidentified records
     private boolean ignoreUnidentifiedRecords;
+    // record filters keyed by record name, or null if no filter was set
+    private Map<String, FilterBinding> filters;
+    // the number of records rejected by a record filter
+    private int filteredRecordCount;
     
     /**
      * Constructs a new <tt>BeanReaderImpl</tt>.
@@ -90,6 +97,11 @@ public class BeanReaderImpl implements BeanReader {
     private Object internalRead() {
         Selector parser = null;
         
+        MetricsRecorder metrics = context.getMetrics();
+        if (metrics != null) {
+            metrics.sample();
+        }
+        
         try {
             // match the next record, parser may be null if EOF was reached
             parser = nextRecord();
@@ -97,14 +109,24 @@ public class BeanReaderImpl implements BeanReader {
                 return null;
             }
             
+            // skip the record without unmarshalling it if rejected by a filter
+            if (filters != null && isFiltered(parser)) {
+                parser.skip(context);
+                return null;
+            }
+            
             // notify the unmarshalling context that we are about to unmarshal a new record
             context.prepare(parser.getName(), parser.isRecordGroup());
             
             // unmarshal the record
+            long start = (metrics != null && metrics.isSampling()) ? System.nanoTime() : 0;
             try {
                 parser.unmarshal(context);
             }
             catch (AbortRecordUnmarshalligException ex) { }
+            if (metrics != null) {
+                metrics.time(Phase.UNMARSHAL, parser.getName(), start);
+            }
             
             // this will throw an exception if an invalid record was unmarshalled
             context.validate();
@@ -127,6 +149,7 @@ public class BeanReaderImpl implements BeanReader {
      */
     private Selector nextRecord() throws BeanReaderException {
         Selector parser = null;
+        MetricsRecorder metrics = context.getMetrics();
         
         // clear the current record name
         recordName = null;
@@ -159,12 +182,16 @@ public class BeanReaderImpl implements BeanReader {
             // update the last line number read
             lineNumber = context.getLineNumber();
             
+            long start = (metrics != null && metrics.isSampling()) ? System.nanoTime() : 0;
             try {
                 parser = layout.matchNext(context);
             }
             catch (UnexpectedRecordException ex) {
                 // when thrown, 'parser' is null and the error is handled below
             }
+            if (metrics != null) {
+                metrics.time(Phase.MATCH, parser == null ? null : parser.getName(), start);
+            }
             
             if (parser == null && ignoreUnidentifiedRecords) {
                 context.recordSkipped();
@@ -203,8 +230,14 @@ public class BeanReaderImpl implements BeanReader {
             return 0;
         }
         
+        MetricsRecorder metrics = context.getMetrics();
+        
         int n = 0;
         while (n < count) {
+            if (metrics != null) {
+                metrics.sample();
+            }
+            
             // find the next matching record node
             Selector node = nextRecord();
 
@@ -213,11 +246,12 @@ public class BeanReaderImpl implements BeanReader {
                 return n;
             }
             
+            boolean filtered = filters != null && isFiltered(node);
             node.skip(context);
             
             // if the bean definition does not have a property type configured, it would not
             // have been mapped to a bean object
-            if (node.getProperty() != null) {
+            if (!filtered && node.getProperty() != null) {
                 ++n;
             }
         }
@@ -286,6 +320,154 @@ public class BeanReaderImpl implements BeanReader {
         this.errorHandler = errorHandler;
     }
     
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#setRecordFilter(java.lang.String, org.beanio.RecordFilter, java.lang.String[])
+     */
+    public void setRecordFilter(String recordName, RecordFilter filter, String... fieldNames)
+        throws IllegalArgumentException {
+        
+        ensureOpen();
+        
+        if (filter == null) {
+            if (filters != null) {
+                filters.remove(recordName);
+            }
+            return;
+        }
+        
+        // the layout is released once the end of the stream is reached
+        if (layout == null) {
+            return;
+        }
+        
+        Record record = findRecord((Component) layout, recordName);
+        if (record == null) {
+            throw new IllegalArgumentException("Record '" + recordName + "' not found");
+        }
+        
+        Field[] fields = new Field[fieldNames.length];
+        for (int i=0; i<fieldNames.length; i++) {
+            fields[i] = findField(record, fieldNames[i]);
+        }
+        
+        if (filters == null) {
+            filters = new HashMap<String, FilterBinding>();
+        }
+        filters.put(recordName, new FilterBinding(record, filter, fields));
+    }
+    
+    /*
+     * Finds a record by name that is not read as part of a group bound to a bean object.
+     */
+    private Record findRecord(Component node, String recordName) {
+        for (Component child : node.getChildren()) {
+            if (child instanceof Record) {
+                if (child.getName().equals(recordName)) {
+                    return (Record) child;
+                }
+            }
+            else if (child instanceof Group) {
+                Record record = findRecord(child, recordName);
+                if (record != null) {
+                    if (((Group) child).getProperty() != null) {
+                        throw new IllegalArgumentException("Record '" + recordName + 
+                            "' is read as part of group '" + child.getName() + "'");
+                    }
+                    return record;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /*
+     * Finds a field in a record given its name, prefixed by the names of any
+     * enclosing segments.
+     */
+    private Field findField(Record record, String fieldName) {
+        Component node = record;
+        for (String name : fieldName.split("\\.")) {
+            Component next = null;
+            for (Component child : node.getChildren()) {
+                if (name.equals(child.getName())) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                node = null;
+                break;
+            }
+            if (next instanceof Iteration) {
+                throw new IllegalArgumentException("Field '" + fieldName + "' in record '" + 
+                    record.getName() + "' repeats");
+            }
+            node = next;
+        }
+        
+        if (!(node instanceof Field)) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' not found in record '" +
+                record.getName() + "'");
+        }
+        
+        // the position of a field may depend on the number of occurrences of a
+        // preceding segment or field, which is only known once the record is unmarshalled
+        Field field = (Field) node;
+        if (!(field.getFormat() instanceof FlatFieldFormat) || !isStaticallyPositioned(record, field)) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' in record '" + 
+                record.getName() + "' cannot be filtered");
+        }
+        return field;
+    }
+    
+    /*
+     * Returns TRUE if the given field is found before any component that repeats a
+     * variable number of times, FALSE if it is found after, or null if not found.
+     */
+    private Boolean isStaticallyPositioned(Component node, Field field) {
+        for (Component child : node.getChildren()) {
+            if (child == field) {
+                return Boolean.TRUE;
+            }
+            if (child instanceof Aggregation) {
+                Aggregation aggregation = (Aggregation) child;
+                if (aggregation.getMinOccurs() != aggregation.getMaxOccurs()) {
+                    return Boolean.FALSE;
+                }
+            }
+            Boolean found = isStaticallyPositioned(child, field);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+    
+    /*
+     * Returns true if the record matched by the given parser is rejected by a filter.
+     */
+    private boolean isFiltered(Selector parser) {
+        FilterBinding binding = filters.get(parser.getName());
+        if (binding == null || binding.record != parser || binding.accept(context)) {
+            return false;
+        }
+        
+        ++filteredRecordCount;
+        if (context.getMetrics() != null) {
+            context.getMetrics().recordFiltered(parser.getName());
+        }
+        return true;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanReader#getFilteredRecordCount()
+     */
+    public int getFilteredRecordCount() {
+        return filteredRecordCount;
+    }
+    
     /*
      * Throws an exception if the stream has already been closed.
      */
@@ -300,6 +482,8 @@ public class BeanReaderImpl implements BeanReader {
             throw ex;
         }
         else {
+            MetricsRecorder metrics = context.getMetrics();
+            long start = (metrics != null && metrics.isSampling()) ? System.nanoTime() : 0;
             try {
                 errorHandler.handleError(ex);
             }
@@ -309,6 +493,11 @@ public class BeanReaderImpl implements BeanReader {
             catch (Exception e) {
                 throw new BeanReaderException("Exception thrown by error handler", e);
             }
+            finally {
+                if (metrics != null) {
+                    metrics.time(Phase.ERROR, recordName, start);
+                }
+            }
         }
     }
 
@@ -326,4 +515,27 @@ public class BeanReaderImpl implements BeanReader {
     public void debug(PrintStream out) {
         ((Component)layout).print(out);
     }
+    
+    /**
+     * A {@link RecordFilter} and the record and fields it was set for.
+     */
+    private static class FilterBinding {
+        private Record record;
+        private RecordFilter filter;
+        private Field[] fields;
+        
+        public FilterBinding(Record record, RecordFilter filter, Field[] fields) {
+            this.record = record;
+            this.filter = filter;
+            this.fields = fields;
+        }
+        
+        public boolean accept(UnmarshallingContext context) {
+            String[] text = new String[fields.length];
+            for (int i=0; i<fields.length; i++) {
+                text[i] = ((FlatFieldFormat) fields[i].getFormat()).extractFieldText(context, false);
+            }
+            return filter.accept(text);
+        }
+    }
 }
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.beanio.*;
 import org.beanio.internal.util.*;
+import org.beanio.metrics.Phase;
 import org.beanio.stream.RecordWriter;
 
 /**
@@ -32,6 +33,7 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
 
     private Selector layout;
     private MarshallingContext context;
+    private Backfiller backfiller;
     
     /**
      * Constructs a new <tt>BeanWriterImpl</tt>.
@@ -63,6 +65,12 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
                 "name or bean object must be provided");
         }
         
+        MetricsRecorder metrics = context.getMetrics();
+        long start = 0;
+        if (metrics != null && metrics.sample()) {
+            start = System.nanoTime();
+        }
+        
         try {
             // set the name of the component to be marshalled (may be null if we're just matching on bean)
             context.setComponentName(recordName);
@@ -71,6 +79,9 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
             
             // find the parser in the layout that defines the given bean
             Selector matched = layout.matchNext(context);
+            if (metrics != null) {
+                metrics.time(Phase.MATCH, matched == null ? null : matched.getName(), start);
+            }
             if (matched == null) {
                 if (recordName != null) {
                     throw new BeanWriterException("Bean identification failed: " +
@@ -84,8 +95,24 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
                 }            
             }
             
+            // set backfilled fields and record the position of the record
+            if (backfiller != null) {
+                backfiller.prepare(context, matched, bean);
+            }
+            
             // marshal the bean object
-            matched.marshal(context);
+            if (metrics != null && metrics.isSampling()) {
+                start = System.nanoTime();
+                matched.marshal(context);
+                metrics.time(Phase.MARSHAL, matched.getName(), start);
+            }
+            else {
+                matched.marshal(context);
+            }
+            
+            if (backfiller != null) {
+                backfiller.complete(context, matched);
+            }
         }
         catch (IOException e) {
             throw new BeanWriterIOException(e);
@@ -123,6 +150,9 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
         
         try {
             context.getRecordWriter().close();
+            if (backfiller != null) {
+                backfiller.close(context);
+            }
         }
         catch (IOException e) {
             throw new BeanWriterIOException(e);
@@ -133,6 +163,15 @@ public class BeanWriterImpl implements BeanWriter, StatefulWriter {
         }
     }
     
+    /**
+     * Sets the {@link Backfiller} that patches counts and totals into previously
+     * written records when this writer is closed.
+     * @param backfiller the {@link Backfiller}
+     */
+    public void setBackfiller(Backfiller backfiller) {
+        this.backfiller = backfiller;
+    }
+    
     /*
      * Throws an exception if the stream has already been closed.
      */
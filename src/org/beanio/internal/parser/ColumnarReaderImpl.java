@@ -0,0 +1,332 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.columnar.*;
+
+/**
+ * A {@link ColumnarReader} implementation.
+ *
+ * <p>Records are read and matched against the layout using an {@link UnmarshallingContext}
+ * in validation only mode, so that no bean objects are created.  After a record of the
+ * selected type is validated, the value of each of its fields is copied into the columns
+ * of the current batch.  Fields of a repeating segment or collection are not included.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ColumnarReaderImpl implements ColumnarReader {
+
+    private UnmarshallingContext context;
+    private Selector layout;
+    private Record record;
+    private Field[] fields;
+    private Object[] row;
+    private ColumnBatch batch;
+    private BeanReaderErrorHandler errorHandler;
+    private boolean ignoreUnidentifiedRecords;
+
+    /**
+     * Constructs a new <tt>ColumnarReaderImpl</tt>.
+     * @param context the {@link UnmarshallingContext}
+     * @param layout the root component of the parser tree
+     * @param recordName the name of the record to read into columns, or <tt>null</tt>
+     *   if the layout has only one record
+     * @param batchSize the maximum number of records in a batch
+     * @throws IllegalArgumentException if the record is not found, or is part of a
+     *   record group bound to a bean object
+     */
+    public ColumnarReaderImpl(UnmarshallingContext context, Selector layout, String recordName, int batchSize)
+        throws IllegalArgumentException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+
+        List<Record> records = new ArrayList<Record>();
+        findRecords((Component) layout, recordName, false, records);
+        if (records.isEmpty()) {
+            if (recordName == null) {
+                throw new IllegalArgumentException("No record found");
+            }
+            throw new IllegalArgumentException("Record '" + recordName + "' not found");
+        }
+        else if (records.size() > 1) {
+            throw new IllegalArgumentException("Record name is required for streams with more than one record");
+        }
+
+        this.context = context;
+        this.layout = layout;
+        this.record = records.get(0);
+        context.setValidationOnly(true);
+
+        List<Field> fieldList = new ArrayList<Field>();
+        List<Column> columns = new ArrayList<Column>();
+        addColumns(record, null, batchSize, fieldList, columns);
+        this.fields = fieldList.toArray(new Field[fieldList.size()]);
+        this.row = new Object[fields.length];
+        this.batch = new ColumnBatch(columns, batchSize);
+    }
+
+    /*
+     * Finds the records with the given name, or all records if the name is null.
+     */
+    private void findRecords(Component node, String name, boolean bound, List<Record> records) {
+        if (node instanceof Record) {
+            if (name == null || name.equals(node.getName())) {
+                if (bound) {
+                    throw new IllegalArgumentException("Record '" + node.getName() +
+                        "' belongs to a record group bound to a bean object");
+                }
+                records.add((Record) node);
+            }
+        }
+        else {
+            if (node instanceof Group) {
+                bound = bound || ((Group) node).getProperty() != null;
+            }
+            else if (node instanceof RecordAggregation) {
+                // a repeating record bound to a collection or map
+                bound = true;
+            }
+            for (Component child : node.getChildren()) {
+                findRecords(child, name, bound, records);
+            }
+        }
+    }
+
+    /*
+     * Adds a column for each field of a segment, excluding repeating components.
+     */
+    private void addColumns(Segment segment, String prefix, int capacity, List<Field> fieldList,
+        List<Column> columns) {
+        // fields of a record not bound to a bean object are not bound, but still read
+        boolean unbound = record.getProperty() == null;
+        for (Component node : segment.getChildren()) {
+            String name = prefix == null ? node.getName() : prefix + "." + node.getName();
+            if (node instanceof Field) {
+                Field field = (Field) node;
+                if (field.isBound() || unbound) {
+                    Class<?> type = field.getPropertyType();
+                    if (type == null) {
+                        type = field.getHandler() != null ? field.getHandler().getType() : String.class;
+                    }
+                    fieldList.add(field);
+                    columns.add(Column.newColumn(name, type, capacity));
+                }
+            }
+            else if (node instanceof Segment) {
+                addColumns((Segment) node, name, capacity, fieldList, columns);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.ColumnarReader#read()
+     */
+    public ColumnBatch read() throws BeanReaderException {
+        ensureOpen();
+
+        batch.clear();
+        while (layout != null && !batch.isFull()) {
+            Selector parser;
+            try {
+                parser = nextRecord();
+            }
+            catch (BeanReaderException ex) {
+                handleError(ex);
+                continue;
+            }
+            catch (BeanIOException ex) {
+                handleError(translate(ex));
+                continue;
+            }
+
+            // parser is null if the end of the stream was reached
+            if (parser != null) {
+                unmarshal(parser);
+            }
+        }
+
+        return batch.size() == 0 ? null : batch;
+    }
+
+    /**
+     * Reads the next record from the input stream and returns the matching record node.
+     * @return the next matching record node, or <tt>null</tt> if the end of the stream
+     *   was reached
+     * @throws BeanReaderException if the next node cannot be determined
+     */
+    private Selector nextRecord() throws BeanReaderException {
+        Selector parser = null;
+        do {
+            context.nextRecord();
+
+            // validate all record nodes are satisfied when the end of the file is reached
+            if (context.isEOF()) {
+                try {
+                    Selector unsatisfied = layout.close(context);
+                    if (unsatisfied != null) {
+                        if (unsatisfied.isRecordGroup()) {
+                            throw context.newUnsatisfiedGroupException(unsatisfied.getName());
+                        }
+                        else {
+                            throw context.newUnsatisfiedRecordException(unsatisfied.getName());
+                        }
+                    }
+                    return null;
+                }
+                finally {
+                    layout = null;
+                }
+            }
+
+            try {
+                parser = layout.matchNext(context);
+            }
+            catch (UnexpectedRecordException ex) {
+                // when thrown, 'parser' is null and the error is handled below
+            }
+
+            if (parser == null && ignoreUnidentifiedRecords) {
+                context.recordSkipped();
+            }
+            else {
+                break;
+            }
+        }
+        while (true);
+
+        if (parser == null) {
+            parser = layout.matchAny(context);
+
+            if (parser != null) {
+                throw context.recordUnexpectedException(parser.getName());
+            }
+            else {
+                throw context.recordUnidentifiedException();
+            }
+        }
+        return parser;
+    }
+
+    /*
+     * Validates a matched record or record group, and adds the field values
+     * of the selected record to the current batch.
+     */
+    private void unmarshal(Selector parser) {
+        try {
+            context.prepare(parser.getName(), parser.isRecordGroup());
+            try {
+                parser.unmarshal(context);
+            }
+            catch (AbortRecordUnmarshalligException ex) { }
+
+            // this will throw an exception if an invalid record was unmarshalled
+            context.validate();
+
+            if (parser == record) {
+                for (int i=0; i<fields.length; i++) {
+                    Object value = fields[i].getValue(context);
+                    row[i] = (value == Value.MISSING || value == Value.INVALID) ? null : value;
+                }
+                batch.add(row);
+            }
+        }
+        catch (BeanReaderException ex) {
+            handleError(ex);
+        }
+        catch (BeanIOException ex) {
+            handleError(translate(ex));
+        }
+        finally {
+            parser.clearValue(context);
+            if (parser == record) {
+                for (Field field : fields) {
+                    field.clearValue(context);
+                }
+                Arrays.fill(row, null);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.ColumnarReader#close()
+     */
+    public void close() throws BeanReaderIOException {
+        ensureOpen();
+
+        try {
+            context.getRecordReader().close();
+        }
+        catch (IOException ex) {
+            throw new BeanReaderIOException("Failed to close record reader", ex);
+        }
+        finally {
+            context = null;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.columnar.ColumnarReader#setErrorHandler(org.beanio.BeanReaderErrorHandler)
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Sets whether to ignore unidentified records.  Defaults to false.
+     * @param ignoreUnidentifiedRecords true to ignore unidentified records, false otherwise
+     */
+    public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
+        this.ignoreUnidentifiedRecords = ignoreUnidentifiedRecords;
+    }
+
+    private void ensureOpen() {
+        if (context == null) {
+            throw new BeanReaderIOException("Stream closed");
+        }
+    }
+
+    private void handleError(BeanReaderException ex) {
+        if (errorHandler == null) {
+            throw ex;
+        }
+        try {
+            errorHandler.handleError(ex);
+        }
+        catch (BeanReaderException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new BeanReaderException("Exception thrown by error handler", e);
+        }
+    }
+
+    /*
+     * Wraps a generic exception in a BeanReaderException.
+     */
+    private static BeanReaderException translate(BeanIOException ex) {
+        return (BeanReaderException) new BeanReaderException(
+            "Fatal BeanIOException caught", ex).fillInStackTrace();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.util.*;
+
+import org.beanio.CompactMap;
+
+/**
+ * A {@link Bean} that creates a {@link CompactMap} for its bean object.  Each child
+ * property is assigned an index in the key table using {@link #addKey(String)} when
+ * the stream definition is compiled.
+ * 
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CompactMapBean extends Bean {
+
+    private List<String> names = new ArrayList<String>();
+    private volatile CompactMap.Keys keys;
+    
+    /**
+     * Constructs a new <tt>CompactMapBean</tt>.
+     */
+    public CompactMapBean() { }
+    
+    /**
+     * Adds a key to the key table.
+     * @param name the key to add
+     * @return the index of the key
+     * @throws IllegalStateException if the key table was already created
+     */
+    public int addKey(String name) {
+        if (keys != null) {
+            throw new IllegalStateException("Key table already created");
+        }
+        int index = names.indexOf(name);
+        if (index < 0) {
+            index = names.size();
+            names.add(name);
+        }
+        return index;
+    }
+    
+    /**
+     * Returns the key table, which is created the first time this method is called.
+     * @return the {@link CompactMap.Keys}
+     */
+    public CompactMap.Keys getKeys() {
+        CompactMap.Keys k = keys;
+        if (k == null) {
+            synchronized (this) {
+                k = keys;
+                if (k == null) {
+                    keys = k = new CompactMap.Keys(names.toArray(new String[names.size()]));
+                }
+            }
+        }
+        return k;
+    }
+
+    @Override
+    protected Object createInstance() {
+        return new CompactMap(getKeys());
+    }
+}
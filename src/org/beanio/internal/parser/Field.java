@@ -20,6 +20,7 @@ import java.util.regex.*;
 
 import org.beanio.*;
 import org.beanio.internal.util.*;
+import org.beanio.metrics.Phase;
 import org.beanio.types.*;
 
 /**
@@ -46,6 +47,12 @@ public class Field extends ParserComponent implements Property {
         Settings.getInstance().getBoolean(Settings.DEFAULT_MARSHALLING_ENABLED);
     
     private ParserLocal<Object> value = new ParserLocal<Object>(Value.MISSING);
+    // a reusable matcher for a regular expression that cannot be scanned
+    private ParserLocal<Matcher> matcher = new ParserLocal<Matcher>() {
+        public Matcher createDefaultValue() {
+            return regex != null ? regex.matcher("") : null;
+        }
+    };
     
     private boolean bound;
     private boolean identifier;
@@ -58,7 +65,9 @@ public class Field extends ParserComponent implements Property {
     private int maxLength = Integer.MAX_VALUE;
     private String literal = null;
     private Pattern regex = null;
+    private RegexScanner scanner = null;
     private Object defaultValue;
+    private StringCache stringCache;
     
     /* 
      * the property type
@@ -125,7 +134,7 @@ public class Field extends ParserComponent implements Property {
             return false;
         }
         
-        return isMatch(formatValue(value));
+        return isMatch(null, formatValue(value));
     }
         
     /**
@@ -136,7 +145,7 @@ public class Field extends ParserComponent implements Property {
      */
     public boolean matches(UnmarshallingContext context) {
         if (isIdentifier()) {
-            return isMatch(format.extract(context, false));
+            return isMatch(context, format.extract(context, false));
         }
         else {
             return true;
@@ -146,11 +155,12 @@ public class Field extends ParserComponent implements Property {
     /**
      * Returns <tt>true</tt> if the provided field text is a match for this field
      * definition based on the configured literal value or regular expression.
+     * @param context the {@link ParsingContext}, or null if not available
      * @param text the field text to test
      * @return <tt>true</tt> if the field text matches this field definitions constraints,
      *   or <tt>false</tt> if the field text is null or does not match
      */
-    protected boolean isMatch(String text) {
+    protected boolean isMatch(ParsingContext context, String text) {
         if (text == null)
             return false;
         if (text == Value.INVALID)
@@ -159,11 +169,32 @@ public class Field extends ParserComponent implements Property {
             return false;
         if (literal != null && !literal.equals(text))
             return false;
-        if (regex != null && !regex.matcher(text).matches())
+        if (regex != null && !matchesRegex(context, text))
             return false;
         
         return true;
     }
+    
+    /**
+     * Tests if field text matches the regular expression of this field.  Simple patterns
+     * are scanned without a <tt>Matcher</tt>, otherwise the context's matcher is reused.
+     * @param context the {@link ParsingContext}, or null if not available
+     * @param text the field text to test
+     * @return <tt>true</tt> if the entire field text matches
+     */
+    private boolean matchesRegex(ParsingContext context, String text) {
+        if (scanner != null) {
+            int result = scanner.match(text);
+            if (result != RegexScanner.UNDECIDED) {
+                return result == RegexScanner.MATCH;
+            }
+        }
+        Matcher m = context != null ? matcher.get(context) : null;
+        if (m == null) {
+            return regex.matcher(text).matches();
+        }
+        return m.reset(text).matches();
+    }
 
     /*
      * (non-Javadoc)
@@ -222,7 +253,7 @@ public class Field extends ParserComponent implements Property {
                         text + "' exceeds maximum length of " + maxLength);
                 }
                 // validate the regular expression
-                if (regex != null && !regex.matcher(text).matches()) {
+                if (regex != null && !matchesRegex(context, text)) {
                     throw new InvalidBeanException("Invalid field '" + getName() + "', '" + 
                         text + "' does not match pattern '" + regex.pattern() + "'");
                 }
@@ -342,7 +373,7 @@ public class Field extends ParserComponent implements Property {
                 valid = false;
             }
             // validate the regular expression
-            if (regex != null && !regex.matcher(text).matches()) {
+            if (regex != null && !matchesRegex(context, text)) {
                 context.addFieldError(getName(), fieldText, "regex", regex.pattern());
                 valid = false;
             }
@@ -356,7 +387,19 @@ public class Field extends ParserComponent implements Property {
         // perform type conversion and return the result
         try {
             // if there is no type handler, assume its a String
-            Object value = (handler == null) ? text : handler.parse(text);
+            Object value;
+            MetricsRecorder metrics = context.getMetrics();
+            if (handler == null) {
+                value = text;
+            }
+            else if (metrics != null && metrics.isSampling()) {
+                long start = System.nanoTime();
+                value = handler.parse(text);
+                metrics.time(Phase.CONVERT, getName(), start);
+            }
+            else {
+                value = handler.parse(text);
+            }
             
             // validate primitive values are not null
             if (value == null && ERROR_IF_NULL_PRIMITIVE && propertyType != null && propertyType.isPrimitive()) {
@@ -365,6 +408,11 @@ public class Field extends ParserComponent implements Property {
                 return Value.INVALID;
             }
             
+            // replace duplicate values with a canonical instance
+            if (stringCache != null && value instanceof String) {
+                value = stringCache.get((String) value);
+            }
+            
             return value;
         }
         catch (TypeConversionException ex) {
@@ -461,9 +509,9 @@ public class Field extends ParserComponent implements Property {
      */
     public void setRegex(String pattern) throws PatternSyntaxException {
         if (pattern == null)
-            this.regex = null;
+            setRegex((Pattern) null);
         else
-            this.regex = Pattern.compile(pattern);
+            setRegex(Pattern.compile(pattern));
     }
 
     /**
@@ -478,6 +526,7 @@ public class Field extends ParserComponent implements Property {
     @Override
     public void registerLocals(Set<ParserLocal<? extends Object>> locals) {
         if (locals.add(value)) {
+            locals.add(matcher);
             super.registerLocals(locals);
         }
     }
@@ -542,6 +591,24 @@ public class Field extends ParserComponent implements Property {
         this.lazy = lazy;
     }
 
+    /**
+     * Returns the cache used to deduplicate unmarshalled <tt>String</tt> values.
+     * @return the {@link StringCache}, or null if values are not deduplicated
+     * @since 3.0
+     */
+    public StringCache getStringCache() {
+        return stringCache;
+    }
+
+    /**
+     * Sets the cache used to deduplicate unmarshalled <tt>String</tt> values.
+     * @param stringCache the {@link StringCache}, or null to disable deduplication
+     * @since 3.0
+     */
+    public void setStringCache(StringCache stringCache) {
+        this.stringCache = stringCache;
+    }
+
     public int getMinLength() {
         return minLength;
     }
@@ -560,6 +627,7 @@ public class Field extends ParserComponent implements Property {
 
     public void setRegex(Pattern regex) {
         this.regex = regex;
+        this.scanner = regex == null ? null : RegexScanner.compile(regex);
     }
 
     public void setType(Class<?> type) {
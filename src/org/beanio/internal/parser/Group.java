@@ -142,7 +142,7 @@ public class Group extends ParserComponent implements Selector {
                 catch (AbortRecordUnmarshalligException ex) { }
             }
             
-            if (property != null) {
+            if (property != null && !context.isValidationOnly()) {
                 property.createValue(context);
             }
             
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.InputSplit;
+import org.beanio.internal.util.*;
+import org.beanio.stream.*;
+
+/**
+ * Divides a file into input splits that start and end on record boundaries.
+ *
+ * <p>Record boundaries are found by reading the file once using the {@link RecordReader}
+ * of the stream format, so that quoted line breaks, line continuations, escaped characters
+ * and comments are handled exactly as when the file is read.  Records are not unmarshalled.
+ * The first record that starts at or after each multiple of the file size divided by the
+ * number of splits begins a new split, so that reading can stop once the last split has
+ * started.  Commented lines are included in the split of the record that follows them.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see SplitRecordReader
+ */
+public class InputSplitPlanner {
+
+    private StreamFormat format;
+
+    /**
+     * Constructs a new <tt>InputSplitPlanner</tt>.
+     * @param format the {@link StreamFormat} of the file
+     */
+    public InputSplitPlanner(StreamFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Divides a file into input splits.
+     * @param file the file to divide
+     * @param charset the character set of the file
+     * @param count the maximum number of splits
+     * @return the list of {@link InputSplit}, in file order, which may have fewer
+     *   splits than requested if the file has fewer records
+     * @throws IllegalArgumentException if the character set is not supported
+     * @throws IOException if an I/O error occurs
+     */
+    public List<InputSplit> plan(File file, Charset charset, int count) throws IOException {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+
+        long size = file.length();
+        long[] starts = new long[count];
+        int[] lines = new int[count];
+        int n = 0;
+
+        ByteCountingReader in = new ByteCountingReader(
+            new BufferedInputStream(new FileInputStream(file)), charset);
+        try {
+            RecordReader reader = format.createRecordReader(in);
+            while (n < count) {
+                long start = in.getPosition();
+                // a line feed that follows a carriage return belongs to the last record
+                if (in.getLastChar() == '\r' && in.peek() == '\n') {
+                    ++start;
+                }
+
+                boolean eof;
+                try {
+                    eof = reader.read() == null;
+                }
+                catch (RecordIOException ex) {
+                    // a malformed record may still begin a split if the reader recovered
+                    eof = false;
+                }
+                int lineNumber = reader.getRecordLineNumber();
+                if (eof || lineNumber < 0) {
+                    break;
+                }
+
+                if (start >= target(size, n, count)) {
+                    starts[n] = start;
+                    lines[n] = lineNumber;
+                    ++n;
+                }
+            }
+        }
+        finally {
+            IOUtil.closeQuietly(in);
+        }
+
+        List<InputSplit> splits = new ArrayList<InputSplit>(n);
+        for (int i=0; i<n; i++) {
+            long end = (i + 1 < n) ? starts[i + 1] : size;
+            splits.add(new InputSplit(i == 0 ? 0 : starts[i], end, lines[i]));
+        }
+        return splits;
+    }
+
+    /*
+     * Returns the byte offset at or after which split 'index' should start.
+     */
+    private static long target(long size, int index, int count) {
+        return (long) ((double) size * index / count);
+    }
+}
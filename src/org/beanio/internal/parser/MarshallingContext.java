@@ -65,6 +65,17 @@ public abstract class MarshallingContext extends ParsingContext {
         super.clear();
     }
     
+    /**
+     * Returns whether a record object depends only on the bean object being marshalled,
+     * and not on records previously marshalled by this context.  If true, records may
+     * be marshalled in parallel by separate contexts and written in order.
+     * @return <tt>true</tt> if records are marshalled independently, which is the default
+     * @since 3.0
+     */
+    public boolean isRecordIndependent() {
+        return true;
+    }
+    
     /**
      * Returns the record object to pass to the {@link RecordWriter} when
      * {@link #writeRecord()} is called.
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.beanio.metrics.*;
+
+/**
+ * Reports the metrics of a single {@link ParsingContext} to a {@link MetricsListener},
+ * and decides which bean objects are sampled for timing.
+ *
+ * <p>A context has no <tt>MetricsRecorder</tt> if metrics are disabled, so parser
+ * components only test for a null recorder.  Timings are only measured while
+ * {@link #isSampling()} returns <tt>true</tt>.</p>
+ *
+ * <p>This class is not thread safe, except that a stream returned by <tt>wrap</tt> may
+ * be read or written by another thread, such as a prefetching record reader.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class MetricsRecorder {
+
+    private String streamName;
+    private MetricsListener listener;
+    private int samplingInterval;
+
+    // the number of bean objects since the last sample
+    private int count;
+    private boolean sampling;
+    // the number of characters read or written that have not been reported
+    private final AtomicInteger pendingCharacters = new AtomicInteger();
+
+    /**
+     * Constructs a new <tt>MetricsRecorder</tt>.
+     * @param streamName the name of the stream
+     * @param listener the {@link MetricsListener} to report metrics to
+     * @param samplingInterval the number of bean objects read or written per sample,
+     *   or 0 to disable timing
+     */
+    public MetricsRecorder(String streamName, MetricsListener listener, int samplingInterval) {
+        this.streamName = streamName;
+        this.listener = listener;
+        this.samplingInterval = samplingInterval;
+        // sample the first bean object
+        this.count = samplingInterval - 1;
+    }
+
+    /**
+     * Invoked before a bean object is read or written to determine whether it is sampled.
+     * @return <tt>true</tt> if the bean object is sampled
+     */
+    public boolean sample() {
+        if (samplingInterval > 0 && ++count >= samplingInterval) {
+            count = 0;
+            sampling = true;
+        }
+        else {
+            sampling = false;
+        }
+        return sampling;
+    }
+
+    /**
+     * Returns whether the current bean object is sampled for timing.
+     * @return <tt>true</tt> if sampled
+     */
+    public boolean isSampling() {
+        return sampling;
+    }
+
+    /**
+     * Reports the time elapsed in a phase if the current bean object is sampled.
+     * @param phase the {@link Phase}
+     * @param componentName the name of the component, or null if not applicable
+     * @param start the value of {@link System#nanoTime()} when the phase started
+     */
+    public void time(Phase phase, String componentName, long start) {
+        if (sampling) {
+            listener.timing(streamName, phase, componentName, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Invoked when a record is read.
+     * @param recordName the record name
+     */
+    public void recordRead(String recordName) {
+        listener.recordRead(streamName, recordName);
+    }
+
+    /**
+     * Invoked when a record is rejected by a record filter.
+     * @param recordName the record name
+     */
+    public void recordFiltered(String recordName) {
+        listener.recordFiltered(streamName, recordName);
+    }
+
+    /**
+     * Invoked when a record is written.
+     * @param recordName the record name
+     */
+    public void recordWritten(String recordName) {
+        listener.recordWritten(streamName, recordName);
+        charactersWritten();
+    }
+
+    /**
+     * Reports any characters read from an input stream wrapped by {@link #wrap(Reader)}
+     * since the last call to this method.
+     */
+    public void charactersRead() {
+        int n = pendingCharacters.getAndSet(0);
+        if (n > 0) {
+            listener.charactersRead(streamName, n);
+        }
+    }
+
+    /**
+     * Invoked when a field fails validation.
+     * @param recordName the record name
+     * @param fieldName the field name
+     * @param rule the failed validation rule
+     */
+    public void fieldError(String recordName, String fieldName, String rule) {
+        listener.fieldError(streamName, recordName, fieldName, rule);
+    }
+
+    /**
+     * Invoked when a record fails validation.
+     * @param recordName the record name, or null if unidentified
+     * @param rule the failed validation rule
+     */
+    public void recordError(String recordName, String rule) {
+        listener.recordError(streamName, recordName, rule);
+    }
+
+    /**
+     * Wraps an input stream to count the characters read.
+     * @param in the {@link Reader} to wrap
+     * @return the wrapped {@link Reader}
+     */
+    public Reader wrap(Reader in) {
+        return new FilterReader(in) {
+            @Override
+            public int read() throws IOException {
+                int c = super.read();
+                if (c >= 0) {
+                    pendingCharacters.incrementAndGet();
+                }
+                return c;
+            }
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int n = super.read(cbuf, off, len);
+                if (n > 0) {
+                    pendingCharacters.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Wraps a byte input stream to count the bytes read, which are reported as characters.
+     * Only used for stream formats that read one byte per character, otherwise characters
+     * must be counted after they are decoded using {@link #wrap(Reader)}.
+     * @param in the {@link InputStream} to wrap
+     * @return the wrapped {@link InputStream}
+     * @since 3.0
+     */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    pendingCharacters.incrementAndGet();
+                }
+                return b;
+            }
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    pendingCharacters.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Wraps an output stream to count the characters written.  Characters written
+     * are reported with the next record written.
+     * @param out the {@link Writer} to wrap
+     * @return the wrapped {@link Writer}
+     */
+    public Writer wrap(Writer out) {
+        return new FilterWriter(out) {
+            @Override
+            public void write(int c) throws IOException {
+                super.write(c);
+                pendingCharacters.incrementAndGet();
+            }
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                super.write(cbuf, off, len);
+                pendingCharacters.addAndGet(len);
+            }
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                super.write(str, off, len);
+                pendingCharacters.addAndGet(len);
+            }
+            @Override
+            public void flush() throws IOException {
+                super.flush();
+                charactersWritten();
+            }
+            @Override
+            public void close() throws IOException {
+                super.close();
+                charactersWritten();
+            }
+        };
+    }
+
+    /**
+     * Wraps a byte output stream to count the bytes written, which are reported as characters
+     * with the next record written.  Only used for stream formats that write one byte per
+     * character, otherwise characters must be counted before they are encoded using
+     * {@link #wrap(Writer)}.
+     * @param out the {@link OutputStream} to wrap
+     * @return the wrapped {@link OutputStream}
+     * @since 3.0
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                pendingCharacters.incrementAndGet();
+            }
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                pendingCharacters.addAndGet(len);
+            }
+            @Override
+            public void flush() throws IOException {
+                super.flush();
+                charactersWritten();
+            }
+            @Override
+            public void close() throws IOException {
+                super.close();
+                charactersWritten();
+            }
+        };
+    }
+
+    private void charactersWritten() {
+        int n = pendingCharacters.getAndSet(0);
+        if (n > 0) {
+            listener.charactersWritten(streamName, n);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.beanio.*;
+
+/**
+ * A {@link ParallelBeanWriter} implementation.
+ *
+ * <p>Bean objects are matched against the layout serially using a single
+ * {@link MarshallingContext}, which keeps record and group counts.  Matched bean
+ * objects are grouped into slices, and each slice is marshalled by a worker thread
+ * using its own <tt>MarshallingContext</tt> and a {@link org.beanio.stream.RecordWriter}
+ * that writes to a character buffer.  Completed slices are written to the output
+ * stream in the order they were submitted.  The layout state is saved before each
+ * slice is matched, so that if a bean object fails to marshal, the layout can be
+ * restored to the state it would have had if the bean object was written by a
+ * {@link BeanWriterImpl}.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ParallelBeanWriterImpl implements ParallelBeanWriter {
+
+    private static final String STATE_NAMESPACE = "parallel";
+
+    private MarshallingContext context;
+    private Selector layout;
+    private Writer out;
+    private int threads;
+    private int batchSize;
+    // idle worker contexts
+    private BlockingQueue<Worker> workers;
+    // the thread pool, created when the first batch is written
+    private ExecutorService executor;
+
+    /**
+     * Constructs a new <tt>ParallelBeanWriterImpl</tt>.
+     * @param context the {@link MarshallingContext} used to match bean objects
+     * @param layout the root {@link Selector} node in the parsing tree
+     * @param format the {@link StreamFormat} used to create record writers
+     * @param workerContexts the {@link MarshallingContext} for each worker thread
+     * @param out the output stream to write to
+     * @param batchSize the number of bean objects marshalled by a worker thread at a time
+     */
+    public ParallelBeanWriterImpl(MarshallingContext context, Selector layout, StreamFormat format,
+        MarshallingContext[] workerContexts, Writer out, int batchSize) {
+        this.context = context;
+        this.layout = layout;
+        this.out = out;
+        this.threads = workerContexts.length;
+        this.batchSize = batchSize;
+
+        workers = new ArrayBlockingQueue<Worker>(threads);
+        for (MarshallingContext workerContext : workerContexts) {
+            workers.add(new Worker(workerContext, format));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.Object)
+     */
+    public void write(Object bean) throws BeanWriterException {
+        write(null, bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.String, java.lang.Object)
+     */
+    public void write(String recordName, Object bean) throws BeanWriterException {
+        ensureOpen();
+
+        Slice slice = new Slice(recordName, 1);
+        try {
+            slice.add(bean, match(recordName, bean));
+        }
+        catch (RuntimeException ex) {
+            throw translate(ex);
+        }
+
+        // a single bean object is marshalled by the calling thread
+        complete(slice.call());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.ParallelBeanWriter#writeAll(java.lang.Iterable)
+     */
+    public void writeAll(Iterable<?> beans) throws BeanWriterException {
+        writeAll(null, beans);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.ParallelBeanWriter#writeAll(java.lang.String, java.lang.Iterable)
+     */
+    public void writeAll(String recordName, Iterable<?> beans) throws BeanWriterException {
+        ensureOpen();
+
+        if (beans == null) {
+            throw new NullPointerException("null beans");
+        }
+
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "beanio-parallel-writer-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        // slices that have been submitted but not written
+        Deque<Future<Slice>> pending = new ArrayDeque<Future<Slice>>();
+        try {
+            Iterator<?> iter = beans.iterator();
+            while (iter.hasNext()) {
+                Slice slice = new Slice(recordName, batchSize);
+                layout.updateState(context, STATE_NAMESPACE, slice.state);
+
+                // match bean objects serially to enforce the layout order
+                try {
+                    while (slice.size < batchSize && iter.hasNext()) {
+                        Object bean = iter.next();
+                        slice.add(bean, match(recordName, bean));
+                    }
+                }
+                catch (RuntimeException ex) {
+                    // the matched bean objects are still written before throwing the exception
+                    slice.error = ex;
+                }
+
+                pending.add(executor.submit(slice));
+                if (slice.error != null) {
+                    break;
+                }
+
+                // limit the number of slices held in memory
+                if (pending.size() > threads * 2) {
+                    complete(await(pending.poll()));
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                complete(await(pending.poll()));
+            }
+        }
+        finally {
+            // slices after a failed slice are discarded
+            for (Future<Slice> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /*
+     * Finds the parser in the layout that defines the given bean object.
+     */
+    private Selector match(String recordName, Object bean) throws BeanWriterException {
+        if (recordName == null && bean == null) {
+            throw new BeanWriterException("Bean identification failed: a record " +
+                "name or bean object must be provided");
+        }
+
+        try {
+            // set the name of the component to be marshalled (may be null if we're just matching on bean)
+            context.setComponentName(recordName);
+            // set the bean to be marshalled on the context
+            context.setBean(bean);
+
+            Selector matched = layout.matchNext(context);
+            if (matched == null) {
+                if (recordName != null) {
+                    throw new BeanWriterException("Bean identification failed: " +
+                        "record name '" + recordName + "' not matched at the current position" +
+                        (bean != null ? " for bean class '" + bean.getClass() + "'" : ""));
+                }
+                else {
+                    throw new BeanWriterException("Bean identification failed: " +
+                        "no record or group mapping for bean class '" + bean.getClass() +
+                        "' at the current position");
+                }
+            }
+            return matched;
+        }
+        finally {
+            context.clear();
+        }
+    }
+
+    /*
+     * Waits for a slice to be marshalled.
+     */
+    private Slice await(Future<Slice> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanWriterIOException(new InterruptedIOException(
+                "Interrupted waiting for marshalled records"));
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BeanWriterException("Fatal exception caught", cause);
+        }
+    }
+
+    /*
+     * Writes the records of a marshalled slice, and throws the exception that
+     * stopped the slice, if any.
+     */
+    private void complete(Slice slice) throws BeanWriterException {
+        try {
+            if (slice.count > 0) {
+                out.write(slice.text, 0, slice.ends[slice.count - 1]);
+            }
+        }
+        catch (IOException ex) {
+            throw new BeanWriterIOException(ex);
+        }
+
+        if (slice.error != null) {
+            if (slice.count < slice.size) {
+                // a bean object failed to marshal, so restore the layout state
+                // to where it would have been if the bean object was written alone
+                layout.restoreState(context, STATE_NAMESPACE, slice.state);
+                for (int i=0; i<=slice.count; i++) {
+                    match(slice.recordName, slice.beans[i]);
+                }
+            }
+            throw translate(slice.error);
+        }
+    }
+
+    /*
+     * Converts an exception thrown while matching or marshalling a bean
+     * object to the exception thrown by a BeanWriter.
+     */
+    private RuntimeException translate(Exception ex) {
+        if (ex instanceof IOException) {
+            return new BeanWriterIOException((IOException) ex);
+        }
+        else if (ex instanceof BeanWriterException) {
+            return (BeanWriterException) ex;
+        }
+        else if (ex instanceof BeanIOException) {
+            // wrap the generic exception in a BeanWriterException
+            return new BeanWriterException("Fatal BeanIOException caught", ex);
+        }
+        else {
+            return (RuntimeException) ex;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#flush()
+     */
+    public void flush() throws BeanWriterIOException {
+        ensureOpen();
+
+        try {
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new BeanWriterIOException(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#close()
+     */
+    public void close() throws BeanWriterIOException {
+        ensureOpen();
+
+        try {
+            out.close();
+        }
+        catch (IOException e) {
+            throw new BeanWriterIOException(e);
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            executor = null;
+            context = null;
+            layout = null;
+        }
+    }
+
+    /*
+     * Throws an exception if the stream has already been closed.
+     */
+    private void ensureOpen() {
+        if (context == null) {
+            throw new BeanWriterIOException("Stream closed");
+        }
+    }
+
+    public void debug() {
+        debug(System.out);
+    }
+    public void debug(PrintStream out) {
+        ((Component)layout).print(out);
+    }
+
+    /**
+     * A marshalling context and the character buffer its record writer writes to.
+     */
+    private static class Worker {
+        private MarshallingContext context;
+        private CharArrayWriter buffer = new CharArrayWriter();
+
+        public Worker(MarshallingContext context, StreamFormat format) {
+            this.context = context;
+            this.context.setRecordWriter(format.createRecordWriter(buffer));
+        }
+    }
+
+    /**
+     * A sequence of matched bean objects marshalled by a worker thread.
+     */
+    private class Slice implements Callable<Slice> {
+        private String recordName;
+        private Object[] beans;
+        private Selector[] matched;
+        private int size;
+        // the layout state before the first bean object was matched
+        private Map<String, Object> state = new HashMap<String, Object>();
+
+        // the marshalled text, and the end offset of the records for each bean object
+        private char[] text;
+        private int[] ends;
+        // the number of bean objects successfully marshalled
+        private int count;
+        // the exception that stopped the slice, if any
+        private Exception error;
+
+        public Slice(String recordName, int capacity) {
+            this.recordName = recordName;
+            this.beans = new Object[capacity];
+            this.matched = new Selector[capacity];
+            this.ends = new int[capacity];
+        }
+
+        public void add(Object bean, Selector selector) {
+            beans[size] = bean;
+            matched[size] = selector;
+            ++size;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.Callable#call()
+         */
+        public Slice call() {
+            Worker worker;
+            try {
+                worker = workers.take();
+            }
+            catch (InterruptedException ex) {
+                error = new InterruptedIOException("Interrupted waiting for a marshalling context");
+                return this;
+            }
+
+            MarshallingContext workerContext = worker.context;
+            try {
+                for (int i=0; i<size; i++) {
+                    workerContext.setComponentName(recordName);
+                    workerContext.setBean(beans[i]);
+
+                    // bind the bean object to the worker context, and marshal it
+                    matched[i].matchNext(workerContext);
+                    matched[i].marshal(workerContext);
+
+                    workerContext.getRecordWriter().flush();
+                    ends[count++] = worker.buffer.size();
+                }
+            }
+            catch (IOException ex) {
+                // replaces any exception thrown while matching later bean objects
+                error = ex;
+            }
+            catch (RuntimeException ex) {
+                error = ex;
+            }
+            finally {
+                text = worker.buffer.toCharArray();
+                worker.buffer.reset();
+                workerContext.clear();
+                workers.add(worker);
+            }
+            return this;
+        }
+    }
+}
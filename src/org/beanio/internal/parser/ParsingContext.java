@@ -33,6 +33,7 @@ public abstract class ParsingContext {
     private int fieldOffset = 0;
     private Object[] localHeap;
     private ArrayList<Iteration> iterationStack = new ArrayList<Iteration>();
+    private MetricsRecorder metrics;
     
     /**
      * Constructs a new <tt>ParsingContext</tt>.
@@ -116,4 +117,22 @@ public abstract class ParsingContext {
     public final void setLocal(int index, Object obj) {
         localHeap[index] = obj;
     }
+    
+    /**
+     * Returns the {@link MetricsRecorder} for this context.
+     * @return the {@link MetricsRecorder}, or <tt>null</tt> if metrics are disabled
+     * @since 3.0
+     */
+    public final MetricsRecorder getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets the {@link MetricsRecorder} for this context.
+     * @param metrics the {@link MetricsRecorder}, or <tt>null</tt> to disable metrics
+     * @since 3.0
+     */
+    public final void setMetrics(MetricsRecorder metrics) {
+        this.metrics = metrics;
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.util.*;
+
+/**
+ * A <tt>Projection</tt> determines which components of a layout are unmarshalled
+ * when only some bean properties are requested by the caller.
+ *
+ * <p>A property path is a list of segment and field names separated by a period,
+ * relative to the record or group a bean object is read from, for example
+ * <tt>header.id</tt>.  A path may also be prefixed by the name of the record or group.
+ * A path that names a segment includes every field in the segment, and a path that
+ * names a record or group includes the entire record or group.</p>
+ *
+ * <p>Fields that are not included by any path are skipped when unmarshalling,
+ * unless they are used to identify a record.  Segments and collections are skipped
+ * if all of their fields are skipped.  Skipped components are not validated, and
+ * their property values are left unset.</p>
+ *
+ * <p>This class is immutable and thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class Projection {
+
+    private Selector layout;
+    private Set<Component> skipped = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+
+    /**
+     * Constructs a new <tt>Projection</tt>.
+     * @param layout the root {@link Selector} node in the parsing tree
+     * @param properties the property paths to unmarshall
+     * @throws IllegalArgumentException if a property path does not match any
+     *   field in the layout
+     */
+    public Projection(Selector layout, Collection<String> properties) throws IllegalArgumentException {
+        this.layout = layout;
+
+        Set<String> unmatched = new HashSet<String>(properties);
+        List<String> path = new ArrayList<String>();
+        List<Integer> selectors = new ArrayList<Integer>();
+        for (Component child : ((Component) layout).getChildren()) {
+            visit(child, path, selectors, properties, unmatched);
+        }
+
+        if (!unmatched.isEmpty()) {
+            throw new IllegalArgumentException("Invalid property path '" +
+                unmatched.iterator().next() + "'");
+        }
+    }
+
+    /*
+     * Recursively determines which components are skipped, and returns true if
+     * the given component is skipped.
+     */
+    private boolean visit(Component node, List<String> path, List<Integer> selectors,
+        Collection<String> properties, Set<String> unmatched) {
+
+        // an aggregation has the same name as the segment or field it repeats
+        boolean named = !(node instanceof Aggregation);
+        if (named) {
+            if (node instanceof Selector) {
+                selectors.add(path.size());
+            }
+            path.add(node.getName());
+        }
+
+        boolean skip;
+        if (node instanceof Field) {
+            skip = !isIncluded(path, selectors, properties, unmatched) && !((Field) node).isIdentifier();
+        }
+        else {
+            skip = true;
+            for (Component child : node.getChildren()) {
+                if (!visit(child, path, selectors, properties, unmatched)) {
+                    skip = false;
+                }
+            }
+        }
+
+        // records and groups are never skipped, so that the layout is still enforced
+        if (skip && !(node instanceof Selector)) {
+            skipped.add(node);
+        }
+
+        if (named) {
+            path.remove(path.size() - 1);
+            if (node instanceof Selector) {
+                selectors.remove(selectors.size() - 1);
+            }
+        }
+        return skip;
+    }
+
+    /*
+     * Returns true if a property path matches the given field path, or any of its
+     * parent paths, relative to an enclosing record or group.
+     */
+    private boolean isIncluded(List<String> path, List<Integer> selectors,
+        Collection<String> properties, Set<String> unmatched) {
+
+        boolean included = false;
+        for (int start : selectors) {
+            StringBuilder qualified = new StringBuilder();
+            StringBuilder relative = null;
+            for (int i=start; i<path.size(); i++) {
+                if (i > start) {
+                    qualified.append('.');
+                    if (relative == null) {
+                        relative = new StringBuilder();
+                    }
+                    else {
+                        relative.append('.');
+                    }
+                    relative.append(path.get(i));
+                }
+                qualified.append(path.get(i));
+
+                if (matches(qualified.toString(), properties, unmatched)) {
+                    included = true;
+                }
+                if (relative != null && matches(relative.toString(), properties, unmatched)) {
+                    included = true;
+                }
+            }
+        }
+        return included;
+    }
+
+    private boolean matches(String name, Collection<String> properties, Set<String> unmatched) {
+        if (properties.contains(name)) {
+            unmatched.remove(name);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the root node of the layout this projection was created for.
+     * @return the root {@link Selector} node in the parsing tree
+     */
+    public Selector getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns whether a component is skipped when unmarshalling.
+     * @param component the {@link Component} to test
+     * @return true if the component is not unmarshalled
+     */
+    public boolean isSkipped(Component component) {
+        return skipped.contains(component);
+    }
+}
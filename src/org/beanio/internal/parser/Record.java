@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.*;
 
 import org.beanio.internal.util.DebugUtil;
+import org.beanio.metrics.Phase;
 
 /**
  * 
@@ -51,7 +52,16 @@ public class Record extends Segment implements Selector {
         try {
             boolean marshalled = super.marshal(context);
             if (marshalled) {
-                context.writeRecord();
+                MetricsRecorder metrics = context.getMetrics();
+                if (metrics == null) {
+                    context.writeRecord();
+                }
+                else {
+                    long start = metrics.isSampling() ? System.nanoTime() : 0;
+                    context.writeRecord();
+                    metrics.time(Phase.WRITE, getName(), start);
+                    metrics.recordWritten(getName());
+                }
             }
             return marshalled;
         }
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Matches field text against a regular expression made up of a sequence of simple
+ * character classes, without allocating a <tt>Matcher</tt>.
+ *
+ * <p>A pattern is supported if it has no flags and is a sequence of literal characters,
+ * <tt>.</tt>, <tt>\d</tt>, <tt>\w</tt>, <tt>\s</tt> (and their negations), or character
+ * classes such as <tt>[A-Z0-9_]</tt> or <tt>[^,]</tt>, each optionally followed by a greedy
+ * <tt>?</tt>, <tt>*</tt>, <tt>+</tt> or <tt>{n,m}</tt> quantifier.  For example,
+ * <tt>[0-9]{8}</tt>, <tt>[A-Z]{3}</tt>, <tt>\d+</tt> or <tt>^[A-Z]{2}-?\d{1,5}$</tt>.
+ * In addition, a character class with a variable number of occurrences must not share
+ * any character with the classes that may follow it, so that text can be scanned from left
+ * to right without backtracking.  Any other pattern must be matched using a <tt>Matcher</tt>.</p>
+ *
+ * <p>A pattern matches code points, not characters, so text containing a surrogate
+ * character is left {@link #UNDECIDED}.</p>
+ *
+ * <p>A <tt>RegexScanner</tt> is immutable and may be shared by multiple threads.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class RegexScanner {
+
+    /** Returned by {@link #match(CharSequence)} if the text does not match */
+    public static final int NO_MATCH = 0;
+    /** Returned by {@link #match(CharSequence)} if the text matches */
+    public static final int MATCH = 1;
+    /** Returned by {@link #match(CharSequence)} if the text must be matched using a <tt>Matcher</tt> */
+    public static final int UNDECIDED = -1;
+
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+    private final CharClass[] classes;
+    private final int[] min;
+    private final int[] max;
+
+    private RegexScanner(CharClass[] classes, int[] min, int[] max) {
+        this.classes = classes;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Compiles a regular expression into a <tt>RegexScanner</tt>.
+     * @param pattern the regular expression
+     * @return the new <tt>RegexScanner</tt>, or null if the pattern is not supported
+     */
+    public static RegexScanner compile(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        return new Compiler(pattern.pattern()).compile();
+    }
+
+    /**
+     * Tests whether text matches the entire regular expression.
+     * @param text the text to test
+     * @return {@link #MATCH}, {@link #NO_MATCH}, or {@link #UNDECIDED} if a surrogate
+     *   character was found
+     */
+    public int match(CharSequence text) {
+        int n = text.length();
+        int pos = 0;
+        for (int i=0; i<classes.length; i++) {
+            CharClass cc = classes[i];
+            int start = pos;
+            int limit = max[i] >= n - pos ? n : pos + max[i];
+            while (pos < limit) {
+                char c = text.charAt(pos);
+                if (Character.isSurrogate(c)) {
+                    return UNDECIDED;
+                }
+                if (!cc.contains(c)) {
+                    break;
+                }
+                ++pos;
+            }
+            if (pos - start < min[i]) {
+                return NO_MATCH;
+            }
+        }
+        if (pos < n) {
+            return Character.isSurrogate(text.charAt(pos)) ? UNDECIDED : NO_MATCH;
+        }
+        return MATCH;
+    }
+
+    /**
+     * A set of characters, excluding surrogates.
+     */
+    private static final class CharClass {
+        // membership of ASCII characters
+        private final long low;
+        private final long high;
+        // inclusive ranges of non-ASCII characters, before negation
+        private final char[] ranges;
+        private final boolean negated;
+
+        CharClass(StringBuilder ranges, boolean negated) {
+            char[] r = ranges.toString().toCharArray();
+            long low = 0;
+            long high = 0;
+            for (int i=0; i<r.length; i+=2) {
+                for (int c=r[i]; c<=r[i + 1] && c < 128; c++) {
+                    if (c < 64) {
+                        low |= 1L << c;
+                    }
+                    else {
+                        high |= 1L << (c - 64);
+                    }
+                }
+            }
+            this.low = negated ? ~low : low;
+            this.high = negated ? ~high : high;
+            this.ranges = r;
+            this.negated = negated;
+        }
+
+        boolean contains(char c) {
+            if (c < 64) {
+                return (low & (1L << c)) != 0;
+            }
+            if (c < 128) {
+                return (high & (1L << (c - 64))) != 0;
+            }
+            if (Character.isSurrogate(c)) {
+                return false;
+            }
+            for (int i=0; i<ranges.length; i+=2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+
+        boolean intersects(CharClass cc) {
+            for (int c=0; c<=Character.MAX_VALUE; c++) {
+                if (contains((char) c) && cc.contains((char) c)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Parses a regular expression into a sequence of quantified character classes.
+     */
+    private static final class Compiler {
+        private final String pattern;
+        private int pos;
+
+        private final List<CharClass> classes = new ArrayList<CharClass>();
+        private final List<int[]> quantifiers = new ArrayList<int[]>();
+
+        Compiler(String pattern) {
+            this.pattern = pattern;
+        }
+
+        RegexScanner compile() {
+            int n = pattern.length();
+            if (n > 0 && pattern.charAt(0) == '^') {
+                pos = 1;
+            }
+            while (pos < n) {
+                if (pos == n - 1 && pattern.charAt(pos) == '$') {
+                    break;
+                }
+                CharClass cc = atom();
+                if (cc == null) {
+                    return null;
+                }
+                int[] q = quantifier();
+                if (q == null) {
+                    return null;
+                }
+                classes.add(cc);
+                quantifiers.add(q);
+            }
+
+            int size = classes.size();
+            int[] min = new int[size];
+            int[] max = new int[size];
+            for (int i=0; i<size; i++) {
+                min[i] = quantifiers.get(i)[0];
+                max[i] = quantifiers.get(i)[1];
+            }
+
+            // a variable length class must stop where the next class begins
+            for (int i=0; i<size; i++) {
+                if (min[i] == max[i]) {
+                    continue;
+                }
+                for (int j=i+1; j<size; j++) {
+                    if (classes.get(i).intersects(classes.get(j))) {
+                        return null;
+                    }
+                    if (min[j] > 0) {
+                        break;
+                    }
+                }
+            }
+
+            return new RegexScanner(classes.toArray(new CharClass[size]), min, max);
+        }
+
+        private CharClass atom() {
+            char c = pattern.charAt(pos++);
+            StringBuilder ranges = new StringBuilder();
+            switch (c) {
+            case '.':
+                for (int i=0; i<LINE_TERMINATORS.length(); i++) {
+                    char t = LINE_TERMINATORS.charAt(i);
+                    ranges.append(t).append(t);
+                }
+                return new CharClass(ranges, true);
+            case '[':
+                return charClass();
+            case '\\':
+                if (pos == pattern.length()) {
+                    return null;
+                }
+                c = pattern.charAt(pos++);
+                if (predefined(Character.toLowerCase(c), ranges)) {
+                    return new CharClass(ranges, Character.isUpperCase(c));
+                }
+                c = escape(c);
+                break;
+            case '^': case '$': case '|': case '(': case ')': case ']':
+            case '{': case '}': case '?': case '*': case '+':
+                return null;
+            }
+            if (c == 0 || Character.isSurrogate(c)) {
+                return null;
+            }
+            ranges.append(c).append(c);
+            return new CharClass(ranges, false);
+        }
+
+        private CharClass charClass() {
+            int n = pattern.length();
+            StringBuilder ranges = new StringBuilder();
+            boolean negated = false;
+            if (pos < n && pattern.charAt(pos) == '^') {
+                negated = true;
+                ++pos;
+            }
+            if (pos < n && pattern.charAt(pos) == ']') {
+                return null;
+            }
+            while (pos < n) {
+                char c = pattern.charAt(pos++);
+                if (c == ']') {
+                    return new CharClass(ranges, negated);
+                }
+                if (c == '[' || (c == '&' && pos < n && pattern.charAt(pos) == '&')) {
+                    return null;
+                }
+                if (c == '\\') {
+                    if (pos == n) {
+                        return null;
+                    }
+                    c = pattern.charAt(pos++);
+                    if (predefined(c, ranges)) {
+                        continue;
+                    }
+                    c = escape(c);
+                }
+                if (c == 0 || Character.isSurrogate(c)) {
+                    return null;
+                }
+
+                char end = c;
+                if (pos + 1 < n && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+                    end = pattern.charAt(pos + 1);
+                    pos += 2;
+                    if (end == '\\') {
+                        if (pos == n) {
+                            return null;
+                        }
+                        end = escape(pattern.charAt(pos++));
+                    }
+                    else if (end == '[' || end == '&') {
+                        return null;
+                    }
+                    if (end == 0 || Character.isSurrogate(end) || end < c) {
+                        return null;
+                    }
+                }
+                ranges.append(c).append(end);
+            }
+            return null;
+        }
+
+        /*
+         * Appends the ranges of a lower case predefined character class, such as \d.
+         */
+        private boolean predefined(char c, StringBuilder ranges) {
+            switch (c) {
+            case 'd':
+                ranges.append("09");
+                return true;
+            case 'w':
+                ranges.append("azAZ__09");
+                return true;
+            case 's':
+                ranges.append("  \t\n\u000B\u000B\f\f\r\r");
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        /*
+         * Returns the character for an escape sequence, or 0 if not supported.
+         */
+        private char escape(char c) {
+            switch (c) {
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c >= 128) {
+                return 0;
+            }
+            return c;
+        }
+
+        private int[] quantifier() {
+            int n = pattern.length();
+            if (pos == n) {
+                return new int[] { 1, 1 };
+            }
+            int[] q;
+            char c = pattern.charAt(pos);
+            switch (c) {
+            case '?':
+                q = new int[] { 0, 1 };
+                ++pos;
+                break;
+            case '*':
+                q = new int[] { 0, Integer.MAX_VALUE };
+                ++pos;
+                break;
+            case '+':
+                q = new int[] { 1, Integer.MAX_VALUE };
+                ++pos;
+                break;
+            case '{':
+                int close = pattern.indexOf('}', pos);
+                if (close < 0) {
+                    return null;
+                }
+                q = range(pattern.substring(pos + 1, close));
+                if (q == null) {
+                    return null;
+                }
+                pos = close + 1;
+                break;
+            default:
+                return new int[] { 1, 1 };
+            }
+            // lazy and possessive quantifiers are not supported
+            if (pos < n && (pattern.charAt(pos) == '?' || pattern.charAt(pos) == '+')) {
+                return null;
+            }
+            return q;
+        }
+
+        private int[] range(String s) {
+            int comma = s.indexOf(',');
+            String lo = comma < 0 ? s : s.substring(0, comma);
+            String hi = comma < 0 ? s : s.substring(comma + 1);
+            if (!isNumber(lo) || (comma >= 0 && hi.length() > 0 && !isNumber(hi))) {
+                return null;
+            }
+            int min = Integer.parseInt(lo);
+            int max = hi.length() == 0 ? Integer.MAX_VALUE : Integer.parseInt(hi);
+            return min > max ? null : new int[] { min, max };
+        }
+
+        private boolean isNumber(String s) {
+            if (s.length() == 0 || s.length() > 9) {
+                return false;
+            }
+            for (int i=0; i<s.length(); i++) {
+                if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -96,9 +96,15 @@ public class Segment extends ParserComponent {
         // if a child exists, the segment must exist
         // existence may also be predetermined in any tag based format (such as XML)
         boolean exists = isExistencePredetermined();
+        Projection projection = context.getProjection();
         for (Component node : getChildren()) {
             Parser parser = (Parser)node;
             
+            // components excluded by a projection are neither unmarshalled nor validated
+            if (projection != null && projection.isSkipped(node)) {
+                continue;
+            }
+            
             if (parser.unmarshal(context)) {
                 exists = true;
             }
@@ -113,7 +119,7 @@ public class Segment extends ParserComponent {
             // validate there are no missing children
             if (missing.isEmpty()) {
                 // if the segment valid and bound to a property, create the property value
-                if (property != null) {
+                if (property != null && !context.isValidationOnly()) {
                     property.createValue(context);
                 }
             }
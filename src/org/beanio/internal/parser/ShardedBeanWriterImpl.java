@@ -0,0 +1,348 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.beanio.*;
+import org.beanio.internal.util.*;
+
+/**
+ * A {@link ParallelBeanWriter} that divides bean objects among files according to
+ * a {@link ShardPolicy}.
+ *
+ * <p>Each file is written by a {@link BeanWriter} created by the {@link Stream}, with
+ * its own marshalling context and layout state.  Bean objects of the same key are always
+ * written in order by one thread at a time.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ShardedBeanWriterImpl implements ParallelBeanWriter {
+
+    private Stream stream;
+    private ShardPolicy policy;
+    private Charset charset;
+    private boolean binary;
+    private int threads;
+    private ExecutorService executor;
+
+    private Map<Object, Partition> partitions = new LinkedHashMap<Object, Partition>();
+    private boolean closed;
+
+    /**
+     * Constructs a new <tt>ShardedBeanWriterImpl</tt>.
+     * @param stream the {@link Stream} used to create the writer of each file
+     * @param policy the {@link ShardPolicy}
+     * @param charset the character set used to encode records, ignored if binary
+     * @param binary true if records are written as bytes
+     * @param threads the number of threads used to marshal bean objects of different keys
+     */
+    public ShardedBeanWriterImpl(Stream stream, ShardPolicy policy, Charset charset, boolean binary, int threads) {
+        this.stream = stream;
+        this.policy = policy;
+        this.charset = charset;
+        this.binary = binary;
+        this.threads = threads;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.Object)
+     */
+    public void write(Object bean) throws BeanWriterException {
+        write(null, bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#write(java.lang.String, java.lang.Object)
+     */
+    public void write(String recordName, Object bean) throws BeanWriterException {
+        ensureOpen();
+        getPartition(recordName, bean).write(recordName, bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.ParallelBeanWriter#writeAll(java.lang.Iterable)
+     */
+    public void writeAll(Iterable<?> beans) throws BeanWriterException {
+        writeAll(null, beans);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.ParallelBeanWriter#writeAll(java.lang.String, java.lang.Iterable)
+     */
+    public void writeAll(final String recordName, Iterable<?> beans) throws BeanWriterException {
+        ensureOpen();
+
+        if (beans == null) {
+            throw new NullPointerException("null beans");
+        }
+
+        if (threads == 1) {
+            for (Object bean : beans) {
+                write(recordName, bean);
+            }
+            return;
+        }
+
+        // divide the bean objects by key, in the order they were iterated
+        Map<Partition, List<Object>> batches = new LinkedHashMap<Partition, List<Object>>();
+        for (Object bean : beans) {
+            Partition partition = getPartition(recordName, bean);
+            List<Object> batch = batches.get(partition);
+            if (batch == null) {
+                batch = new ArrayList<Object>();
+                batches.put(partition, batch);
+            }
+            batch.add(bean);
+        }
+
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "beanio-sharded-writer-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        List<Future<?>> pending = new ArrayList<Future<?>>(batches.size());
+        for (Map.Entry<Partition, List<Object>> entry : batches.entrySet()) {
+            final Partition partition = entry.getKey();
+            final List<Object> batch = entry.getValue();
+            pending.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    for (Object bean : batch) {
+                        partition.write(recordName, bean);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        // wait for every key to complete, and throw the first exception
+        RuntimeException error = null;
+        for (Future<?> future : pending) {
+            RuntimeException ex = await(future);
+            if (error == null) {
+                error = ex;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#flush()
+     */
+    public void flush() throws BeanWriterIOException {
+        ensureOpen();
+        for (Partition partition : partitions.values()) {
+            partition.flush();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.BeanWriter#close()
+     */
+    public void close() throws BeanWriterIOException {
+        ensureOpen();
+        closed = true;
+
+        RuntimeException error = null;
+        try {
+            for (Partition partition : partitions.values()) {
+                try {
+                    partition.closeShard();
+                }
+                catch (RuntimeException ex) {
+                    if (error == null) {
+                        error = ex;
+                    }
+                }
+            }
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /*
+     * Throws an exception if the stream has already been closed.
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new BeanWriterIOException("Stream closed");
+        }
+    }
+
+    private Partition getPartition(String recordName, Object bean) {
+        Object key = policy.getKey(recordName, bean);
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+            partition = new Partition(key);
+            partitions.put(key, partition);
+        }
+        return partition;
+    }
+
+    /*
+     * Waits for the bean objects of a key to be written, and returns the exception
+     * that stopped them, if any.
+     */
+    private RuntimeException await(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new BeanWriterIOException(new InterruptedIOException(
+                "Interrupted waiting for marshalled records"));
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            return new BeanWriterException("Fatal exception caught", cause);
+        }
+    }
+
+    public void debug() {
+        debug(System.out);
+    }
+    public void debug(PrintStream out) {
+        ((Component) stream.getLayout()).print(out);
+    }
+
+    /**
+     * The files of a key, one of which is open at a time.
+     */
+    private class Partition {
+        private Object key;
+        private int index;
+
+        // the current file, or null if not open
+        private BeanWriter writer;
+        private OutputStream file;
+        private CountingOutputStream counter;
+        private long count;
+
+        public Partition(Object key) {
+            this.key = key;
+        }
+
+        public void write(String recordName, Object bean) {
+            if (writer == null) {
+                openShard();
+            }
+
+            writer.write(recordName, bean);
+            ++count;
+
+            long maxBytes = policy.getMaxBytes();
+            if (maxBytes > 0) {
+                // encode buffered characters so that the byte count is current
+                writer.flush();
+            }
+            if ((policy.getMaxRecords() > 0 && count >= policy.getMaxRecords()) ||
+                (maxBytes > 0 && counter.getCount() >= maxBytes)) {
+                closeShard();
+            }
+        }
+
+        public void flush() {
+            if (writer != null) {
+                writer.flush();
+                try {
+                    file.flush();
+                }
+                catch (IOException ex) {
+                    throw new BeanWriterIOException(ex);
+                }
+            }
+        }
+
+        private void openShard() {
+            File f = policy.getFile(key, index);
+            try {
+                file = new BufferedOutputStream(new FileOutputStream(f), 65536);
+            }
+            catch (IOException ex) {
+                throw new BeanWriterIOException("Failed to open file '" + f + "' for writing", ex);
+            }
+
+            // flushing the record writer only encodes characters, the file is flushed explicitly
+            counter = new CountingOutputStream(file) {
+                @Override
+                public void flush() { }
+            };
+            try {
+                if (binary) {
+                    writer = stream.createBeanWriter(counter);
+                }
+                else {
+                    writer = stream.createBeanWriter(new OutputStreamWriter(counter, charset));
+                }
+                count = 0;
+                policy.writeHeader(writer, key, index);
+            }
+            catch (RuntimeException ex) {
+                IOUtil.closeQuietly(file);
+                writer = null;
+                throw ex;
+            }
+            finally {
+                ++index;
+            }
+        }
+
+        public void closeShard() {
+            if (writer == null) {
+                return;
+            }
+            BeanWriter w = writer;
+            writer = null;
+            try {
+                policy.writeTrailer(w, key, index - 1, count);
+            }
+            finally {
+                w.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.IOException;
+
+import org.beanio.stream.RecordReader;
+
+/**
+ * A {@link RecordReader} that reads an input split, and offsets the line number of each
+ * record read by the number of lines in the file that precede the split.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see InputSplitPlanner
+ */
+public class SplitRecordReader implements RecordReader {
+
+    private RecordReader in;
+    private int lineNumber;
+    // the number of lines preceding the split, set when the first record is read
+    private int offset;
+    private boolean started;
+
+    /**
+     * Constructs a new <tt>SplitRecordReader</tt>.
+     * @param in the {@link RecordReader} to read from, positioned at the start of the split
+     * @param lineNumber the line number of the first record of the split
+     */
+    public SplitRecordReader(RecordReader in, int lineNumber) {
+        this.in = in;
+        this.lineNumber = lineNumber;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#read()
+     */
+    public Object read() throws IOException {
+        try {
+            return in.read();
+        }
+        finally {
+            // the first record of the split determines the line number offset
+            if (!started) {
+                int n = in.getRecordLineNumber();
+                if (n > 0) {
+                    offset = lineNumber - n;
+                    started = true;
+                }
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#close()
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordLineNumber()
+     */
+    public int getRecordLineNumber() {
+        int n = in.getRecordLineNumber();
+        return n > 0 ? n + offset : n;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordText()
+     */
+    public String getRecordText() {
+        return in.getRecordText();
+    }
+}
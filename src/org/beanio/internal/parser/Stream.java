@@ -16,10 +16,18 @@
 package org.beanio.internal.parser;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.*;
 
 import org.beanio.*;
+import org.beanio.columnar.ColumnarReader;
+import org.beanio.metrics.MetricsListener;
+import org.beanio.internal.util.*;
 import org.beanio.stream.*;
+import org.beanio.stream.csv.CsvRecordParserFactory;
+import org.beanio.stream.delimited.DelimitedRecordParserFactory;
+import org.beanio.stream.fixedlength.FixedLengthRecordParserFactory;
+import org.beanio.stream.xml.XmlReader;
 
 /**
  * 
@@ -40,6 +48,9 @@ public class Stream {
     private Selector layout;
     private MessageFactory messageFactory;
     private boolean ignoreUnidentifiedRecords;
+    private int prefetch;
+    private MetricsListener metricsListener;
+    private int metricsSamplingInterval;
     
     private Set<ParserLocal<?>> locals;
     
@@ -77,6 +88,21 @@ public class Stream {
      * @return the new {@link BeanReader}
      */
     public BeanReader createBeanReader(Reader in, Locale locale) {
+        return createBeanReader(in, locale, (Set<String>) null);
+    }
+    
+    /**
+     * Creates a new {@link BeanReader} for reading from the given input stream
+     * that only unmarshals the given bean properties.
+     * @param in the input stream to read from
+     * @param locale the locale to use for rendering error messages
+     * @param properties the property paths to unmarshal, or null to unmarshal all properties
+     * @return the new {@link BeanReader}
+     * @throws IllegalArgumentException if a property path is invalid
+     * @since 3.0
+     * @see Projection
+     */
+    public BeanReader createBeanReader(Reader in, Locale locale, Set<String> properties) {
         if (in == null) {
             throw new NullPointerException("null reader");
         }
@@ -85,19 +111,337 @@ public class Stream {
         initContext(context);
         context.setMessageFactory(messageFactory);
         context.setLocale(locale);
-        context.setRecordReader(format.createRecordReader(in));
+        if (context.getMetrics() != null) {
+            in = context.getMetrics().wrap(in);
+        }
+        if (properties != null) {
+            Projection projection = new Projection(layout, properties);
+            context.setProjection(projection);
+            context.setRecordReader(prefetch(format.createRecordReader(in, projection)));
+        }
+        else {
+            context.setRecordReader(prefetch(format.createRecordReader(in)));
+        }
+        
+        BeanReaderImpl reader = new BeanReaderImpl(context, layout);
+        reader.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        return reader;
+    }
+    
+    /**
+     * Creates a new {@link BeanReader} for reading an input split.
+     * @param in the input stream to read from, positioned at the start of the split
+     *   and ending at the end of the split
+     * @param locale the locale to use for rendering error messages
+     * @param split the {@link InputSplit} to read
+     * @return the new {@link BeanReader}
+     * @throws IllegalArgumentException if the stream format does not support input splits
+     * @since 3.0
+     * @see #planSplits(File, Charset, int)
+     */
+    public BeanReader createBeanReader(Reader in, Locale locale, InputSplit split) {
+        if (in == null) {
+            throw new NullPointerException("null reader");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        if (!isSplittable(context)) {
+            throw new IllegalArgumentException("Input splits not supported for stream format");
+        }
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        if (context.getMetrics() != null) {
+            in = context.getMetrics().wrap(in);
+        }
+        context.setRecordReader(prefetch(new SplitRecordReader(format.createRecordReader(in), split.getLineNumber())));
+        
+        BeanReaderImpl reader = new BeanReaderImpl(context, layout);
+        reader.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        return reader;
+    }
+    
+    /**
+     * Divides a file into input splits that start and end on record boundaries.
+     * @param file the file to divide
+     * @param charset the character set of the file
+     * @param count the maximum number of splits
+     * @return the list of {@link InputSplit}
+     * @throws IllegalArgumentException if the stream format or character set does not
+     *   support input splits
+     * @throws IOException if an I/O error occurs
+     * @since 3.0
+     * @see InputSplitPlanner
+     */
+    public List<InputSplit> planSplits(File file, Charset charset, int count) throws IOException {
+        if (!isSplittable(format.createUnmarshallingContext())) {
+            throw new IllegalArgumentException("Input splits not supported for stream format");
+        }
+        return new InputSplitPlanner(format).plan(file, charset, count);
+    }
+    
+    /**
+     * Reads the last records of a file without reading the rest of the file.
+     * @param file the file to read
+     * @param charset the character set of the file
+     * @param recordName the name of the record to read, or null to read any record
+     * @param count the maximum number of records to read
+     * @param locale the locale to use for rendering error messages
+     * @return the unmarshalled records in file order
+     * @throws IllegalArgumentException if the stream format is not line based, or if
+     *   the record is not found
+     * @throws IOException if an I/O error occurs
+     * @since 3.0
+     * @see TailReader
+     */
+    public List<Object> readTail(File file, Charset charset, String recordName, int count, Locale locale)
+        throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        if (!isLineBased()) {
+            throw new IllegalArgumentException("Reading the tail of a file is not supported for stream format");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        TailReader tail = new TailReader(context, format, layout, recordName);
+        
+        ReverseLineReader in = new ReverseLineReader(file, charset);
+        try {
+            return tail.read(in, count);
+        }
+        finally {
+            in.close();
+        }
+    }
+    
+    /*
+     * Returns whether each record of the stream format is a single line.
+     */
+    private boolean isLineBased() {
+        if (!(format instanceof StreamFormatSupport)) {
+            return false;
+        }
+        RecordParserFactory factory = ((StreamFormatSupport) format).getRecordParserFactory();
+        if (factory instanceof CsvRecordParserFactory) {
+            return !((CsvRecordParserFactory) factory).isMultilineEnabled();
+        }
+        else if (factory instanceof DelimitedRecordParserFactory) {
+            DelimitedRecordParserFactory config = (DelimitedRecordParserFactory) factory;
+            return !config.isLineContinationEnabled() && isDefaultTerminator(config.getRecordTerminator());
+        }
+        else if (factory instanceof FixedLengthRecordParserFactory) {
+            FixedLengthRecordParserFactory config = (FixedLengthRecordParserFactory) factory;
+            return !config.isLineContinationEnabled() && isDefaultTerminator(config.getRecordTerminator());
+        }
+        return false;
+    }
+    
+    private static boolean isDefaultTerminator(String recordTerminator) {
+        return recordTerminator == null || "\r\n".equals(recordTerminator);
+    }
+    
+    /*
+     * Returns whether records can be read independently from a character stream.
+     */
+    private boolean isSplittable(UnmarshallingContext context) {
+        return context.isRecordIndependent() && !isBinary();
+    }
+    
+    /*
+     * Returns whether records are read and written as bytes.
+     */
+    private boolean isBinary() {
+        return format instanceof StreamFormatSupport &&
+            ((StreamFormatSupport) format).getRecordParserFactory() instanceof ByteRecordParserFactory;
+    }
+    
+    /**
+     * Creates a new {@link BeanReader} for reading from the given byte input stream.
+     * @param in the input stream to read from
+     * @param locale the locale to use for rendering error messages
+     * @return the new {@link BeanReader}
+     * @since 3.0
+     * @see StreamFormat#createRecordReader(InputStream)
+     */
+    public BeanReader createBeanReader(InputStream in, Locale locale) {
+        if (in == null) {
+            throw new NullPointerException("null input stream");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        context.setRecordReader(prefetch(createRecordReader(context, in)));
         
         BeanReaderImpl reader = new BeanReaderImpl(context, layout);
         reader.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
         return reader;
     }
     
+    /*
+     * Creates a record reader for a byte input stream.  Bytes are counted as characters
+     * read only if records are read as bytes, otherwise characters are counted after
+     * they are decoded.
+     */
+    private RecordReader createRecordReader(UnmarshallingContext context, InputStream in) {
+        MetricsRecorder metrics = context.getMetrics();
+        if (metrics == null) {
+            return format.createRecordReader(in);
+        }
+        if (isBinary()) {
+            return format.createRecordReader(metrics.wrap(in));
+        }
+        return format.createRecordReader(metrics.wrap(new BufferedReader(new InputStreamReader(in))));
+    }
+    
+    /**
+     * Validates every record read from an input stream without creating bean objects.
+     * @param in the input stream to read from
+     * @param locale the locale to use for rendering error messages
+     * @param errorHandler the {@link BeanReaderErrorHandler} to pass errors to, or null
+     *   to throw the first error
+     * @param threads the number of threads used to validate records, which is ignored
+     *   if records of the stream format cannot be unmarshalled independently
+     * @return the number of records read
+     * @throws BeanReaderException if an error is not handled by the error handler
+     * @since 3.0
+     */
+    public long validate(Reader in, Locale locale, BeanReaderErrorHandler errorHandler, int threads) {
+        if (in == null) {
+            throw new NullPointerException("null reader");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        if (context.getMetrics() != null) {
+            in = context.getMetrics().wrap(in);
+        }
+        context.setRecordReader(format.createRecordReader(in));
+        
+        UnmarshallingContext[] workerContexts = null;
+        if (threads > 1 && context.isRecordIndependent()) {
+            workerContexts = new UnmarshallingContext[threads];
+            for (int i=0; i<threads; i++) {
+                workerContexts[i] = format.createUnmarshallingContext();
+                initContext(workerContexts[i]);
+                workerContexts[i].setMessageFactory(messageFactory);
+                workerContexts[i].setLocale(locale);
+            }
+        }
+        
+        StreamValidator validator = new StreamValidator(context, layout, workerContexts, 256);
+        validator.setErrorHandler(errorHandler);
+        validator.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        return validator.validate();
+    }
+    
+    /**
+     * Creates a new {@link StreamSorter} for sorting records by key fields.
+     * @param keyFields the names of the key fields
+     * @param locale the locale to use for rendering error messages
+     * @return the new {@link StreamSorter}
+     * @throws IllegalArgumentException if the stream format does not support sorting, or
+     *   if a key field is not found
+     * @since 3.0
+     */
+    public StreamSorter createSorter(String[] keyFields, Locale locale) {
+        if (keyFields == null) {
+            throw new NullPointerException("null keyFields");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        if (!isSplittable(context)) {
+            throw new IllegalArgumentException("Sorting not supported for stream format");
+        }
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        
+        StreamSorterImpl sorter = new StreamSorterImpl(context, format, layout, keyFields);
+        sorter.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        return sorter;
+    }
+    
+    /**
+     * Creates a new {@link ColumnarReader} for reading the fields of a record into
+     * column vectors.
+     * @param in the input stream to read from
+     * @param locale the locale to use for rendering error messages
+     * @param recordName the name of the record to read, or null if the stream has only one record
+     * @param batchSize the maximum number of records in a batch
+     * @return the new {@link ColumnarReader}
+     * @throws IllegalArgumentException if the record is not found or cannot be read into columns,
+     *   or if the batch size is less than 1
+     * @since 3.0
+     */
+    public ColumnarReader createColumnarReader(Reader in, Locale locale, String recordName, int batchSize) {
+        if (in == null) {
+            throw new NullPointerException("null reader");
+        }
+        
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        
+        ColumnarReaderImpl reader = new ColumnarReaderImpl(context, layout, recordName, batchSize);
+        reader.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        if (context.getMetrics() != null) {
+            in = context.getMetrics().wrap(in);
+        }
+        context.setRecordReader(prefetch(format.createRecordReader(in)));
+        return reader;
+    }
+    
+    /**
+     * Creates a new {@link BeanParser} for parsing input pushed in chunks.
+     * @param charset the {@link Charset} used to decode bytes, or null to use the default charset
+     * @param listener the {@link BeanParserListener} to notify of unmarshalled bean objects
+     * @param locale the locale to use for rendering error messages
+     * @return the new {@link BeanParser}
+     * @throws IllegalArgumentException if the stream format does not support push parsing
+     * @since 3.0
+     */
+    public BeanParser createBeanParser(Charset charset, BeanParserListener listener, Locale locale) {
+        UnmarshallingContext context = format.createUnmarshallingContext();
+        initContext(context);
+        context.setMessageFactory(messageFactory);
+        context.setLocale(locale);
+        
+        BeanParserImpl parser = new BeanParserImpl(context, layout, format, charset, listener);
+        parser.setIgnoreUnidentifiedRecords(ignoreUnidentifiedRecords);
+        return parser;
+    }
+    
     /**
      * Creates a new {@link Unmarshaller}.
      * @param locale the {@link Locale} to use for rendering error messages
      * @return the new {@link Unmarshaller}
      */
     public Unmarshaller createUnmarshaller(Locale locale) {
+        return createUnmarshaller(locale, null);
+    }
+    
+    /**
+     * Creates a new {@link Unmarshaller} that only unmarshals the given bean properties.
+     * @param locale the {@link Locale} to use for rendering error messages
+     * @param properties the property paths to unmarshal, or null to unmarshal all properties
+     * @return the new {@link Unmarshaller}
+     * @throws IllegalArgumentException if a property path is invalid
+     * @since 3.0
+     * @see Projection
+     */
+    public Unmarshaller createUnmarshaller(Locale locale, Set<String> properties) {
         
         RecordUnmarshaller recordUnmarshaller = format.createRecordUnmarshaller(); 
         if (recordUnmarshaller == null) {
@@ -108,6 +452,9 @@ public class Stream {
         initContext(context);
         context.setMessageFactory(messageFactory);
         context.setLocale(locale);
+        if (properties != null) {
+            context.setProjection(new Projection(layout, properties));
+        }
         
         return new UnmarshallerImpl(context, layout, recordUnmarshaller);
     }
@@ -124,12 +471,132 @@ public class Stream {
         
         MarshallingContext context = format.createMarshallingContext(true);
         initContext(context);
+        if (context.getMetrics() != null) {
+            out = context.getMetrics().wrap(out);
+        }
         context.setRecordWriter(format.createRecordWriter(out));
 
         BeanWriterImpl writer = new BeanWriterImpl(context, layout);
         return writer;
     }
     
+    /**
+     * Creates a new {@link BeanWriter} for writing to the given byte output stream.
+     * @param out the output stream to write to
+     * @return the new {@link BeanWriter}
+     * @since 3.0
+     * @see StreamFormat#createRecordWriter(OutputStream)
+     */
+    public BeanWriter createBeanWriter(OutputStream out) {
+        if (out == null) {
+            throw new NullPointerException("null output stream");
+        }
+        
+        MarshallingContext context = format.createMarshallingContext(true);
+        initContext(context);
+        MetricsRecorder metrics = context.getMetrics();
+        if (metrics == null) {
+            context.setRecordWriter(format.createRecordWriter(out));
+        }
+        else if (isBinary()) {
+            context.setRecordWriter(format.createRecordWriter(metrics.wrap(out)));
+        }
+        else {
+            // count characters before they are encoded
+            context.setRecordWriter(format.createRecordWriter(
+                metrics.wrap(new BufferedWriter(new OutputStreamWriter(out)))));
+        }
+
+        BeanWriterImpl writer = new BeanWriterImpl(context, layout);
+        return writer;
+    }
+    
+    /**
+     * Creates a new {@link BeanWriter} for writing to a file, that backfills counts and
+     * totals into previously written records when closed.
+     * @param file the file to write to
+     * @param charset the character set used to encode records
+     * @param backfills the list of {@link Backfill}
+     * @return the new {@link BeanWriter}
+     * @throws IllegalArgumentException if the stream format does not support backfilling,
+     *   or if a backfilled record or field is not found
+     * @throws IOException if the file could not be opened for writing
+     * @since 3.0
+     */
+    public BeanWriter createBeanWriter(File file, Charset charset, List<Backfill> backfills) 
+        throws IllegalArgumentException, IOException {
+        
+        MarshallingContext context = format.createMarshallingContext(true);
+        if (!context.isRecordIndependent()) {
+            throw new IllegalArgumentException("Backfill not supported for stream format");
+        }
+        initContext(context);
+        
+        Backfiller backfiller = new Backfiller(layout, format, backfills, file, charset, isBinary());
+        
+        OutputStream out = new FileOutputStream(file);
+        context.setRecordWriter(backfiller.createRecordWriter(out, context.getMetrics()));
+        
+        BeanWriterImpl writer = new BeanWriterImpl(context, layout);
+        writer.setBackfiller(backfiller);
+        return writer;
+    }
+    
+    /**
+     * Creates a new {@link ParallelBeanWriter} that divides bean objects among files.
+     * @param policy the {@link ShardPolicy}
+     * @param charset the character set used to encode records
+     * @param threads the number of threads used to marshal bean objects of different keys
+     * @return the new {@link ParallelBeanWriter}
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     * @since 3.0
+     */
+    public ParallelBeanWriter createShardedWriter(ShardPolicy policy, Charset charset, int threads) {
+        if (policy == null) {
+            throw new NullPointerException("null policy");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        return new ShardedBeanWriterImpl(this, policy, charset, isBinary(), threads);
+    }
+    
+    /**
+     * Creates a new {@link ParallelBeanWriter} for writing to the given output stream.
+     * @param out the output stream to write to
+     * @param threads the number of worker threads
+     * @param batchSize the number of bean objects marshalled by a worker thread at a time
+     * @return the new {@link ParallelBeanWriter}
+     * @throws IllegalArgumentException if the stream format does not support parallel
+     *   marshalling, or if the number of threads or batch size is less than 1
+     * @since 3.0
+     */
+    public ParallelBeanWriter createParallelBeanWriter(Writer out, int threads, int batchSize) {
+        if (out == null) {
+            throw new NullPointerException("null writer");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        
+        MarshallingContext context = format.createMarshallingContext(true);
+        if (!context.isRecordIndependent()) {
+            throw new IllegalArgumentException("Parallel marshalling not supported for stream format");
+        }
+        initContext(context);
+        
+        MarshallingContext[] workerContexts = new MarshallingContext[threads];
+        for (int i=0; i<threads; i++) {
+            workerContexts[i] = format.createMarshallingContext(true);
+            initContext(workerContexts[i]);
+        }
+        
+        return new ParallelBeanWriterImpl(context, layout, format, workerContexts, out, batchSize);
+    }
+    
     /**
      * Creates a new {@link Marshaller}.
      * @return the new {@link Marshaller}
@@ -152,6 +619,10 @@ public class Stream {
         for (ParserLocal<?> local : locals) {
             local.init(i++, context);
         }
+        
+        if (metricsListener != null) {
+            context.setMetrics(new MetricsRecorder(getName(), metricsListener, metricsSamplingInterval));
+        }
     }
     
     /**
@@ -215,4 +686,60 @@ public class Stream {
     public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
         this.ignoreUnidentifiedRecords = ignoreUnidentifiedRecords;
     }
+    
+    /**
+     * Returns the number of records read ahead by a background thread when reading
+     * this stream.  Defaults to 0.
+     * @return the number of records to read ahead, or 0 if disabled
+     * @since 3.0
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Sets the number of records read ahead by a background thread when reading
+     * this stream.
+     * @param prefetch the number of records to read ahead, or 0 to disable
+     * @since 3.0
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+    
+    /**
+     * Wraps a record reader to read records ahead if prefetching is enabled.
+     * @param reader the {@link RecordReader} to wrap
+     * @return the {@link RecordReader} to read from
+     */
+    private RecordReader prefetch(RecordReader reader) {
+        // an XML reader appends each record to the same document, so it cannot read ahead
+        if (prefetch <= 0 || reader instanceof XmlReader) {
+            return reader;
+        }
+        return new PrefetchRecordReader(reader, prefetch);
+    }
+    
+    /**
+     * Returns the {@link MetricsListener} notified by readers and writers created
+     * for this stream.
+     * @return the {@link MetricsListener}, or null if metrics are disabled
+     * @since 3.0
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+    
+    /**
+     * Sets the {@link MetricsListener} notified by readers and writers created
+     * for this stream.  Readers and writers already created are not affected.
+     * @param listener the {@link MetricsListener}, or null to disable metrics
+     * @param samplingInterval the number of bean objects read or written for
+     *   each bean object that is timed, or 0 to disable timing
+     * @since 3.0
+     */
+    public void setMetricsListener(MetricsListener listener, int samplingInterval) {
+        this.metricsListener = listener;
+        this.metricsSamplingInterval = samplingInterval;
+    }
 }
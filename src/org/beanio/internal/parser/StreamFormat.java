@@ -67,6 +67,27 @@ public interface StreamFormat {
      */
     public RecordReader createRecordReader(Reader in);
     
+    /**
+     * Creates a new record reader for unmarshalling only the components included
+     * by a {@link Projection}.  A stream format may use the projection to avoid parsing
+     * parts of a record that are not unmarshalled.
+     * @param in the {@link Reader} to read records from
+     * @param projection the {@link Projection}
+     * @return the new {@link RecordReader}
+     * @since 3.0
+     */
+    public RecordReader createRecordReader(Reader in, Projection projection);
+    
+    /**
+     * Creates a new record reader for a byte input stream.  If the stream format
+     * does not read bytes, the input stream is decoded using the default character set.
+     * @param in the {@link InputStream} to read records from
+     * @return the new {@link RecordReader}
+     * @since 3.0
+     * @see ByteRecordParserFactory
+     */
+    public RecordReader createRecordReader(InputStream in);
+    
     /**
      * Creates a new record writer.
      * @param out the {@link Writer} to write records to
@@ -74,4 +95,14 @@ public interface StreamFormat {
      */
     public RecordWriter createRecordWriter(Writer out);
     
+    /**
+     * Creates a new record writer for a byte output stream.  If the stream format
+     * does not write bytes, characters are encoded using the default character set.
+     * @param out the {@link OutputStream} to write records to
+     * @return the new {@link RecordWriter}
+     * @since 3.0
+     * @see ByteRecordParserFactory
+     */
+    public RecordWriter createRecordWriter(OutputStream out);
+    
 }
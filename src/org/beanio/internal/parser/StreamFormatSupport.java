@@ -60,6 +60,34 @@ public abstract class StreamFormatSupport implements StreamFormat {
     public RecordReader createRecordReader(Reader in) {
         return recordParserFactory.createReader(in);
     }
+    
+    /**
+     * Creates a new <tt>RecordReader</tt> to read from the given input stream.
+     * By default, the projection is ignored.
+     * @param in the input stream to read from
+     * @param projection the {@link Projection} of the components to unmarshal
+     * @return a new <tt>RecordReader</tt>
+     * @since 3.0
+     */
+    public RecordReader createRecordReader(Reader in, Projection projection) {
+        return createRecordReader(in);
+    }
+    
+    /**
+     * Creates a new <tt>RecordReader</tt> to read from the given byte input stream.
+     * This method delegates to the configured record parser factory if it is a
+     * {@link ByteRecordParserFactory}, and otherwise decodes the input stream
+     * using the default character set.
+     * @param in the input stream to read from
+     * @return a new <tt>RecordReader</tt>
+     * @since 3.0
+     */
+    public RecordReader createRecordReader(InputStream in) {
+        if (recordParserFactory instanceof ByteRecordParserFactory) {
+            return ((ByteRecordParserFactory) recordParserFactory).createReader(in);
+        }
+        return createRecordReader(new BufferedReader(new InputStreamReader(in)));
+    }
 
     /**
      * Creates a new <tt>RecordWriter</tt> for writing to the given output stream.
@@ -71,6 +99,22 @@ public abstract class StreamFormatSupport implements StreamFormat {
         return recordParserFactory.createWriter(out);
     }
     
+    /**
+     * Creates a new <tt>RecordWriter</tt> for writing to the given byte output stream.
+     * This method delegates to the configured record parser factory if it is a
+     * {@link ByteRecordParserFactory}, and otherwise encodes characters using the
+     * default character set.
+     * @param out the output stream to write to
+     * @return a new <tt>RecordWriter</tt>
+     * @since 3.0
+     */
+    public RecordWriter createRecordWriter(OutputStream out) {
+        if (recordParserFactory instanceof ByteRecordParserFactory) {
+            return ((ByteRecordParserFactory) recordParserFactory).createWriter(out);
+        }
+        return createRecordWriter(new BufferedWriter(new OutputStreamWriter(out)));
+    }
+    
     /*
      * (non-Javadoc)
      * @see org.beanio.internal.parser.StreamFormat#createRecordMarshaller()
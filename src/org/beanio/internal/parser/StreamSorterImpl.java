@@ -0,0 +1,652 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.beanio.*;
+import org.beanio.stream.*;
+
+/**
+ * A {@link StreamSorter} implementation that sorts records by an external merge sort.
+ *
+ * <p>Key fields are unmarshalled individually, unless the record contains a repeating
+ * component, in which case the whole record is unmarshalled so that the position of
+ * each key field is known.  Runs are spilled to temporary files using Java serialization
+ * of the record values returned by the {@link RecordReader}, and their keys.  The last
+ * run read is merged from memory, so that no temporary files are needed if the stream
+ * fits in a single run.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StreamSorterImpl implements StreamSorter {
+
+    private UnmarshallingContext context;
+    private StreamFormat format;
+    private boolean ignoreUnidentifiedRecords;
+
+    private List<Record> records = new ArrayList<Record>();
+    // the key fields of each record, or null if not sorted
+    private Map<Record, Field[]> keyFields = new HashMap<Record, Field[]>();
+    // records that must be fully unmarshalled to extract key fields
+    private Set<Record> unmarshalled = new HashSet<Record>();
+
+    private int runSize = 100000;
+    private int threads = 1;
+    private File tempDirectory;
+
+    /**
+     * Constructs a new <tt>StreamSorterImpl</tt>.
+     * @param context the {@link UnmarshallingContext}
+     * @param format the {@link StreamFormat}
+     * @param layout the root component of the parser tree
+     * @param keys the names of the key fields
+     * @throws IllegalArgumentException if no record maps all key fields, or if a key
+     *   field is not comparable
+     */
+    public StreamSorterImpl(UnmarshallingContext context, StreamFormat format, Selector layout, String[] keys)
+        throws IllegalArgumentException {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("At least one key field is required");
+        }
+
+        this.context = context;
+        this.format = format;
+        findRecords((Component) layout);
+
+        boolean found = false;
+        for (Record record : records) {
+            Field[] fields = new Field[keys.length];
+            int count = 0;
+            for (int i=0; i<keys.length; i++) {
+                fields[i] = findField(record, keys[i]);
+                if (fields[i] != null) {
+                    ++count;
+                }
+            }
+
+            if (count < keys.length) {
+                keyFields.put(record, null);
+                continue;
+            }
+
+            for (Field field : fields) {
+                Class<?> type = field.getPropertyType();
+                if (type != null && !type.isPrimitive() && !Comparable.class.isAssignableFrom(type)) {
+                    throw new IllegalArgumentException("Key field '" + field.getName() + "' of record '" +
+                        record.getName() + "' is not Comparable");
+                }
+            }
+            if (hasIteration(record)) {
+                unmarshalled.add(record);
+            }
+            keyFields.put(record, fields);
+            found = true;
+        }
+
+        if (!found) {
+            throw new IllegalArgumentException("No record maps all key fields " + Arrays.toString(keys));
+        }
+    }
+
+    private void findRecords(Component node) {
+        if (node instanceof Record) {
+            records.add((Record) node);
+        }
+        else {
+            for (Component child : node.getChildren()) {
+                findRecords(child);
+            }
+        }
+    }
+
+    private static Field findField(Component node, String name) {
+        for (Component child : node.getChildren()) {
+            if (child instanceof Field) {
+                if (name.equals(child.getName())) {
+                    return (Field) child;
+                }
+            }
+            else {
+                Field field = findField(child, name);
+                if (field != null) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasIteration(Component node) {
+        if (node instanceof Iteration) {
+            return true;
+        }
+        for (Component child : node.getChildren()) {
+            if (hasIteration(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.StreamSorter#sort(java.io.Reader, java.io.Writer)
+     */
+    public void sort(Reader in, Writer out) throws BeanIOException {
+        if (in == null) {
+            throw new NullPointerException("null reader");
+        }
+        if (out == null) {
+            throw new NullPointerException("null writer");
+        }
+
+        CapturingRecordReader reader = new CapturingRecordReader(format.createRecordReader(in));
+        context.setRecordReader(reader);
+        RecordWriter writer = format.createRecordWriter(out);
+
+        ExecutorService executor = null;
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "beanio-sorter-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        // runs that have been spilled, or are being spilled by a worker thread
+        List<Future<File>> spilled = new ArrayList<Future<File>>();
+        try {
+            List<Object> trailer = new ArrayList<Object>();
+            List<Entry> run = new ArrayList<Entry>(Math.min(runSize, 1024));
+            boolean sorted = false;
+            while (true) {
+                context.nextRecord();
+                if (context.isEOF()) {
+                    break;
+                }
+
+                Record record = match();
+                if (record == null) {
+                    context.recordSkipped();
+                    continue;
+                }
+
+                Field[] fields = keyFields.get(record);
+                if (fields == null) {
+                    context.recordSkipped();
+                    if (sorted) {
+                        trailer.add(reader.value);
+                    }
+                    else {
+                        write(writer, reader.value);
+                    }
+                    continue;
+                }
+
+                sorted = true;
+                run.add(new Entry(reader.value, extract(record, fields)));
+                if (run.size() == runSize) {
+                    spill(run, executor, spilled);
+                    run = new ArrayList<Entry>(Math.min(runSize, 1024));
+                }
+            }
+
+            Collections.sort(run);
+            merge(run, spilled, writer);
+
+            for (Object value : trailer) {
+                write(writer, value);
+            }
+            flush(writer);
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            for (Future<File> future : spilled) {
+                try {
+                    future.get().delete();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ex) {
+                    // already reported or never reached
+                }
+            }
+        }
+    }
+
+    /*
+     * Returns the record node that matches the current record, or null if unidentified
+     * and unidentified records are ignored.
+     */
+    private Record match() throws BeanReaderException {
+        for (Record record : records) {
+            if (record.matches(context)) {
+                return record;
+            }
+        }
+        if (ignoreUnidentifiedRecords) {
+            return null;
+        }
+        throw context.recordUnidentifiedException();
+    }
+
+    /*
+     * Unmarshals and returns the key field values of the current record.
+     */
+    private Object[] extract(Record record, Field[] fields) throws BeanReaderException {
+        Object[] key = new Object[fields.length];
+        try {
+            context.prepare(record.getName(), false);
+            if (unmarshalled.contains(record)) {
+                try {
+                    record.unmarshal(context);
+                }
+                catch (AbortRecordUnmarshalligException ex) { }
+            }
+            else {
+                context.recordStarted(record.getName());
+                try {
+                    for (Field field : fields) {
+                        field.unmarshal(context);
+                    }
+                }
+                finally {
+                    context.recordCompleted();
+                }
+            }
+
+            // this will throw an exception if a key field is invalid
+            context.validate();
+
+            for (int i=0; i<fields.length; i++) {
+                Object value = fields[i].getValue(context);
+                key[i] = value == Value.MISSING ? null : value;
+            }
+            return key;
+        }
+        finally {
+            if (unmarshalled.contains(record)) {
+                record.clearValue(context);
+            }
+            else {
+                for (Field field : fields) {
+                    field.clearValue(context);
+                }
+            }
+        }
+    }
+
+    /*
+     * Sorts and spills a run to a temporary file, using a worker thread if configured.
+     */
+    private void spill(final List<Entry> run, ExecutorService executor, List<Future<File>> spilled) {
+        Callable<File> task = new Callable<File>() {
+            public File call() throws IOException {
+                Collections.sort(run);
+                return writeRun(run);
+            }
+        };
+
+        if (executor == null) {
+            FutureTask<File> future = new FutureTask<File>(task);
+            spilled.add(future);
+            future.run();
+            await(future);
+        }
+        else {
+            spilled.add(executor.submit(task));
+
+            // limit the number of runs held in memory
+            int pending = 0;
+            for (Future<File> future : spilled) {
+                if (!future.isDone()) {
+                    ++pending;
+                }
+            }
+            if (pending >= threads) {
+                for (Future<File> future : spilled) {
+                    if (!future.isDone()) {
+                        await(future);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Writes a sorted run to a new temporary file.
+     */
+    private File writeRun(List<Entry> run) throws IOException {
+        File file = File.createTempFile("beanio-sort", ".run", tempDirectory);
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+            out.writeInt(run.size());
+            int n = 0;
+            for (Entry entry : run) {
+                out.writeObject(entry.value);
+                out.writeObject(entry.key);
+                // release references held by the stream
+                if (++n % 1000 == 0) {
+                    out.reset();
+                }
+            }
+            out.close();
+            out = null;
+            return file;
+        }
+        catch (IOException ex) {
+            closeQuietly(out);
+            file.delete();
+            throw ex;
+        }
+    }
+
+    /*
+     * Merges the sorted runs and writes each record to the record writer.
+     */
+    private void merge(List<Entry> last, List<Future<File>> spilled, RecordWriter writer) {
+        if (spilled.isEmpty()) {
+            for (Entry entry : last) {
+                write(writer, entry.value);
+            }
+            return;
+        }
+
+        List<Run> runs = new ArrayList<Run>(spilled.size() + 1);
+        try {
+            for (Future<File> future : spilled) {
+                File file = await(future);
+                try {
+                    runs.add(new FileRun(file, runs.size()));
+                }
+                catch (IOException ex) {
+                    throw new BeanIOException("Failed to read temporary file '" + file + "'", ex);
+                }
+            }
+            runs.add(new MemoryRun(last, runs.size()));
+
+            PriorityQueue<Run> queue = new PriorityQueue<Run>(runs.size());
+            for (Run run : runs) {
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                write(writer, run.entry.value);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+        }
+        finally {
+            for (Run run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    private File await(Future<File> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanIOException("Interrupted waiting for sorted run", new InterruptedIOException());
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BeanIOException("Failed to write temporary file", cause);
+        }
+    }
+
+    private void write(RecordWriter writer, Object value) {
+        try {
+            writer.write(value);
+        }
+        catch (IOException ex) {
+            throw new BeanWriterIOException(ex);
+        }
+    }
+
+    private void flush(RecordWriter writer) {
+        try {
+            writer.flush();
+        }
+        catch (IOException ex) {
+            throw new BeanWriterIOException(ex);
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            }
+            catch (IOException ex) { }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.StreamSorter#setRunSize(int)
+     */
+    public void setRunSize(int runSize) throws IllegalArgumentException {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("runSize must be at least 1");
+        }
+        this.runSize = runSize;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.StreamSorter#setThreads(int)
+     */
+    public void setThreads(int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.StreamSorter#setTempDirectory(java.io.File)
+     */
+    public void setTempDirectory(File directory) {
+        this.tempDirectory = directory;
+    }
+
+    /**
+     * Sets whether to ignore unidentified records.  Defaults to false.
+     * @param ignoreUnidentifiedRecords true to ignore unidentified records
+     */
+    public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
+        this.ignoreUnidentifiedRecords = ignoreUnidentifiedRecords;
+    }
+
+    /*
+     * Compares key values by natural order, with null values first.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compare(Object[] k1, Object[] k2) {
+        for (int i=0; i<k1.length; i++) {
+            Object v1 = k1[i];
+            Object v2 = k2[i];
+            int c;
+            if (v1 == null) {
+                c = v2 == null ? 0 : -1;
+            }
+            else if (v2 == null) {
+                c = 1;
+            }
+            else {
+                c = ((Comparable) v1).compareTo(v2);
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A record value read from the record reader, and its key.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private Object value;
+        private Object[] key;
+
+        public Entry(Object value, Object[] key) {
+            this.value = value;
+            this.key = key;
+        }
+
+        public int compareTo(Entry o) {
+            return StreamSorterImpl.compare(key, o.key);
+        }
+    }
+
+    /**
+     * A sorted run being merged.  Runs with equal keys are ordered by index, so that
+     * the merge is stable.
+     */
+    private static abstract class Run implements Comparable<Run> {
+        protected Entry entry;
+        private int index;
+
+        public Run(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Advances to the next entry of this run.
+         * @return false if the end of the run was reached
+         */
+        public abstract boolean next();
+
+        public void close() { }
+
+        public int compareTo(Run o) {
+            int c = entry.compareTo(o.entry);
+            return c != 0 ? c : index - o.index;
+        }
+    }
+
+    /**
+     * A run held in memory.
+     */
+    private static class MemoryRun extends Run {
+        private Iterator<Entry> iterator;
+
+        public MemoryRun(List<Entry> list, int index) {
+            super(index);
+            this.iterator = list.iterator();
+        }
+
+        @Override
+        public boolean next() {
+            entry = iterator.hasNext() ? iterator.next() : null;
+            return entry != null;
+        }
+    }
+
+    /**
+     * A run read from a temporary file.
+     */
+    private static class FileRun extends Run {
+        private File file;
+        private ObjectInputStream in;
+        private int remaining;
+
+        public FileRun(File file, int index) throws IOException {
+            super(index);
+            this.file = file;
+            this.in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+            this.remaining = in.readInt();
+        }
+
+        @Override
+        public boolean next() {
+            if (remaining == 0) {
+                entry = null;
+                return false;
+            }
+            try {
+                entry = new Entry(in.readObject(), (Object[]) in.readObject());
+                --remaining;
+                return true;
+            }
+            catch (IOException ex) {
+                throw new BeanIOException("Failed to read temporary file '" + file + "'", ex);
+            }
+            catch (ClassNotFoundException ex) {
+                throw new BeanIOException("Failed to read temporary file '" + file + "'", ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * A {@link RecordReader} that holds the last record value read.
+     */
+    private static class CapturingRecordReader implements RecordReader {
+        private RecordReader reader;
+        private Object value;
+
+        public CapturingRecordReader(RecordReader reader) {
+            this.reader = reader;
+        }
+
+        public Object read() throws IOException, RecordIOException {
+            return value = reader.read();
+        }
+
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        public int getRecordLineNumber() {
+            return reader.getRecordLineNumber();
+        }
+
+        public String getRecordText() {
+            return reader.getRecordText();
+        }
+    }
+}
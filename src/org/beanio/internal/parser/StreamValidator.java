@@ -0,0 +1,496 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.beanio.*;
+import org.beanio.stream.RecordReader;
+
+/**
+ * Validates every record in an input stream without creating bean objects.
+ *
+ * <p>Records are read and matched against the layout serially using a single
+ * {@link UnmarshallingContext}, so that record order and occurrences are validated
+ * exactly as by a {@link BeanReaderImpl}.  If worker contexts are provided, matched
+ * records that are not part of a record group bound to a bean object are collected
+ * into slices, and the fields of each slice are validated by a worker thread using
+ * its own context.  Record groups are validated by the calling thread once all
+ * previous slices have completed.  Errors are always passed to the error handler
+ * by the calling thread in the order the records were read.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StreamValidator {
+
+    private UnmarshallingContext context;
+    private Selector layout;
+    private RecordCapture reader;
+    private BeanReaderErrorHandler errorHandler;
+    private boolean ignoreUnidentifiedRecords;
+
+    private int threads;
+    private int batchSize;
+    // idle worker contexts, or null if records are validated by the calling thread
+    private BlockingQueue<Worker> workers;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a new <tt>StreamValidator</tt>.
+     * @param context the {@link UnmarshallingContext} used to read and match records
+     * @param layout the root {@link Selector} node in the parsing tree
+     * @param workerContexts the {@link UnmarshallingContext} for each worker thread, or
+     *   <tt>null</tt> to validate all records using the calling thread
+     * @param batchSize the number of records validated by a worker thread at a time
+     */
+    public StreamValidator(UnmarshallingContext context, Selector layout,
+        UnmarshallingContext[] workerContexts, int batchSize) {
+        this.context = context;
+        this.layout = layout;
+        this.batchSize = batchSize;
+
+        // capture the value of each record read so it can be passed to a worker
+        reader = new RecordCapture(context.getRecordReader());
+        context.setRecordReader(reader);
+        context.setValidationOnly(true);
+
+        if (workerContexts != null) {
+            threads = workerContexts.length;
+            workers = new ArrayBlockingQueue<Worker>(threads);
+            for (UnmarshallingContext workerContext : workerContexts) {
+                workers.add(new Worker(workerContext));
+            }
+        }
+    }
+
+    /**
+     * Validates the input stream.
+     * @return the number of records read from the input stream
+     * @throws BeanReaderException if an exception is not handled by the error handler
+     */
+    public long validate() throws BeanReaderException {
+        if (workers != null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "beanio-validator-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        // slices that have been submitted but not completed
+        Deque<Future<Slice>> pending = new ArrayDeque<Future<Slice>>();
+        try {
+            Slice slice = null;
+            while (layout != null) {
+                Selector parser;
+                try {
+                    parser = nextRecord();
+                }
+                catch (BeanReaderException ex) {
+                    if (workers == null) {
+                        handleError(ex);
+                    }
+                    else {
+                        // reported in order with the errors of previous records
+                        if (slice == null) {
+                            slice = new Slice(batchSize);
+                        }
+                        slice.add(null, null, null, 0, ex);
+                    }
+                    parser = null;
+                }
+
+                if (parser == null) {
+                    // the end of the stream was reached, or the record was not matched
+                }
+                else if (workers != null && parser instanceof Record) {
+                    if (slice == null) {
+                        slice = new Slice(batchSize);
+                    }
+                    slice.add((Record) parser, reader.value, reader.getRecordText(),
+                        context.getLineNumber(), null);
+                    parser.skip(context);
+                }
+                else {
+                    // record groups are validated by the calling thread after previous records
+                    if (slice != null) {
+                        submit(slice, pending);
+                        slice = null;
+                    }
+                    while (!pending.isEmpty()) {
+                        complete(await(pending.poll()));
+                    }
+                    unmarshal(parser);
+                }
+
+                if (slice != null && (slice.size == batchSize || layout == null)) {
+                    submit(slice, pending);
+                    slice = null;
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                complete(await(pending.poll()));
+            }
+            return reader.count;
+        }
+        finally {
+            for (Future<Slice> future : pending) {
+                future.cancel(false);
+            }
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the next record from the input stream and returns the matching record node.
+     * @return the next matching record node, or <tt>null</tt> if the end of the stream
+     *   was reached
+     * @throws BeanReaderException if the next node cannot be determined
+     */
+    private Selector nextRecord() throws BeanReaderException {
+        Selector parser = null;
+        do {
+            context.nextRecord();
+
+            // validate all record nodes are satisfied when the end of the file is reached
+            if (context.isEOF()) {
+                try {
+                    Selector unsatisfied = layout.close(context);
+                    if (unsatisfied != null) {
+                        if (unsatisfied.isRecordGroup()) {
+                            throw context.newUnsatisfiedGroupException(unsatisfied.getName());
+                        }
+                        else {
+                            throw context.newUnsatisfiedRecordException(unsatisfied.getName());
+                        }
+                    }
+                    return null;
+                }
+                finally {
+                    layout = null;
+                }
+            }
+
+            try {
+                parser = layout.matchNext(context);
+            }
+            catch (UnexpectedRecordException ex) {
+                // when thrown, 'parser' is null and the error is handled below
+            }
+
+            if (parser == null && ignoreUnidentifiedRecords) {
+                context.recordSkipped();
+            }
+            else {
+                break;
+            }
+        }
+        while (true);
+
+        if (parser == null) {
+            parser = layout.matchAny(context);
+
+            if (parser != null) {
+                throw context.recordUnexpectedException(parser.getName());
+            }
+            else {
+                throw context.recordUnidentifiedException();
+            }
+        }
+        return parser;
+    }
+
+    /*
+     * Validates a matched record or record group using the calling thread.
+     */
+    private void unmarshal(Selector parser) {
+        try {
+            context.prepare(parser.getName(), parser.isRecordGroup());
+            try {
+                parser.unmarshal(context);
+            }
+            catch (AbortRecordUnmarshalligException ex) { }
+            context.validate();
+        }
+        catch (BeanReaderException ex) {
+            handleError(ex);
+        }
+        catch (BeanIOException ex) {
+            handleError(translate(ex));
+        }
+        finally {
+            parser.clearValue(context);
+        }
+    }
+
+    /*
+     * Submits a slice to a worker thread, and completes the oldest slice if
+     * too many slices are pending.
+     */
+    private void submit(Slice slice, Deque<Future<Slice>> pending) {
+        pending.add(executor.submit(slice));
+
+        // limit the number of slices held in memory
+        if (pending.size() > threads * 2) {
+            complete(await(pending.poll()));
+        }
+    }
+
+    /*
+     * Waits for a slice to be validated.
+     */
+    private Slice await(Future<Slice> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanReaderIOException("Interrupted waiting for validated records",
+                new InterruptedIOException());
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BeanReaderException("Fatal exception caught", cause);
+        }
+    }
+
+    /*
+     * Passes the errors of a validated slice to the error handler in order.
+     */
+    private void complete(Slice slice) {
+        for (int i=0; i<slice.size; i++) {
+            if (slice.errors[i] != null) {
+                handleError(slice.errors[i]);
+            }
+        }
+        if (slice.fatal != null) {
+            throw slice.fatal;
+        }
+    }
+
+    private void handleError(BeanReaderException ex) {
+        if (errorHandler == null) {
+            throw ex;
+        }
+        try {
+            errorHandler.handleError(ex);
+        }
+        catch (BeanReaderException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new BeanReaderException("Exception thrown by error handler", e);
+        }
+    }
+
+    /*
+     * Wraps a generic exception in a BeanReaderException.
+     */
+    private static BeanReaderException translate(BeanIOException ex) {
+        return (BeanReaderException) new BeanReaderException(
+            "Fatal BeanIOException caught", ex).fillInStackTrace();
+    }
+
+    /**
+     * Sets the error handler to handle exceptions thrown while validating records.
+     * @param errorHandler the {@link BeanReaderErrorHandler}, or <tt>null</tt> to
+     *   throw the first exception
+     */
+    public void setErrorHandler(BeanReaderErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Sets whether to ignore unidentified records.  Defaults to false.
+     * @param ignoreUnidentifiedRecords true to ignore unidentified records, false otherwise
+     */
+    public void setIgnoreUnidentifiedRecords(boolean ignoreUnidentifiedRecords) {
+        this.ignoreUnidentifiedRecords = ignoreUnidentifiedRecords;
+    }
+
+    /**
+     * A {@link RecordReader} that keeps the last record value read from another record reader.
+     */
+    private static class RecordCapture implements RecordReader {
+        private RecordReader in;
+        private Object value;
+        private long count;
+
+        public RecordCapture(RecordReader in) {
+            this.in = in;
+        }
+
+        public Object read() throws IOException {
+            value = in.read();
+            if (value != null) {
+                ++count;
+            }
+            return value;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        public int getRecordLineNumber() {
+            return in.getRecordLineNumber();
+        }
+
+        public String getRecordText() {
+            return in.getRecordText();
+        }
+    }
+
+    /**
+     * A {@link RecordReader} that returns a record read by another record reader.
+     */
+    private static class RecordReplay implements RecordReader {
+        private Object value;
+        private String text;
+        private int lineNumber;
+
+        public Object read() {
+            return value;
+        }
+
+        public void close() { }
+
+        public int getRecordLineNumber() {
+            return lineNumber;
+        }
+
+        public String getRecordText() {
+            return text;
+        }
+    }
+
+    /**
+     * A worker thread's unmarshalling context and the record reader it reads from.
+     */
+    private static class Worker {
+        private UnmarshallingContext context;
+        private RecordReplay reader = new RecordReplay();
+
+        public Worker(UnmarshallingContext context) {
+            this.context = context;
+            this.context.setRecordReader(reader);
+            this.context.setValidationOnly(true);
+        }
+    }
+
+    /**
+     * A sequence of matched records validated by a worker thread.
+     */
+    private class Slice implements Callable<Slice> {
+        private Record[] records;
+        private Object[] values;
+        private String[] texts;
+        private int[] lineNumbers;
+        private int size;
+
+        // the error for each record, if any
+        private BeanReaderException[] errors;
+        // an exception that stopped the slice, if any
+        private RuntimeException fatal;
+
+        public Slice(int capacity) {
+            records = new Record[capacity];
+            values = new Object[capacity];
+            texts = new String[capacity];
+            lineNumbers = new int[capacity];
+            errors = new BeanReaderException[capacity];
+        }
+
+        public void add(Record record, Object value, String text, int lineNumber, BeanReaderException error) {
+            records[size] = record;
+            values[size] = value;
+            texts[size] = text;
+            lineNumbers[size] = lineNumber;
+            errors[size] = error;
+            ++size;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.Callable#call()
+         */
+        public Slice call() {
+            Worker worker;
+            try {
+                worker = workers.take();
+            }
+            catch (InterruptedException ex) {
+                fatal = new BeanReaderIOException("Interrupted waiting for an unmarshalling context",
+                    new InterruptedIOException());
+                return this;
+            }
+
+            UnmarshallingContext workerContext = worker.context;
+            try {
+                for (int i=0; i<size; i++) {
+                    Record record = records[i];
+                    if (record == null) {
+                        continue;
+                    }
+
+                    worker.reader.value = values[i];
+                    worker.reader.text = texts[i];
+                    worker.reader.lineNumber = lineNumbers[i];
+                    try {
+                        workerContext.nextRecord();
+                        workerContext.prepare(record.getName(), false);
+                        try {
+                            record.unmarshal(workerContext);
+                        }
+                        catch (AbortRecordUnmarshalligException ex) { }
+                        workerContext.validate();
+                    }
+                    catch (BeanReaderException ex) {
+                        errors[i] = ex;
+                    }
+                    catch (BeanIOException ex) {
+                        errors[i] = translate(ex);
+                    }
+                    finally {
+                        record.clearValue(workerContext);
+                    }
+                }
+            }
+            catch (RuntimeException ex) {
+                fatal = ex;
+            }
+            finally {
+                worker.reader.value = null;
+                worker.reader.text = null;
+                workers.add(worker);
+            }
+            return this;
+        }
+    }
+}
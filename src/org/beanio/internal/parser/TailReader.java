@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser;
+
+import java.io.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.internal.util.ReverseLineReader;
+import org.beanio.stream.RecordReader;
+
+/**
+ * Reads the last records of a file by reading its lines in reverse order, without
+ * reading the rest of the file.
+ *
+ * <p>Each line is parsed using a {@link RecordReader} of the stream format, and is identified
+ * and unmarshalled using the {@link Record} nodes of the parser tree, as if read by a
+ * {@link BeanReaderImpl}.  Since the stream layout is read backwards, record order and
+ * occurrences are not validated.  Lines that are not identified, or that match a record
+ * other than the requested one, are skipped.</p>
+ *
+ * <p>Line numbers cannot be known without reading the whole file, so records are reported
+ * with a line number of 0.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class TailReader {
+
+    private UnmarshallingContext context;
+    private StreamFormat format;
+    private List<Record> records = new ArrayList<Record>();
+
+    /**
+     * Constructs a new <tt>TailReader</tt>.
+     * @param context the {@link UnmarshallingContext}
+     * @param format the {@link StreamFormat}
+     * @param layout the root component of the parser tree
+     * @param recordName the name of the record to read, or <tt>null</tt> to read any record
+     * @throws IllegalArgumentException if the record is not found
+     */
+    public TailReader(UnmarshallingContext context, StreamFormat format, Selector layout, String recordName)
+        throws IllegalArgumentException {
+        this.context = context;
+        this.format = format;
+        findRecords((Component) layout, recordName);
+        if (records.isEmpty()) {
+            if (recordName == null) {
+                throw new IllegalArgumentException("No record found");
+            }
+            throw new IllegalArgumentException("Record '" + recordName + "' not found");
+        }
+    }
+
+    private void findRecords(Component node, String name) {
+        if (node instanceof Record) {
+            if (name == null || name.equals(node.getName())) {
+                records.add((Record) node);
+            }
+        }
+        else {
+            for (Component child : node.getChildren()) {
+                findRecords(child, name);
+            }
+        }
+    }
+
+    /**
+     * Reads the last records of a file.
+     * @param in the {@link ReverseLineReader} to read lines from
+     * @param count the maximum number of records to read
+     * @return the unmarshalled records in the order they appear in the file
+     * @throws BeanReaderException if a record read is malformed or invalid
+     */
+    public List<Object> read(ReverseLineReader in, int count) throws BeanReaderException {
+        context.setRecordReader(new LineRecordReader(in));
+
+        List<Object> list = new ArrayList<Object>(count);
+        while (list.size() < count) {
+            context.nextRecord();
+            if (context.isEOF()) {
+                break;
+            }
+
+            Record record = null;
+            for (Record r : records) {
+                if (r.matches(context)) {
+                    record = r;
+                    break;
+                }
+            }
+            if (record == null) {
+                context.recordSkipped();
+                continue;
+            }
+
+            try {
+                context.prepare(record.getName(), false);
+                try {
+                    record.unmarshal(context);
+                }
+                catch (AbortRecordUnmarshalligException ex) { }
+
+                // this will throw an exception if an invalid record was unmarshalled
+                context.validate();
+
+                list.add(record.getValue(context));
+            }
+            finally {
+                record.clearValue(context);
+            }
+        }
+
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * A {@link RecordReader} that parses each line read in reverse order using a
+     * new record reader of the stream format.
+     */
+    private class LineRecordReader implements RecordReader {
+        private ReverseLineReader in;
+        private String text;
+
+        public LineRecordReader(ReverseLineReader in) {
+            this.in = in;
+        }
+
+        public Object read() throws IOException {
+            while ((text = in.readLine()) != null) {
+                // a commented line is not returned by the record reader
+                Object value = format.createRecordReader(new BufferedReader(new StringReader(text))).read();
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        public int getRecordLineNumber() {
+            return 0;
+        }
+
+        public String getRecordText() {
+            return text;
+        }
+    }
+}
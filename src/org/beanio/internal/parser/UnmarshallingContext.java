@@ -20,6 +20,7 @@ import java.text.MessageFormat;
 import java.util.*;
 
 import org.beanio.*;
+import org.beanio.metrics.Phase;
 import org.beanio.stream.*;
 import org.w3c.dom.Node;
 
@@ -39,6 +40,10 @@ public abstract class UnmarshallingContext extends ParsingContext {
     private Locale locale;
     private MessageFactory messageFactory;
     private RecordReader recordReader;
+    // the properties to unmarshal, or null to unmarshal all properties
+    private Projection projection;
+    // whether records are only validated, and bean objects are not created
+    private boolean validationOnly;
 
     // set to true when end of the stream is reached
     private boolean eof;
@@ -138,6 +143,11 @@ public abstract class UnmarshallingContext extends ParsingContext {
     public final void recordStarted(String recordName) {
         ++recordCount;
         
+        MetricsRecorder metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordRead(recordName);
+        }
+        
         recordContext.setRecordName(recordName);
         recordContext.setLineNumber(getLineNumber());
         recordContext.setRecordText(getRecordReader().getRecordText());
@@ -269,6 +279,12 @@ public abstract class UnmarshallingContext extends ParsingContext {
     public String addFieldError(String fieldName, String fieldText, String rule, Object... params) {
         int lineNumber = recordContext.getLineNumber();
         String recordName = recordContext.getRecordName();
+        
+        MetricsRecorder metrics = getMetrics();
+        if (metrics != null) {
+            metrics.fieldError(recordName, fieldName, rule);
+        }
+        
         String recordLabel = messageFactory.getRecordLabel(recordName);
         String fieldLabel = messageFactory.getFieldLabel(recordName, fieldName);
 
@@ -318,6 +334,11 @@ public abstract class UnmarshallingContext extends ParsingContext {
         int lineNumber = errorContext.getLineNumber();
         String recordName = errorContext.getRecordName();
         
+        MetricsRecorder metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordError(recordName, rule);
+        }
+        
         // find the record label
         String recordLabel = null;
         if (recordName != null) {
@@ -417,10 +438,17 @@ public abstract class UnmarshallingContext extends ParsingContext {
         // reset the processed flag
         processed = false;
         
+        MetricsRecorder metrics = getMetrics();
+        long start = (metrics != null && metrics.isSampling()) ? System.nanoTime() : 0;
+        
         // read the next record
         Object recordValue;
         try {
             recordValue = recordReader.read();
+            if (metrics != null) {
+                metrics.time(Phase.READ, null, start);
+                metrics.charactersRead();
+            }
             if (recordValue == null) {
                 eof = true;
                 lineNumber++;
@@ -440,6 +468,26 @@ public abstract class UnmarshallingContext extends ParsingContext {
         }
     }    
     
+    /**
+     * Returns whether the last record read from the record reader has not been
+     * processed yet, in which case the next call to {@link #nextRecord()} will
+     * not read from the record reader.
+     * @return true if the last record read has not been processed
+     * @since 3.0
+     */
+    final boolean isRecordPending() {
+        return !processed && !eof;
+    }
+
+    /**
+     * Discards the last record read from the record reader (processed or not) so
+     * that the next call to {@link #nextRecord()} will read from the record reader.
+     * @since 3.0
+     */
+    final void discardRecord() {
+        processed = true;
+    }
+
     /**
      * Returns the last line number read from the input stream.  If the end of stream
      * was reached, the line number is still incremented so that this method returns
@@ -476,6 +524,54 @@ public abstract class UnmarshallingContext extends ParsingContext {
         this.recordReader = recordReader;
     }
     
+    /**
+     * Returns the {@link Projection} that determines which components are unmarshalled.
+     * @return the {@link Projection}, or null if all components are unmarshalled
+     * @since 3.0
+     */
+    public final Projection getProjection() {
+        return projection;
+    }
+    
+    /**
+     * Sets the {@link Projection} that determines which components are unmarshalled.
+     * @param projection the {@link Projection}, or null to unmarshal all components
+     * @since 3.0
+     */
+    public final void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+    
+    /**
+     * Returns whether records are only validated.  If true, fields are still
+     * validated and converted, but bean objects and collections are not created.
+     * @return true if bean objects are not created
+     * @since 3.0
+     */
+    public final boolean isValidationOnly() {
+        return validationOnly;
+    }
+    
+    /**
+     * Sets whether records are only validated.
+     * @param validationOnly true to skip the creation of bean objects
+     * @since 3.0
+     */
+    public final void setValidationOnly(boolean validationOnly) {
+        this.validationOnly = validationOnly;
+    }
+    
+    /**
+     * Returns whether a record can be unmarshalled using only the record value, and
+     * without the state of records previously read by this context.  If true, records
+     * matched by one context may be unmarshalled in parallel by separate contexts.
+     * @return <tt>true</tt> if records are unmarshalled independently, which is the default
+     * @since 3.0
+     */
+    public boolean isRecordIndependent() {
+        return true;
+    }
+    
     /**
      * Returns the {@link MessageFactory} for formatting error messages.
      * @return the {@link MessageFactory}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.parser.accessor;
+
+import java.util.Map;
+
+import org.beanio.CompactMap;
+import org.beanio.internal.parser.PropertyAccessor;
+
+/**
+ * A {@link PropertyAccessor} for getting and setting {@link CompactMap} values by index.
+ * Other {@link Map} implementations, and a {@link CompactMap} with a different key
+ * table, are accessed by key.
+ * 
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CompactMapAccessor extends MapAccessor {
+
+    private String key;
+    private int index;
+    
+    /**
+     * Constructs a new <tt>CompactMapAccessor</tt>.
+     * @param key the key used to get and set a value from a Map bean
+     * @param index the index of the key in the {@link CompactMap} key table
+     */
+    public CompactMapAccessor(String key, int index) {
+        super(key);
+        this.key = key;
+        this.index = index;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.parser.accessor.MapAccessor#getValue(java.lang.Object)
+     */
+    @Override
+    public Object getValue(Object bean) {
+        if (isIndexed(bean)) {
+            return ((CompactMap) bean).get(index);
+        }
+        return super.getValue(bean);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.internal.parser.accessor.MapAccessor#setValue(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void setValue(Object bean, Object value) {
+        if (isIndexed(bean)) {
+            ((CompactMap) bean).set(index, value);
+        }
+        else {
+            super.setValue(bean, value);
+        }
+    }
+    
+    private boolean isIndexed(Object bean) {
+        if (bean instanceof CompactMap) {
+            CompactMap.Keys keys = ((CompactMap) bean).getKeys();
+            if (index < keys.size()) {
+                String k = keys.get(index);
+                return k == key || k.equals(key);
+            }
+        }
+        return false;
+    }
+}
@@ -15,7 +15,7 @@
  */
 package org.beanio.internal.parser.format;
 
-import org.beanio.internal.util.TypeUtil;
+import org.beanio.internal.util.*;
 
 /**
  * Provides field padding functionality.  By default, padded fields are 
@@ -127,7 +127,19 @@ public class FieldPadding {
      * @param fieldText the field text to remove padding
      * @return the unpadded field text
      */
-    public String unpad(String fieldText) {        
+    public String unpad(String fieldText) {
+        return unpad(fieldText, null);
+    }
+    
+    /**
+     * Removes padding from the field text, and returns the unpadded text from a
+     * {@link StringCache} so that a new <tt>String</tt> is only created on a cache miss.
+     * @param fieldText the field text to remove padding
+     * @param cache the {@link StringCache}, or null to not cache the unpadded text
+     * @return the unpadded field text
+     * @since 3.0
+     */
+    public String unpad(String fieldText, StringCache cache) {        
         int length = fieldText.length();
         
         if (justify == FieldPadding.LEFT) {
@@ -141,6 +153,8 @@ public class FieldPadding {
                 else if (fieldText.charAt(index) != filler) {
                     if (index == (length - 1))
                         return fieldText;
+                    else if (cache != null)
+                        return cache.get(fieldText, 0, index + 1);
                     else
                         return fieldText.substring(0, index + 1);
                 }
@@ -152,6 +166,8 @@ public class FieldPadding {
                 if (fieldText.charAt(index) != filler) {
                     if (index == 0)
                         return fieldText;
+                    else if (cache != null)
+                        return cache.get(fieldText, index, length);
                     else
                         return fieldText.substring(index, length);
                 }
@@ -15,7 +15,12 @@
  */
 package org.beanio.internal.parser.format.delimited;
 
+import java.io.Reader;
+
 import org.beanio.internal.parser.*;
+import org.beanio.stream.RecordReader;
+import org.beanio.stream.csv.CsvReader;
+import org.beanio.stream.delimited.DelimitedReader;
 
 /**
  * A {@link StreamFormatSupport} implementation for the delimited stream format.
@@ -40,4 +45,67 @@ public class DelimitedStreamFormat extends StreamFormatSupport {
     public MarshallingContext createMarshallingContext(boolean streaming) {
         return new DelimitedMarshallingContext();
     }
+    
+    /**
+     * Creates a new <tt>RecordReader</tt> to read from the given input stream.  If the
+     * record reader is a {@link DelimitedReader} or {@link CsvReader}, its field limit is
+     * set so that fields after the last unmarshalled field are not materialized.
+     * @param in the input stream to read from
+     * @param projection the {@link Projection} of the components to unmarshal
+     * @return a new <tt>RecordReader</tt>
+     * @since 3.0
+     */
+    @Override
+    public RecordReader createRecordReader(Reader in, Projection projection) {
+        RecordReader reader = createRecordReader(in);
+        
+        int fieldLimit = getFieldLimit((Component) projection.getLayout(), projection);
+        if (reader instanceof DelimitedReader) {
+            ((DelimitedReader) reader).setFieldLimit(fieldLimit);
+        }
+        else if (reader instanceof CsvReader) {
+            ((CsvReader) reader).setFieldLimit(fieldLimit);
+        }
+        return reader;
+    }
+    
+    /**
+     * Returns the number of fields that must be parsed to unmarshal a component.
+     * @param node the {@link Component} to unmarshal
+     * @param projection the {@link Projection} of the components to unmarshal
+     * @return the number of fields, or -1 if all fields must be parsed
+     */
+    private int getFieldLimit(Component node, Projection projection) {
+        if (projection.isSkipped(node)) {
+            return 0;
+        }
+        
+        // positions within a repeating component depend on the number of occurrences
+        if (node instanceof Iteration) {
+            return -1;
+        }
+        
+        if (node instanceof Field) {
+            FieldFormat format = ((Field) node).getFormat();
+            if (!(format instanceof DelimitedFieldFormat)) {
+                return -1;
+            }
+            // positions relative to the end of the record depend on the number of fields
+            DelimitedFieldFormat delimitedFormat = (DelimitedFieldFormat) format;
+            if (delimitedFormat.getPosition() < 0 || delimitedFormat.getUntil() != 0) {
+                return -1;
+            }
+            return delimitedFormat.getPosition() + 1;
+        }
+        
+        int limit = 0;
+        for (Component child : node.getChildren()) {
+            int n = getFieldLimit(child, projection);
+            if (n < 0) {
+                return -1;
+            }
+            limit = Math.max(limit, n);
+        }
+        return limit;
+    }
 }
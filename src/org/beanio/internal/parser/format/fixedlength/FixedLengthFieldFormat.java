@@ -61,14 +61,14 @@ public class FixedLengthFieldFormat extends FlatFieldFormatSupport implements Fi
             return text;
         }
         else {
-            return padding.unpad(text);
+            return padding.unpad(text, getStringCache());
         }
     }
     
     @Override
     public String extractFieldText(UnmarshallingContext context, boolean reporting) {
         FixedLengthUnmarshallingContext ctx = ((FixedLengthUnmarshallingContext)context);
-        return ctx.getFieldText(getName(), getPosition(), getSize(), getUntil());
+        return ctx.getFieldText(getName(), getPosition(), getSize(), getUntil(), getStringCache());
     }
 
     @Override
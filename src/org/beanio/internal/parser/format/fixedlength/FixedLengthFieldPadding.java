@@ -16,6 +16,7 @@
 package org.beanio.internal.parser.format.fixedlength;
 
 import org.beanio.internal.parser.format.FieldPadding;
+import org.beanio.internal.util.StringCache;
 
 /**
  * {@link FieldPadding} implementation for a fixed length field.
@@ -48,14 +49,14 @@ public class FixedLengthFieldPadding extends FieldPadding {
     }
     
     @Override
-    public String unpad(String fieldText) {
+    public String unpad(String fieldText, StringCache cache) {
         // return empty string if the field is all spaces, to allow for optional 
         // zero padded fields
         if (isOptional() && isBlank(fieldText)) {
             return "";
         }
         
-        return super.unpad(fieldText);
+        return super.unpad(fieldText, cache);
     }
 
     private boolean isBlank(String s) {
@@ -16,6 +16,7 @@
 package org.beanio.internal.parser.format.fixedlength;
 
 import org.beanio.internal.parser.UnmarshallingContext;
+import org.beanio.internal.util.StringCache;
 
 /**
  * The {@link UnmarshallingContext} implementation for a fixed length formatted stream.
@@ -60,6 +61,25 @@ public class FixedLengthUnmarshallingContext extends UnmarshallingContext {
      *   the position of the field
      */
     public String getFieldText(String name, int position, int length, int until) {
+        return getFieldText(name, position, length, until, null);
+    }
+    
+    /**
+     * Returns the field text at the given position in the record, using a
+     * {@link StringCache} so that a new <tt>String</tt> is only created if the
+     * field text is not cached.
+     * @param name the field name
+     * @param position the position of the field in the record
+     * @param length the field length, or -1 if the field is at the end of the
+     *   record and unbounded
+     * @param until the maximum position of the field as an offset
+     *   of the field count
+     * @param cache the {@link StringCache}, or null to not cache the field text
+     * @return the field text, or null if the record length is less than
+     *   the position of the field
+     * @since 3.0
+     */
+    public String getFieldText(String name, int position, int length, int until, StringCache cache) {
         int max = recordLength + until;
         
         if (position < 0) {
@@ -77,12 +97,13 @@ public class FixedLengthUnmarshallingContext extends UnmarshallingContext {
             }
         }
         
+        int end = length < 0 ? max : Math.min(max, position + length);
         String text;
-        if (length < 0) {
-            text = record.substring(position, max);
+        if (cache != null) {
+            text = cache.get(record, position, end);
         }
         else {
-            text = record.substring(position, Math.min(max, position + length));
+            text = record.substring(position, end);
         }
         setFieldText(name, text);
         return text;
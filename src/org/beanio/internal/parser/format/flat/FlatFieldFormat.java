@@ -45,4 +45,14 @@ public interface FlatFieldFormat extends FieldFormat {
      */
     public int getPosition();
     
+    /**
+     * Extracts the raw field text from a record, including any padding.  Returns
+     * <tt>null</tt> if the field was not present in the record.
+     * @param context the {@link UnmarshallingContext} holding the record
+     * @param reporting whether to report field errors
+     * @return the field text
+     * @since 3.0
+     */
+    public String extractFieldText(UnmarshallingContext context, boolean reporting);
+    
 }
@@ -17,7 +17,7 @@ package org.beanio.internal.parser.format.flat;
 
 import org.beanio.internal.parser.*;
 import org.beanio.internal.parser.format.FieldPadding;
-import org.beanio.internal.util.DebugUtil;
+import org.beanio.internal.util.*;
 
 /**
  * Base class for {@link FlatFieldFormat} implementations.
@@ -34,6 +34,7 @@ public abstract class FlatFieldFormatSupport implements FlatFieldFormat {
     private int until = 0; 
     private boolean lazy = false;
     private FieldPadding padding = null;
+    private StringCache stringCache = null;
     
     /*
      * (non-Javadoc)
@@ -86,7 +87,7 @@ public abstract class FlatFieldFormatSupport implements FlatFieldFormat {
                 return Value.INVALID;
             }
             else {
-                return padding.unpad(text);
+                return padding.unpad(text, stringCache);
             }
         }
         else {
@@ -94,7 +95,7 @@ public abstract class FlatFieldFormatSupport implements FlatFieldFormat {
         }
     }
     
-    protected abstract String extractFieldText(UnmarshallingContext context, boolean reporting);
+    public abstract String extractFieldText(UnmarshallingContext context, boolean reporting);
     
     /**
      * Returns the field name.
@@ -160,6 +161,26 @@ public abstract class FlatFieldFormatSupport implements FlatFieldFormat {
         this.padding = padding;
     }
 
+    /**
+     * Returns the cache used to deduplicate extracted field text.
+     * @return the {@link StringCache}, or null if field text is not deduplicated
+     * @since 3.0
+     */
+    public StringCache getStringCache() {
+        return stringCache;
+    }
+
+    /**
+     * Sets the cache used to deduplicate extracted field text, so that field text
+     * is looked up by its position in the record instead of creating a new
+     * <tt>String</tt> for every field.
+     * @param stringCache the {@link StringCache}, or null to disable deduplication
+     * @since 3.0
+     */
+    public void setStringCache(StringCache stringCache) {
+        this.stringCache = stringCache;
+    }
+
     /*
      * (non-Javadoc)
      * @see org.beanio.internal.parser.FieldFormat#isLazy()
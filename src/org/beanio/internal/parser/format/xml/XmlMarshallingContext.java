@@ -53,6 +53,12 @@ public class XmlMarshallingContext extends MarshallingContext {
         setDocument(null);
     }
     
+    @Override
+    public boolean isRecordIndependent() {
+        // the document and open groups span records
+        return false;
+    }
+    
     @Override
     public Object getRecordObject() {
         return getDocument();
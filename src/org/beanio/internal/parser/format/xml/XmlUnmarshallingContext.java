@@ -47,6 +47,12 @@ public class XmlUnmarshallingContext extends UnmarshallingContext {
         groupStack = new XmlNode[groupDepth];
     }
     
+    @Override
+    public boolean isRecordIndependent() {
+        // the document is reused and open groups span records
+        return false;
+    }
+    
     @Override
     public void setRecordValue(Object value) {
         Node node = (Node) value;
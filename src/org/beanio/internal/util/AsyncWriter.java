@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link Writer} that copies written characters into a bounded ring of buffers,
+ * which are drained to the underlying output stream by a dedicated background thread.
+ *
+ * <p>When all buffers are waiting to be drained, the writing thread blocks until a
+ * buffer is available.  {@link #flush()} and {@link #close()} block until all buffered
+ * characters have been written and the underlying stream has been flushed or closed.
+ * An exception thrown by the underlying stream is rethrown to the writing thread by the
+ * next call to any method of this class.</p>
+ *
+ * <p>This class is not thread safe.  The background thread is a daemon thread that
+ * is started when the first buffer is filled (or the writer is flushed), and
+ * runs until this writer is closed.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class AsyncWriter extends Writer {
+
+    private static final int DATA = 0;
+    private static final int FLUSH = 1;
+    private static final int CLOSE = 2;
+
+    private Writer out;
+    // buffers available for writing
+    private BlockingQueue<Chunk> free;
+    // buffers and commands waiting to be processed by the background thread
+    private BlockingQueue<Chunk> pending;
+    // the buffer being written to, or null
+    private Chunk current;
+    // the background thread, started when the first buffer or command is submitted
+    private Thread thread;
+    // the first exception caught by the background thread
+    private volatile IOException error;
+    private boolean closed;
+
+    /**
+     * Constructs a new <tt>AsyncWriter</tt>.
+     * @param out the {@link Writer} to drain buffered characters to
+     * @param bufferCount the number of buffers, which must be at least 2
+     * @param bufferSize the size of each buffer in characters
+     * @throws IllegalArgumentException if the buffer count or size is invalid
+     */
+    public AsyncWriter(Writer out, int bufferCount, int bufferSize) throws IllegalArgumentException {
+        if (out == null) {
+            throw new NullPointerException("null writer");
+        }
+        if (bufferCount < 2) {
+            throw new IllegalArgumentException("bufferCount must be at least 2");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+
+        this.out = out;
+        this.free = new ArrayBlockingQueue<Chunk>(bufferCount);
+        for (int i=0; i<bufferCount; i++) {
+            free.add(new Chunk(DATA, new char[bufferSize]));
+        }
+        // room for every buffer, plus a flush and close command
+        this.pending = new ArrayBlockingQueue<Chunk>(bufferCount + 2);
+    }
+
+    /*
+     * Processes buffers and commands until the close command is received.
+     */
+    private void drain() {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = pending.take();
+            }
+            catch (InterruptedException ex) {
+                // keep processing commands so that the writing thread is not blocked
+                error = new InterruptedIOException("Asynchronous writer interrupted");
+                continue;
+            }
+
+            try {
+                // the underlying stream is closed even if an error occurred
+                if (error == null || chunk.type == CLOSE) {
+                    switch (chunk.type) {
+                    case DATA:
+                        out.write(chunk.buf, 0, chunk.length);
+                        break;
+                    case FLUSH:
+                        out.flush();
+                        break;
+                    case CLOSE:
+                        out.close();
+                        break;
+                    }
+                }
+            }
+            catch (IOException ex) {
+                if (error == null) {
+                    error = ex;
+                }
+            }
+            catch (RuntimeException ex) {
+                if (error == null) {
+                    error = new IOException(ex);
+                }
+            }
+            finally {
+                if (chunk.type == DATA) {
+                    chunk.length = 0;
+                    free.add(chunk);
+                }
+                else {
+                    chunk.done.countDown();
+                }
+            }
+
+            if (chunk.type == CLOSE) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(int c) throws IOException {
+        Chunk chunk = nextChunk();
+        chunk.buf[chunk.length++] = (char) c;
+        if (chunk.length == chunk.buf.length) {
+            submit(chunk);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            Chunk chunk = nextChunk();
+            int n = Math.min(len, chunk.buf.length - chunk.length);
+            System.arraycopy(cbuf, off, chunk.buf, chunk.length, n);
+            chunk.length += n;
+            if (chunk.length == chunk.buf.length) {
+                submit(chunk);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            Chunk chunk = nextChunk();
+            int n = Math.min(len, chunk.buf.length - chunk.length);
+            str.getChars(off, off + n, chunk.buf, chunk.length);
+            chunk.length += n;
+            if (chunk.length == chunk.buf.length) {
+                submit(chunk);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flushes this writer, and blocks until all buffered characters are written
+     * and the underlying output stream is flushed.
+     * @throws IOException if the underlying output stream threw an exception
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        checkError();
+
+        if (current != null && current.length > 0) {
+            submit(current);
+        }
+        await(new Chunk(FLUSH, null));
+        checkError();
+    }
+
+    /**
+     * Closes this writer, and blocks until all buffered characters are written
+     * and the underlying output stream is closed.
+     * @throws IOException if the underlying output stream threw an exception
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            if (current != null && current.length > 0) {
+                submit(current);
+            }
+            await(new Chunk(CLOSE, null));
+        }
+        finally {
+            closed = true;
+        }
+        checkError();
+    }
+
+    /*
+     * Returns the buffer to write to, waiting for a free buffer if necessary.
+     */
+    private Chunk nextChunk() throws IOException {
+        if (current == null) {
+            ensureOpen();
+            checkError();
+            try {
+                current = free.take();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a free buffer");
+            }
+        }
+        return current;
+    }
+
+    /*
+     * Passes a buffer to the background thread.
+     */
+    private void submit(Chunk chunk) throws IOException {
+        current = null;
+        if (thread == null) {
+            thread = new Thread(new Runnable() {
+                public void run() {
+                    drain();
+                }
+            }, "beanio-async-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            pending.put(chunk);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted submitting buffer");
+        }
+    }
+
+    /*
+     * Passes a command to the background thread and waits for it to complete.
+     */
+    private void await(Chunk command) throws IOException {
+        submit(command);
+        try {
+            command.done.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for asynchronous writer");
+        }
+    }
+
+    private void checkError() throws IOException {
+        IOException ex = error;
+        if (ex != null) {
+            throw new IOException("Asynchronous write failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * A buffer of characters, or a command, processed by the background thread.
+     */
+    private static class Chunk {
+        private int type;
+        private char[] buf;
+        private int length;
+        private CountDownLatch done;
+
+        public Chunk(int type, char[] buf) {
+            this.type = type;
+            this.buf = buf;
+            if (type != DATA) {
+                done = new CountDownLatch(1);
+            }
+        }
+    }
+}
@@ -110,24 +110,15 @@ public class BeanUtil {
 
         Class<?> clazz = bean.getClass();
 
-        BeanInfo info;
-        try {
-            info = Introspector.getBeanInfo(clazz);
-        }
-        catch (IntrospectionException e) {
-            throw new BeanIOConfigurationException(e);
-        }
-
-        PropertyDescriptor[] descriptors = info.getPropertyDescriptors();
         for (Map.Entry<Object, Object> entry : props.entrySet()) {
 
             String name = (String) entry.getKey();
-            PropertyDescriptor descriptor = null;
-            for (int i = 0, j = descriptors.length; i < j; i++) {
-                if (name.equals(descriptors[i].getName())) {
-                    descriptor = descriptors[i];
-                    break;
-                }
+            PropertyDescriptor descriptor;
+            try {
+                descriptor = IntrospectionCache.getPropertyDescriptor(clazz, name);
+            }
+            catch (IntrospectionException e) {
+                throw new BeanIOConfigurationException(e);
             }
             if (descriptor == null) {
                 throw new BeanIOConfigurationException(
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link Reader} that decodes an input stream and tracks the byte offset of
+ * the next character read, so that the byte offset of a record boundary can be
+ * determined after reading a record.
+ *
+ * <p>Only UTF-8 and single byte character sets are supported, where the number of bytes
+ * of each character is known without buffering ahead of the reader.  Malformed UTF-8
+ * byte sequences are decoded as the replacement character <tt>U+FFFD</tt>.</p>
+ *
+ * <p>Like a <tt>BufferedReader</tt>, this reader supports marking.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ByteCountingReader extends Reader {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private InputStream in;
+    // the decoded characters of a single byte character set, or null for UTF-8
+    private final char[] table;
+
+    private final byte[] bytes = new byte[8192];
+    private int bytePos;
+    private int byteLimit;
+
+    // decoded characters, and the number of bytes used to decode each character
+    private char[] chars = new char[8192];
+    private byte[] widths = new byte[8192];
+    private int charPos;
+    private int charLimit;
+    private boolean eof;
+
+    // the byte offset of chars[charPos], and the last character read
+    private long position;
+    private int last = -1;
+    private int markPos = -1;
+    private int markLimit;
+    private long markPosition;
+    private int markLast;
+
+    /**
+     * Constructs a new <tt>ByteCountingReader</tt>.
+     * @param in the input stream to read
+     * @param charset the character set of the input stream
+     * @throws IllegalArgumentException if the character set is not supported
+     */
+    public ByteCountingReader(InputStream in, Charset charset) throws IllegalArgumentException {
+        if (!isSupported(charset)) {
+            throw new IllegalArgumentException("Character set '" + charset.name() + "' not supported");
+        }
+        this.in = in;
+        this.table = UTF8.equals(charset) ? null : createTable(charset);
+    }
+
+    /**
+     * Returns whether a character set is supported by this reader.
+     * @param charset the character set to test
+     * @return true if supported, false otherwise
+     */
+    public static boolean isSupported(Charset charset) {
+        if (UTF8.equals(charset)) {
+            return true;
+        }
+        try {
+            return charset.newDecoder().maxCharsPerByte() == 1 &&
+                charset.newEncoder().maxBytesPerChar() == 1;
+        }
+        catch (UnsupportedOperationException ex) {
+            // the character set cannot encode
+            return false;
+        }
+    }
+
+    private static char[] createTable(Charset charset) {
+        byte[] b = new byte[256];
+        for (int i=0; i<b.length; i++) {
+            b[i] = (byte) i;
+        }
+        char[] table = new String(b, charset).toCharArray();
+        if (table.length != b.length) {
+            throw new IllegalArgumentException("Character set '" + charset.name() + "' not supported");
+        }
+        return table;
+    }
+
+    /**
+     * Returns the byte offset of the next character to be read.
+     * @return the byte offset
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the last character read.
+     * @return the last character read, or -1 if no character has been read
+     */
+    public int getLastChar() {
+        return last;
+    }
+
+    /**
+     * Returns the next character without reading it.
+     * @return the next character, or -1 if the end of the stream was reached
+     * @throws IOException if an I/O error occurs
+     */
+    public int peek() throws IOException {
+        if (charPos == charLimit && !fill()) {
+            return -1;
+        }
+        return chars[charPos];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#read()
+     */
+    @Override
+    public int read() throws IOException {
+        if (charPos == charLimit && !fill()) {
+            return -1;
+        }
+        position += widths[charPos];
+        last = chars[charPos++];
+        return last;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (charPos == charLimit && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, charLimit - charPos);
+        System.arraycopy(chars, charPos, cbuf, off, n);
+        for (int i=charPos, end=charPos+n; i<end; i++) {
+            position += widths[i];
+        }
+        charPos += n;
+        last = chars[charPos - 1];
+        return n;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#markSupported()
+     */
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#mark(int)
+     */
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        if (readAheadLimit < 0) {
+            throw new IllegalArgumentException("Read-ahead limit < 0");
+        }
+        markPos = charPos;
+        markLimit = readAheadLimit;
+        markPosition = position;
+        markLast = last;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#reset()
+     */
+    @Override
+    public void reset() throws IOException {
+        if (markPos < 0) {
+            throw new IOException("Stream not marked");
+        }
+        charPos = markPos;
+        position = markPosition;
+        last = markLast;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Reader#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    /*
+     * Decodes more characters into the character buffer.  Returns false if the end
+     * of the stream was reached.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        // keep the marked characters, or invalidate the mark if the limit was exceeded
+        int keep = 0;
+        if (markPos >= 0) {
+            keep = charLimit - markPos;
+            if (keep > markLimit) {
+                markPos = -1;
+                keep = 0;
+            }
+            else if (keep + 2 > chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+                widths = Arrays.copyOf(widths, widths.length * 2);
+            }
+        }
+        if (keep > 0) {
+            System.arraycopy(chars, markPos, chars, 0, keep);
+            System.arraycopy(widths, markPos, widths, 0, keep);
+        }
+        if (markPos >= 0) {
+            markPos = 0;
+        }
+        charPos = keep;
+        charLimit = keep;
+
+        // leave room for a surrogate pair
+        while (charLimit + 1 < chars.length) {
+            int b = nextByte();
+            if (b < 0) {
+                eof = true;
+                break;
+            }
+            if (table != null) {
+                chars[charLimit] = table[b];
+                widths[charLimit++] = 1;
+            }
+            else {
+                decode(b);
+            }
+        }
+        return charLimit > charPos;
+    }
+
+    /*
+     * Decodes a UTF-8 character starting with the given byte.
+     */
+    private void decode(int b) throws IOException {
+        int count;
+        int cp;
+        if (b < 0x80) {
+            chars[charLimit] = (char) b;
+            widths[charLimit++] = 1;
+            return;
+        }
+        else if (b >= 0xC2 && b <= 0xDF) {
+            count = 1;
+            cp = b & 0x1F;
+        }
+        else if (b >= 0xE0 && b <= 0xEF) {
+            count = 2;
+            cp = b & 0x0F;
+        }
+        else if (b >= 0xF0 && b <= 0xF4) {
+            count = 3;
+            cp = b & 0x07;
+        }
+        else {
+            chars[charLimit] = REPLACEMENT;
+            widths[charLimit++] = 1;
+            return;
+        }
+
+        int width = 1;
+        for (int i=0; i<count; i++) {
+            int c = peekByte();
+            if (c < 0 || (c & 0xC0) != 0x80) {
+                // a truncated sequence is replaced, and the next byte decoded separately
+                chars[charLimit] = REPLACEMENT;
+                widths[charLimit++] = (byte) width;
+                return;
+            }
+            ++bytePos;
+            ++width;
+            cp = (cp << 6) | (c & 0x3F);
+        }
+
+        if ((count == 2 && (cp < 0x800 || (cp >= 0xD800 && cp <= 0xDFFF))) ||
+            (count == 3 && (cp < 0x10000 || cp > 0x10FFFF))) {
+            chars[charLimit] = REPLACEMENT;
+            widths[charLimit++] = (byte) width;
+        }
+        else if (cp >= 0x10000) {
+            chars[charLimit] = Character.highSurrogate(cp);
+            widths[charLimit++] = (byte) width;
+            chars[charLimit] = Character.lowSurrogate(cp);
+            widths[charLimit++] = 0;
+        }
+        else {
+            chars[charLimit] = (char) cp;
+            widths[charLimit++] = (byte) width;
+        }
+    }
+
+    private int nextByte() throws IOException {
+        int b = peekByte();
+        if (b >= 0) {
+            ++bytePos;
+        }
+        return b;
+    }
+
+    private int peekByte() throws IOException {
+        if (bytePos == byteLimit) {
+            byteLimit = in.read(bytes, 0, bytes.length);
+            bytePos = 0;
+            if (byteLimit <= 0) {
+                byteLimit = 0;
+                return -1;
+            }
+        }
+        return bytes[bytePos] & 0xFF;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A one to one mapping between the 256 byte values and characters of a single
+ * byte character set, such as an EBCDIC code page.
+ *
+ * <p>Because every byte maps to a distinct character, text decoded using a code page can
+ * be encoded back into the exact same bytes, which allows binary data such as packed decimal
+ * fields to be carried by the <tt>String</tt> of a fixed length record.  Bytes that cannot
+ * be decoded by the character set, or that decode to a character shared with another byte,
+ * are mapped to an otherwise unused character in the range <tt>U+0000</tt> to <tt>U+00FF</tt>.
+ * For example, the JDK decodes both <tt>0x15</tt> and <tt>0x25</tt> in IBM037 as a line
+ * feed, so this class maps <tt>0x25</tt> to <tt>U+0085</tt> (next line) instead.</p>
+ *
+ * <p>This class is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CodePage {
+
+    private static final Map<String, CodePage> cache = new ConcurrentHashMap<String, CodePage>();
+
+    private String name;
+    private char[] decoder = new char[256];
+    private byte[] encoder;
+    private boolean[] mapped;
+
+    private CodePage(Charset charset) {
+        this.name = charset.name();
+
+        CharsetEncoder ce = charset.newEncoder();
+        if (ce.maxBytesPerChar() != 1.0f) {
+            throw new IllegalArgumentException("Encoding '" + name + "' is not a single byte character set");
+        }
+
+        // decode each byte individually, and flag bytes that do not map to a unique character
+        boolean[] used = new boolean[256];
+        boolean[] unmapped = new boolean[256];
+        char max = 0;
+        for (int i=0; i<256; i++) {
+            String s = new String(new byte[] { (byte) i }, charset);
+            char c = s.length() == 1 ? s.charAt(0) : '\uFFFD';
+            byte[] b = c != '\uFFFD' ? String.valueOf(c).getBytes(charset) : null;
+            if (b == null || b.length != 1 || (b[0] & 0xFF) != i) {
+                unmapped[i] = true;
+                continue;
+            }
+            decoder[i] = c;
+            if (c < 256) {
+                used[c] = true;
+            }
+            if (c > max) {
+                max = c;
+            }
+        }
+
+        // assign the remaining bytes to the lowest unused characters
+        int next = 0;
+        for (int i=0; i<256; i++) {
+            if (unmapped[i]) {
+                while (used[next]) {
+                    ++next;
+                }
+                decoder[i] = (char) next;
+                used[next] = true;
+                if (next > max) {
+                    max = (char) next;
+                }
+            }
+        }
+
+        encoder = new byte[max + 1];
+        mapped = new boolean[max + 1];
+        for (int i=0; i<256; i++) {
+            encoder[decoder[i]] = (byte) i;
+            mapped[decoder[i]] = true;
+        }
+    }
+
+    /**
+     * Returns the code page for a single byte character set.
+     * @param encoding the name of the character set
+     * @return the {@link CodePage}
+     * @throws IllegalArgumentException if the character set is not supported, or
+     *   if it is not a single byte character set
+     */
+    public static CodePage forName(String encoding) throws IllegalArgumentException {
+        CodePage codePage = cache.get(encoding);
+        if (codePage == null) {
+            Charset charset;
+            try {
+                charset = Charset.forName(encoding);
+            }
+            catch (IllegalCharsetNameException ex) {
+                throw new IllegalArgumentException("Invalid encoding '" + encoding + "'", ex);
+            }
+            catch (UnsupportedCharsetException ex) {
+                throw new IllegalArgumentException("Unsupported encoding '" + encoding + "'", ex);
+            }
+            codePage = new CodePage(charset);
+            cache.put(encoding, codePage);
+        }
+        return codePage;
+    }
+
+    /**
+     * Returns the canonical name of the character set.
+     * @return the character set name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the character for a byte.
+     * @param b the byte value (only the lower 8 bits are used)
+     * @return the character
+     */
+    public char toChar(int b) {
+        return decoder[b & 0xFF];
+    }
+
+    /**
+     * Returns the byte value for a character.
+     * @param c the character
+     * @return the byte value from 0 to 255, or -1 if the character is not
+     *   mapped by this code page
+     */
+    public int toByte(char c) {
+        if (c < mapped.length && mapped[c]) {
+            return encoder[c] & 0xFF;
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes bytes into characters.
+     * @param b the bytes to decode
+     * @param off the offset of the first byte to decode
+     * @param len the number of bytes to decode
+     * @param c the array to store the decoded characters, starting at index 0
+     */
+    public void decode(byte[] b, int off, int len, char[] c) {
+        for (int i=0; i<len; i++) {
+            c[i] = decoder[b[off + i] & 0xFF];
+        }
+    }
+
+    /**
+     * Encodes characters into bytes.
+     * @param s the text to encode
+     * @param b the array to store the encoded bytes, starting at index 0
+     * @return the index of the first character that is not mapped by this code page,
+     *   or -1 if all characters were encoded
+     */
+    public int encode(CharSequence s, byte[] b) {
+        for (int i=0,j=s.length(); i<j; i++) {
+            char c = s.charAt(i);
+            if (c >= mapped.length || !mapped[c]) {
+                return i;
+            }
+            b[i] = encoder[c];
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + name + "]";
+    }
+}
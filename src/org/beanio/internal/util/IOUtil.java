@@ -17,6 +17,7 @@ package org.beanio.internal.util;
 
 import java.io.*;
 import java.net.URL;
+import java.util.zip.*;
 
 /**
  * Utility class for manipulating streams.
@@ -76,6 +77,34 @@ public class IOUtil {
         catch (IOException ex) { }
     }
     
+    /**
+     * Returns an input stream that decompresses the given input stream if its first
+     * bytes match the header of a gzip or zlib (deflate) compressed stream.  Gzip streams
+     * are decompressed using a {@link ParallelGzipInputStream}.
+     * @param in the input stream, which may or may not be compressed
+     * @param threads the number of threads used to decompress gzip members
+     * @return the decompressed input stream, or a buffered input stream if not compressed
+     * @throws IOException if an I/O error occurs
+     * @since 3.0
+     */
+    public static InputStream decompress(InputStream in, int threads) throws IOException {
+        BufferedInputStream bin = new BufferedInputStream(in, 65536);
+        bin.mark(2);
+        int b0 = bin.read();
+        int b1 = bin.read();
+        bin.reset();
+        
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return new ParallelGzipInputStream(bin, threads);
+        }
+        // only the zlib headers written with a 32K window and a non-printable second
+        // byte are detected, since other valid headers are common pairs of text characters
+        if (b0 == 0x78 && (b1 == 0x01 || b1 == 0x9c || b1 == 0xda)) {
+            return new InflaterInputStream(bin, new Inflater(), 65536);
+        }
+        return bin;
+    }
+    
     /**
      * Finds a resource on the classpath.  The resource is always loaded from
      * the root of the classpath, whether the resource name includes a
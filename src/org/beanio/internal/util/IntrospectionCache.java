@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.beans.*;
+import java.lang.ref.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * A process wide cache of the bean properties, fields and constructors of classes, shared
+ * by all stream factories.
+ *
+ * <p>Class metadata is held in a <tt>WeakHashMap</tt> keyed by class, so that it does not
+ * prevent a class, or its class loader, from being unloaded.  Since a property descriptor,
+ * field or constructor references its declaring class, metadata is held using a soft
+ * reference and is discarded if memory is needed.  Metadata is lazily loaded, and
+ * introspection failures are never cached.</p>
+ *
+ * <p>Fields and constructors are shared, so callers must not rely on their accessible flag
+ * to decide whether they may be used.</p>
+ *
+ * <p>This class is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class IntrospectionCache {
+
+    private static final Map<Class<?>,Reference<ClassInfo>> cache =
+        new WeakHashMap<Class<?>,Reference<ClassInfo>>();
+
+    private IntrospectionCache() { }
+
+    /**
+     * Returns the property descriptors of a class, as discovered by the
+     * <tt>java.beans.Introspector</tt>.
+     * @param type the class
+     * @return the list of {@link PropertyDescriptor}, which must not be modified
+     * @throws IntrospectionException if introspection fails
+     */
+    public static PropertyDescriptor[] getPropertyDescriptors(Class<?> type) throws IntrospectionException {
+        return getClassInfo(type).getDescriptors(type).clone();
+    }
+
+    /**
+     * Returns the descriptor of a property of a class, as discovered by the
+     * <tt>java.beans.Introspector</tt>.
+     * @param type the class
+     * @param name the property name
+     * @return the {@link PropertyDescriptor}, or null if the class has no such property
+     * @throws IntrospectionException if introspection fails
+     */
+    public static PropertyDescriptor getPropertyDescriptor(Class<?> type, String name) throws IntrospectionException {
+        return getClassInfo(type).getDescriptorMap(type).get(name);
+    }
+
+    /**
+     * Returns a field declared by a class, excluding inherited fields.
+     * @param type the class
+     * @param name the field name
+     * @return the {@link Field}, or null if the class does not declare the field
+     */
+    public static Field getDeclaredField(Class<?> type, String name) {
+        return getClassInfo(type).getFields(type).get(name);
+    }
+
+    /**
+     * Returns the constructors declared by a class.
+     * @param type the class
+     * @return the list of declared {@link Constructor}'s
+     */
+    public static Constructor<?>[] getDeclaredConstructors(Class<?> type) {
+        return getClassInfo(type).getConstructors(type).clone();
+    }
+
+    /**
+     * Removes all cached class metadata.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static ClassInfo getClassInfo(Class<?> type) {
+        synchronized (cache) {
+            Reference<ClassInfo> ref = cache.get(type);
+            ClassInfo info = ref == null ? null : ref.get();
+            if (info == null) {
+                info = new ClassInfo();
+                cache.put(type, new SoftReference<ClassInfo>(info));
+            }
+            return info;
+        }
+    }
+
+    /**
+     * The cached metadata of a class.  Each type of metadata is immutable once loaded,
+     * and may be loaded by racing threads.
+     */
+    private static final class ClassInfo {
+        private volatile PropertyDescriptor[] descriptors;
+        private volatile Map<String,PropertyDescriptor> descriptorMap;
+        private volatile Map<String,Field> fields;
+        private volatile Constructor<?>[] constructors;
+
+        PropertyDescriptor[] getDescriptors(Class<?> type) throws IntrospectionException {
+            PropertyDescriptor[] list = descriptors;
+            if (list == null) {
+                list = Introspector.getBeanInfo(type).getPropertyDescriptors();
+                descriptors = list;
+            }
+            return list;
+        }
+
+        Map<String,PropertyDescriptor> getDescriptorMap(Class<?> type) throws IntrospectionException {
+            Map<String,PropertyDescriptor> map = descriptorMap;
+            if (map == null) {
+                map = new HashMap<String,PropertyDescriptor>();
+                for (PropertyDescriptor pd : getDescriptors(type)) {
+                    // keep the first descriptor for a name, like a linear search
+                    if (!map.containsKey(pd.getName())) {
+                        map.put(pd.getName(), pd);
+                    }
+                }
+                descriptorMap = map;
+            }
+            return map;
+        }
+
+        Map<String,Field> getFields(Class<?> type) {
+            Map<String,Field> map = fields;
+            if (map == null) {
+                map = new HashMap<String,Field>();
+                for (Field f : type.getDeclaredFields()) {
+                    map.put(f.getName(), f);
+                }
+                fields = map;
+            }
+            return map;
+        }
+
+        Constructor<?>[] getConstructors(Class<?> type) {
+            Constructor<?>[] list = constructors;
+            if (list == null) {
+                list = type.getDeclaredConstructors();
+                constructors = list;
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.math.*;
+import java.util.*;
+
+import org.beanio.types.*;
+
+/**
+ * A {@link TypeHandler} that caches the values parsed by another type handler, so that
+ * repeated field text is only parsed once.
+ *
+ * <p>Parsed values are held in a bounded, direct mapped table indexed by the hash code of
+ * the field text.  Immutable values (strings, enums, primitive wrappers, <tt>BigDecimal</tt>,
+ * <tt>BigInteger</tt>, <tt>UUID</tt> and <tt>java.time</tt> values) are returned as is.  Mutable <tt>Date</tt> and
+ * <tt>Calendar</tt> values are cloned before they are returned.  Values of any other type,
+ * and text that fails type conversion, are never cached.</p>
+ *
+ * <p>A <tt>MemoizingTypeHandler</tt> may be shared by multiple threads if its delegate can.
+ * Table entries are immutable, so no synchronization is needed.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class MemoizingTypeHandler implements TypeHandler {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+        Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class));
+
+    // immutable java.time value classes, matched by name since the core targets Java 7
+    private static final Set<String> IMMUTABLE_TYPE_NAMES = new HashSet<String>(Arrays.asList(
+        "java.time.LocalDate", "java.time.LocalDateTime", "java.time.LocalTime", "java.time.Instant",
+        "java.time.OffsetDateTime", "java.time.OffsetTime", "java.time.ZonedDateTime",
+        "java.time.Year", "java.time.YearMonth", "java.time.MonthDay", "java.time.Duration",
+        "java.time.Period", "java.time.ZoneOffset"));
+
+    private final TypeHandler handler;
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * Constructs a new <tt>MemoizingTypeHandler</tt>.
+     * @param handler the {@link TypeHandler} to delegate to
+     * @param size the number of cached values, rounded up to a power of 2
+     */
+    public MemoizingTypeHandler(TypeHandler handler, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        int n = Integer.highestOneBit(size);
+        if (n < size) {
+            n <<= 1;
+        }
+        this.handler = handler;
+        this.table = new Entry[n];
+        this.mask = n - 1;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#parse(java.lang.String)
+     */
+    public Object parse(String text) throws TypeConversionException {
+        if (text == null) {
+            return handler.parse(text);
+        }
+
+        int h = text.hashCode();
+        int index = (h ^ (h >>> 16)) & mask;
+
+        Entry entry = table[index];
+        if (entry != null && entry.text.equals(text)) {
+            return copy(entry.value);
+        }
+
+        Object value = handler.parse(text);
+        if (value == null || isImmutable(value)) {
+            table[index] = new Entry(text, value);
+        }
+        else if (value instanceof Date || value instanceof Calendar) {
+            // cache a copy in case the caller modifies the returned value
+            table[index] = new Entry(text, copy(value));
+        }
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#format(java.lang.Object)
+     */
+    public String format(Object value) {
+        return handler.format(value);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#getType()
+     */
+    public Class<?> getType() {
+        return handler.getType();
+    }
+
+    /**
+     * Returns the type handler that parses values not found in the cache.
+     * @return the delegate {@link TypeHandler}
+     */
+    public TypeHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Returns whether a parsed value is immutable and can be returned as is.
+     * @param value the parsed value
+     * @return true if immutable, false otherwise
+     */
+    private boolean isImmutable(Object value) {
+        Class<?> type = value.getClass();
+        return IMMUTABLE_TYPES.contains(type) || value instanceof Enum ||
+            IMMUTABLE_TYPE_NAMES.contains(type.getName());
+    }
+
+    /**
+     * Returns a copy of a cached value if the value is mutable.
+     * @param value the cached value
+     * @return the value to return to the caller
+     */
+    private Object copy(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        else if (value instanceof Calendar) {
+            return ((Calendar) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * A cached field text and its parsed value.
+     */
+    private static final class Entry {
+        final String text;
+        final Object value;
+
+        Entry(String text, Object value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+}
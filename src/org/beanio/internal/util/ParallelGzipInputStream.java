@@ -0,0 +1,388 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * An input stream that decompresses gzip data using multiple threads.
+ *
+ * <p>The gzip format does not record the compressed length of a member, so members can
+ * only be located without decompressing them if each member header includes a
+ * <tt>BC</tt> extra subfield with the size of the member, as written by
+ * {@link ParallelGzipOutputStream} and by the BGZF format used by <tt>bgzip</tt>.
+ * Such members are read by the calling thread, and inflated by a pool of worker threads
+ * ahead of the reader.  If a member without a block size is found, the rest of the
+ * stream is decompressed using a <tt>GZIPInputStream</tt> by a single background thread,
+ * which still allows decompression to run ahead of the reader.</p>
+ *
+ * <p>A <tt>ParallelGzipInputStream</tt> is not thread safe, and must be closed to release
+ * its worker threads.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 65536;
+    // the largest inflated size of a member with a block size, as limited by BGZF
+    private static final int MAX_INFLATED_SIZE = 65536;
+    private static final byte[] EMPTY = new byte[0];
+
+    private InputStream in;
+    private int threads;
+    private ExecutorService executor;
+
+    // decompressed blocks that have been submitted in order, and whether there are more
+    private Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+    private boolean end;
+    // the gzip stream used for members without a block size, decompressed by one thread
+    private InputStream serial;
+    private ExecutorService serialExecutor;
+
+    private byte[] buf = EMPTY;
+    private int pos;
+    private boolean closed;
+
+    /**
+     * Constructs a new <tt>ParallelGzipInputStream</tt>.
+     * @param in the gzip compressed input stream
+     * @param threads the number of threads used to inflate members
+     */
+    public ParallelGzipInputStream(InputStream in, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.in = in;
+        this.threads = threads;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.InputStream#read()
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, buf.length - pos);
+        System.arraycopy(buf, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.InputStream#available()
+     */
+    @Override
+    public int available() throws IOException {
+        return buf.length - pos;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.InputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<byte[]> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (serialExecutor != null) {
+            serialExecutor.shutdown();
+        }
+        in.close();
+    }
+
+    /*
+     * Ensures the buffer has unread bytes, and returns false if the end of the
+     * stream was reached.
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (pos == buf.length) {
+            submit();
+            Future<byte[]> future = pending.poll();
+            if (future == null) {
+                return false;
+            }
+            byte[] b = await(future);
+            if (b == null) {
+                // the end of the serial gzip stream was reached
+                end = true;
+                b = EMPTY;
+            }
+            buf = b;
+            pos = 0;
+        }
+        return true;
+    }
+
+    /*
+     * Reads and submits members until enough are pending or the end of the stream is reached.
+     */
+    private void submit() throws IOException {
+        while (!end && pending.size() < threads * 2) {
+            if (serial != null) {
+                pending.add(serialExecutor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws IOException {
+                        byte[] b = new byte[BUFFER_SIZE];
+                        int n = readFully(serial, b, 0, b.length);
+                        if (n == 0) {
+                            return null;
+                        }
+                        return n < b.length ? Arrays.copyOf(b, n) : b;
+                    }
+                }));
+                continue;
+            }
+
+            final byte[] member = readMember();
+            if (member == null) {
+                if (serial == null) {
+                    end = true;
+                }
+                continue;
+            }
+
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                    private int count = 0;
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "beanio-gzip-reader-" + (++count));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            pending.add(executor.submit(new Callable<byte[]>() {
+                public byte[] call() throws IOException {
+                    return inflate(member);
+                }
+            }));
+        }
+    }
+
+    /*
+     * Reads the next gzip member that includes its block size.  Returns null at the end
+     * of the stream, or if the next member must be decompressed serially.
+     */
+    private byte[] readMember() throws IOException {
+        byte[] header = new byte[12];
+        int n = readFully(in, header, 0, header.length);
+        if (n == 0) {
+            return null;
+        }
+        if (n < header.length || (header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b ||
+            header[2] != 8 || (header[3] & 0x04) == 0) {
+            startSerial(header, n);
+            return null;
+        }
+
+        int xlen = getShort(header, 10);
+        byte[] extra = new byte[xlen];
+        if (readFully(in, extra, 0, xlen) < xlen) {
+            throw new EOFException("Unexpected end of gzip stream");
+        }
+
+        int size = -1;
+        for (int i=0; i + 4 <= xlen; ) {
+            int length = getShort(extra, i + 2);
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && length == 2 && i + 6 <= xlen) {
+                size = getShort(extra, i + 4) + 1;
+                break;
+            }
+            i += 4 + length;
+        }
+        if (size < 0) {
+            byte[] b = Arrays.copyOf(header, header.length + xlen);
+            System.arraycopy(extra, 0, b, header.length, xlen);
+            startSerial(b, b.length);
+            return null;
+        }
+        if (size < header.length + xlen + 8) {
+            throw new ZipException("Invalid gzip block size");
+        }
+
+        byte[] member = new byte[size];
+        System.arraycopy(header, 0, member, 0, header.length);
+        System.arraycopy(extra, 0, member, header.length, xlen);
+        int offset = header.length + xlen;
+        if (readFully(in, member, offset, size - offset) < size - offset) {
+            throw new EOFException("Unexpected end of gzip stream");
+        }
+        return member;
+    }
+
+    /*
+     * Decompresses the rest of the stream serially, starting with bytes already read.
+     */
+    private void startSerial(byte[] b, int length) throws IOException {
+        serial = new GZIPInputStream(new SequenceInputStream(
+            new ByteArrayInputStream(b, 0, length), in), BUFFER_SIZE);
+        serialExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "beanio-gzip-reader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /*
+     * Inflates a gzip member and verifies its checksum and size.
+     */
+    private static byte[] inflate(byte[] member) throws IOException {
+        int length = member.length;
+        int flags = member[3] & 0xff;
+        int offset = 12 + getShort(member, 10);
+        if ((flags & 0x08) != 0) {
+            // skip the file name
+            offset = skipString(member, offset, length - 8);
+        }
+        if ((flags & 0x10) != 0) {
+            // skip the comment
+            offset = skipString(member, offset, length - 8);
+        }
+        if ((flags & 0x02) != 0) {
+            offset += 2;
+        }
+        if (offset > length - 8) {
+            throw new ZipException("Corrupt gzip member header");
+        }
+
+        long crc = getInt(member, length - 8);
+        long size = getInt(member, length - 4);
+        if (size > MAX_INFLATED_SIZE) {
+            throw new ZipException("Corrupt gzip member");
+        }
+
+        byte[] out = new byte[(int) size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, offset, length - 8 - offset);
+            int n = 0;
+            while (n < out.length) {
+                int count = inflater.inflate(out, n, out.length - n);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += count;
+            }
+            if (n != out.length || (!inflater.finished() && inflater.inflate(new byte[1]) != 0) || !inflater.finished()) {
+                throw new ZipException("Corrupt gzip member");
+            }
+        }
+        catch (DataFormatException ex) {
+            throw new ZipException("Corrupt gzip member: " + ex.getMessage());
+        }
+        finally {
+            inflater.end();
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(out, 0, out.length);
+        if (checksum.getValue() != crc) {
+            throw new ZipException("Corrupt gzip member: CRC mismatch");
+        }
+        return out;
+    }
+
+    /*
+     * Returns the offset after the zero terminated string at the given offset.
+     */
+    private static int skipString(byte[] b, int off, int end) throws ZipException {
+        while (off < end) {
+            if (b[off++] == 0) {
+                return off;
+            }
+        }
+        throw new ZipException("Corrupt gzip member header");
+    }
+
+    private byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for gzip member");
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int count = in.read(b, off + n, len - n);
+            if (count < 0) {
+                break;
+            }
+            n += count;
+        }
+        return n;
+    }
+
+    private static int getShort(byte[] b, int off) {
+        return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+    }
+
+    private static long getInt(byte[] b, int off) {
+        return (getShort(b, off) | ((long) getShort(b, off + 2) << 16)) & 0xffffffffL;
+    }
+}
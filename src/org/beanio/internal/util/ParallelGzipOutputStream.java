@@ -0,0 +1,283 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * An output stream that compresses blocks of data in parallel, and writes each block
+ * as a separate gzip member.
+ *
+ * <p>Since gzip readers decompress concatenated members as one stream, the output can be
+ * read by any gzip reader.  Each member header includes a <tt>BC</tt> extra subfield with
+ * the size of the member, using the same layout as the BGZF format, so that the output
+ * can be decompressed in parallel by {@link ParallelGzipInputStream}.  Blocks of up to
+ * 65,280 bytes are compressed, so that every member fits in the 16-bit block size.
+ * An empty member is written when the stream is closed.</p>
+ *
+ * <p>Calling {@link #flush()} ends the current block, and waits for all pending blocks
+ * to be compressed and written.  A <tt>ParallelGzipOutputStream</tt> is not thread safe,
+ * and must be closed to release its worker threads.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /** The maximum number of uncompressed bytes in a block */
+    public static final int BLOCK_SIZE = 65280;
+
+    private static final int MAX_MEMBER_SIZE = 65536;
+    private static final int HEADER_SIZE = 18;
+    private static final int TRAILER_SIZE = 8;
+
+    private OutputStream out;
+    private int threads;
+    private int level;
+    private ExecutorService executor;
+
+    // compressed members that have been submitted in order
+    private Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+    private byte[] buf = new byte[BLOCK_SIZE];
+    private int count;
+    private boolean closed;
+
+    /**
+     * Constructs a new <tt>ParallelGzipOutputStream</tt> using the default compression level.
+     * @param out the output stream to write compressed data to
+     * @param threads the number of threads used to compress blocks
+     */
+    public ParallelGzipOutputStream(OutputStream out, int threads) {
+        this(out, threads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructs a new <tt>ParallelGzipOutputStream</tt>.
+     * @param out the output stream to write compressed data to
+     * @param threads the number of threads used to compress blocks
+     * @param level the compression level, from 0 to 9, or -1 for the default
+     */
+    public ParallelGzipOutputStream(OutputStream out, int threads, int level) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.out = out;
+        this.threads = threads;
+        this.level = level;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buf[count++] = (byte) b;
+        if (count == buf.length) {
+            submit();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, buf.length - count);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buf.length) {
+                submit();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.OutputStream#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            out.write(await(pending.poll()));
+        }
+        out.flush();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.OutputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            // an empty member marks the end of the stream
+            out.write(compress(new byte[0], 0, level));
+        }
+        finally {
+            closed = true;
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            if (executor != null) {
+                executor.shutdown();
+            }
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /*
+     * Submits the current block to be compressed, and writes completed members if too
+     * many blocks are pending.
+     */
+    private void submit() throws IOException {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "beanio-gzip-writer-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        final byte[] block = buf;
+        final int length = count;
+        pending.add(executor.submit(new Callable<byte[]>() {
+            public byte[] call() {
+                return compress(block, length, level);
+            }
+        }));
+        buf = new byte[BLOCK_SIZE];
+        count = 0;
+
+        // limit the number of blocks held in memory
+        while (pending.size() > threads * 2) {
+            out.write(await(pending.poll()));
+        }
+    }
+
+    /*
+     * Compresses a block into a gzip member.
+     */
+    private static byte[] compress(byte[] block, int length, int level) {
+        byte[] member = deflate(block, length, level);
+        if (member == null) {
+            // incompressible data is stored
+            member = deflate(block, length, Deflater.NO_COMPRESSION);
+        }
+
+        int size = member.length;
+        // header with FEXTRA set and a BC subfield holding the member size - 1
+        member[0] = 0x1f;
+        member[1] = (byte) 0x8b;
+        member[2] = 8;
+        member[3] = 4;
+        member[9] = (byte) 0xff;
+        member[10] = 6;
+        member[12] = 'B';
+        member[13] = 'C';
+        member[14] = 2;
+        member[16] = (byte) (size - 1);
+        member[17] = (byte) ((size - 1) >> 8);
+
+        CRC32 crc = new CRC32();
+        crc.update(block, 0, length);
+        putInt(member, size - 8, crc.getValue());
+        putInt(member, size - 4, length);
+        return member;
+    }
+
+    /*
+     * Deflates a block into a new member array with room for the header and trailer,
+     * or returns null if the member would exceed the maximum size.
+     */
+    private static byte[] deflate(byte[] block, int length, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(block, 0, length);
+            deflater.finish();
+            byte[] b = new byte[MAX_MEMBER_SIZE];
+            int n = HEADER_SIZE;
+            int max = MAX_MEMBER_SIZE - TRAILER_SIZE;
+            while (!deflater.finished() && n < max) {
+                n += deflater.deflate(b, n, max - n);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+            return Arrays.copyOf(b, n + TRAILER_SIZE);
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    private static void putInt(byte[] b, int off, long value) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >> 8);
+        b[off + 2] = (byte) (value >> 16);
+        b[off + 3] = (byte) (value >> 24);
+    }
+
+    private byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for compressed block");
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
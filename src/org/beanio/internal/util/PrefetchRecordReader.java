@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.beanio.stream.*;
+
+/**
+ * A {@link RecordReader} that reads records from another record reader using a dedicated
+ * background thread, so that reading and framing the next records overlaps with
+ * unmarshalling the current record.
+ *
+ * <p>Records are read ahead into a bounded queue.  The record text and line number of each
+ * record are captured with the record, so {@link #getRecordText()} and
+ * {@link #getRecordLineNumber()} describe the last record returned by {@link #read()}.
+ * A {@link RecordIOException} thrown for a malformed record is rethrown by <tt>read()</tt>
+ * in its original position, and reading continues with the next record.  Any other
+ * exception stops the background thread, and is rethrown by every later call to
+ * <tt>read()</tt>.</p>
+ *
+ * <p>The underlying record reader must return a new record object from each read, and
+ * is only used by the background thread until it is closed.</p>
+ *
+ * <p>This class is not thread safe.  The background thread is a daemon thread that is
+ * started by the first call to <tt>read()</tt>, and runs until the end of the stream is
+ * reached, an exception other than a <tt>RecordIOException</tt> is thrown, or this reader
+ * is closed.  If the background thread is blocked reading a record when this reader is
+ * closed, <tt>close()</tt> waits for it for a limited time only, after which the
+ * underlying record reader is closed by the background thread once its read returns.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class PrefetchRecordReader implements RecordReader {
+
+    // the maximum time close() waits for the background thread to stop
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+    
+    private RecordReader in;
+    // records read ahead by the background thread
+    private BlockingQueue<Entry> queue;
+    // the background thread, started by the first read
+    private Thread thread;
+    // set when this reader is closed to stop the background thread
+    private volatile boolean closed;
+    // the last entry returned by read(), or null
+    private Entry current;
+    // the entry that stopped the background thread, returned by every later read
+    private Entry last;
+    // guards finished and abandoned, which decide which thread closes the record reader
+    private final Object lock = new Object();
+    // set when the background thread stops
+    private boolean finished;
+    // set if close() stopped waiting for the background thread to stop
+    private boolean abandoned;
+
+    /**
+     * Constructs a new <tt>PrefetchRecordReader</tt>.
+     * @param in the {@link RecordReader} to read from
+     * @param size the maximum number of records to read ahead
+     * @throws IllegalArgumentException if the size is less than 1
+     */
+    public PrefetchRecordReader(RecordReader in, int size) throws IllegalArgumentException {
+        if (in == null) {
+            throw new NullPointerException("null record reader");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        this.in = in;
+        this.queue = new ArrayBlockingQueue<Entry>(size);
+    }
+
+    /*
+     * Reads records until the end of the stream, a fatal error, or this reader is closed,
+     * and closes the record reader if close() stopped waiting.
+     */
+    private void runBackground() {
+        try {
+            prefetch();
+        }
+        finally {
+            boolean close;
+            synchronized (lock) {
+                finished = true;
+                close = abandoned;
+            }
+            if (close) {
+                try {
+                    in.close();
+                }
+                catch (IOException ex) { }
+            }
+        }
+    }
+
+    /*
+     * Reads records until the end of the stream, a fatal error, or this reader is closed.
+     */
+    private void prefetch() {
+        while (!closed) {
+            Entry entry = new Entry();
+            try {
+                entry.value = in.read();
+                entry.end = entry.value == null;
+            }
+            catch (RecordIOException ex) {
+                entry.error = ex;
+            }
+            catch (Throwable ex) {
+                entry.error = ex;
+                entry.end = true;
+            }
+            entry.text = in.getRecordText();
+            entry.lineNumber = in.getRecordLineNumber();
+
+            try {
+                queue.put(entry);
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+            if (entry.end) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#read()
+     */
+    public Object read() throws IOException, RecordIOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        Entry entry = last;
+        if (entry == null) {
+            if (thread == null) {
+                thread = new Thread(new Runnable() {
+                    public void run() {
+                        runBackground();
+                    }
+                }, "beanio-prefetch-reader");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            try {
+                entry = queue.take();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the next record");
+            }
+            if (entry.end) {
+                last = entry;
+            }
+        }
+        current = entry;
+
+        Throwable error = entry.error;
+        if (error == null) {
+            return entry.value;
+        }
+        else if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        else {
+            throw (Error) error;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordLineNumber()
+     */
+    public int getRecordLineNumber() {
+        return current == null ? 0 : current.lineNumber;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordText()
+     */
+    public String getRecordText() {
+        return current == null ? null : current.text;
+    }
+
+    /**
+     * Stops the background thread and closes the underlying record reader.  If the
+     * background thread does not stop within a second, for example because it is blocked
+     * reading from a stalled input stream, this method returns without waiting further
+     * and the record reader is closed by the background thread when its read returns.
+     * @throws IOException if the underlying record reader throws an exception
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (thread != null) {
+            // wake the background thread if it is waiting to queue a record, or reading
+            // from an interruptible channel, and make room for its last record
+            thread.interrupt();
+            queue.clear();
+            try {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            queue.clear();
+            
+            synchronized (lock) {
+                if (!finished) {
+                    abandoned = true;
+                    return;
+                }
+            }
+        }
+        in.close();
+    }
+
+    /**
+     * A record read ahead by the background thread.
+     */
+    private static class Entry {
+        private Object value;
+        private Throwable error;
+        private String text;
+        private int lineNumber;
+        // whether the background thread stopped after this entry
+        private boolean end;
+    }
+}
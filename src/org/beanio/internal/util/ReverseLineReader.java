@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the lines of a file in reverse order, starting from the end of the file.
+ *
+ * <p>A line is terminated by a carriage return (CR), line feed (LF), or CRLF sequence, and
+ * a line terminator at the end of the file does not start a new line.  Only bytes of the
+ * lines that are read are loaded, so the last lines of a large file are read in time
+ * proportional to their length.  Since a line terminator is searched for byte by byte, only
+ * UTF-8 and single byte character sets are supported.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ReverseLineReader implements Closeable {
+
+    private RandomAccessFile file;
+    private Charset charset;
+
+    // a block of the file, starting at offset 'blockStart'
+    private byte[] block = new byte[8192];
+    private long blockStart;
+    private int blockLength;
+
+    // the offset following the last character of the next line, or -1 if there are no more lines
+    private long position;
+
+    /**
+     * Constructs a new <tt>ReverseLineReader</tt>.
+     * @param file the file to read
+     * @param charset the character set of the file
+     * @throws IllegalArgumentException if the character set is not supported
+     * @throws IOException if the file cannot be opened
+     */
+    public ReverseLineReader(File file, Charset charset) throws IllegalArgumentException, IOException {
+        if (!ByteCountingReader.isSupported(charset)) {
+            throw new IllegalArgumentException("Character set '" + charset.name() + "' not supported");
+        }
+        this.charset = charset;
+        this.file = new RandomAccessFile(file, "r");
+
+        // skip the line terminator at the end of the file
+        position = this.file.length();
+        if (position == 0) {
+            position = -1;
+        }
+        else {
+            int b = byteAt(position - 1);
+            if (b == '\n') {
+                --position;
+                if (position > 0 && byteAt(position - 1) == '\r') {
+                    --position;
+                }
+            }
+            else if (b == '\r') {
+                --position;
+            }
+        }
+    }
+
+    /**
+     * Reads the previous line of the file.
+     * @return the line, without its line terminator, or <tt>null</tt> if the start of the
+     *   file was reached
+     * @throws IOException if an I/O error occurs
+     */
+    public String readLine() throws IOException {
+        if (position < 0) {
+            return null;
+        }
+
+        long end = position;
+        long start = end;
+        while (start > 0) {
+            int b = byteAt(start - 1);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            --start;
+        }
+
+        // position at the end of the previous line, skipping its line terminator
+        if (start == 0) {
+            position = -1;
+        }
+        else {
+            position = start - 1;
+            if (byteAt(position) == '\n' && position > 0 && byteAt(position - 1) == '\r') {
+                --position;
+            }
+        }
+
+        byte[] b = new byte[(int) (end - start)];
+        if (start >= blockStart && end <= blockStart + blockLength) {
+            System.arraycopy(block, (int) (start - blockStart), b, 0, b.length);
+        }
+        else {
+            file.seek(start);
+            file.readFully(b);
+        }
+        return new String(b, charset);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+
+    /*
+     * Returns the byte at the given offset, loading the block that ends with it if needed.
+     */
+    private int byteAt(long offset) throws IOException {
+        if (offset < blockStart || offset >= blockStart + blockLength) {
+            blockStart = Math.max(0, offset + 1 - block.length);
+            blockLength = (int) (offset + 1 - blockStart);
+            file.seek(blockStart);
+            file.readFully(block, 0, blockLength);
+        }
+        return block[(int) (offset - blockStart)];
+    }
+}
@@ -130,6 +130,41 @@ public class Settings {
      * @since 3.0.0
      */
     public static final String VALIDATE_ON_MARSHAL = "org.beanio.validateOnMarshal";
+    /**
+     * The directory used to cache parsed mapping files across JVM restarts.  Caching
+     * is disabled if not set.
+     * @since 3.0.0
+     */
+    public static final String CONFIGURATION_CACHE_DIRECTORY = "org.beanio.configurationCacheDirectory";
+    /**
+     * Whether streams loaded from a mapping file are compiled when first used, instead of
+     * when the mapping file is loaded.
+     * @since 3.0.0
+     */
+    public static final String LAZY_STREAM_COMPILATION = "org.beanio.lazyStreamCompilation";
+    /**
+     * The default number of bean objects read or written for each bean object timed
+     * by a {@link org.beanio.metrics.MetricsListener}.
+     * @since 3.0.0
+     */
+    public static final String METRICS_SAMPLING_INTERVAL = "org.beanio.metricsSamplingInterval";
+    /**
+     * The number of canonical values cached for each field configured to deduplicate
+     * its values.
+     * @since 3.0.0
+     */
+    public static final String DEDUPE_CACHE_SIZE = "org.beanio.dedupeCacheSize";
+    /**
+     * The maximum length of a field value cached for deduplication.
+     * @since 3.0.0
+     */
+    public static final String DEDUPE_MAX_LENGTH = "org.beanio.dedupeMaxLength";
+    /**
+     * The number of parsed values cached for each field configured to memoize
+     * type conversion.
+     * @since 3.0.0
+     */
+    public static final String MEMOIZE_CACHE_SIZE = "org.beanio.memoizeCacheSize";
     
     private static final String DEFAULT_CONFIGURATION_PATH = "org/beanio/internal/config/beanio.properties";
     private static final String DEFAULT_CONFIGURATION_FILENAME = "beanio.properties";
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.internal.util;
+
+/**
+ * A bounded cache of canonical strings used to deduplicate low cardinality field values.
+ *
+ * <p>The cache is a direct mapped table indexed by string hash code.  A lookup never
+ * allocates: if the slot holds an equal string it is returned, otherwise the given string
+ * replaces the slot and is returned.  A range of characters, such as a field in a record,
+ * can also be looked up, in which case a <tt>String</tt> is only created on a cache miss.
+ * Strings longer than the maximum length are never cached.</p>
+ *
+ * <p>A <tt>StringCache</tt> may be shared by multiple threads without synchronization.  Since
+ * strings are immutable, a lost update only costs a cache miss.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StringCache {
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * Constructs a new <tt>StringCache</tt>.
+     * @param size the number of cached strings, rounded up to a power of 2
+     * @param maxLength the maximum length of a cached string
+     */
+    public StringCache(int size, int maxLength) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        int n = Integer.highestOneBit(size);
+        if (n < size) {
+            n <<= 1;
+        }
+        this.table = new String[n];
+        this.mask = n - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the canonical instance of a string.
+     * @param s the string
+     * @return the cached string equal to <tt>s</tt>, or <tt>s</tt> if not cached
+     */
+    public String get(String s) {
+        if (s == null || s.length() > maxLength) {
+            return s;
+        }
+
+        int index = index(s.hashCode());
+        String cached = table[index];
+        if (cached != null && cached.equals(s)) {
+            return cached;
+        }
+        table[index] = s;
+        return s;
+    }
+
+    /**
+     * Returns the canonical instance of a range of characters.  A new <tt>String</tt>
+     * is only created if the characters are not cached.
+     * @param s the character sequence
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the cached string equal to the given range of characters, or a new string
+     *   if not cached
+     */
+    public String get(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) {
+            return s.subSequence(start, end).toString();
+        }
+
+        // the same hash as String.hashCode()
+        int h = 0;
+        for (int i=start; i<end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        int index = index(h);
+
+        String cached = table[index];
+        if (cached != null && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == s.charAt(start + i)) {
+                ++i;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+
+        String text = s.subSequence(start, end).toString();
+        table[index] = text;
+        return text;
+    }
+
+    /*
+     * Returns the table index for a hash code.
+     */
+    private int index(int h) {
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the maximum number of cached strings.
+     * @return the cache size
+     */
+    public int size() {
+        return table.length;
+    }
+}
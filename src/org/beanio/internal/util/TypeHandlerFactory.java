@@ -59,6 +59,8 @@ public class TypeHandlerFactory {
 
     private static final String NAME_KEY = "name:";
     private static final String TYPE_KEY = "type:";
+    // registers the java.time type handlers, which are compiled separately for Java 8
+    private static final String TEMPORAL_HANDLERS_CLASS = "org.beanio.types.time.TemporalHandlers";
     
     /* The default type handler factory */
     private final static TypeHandlerFactory defaultFactory;
@@ -117,6 +119,35 @@ public class TypeHandlerFactory {
         defaultFactory.registerHandlerFor(TypeUtil.CALENDAR_DATETIME_ALIAS, new XmlCalendarDateTimeTypeHandler(), "xml");
         defaultFactory.registerHandlerFor(TypeUtil.CALENDAR_TIME_ALIAS, new XmlCalendarTimeTypeHandler(), "xml");
         defaultFactory.registerHandlerFor(Boolean.class, new XmlBooleanTypeHandler(), "xml");
+        
+        // java.time type handlers cannot be loaded before Java 8
+        if (TypeUtil.toType(defaultFactory.classLoader, "java.time.LocalDate") != null) {
+            registerTemporalHandlers(defaultFactory);
+        }
+    }
+    
+    /**
+     * Registers type handlers for <tt>java.time</tt> types.  The type handlers are compiled
+     * separately for Java 8, and are skipped if not found on the classpath.
+     * @param factory the <tt>TypeHandlerFactory</tt> to register the type handlers in
+     * @since 3.0
+     */
+    private static void registerTemporalHandlers(TypeHandlerFactory factory) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(TEMPORAL_HANDLERS_CLASS, true, TypeHandlerFactory.class.getClassLoader());
+        }
+        catch (ClassNotFoundException ex) {
+            return;
+        }
+        
+        try {
+            clazz.getMethod("register", TypeHandlerFactory.class).invoke(null, factory);
+        }
+        catch (Exception ex) {
+            throw new BeanIOConfigurationException("Failed to register type handlers from '" +
+                TEMPORAL_HANDLERS_CLASS + "'", ex);
+        }
     }
 
     /**
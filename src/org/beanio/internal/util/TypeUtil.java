@@ -19,6 +19,8 @@ import java.math.*;
 import java.net.URL;
 import java.util.*;
 
+import org.beanio.CompactMap;
+
 /**
  * Utility class for working with Java types supported by BeanIO.
  * 
@@ -262,6 +264,9 @@ public class TypeUtil {
             if ("map".equals(type)) {
                 beanClass = LinkedHashMap.class;
             }
+            else if ("compactmap".equals(type)) {
+                beanClass = CompactMap.class;
+            }
             else if ("list".equals(type) || "collection".equals(type)) {
                 beanClass = ArrayList.class;
             }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+
+import javax.management.*;
+
+/**
+ * A {@link MetricsListener} that collects metrics for each stream into a
+ * {@link StreamMetrics} object, and registers it with an MBean server.
+ *
+ * <p>The metrics for a stream are registered when the first metric is reported for
+ * the stream, using an object name of the form
+ * <tt>org.beanio:type=StreamMetrics,name=&lt;stream name&gt;</tt>, where the stream
+ * name is quoted.  If an MBean of the same name is already registered, metrics are
+ * still collected and available from {@link #getMetrics(String)}.</p>
+ *
+ * <p>This class is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class JmxMetricsListener implements MetricsListener {
+
+    /** The default object name domain */
+    public static final String DEFAULT_DOMAIN = "org.beanio";
+
+    private MBeanServer server;
+    private String domain;
+    private boolean histogramsEnabled;
+    private ConcurrentMap<String,StreamMetrics> metricsMap = new ConcurrentHashMap<String,StreamMetrics>();
+    // set once unregister() is called
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new <tt>JmxMetricsListener</tt> that registers metrics with the
+     * platform MBean server, without timing histograms.
+     */
+    public JmxMetricsListener() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new <tt>JmxMetricsListener</tt> that registers metrics with the
+     * platform MBean server.
+     * @param histogramsEnabled whether to collect a timing histogram for each
+     *   phase and component
+     */
+    public JmxMetricsListener(boolean histogramsEnabled) {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN, histogramsEnabled);
+    }
+
+    /**
+     * Constructs a new <tt>JmxMetricsListener</tt>.
+     * @param server the {@link MBeanServer} to register metrics with, or <tt>null</tt>
+     *   to only collect metrics
+     * @param domain the object name domain
+     * @param histogramsEnabled whether to collect a timing histogram for each
+     *   phase and component
+     */
+    public JmxMetricsListener(MBeanServer server, String domain, boolean histogramsEnabled) {
+        if (domain == null) {
+            throw new NullPointerException("null domain");
+        }
+        this.server = server;
+        this.domain = domain;
+        this.histogramsEnabled = histogramsEnabled;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordRead(java.lang.String, java.lang.String)
+     */
+    public void recordRead(String streamName, String recordName) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.recordRead(recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordFiltered(java.lang.String, java.lang.String)
+     */
+    public void recordFiltered(String streamName, String recordName) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.recordFiltered(recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordWritten(java.lang.String, java.lang.String)
+     */
+    public void recordWritten(String streamName, String recordName) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.recordWritten(recordName);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersRead(java.lang.String, int)
+     */
+    public void charactersRead(String streamName, int count) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.charactersRead(count);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersWritten(java.lang.String, int)
+     */
+    public void charactersWritten(String streamName, int count) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.charactersWritten(count);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#fieldError(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void fieldError(String streamName, String recordName, String fieldName, String rule) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.error(rule);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordError(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void recordError(String streamName, String recordName, String rule) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.error(rule);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#timing(java.lang.String, org.beanio.metrics.Phase, java.lang.String, long)
+     */
+    public void timing(String streamName, Phase phase, String componentName, long nanos) {
+        StreamMetrics metrics = metrics(streamName);
+        if (metrics != null) {
+            metrics.timing(phase, componentName, nanos);
+        }
+    }
+
+    /**
+     * Returns the metrics collected for a stream.
+     * @param streamName the stream name
+     * @return the {@link StreamMetrics}, or <tt>null</tt> if no metrics have been
+     *   reported for the stream
+     */
+    public StreamMetrics getMetrics(String streamName) {
+        return metricsMap.get(streamName);
+    }
+
+    /**
+     * Unregisters the metrics for every stream from the MBean server.  Metrics
+     * reported after this method is called are no longer collected, and no new
+     * MBeans are registered.
+     */
+    public void unregister() {
+        closed = true;
+        for (StreamMetrics metrics : metricsMap.values()) {
+            unregister(metrics);
+        }
+        metricsMap.clear();
+    }
+
+    /**
+     * Returns the object name used to register the metrics for a stream.
+     * @param streamName the stream name
+     * @return the {@link ObjectName}
+     * @throws MalformedObjectNameException if the object name is invalid
+     */
+    protected ObjectName getObjectName(String streamName) throws MalformedObjectNameException {
+        return new ObjectName(domain + ":type=StreamMetrics,name=" + ObjectName.quote(streamName));
+    }
+
+    /*
+     * Returns the metrics for a stream, creating and registering them if necessary,
+     * or null if this listener was unregistered.
+     */
+    private StreamMetrics metrics(String streamName) {
+        if (closed) {
+            return null;
+        }
+        
+        StreamMetrics metrics = metricsMap.get(streamName);
+        if (metrics == null) {
+            metrics = new StreamMetrics(streamName, histogramsEnabled);
+            StreamMetrics existing = metricsMap.putIfAbsent(streamName, metrics);
+            if (existing != null) {
+                return existing;
+            }
+
+            if (server != null) {
+                try {
+                    server.registerMBean(metrics, getObjectName(streamName));
+                }
+                catch (JMException ex) {
+                    // metrics are still collected if they cannot be registered
+                }
+            }
+            
+            // unregister the metrics again if unregister() was called concurrently
+            if (closed) {
+                metricsMap.remove(streamName);
+                unregister(metrics);
+                return null;
+            }
+        }
+        return metrics;
+    }
+    
+    /*
+     * Unregisters the metrics for a stream from the MBean server.
+     */
+    private void unregister(StreamMetrics metrics) {
+        if (server != null) {
+            try {
+                server.unregisterMBean(getObjectName(metrics.getName()));
+            }
+            catch (JMException ex) {
+                // the MBean was not registered by this listener
+            }
+        }
+    }
+}
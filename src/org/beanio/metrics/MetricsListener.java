@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+/**
+ * A <tt>MetricsListener</tt> is notified of records read and written, characters
+ * consumed and produced, validation errors, and the time spent in each {@link Phase}
+ * by the bean readers and writers created by a {@link org.beanio.StreamFactory}.
+ *
+ * <p>Counts and errors are reported for every record.  Timings are only reported for
+ * a sample of records, as determined by the sampling interval passed to
+ * {@link org.beanio.StreamFactory#setMetricsListener(MetricsListener, int)}.  If
+ * no listener is set, no metrics are collected.</p>
+ *
+ * <p>A single listener is shared by every reader and writer created by a stream
+ * factory, and therefore must be thread safe.  Methods are invoked by the thread
+ * reading or writing the stream, so implementations should return quickly.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see MetricsListenerSupport
+ * @see JmxMetricsListener
+ */
+public interface MetricsListener {
+
+    /**
+     * Invoked when a record is read and matched by a bean reader or unmarshaller.
+     * For record groups, this method is invoked once for each record in the group.
+     * @param streamName the name of the stream
+     * @param recordName the name of the record
+     */
+    public void recordRead(String streamName, String recordName);
+
+    /**
+     * Invoked when a record read by a bean reader is rejected by a
+     * {@link org.beanio.RecordFilter} and skipped without being unmarshalled.
+     * @param streamName the name of the stream
+     * @param recordName the name of the record
+     */
+    public void recordFiltered(String streamName, String recordName);
+
+    /**
+     * Invoked when a record is written by a bean writer or marshaller.
+     * @param streamName the name of the stream
+     * @param recordName the name of the record
+     */
+    public void recordWritten(String streamName, String recordName);
+
+    /**
+     * Invoked after a record is read with the number of characters consumed from the
+     * input stream, including any record terminator and skipped records.
+     * @param streamName the name of the stream
+     * @param count the number of characters read
+     */
+    public void charactersRead(String streamName, int count);
+
+    /**
+     * Invoked after a record is written with the number of characters written to the
+     * output stream.  If the record writer buffers its output, characters may be
+     * reported with a later record, or when the writer is flushed or closed.
+     * @param streamName the name of the stream
+     * @param count the number of characters written
+     */
+    public void charactersWritten(String streamName, int count);
+
+    /**
+     * Invoked when a field fails validation.
+     * @param streamName the name of the stream
+     * @param recordName the name of the record
+     * @param fieldName the name of the field
+     * @param rule the name of the failed validation rule, such as <tt>minLength</tt>,
+     *   <tt>regex</tt> or <tt>type</tt>
+     */
+    public void fieldError(String streamName, String recordName, String fieldName, String rule);
+
+    /**
+     * Invoked when a record fails validation, or cannot be read or matched.
+     * @param streamName the name of the stream
+     * @param recordName the name of the record or group, or <tt>null</tt> if the
+     *   record was not identified
+     * @param rule the name of the failed validation rule, such as <tt>malformed</tt>,
+     *   <tt>unidentified</tt>, <tt>unexpected</tt> or <tt>unsatisfied</tt>
+     */
+    public void recordError(String streamName, String recordName, String rule);
+
+    /**
+     * Invoked with the time spent in a phase for a sampled record.
+     * @param streamName the name of the stream
+     * @param phase the {@link Phase}
+     * @param componentName the name of the record, group, bean or field processed
+     *   during the phase, or <tt>null</tt> if not applicable
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void timing(String streamName, Phase phase, String componentName, long nanos);
+
+}
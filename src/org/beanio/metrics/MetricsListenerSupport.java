@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+/**
+ * Provides an empty implementation of every {@link MetricsListener} method so that
+ * subclasses need only override the metrics they are interested in.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class MetricsListenerSupport implements MetricsListener {
+
+    /**
+     * Constructs a new <tt>MetricsListenerSupport</tt>.
+     */
+    public MetricsListenerSupport() { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordRead(java.lang.String, java.lang.String)
+     */
+    public void recordRead(String streamName, String recordName) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordFiltered(java.lang.String, java.lang.String)
+     */
+    public void recordFiltered(String streamName, String recordName) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordWritten(java.lang.String, java.lang.String)
+     */
+    public void recordWritten(String streamName, String recordName) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersRead(java.lang.String, int)
+     */
+    public void charactersRead(String streamName, int count) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#charactersWritten(java.lang.String, int)
+     */
+    public void charactersWritten(String streamName, int count) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#fieldError(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void fieldError(String streamName, String recordName, String fieldName, String rule) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#recordError(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void recordError(String streamName, String recordName, String rule) { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.MetricsListener#timing(java.lang.String, org.beanio.metrics.Phase, java.lang.String, long)
+     */
+    public void timing(String streamName, Phase phase, String componentName, long nanos) { }
+}
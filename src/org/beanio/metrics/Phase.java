@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+/**
+ * The phases of reading and writing a bean object that are timed and reported
+ * to a {@link MetricsListener}.
+ *
+ * <p>Phases may be nested.  For example, the time reported for {@link #UNMARSHAL}
+ * includes the time reported for {@link #CONVERT} and {@link #CREATE} while the
+ * record was unmarshalled, and for a record group, the time spent reading and
+ * matching the records in the group after the first.  Likewise, the time reported
+ * for {@link #MARSHAL} includes the time reported for {@link #WRITE}.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public enum Phase {
+
+    /** Reading a record from the input stream using a {@link org.beanio.stream.RecordReader} */
+    READ,
+    /** Matching a record or bean object to a record or group in the stream layout */
+    MATCH,
+    /** Unmarshalling a record or group of records into a bean object */
+    UNMARSHAL,
+    /** Parsing field text using a type handler */
+    CONVERT,
+    /** Instantiating a bean object */
+    CREATE,
+    /** Handling an exception using a {@link org.beanio.BeanReaderErrorHandler} */
+    ERROR,
+    /** Marshalling a bean object into a record or group of records */
+    MARSHAL,
+    /** Writing a record to the output stream using a {@link org.beanio.stream.RecordWriter} */
+    WRITE
+}
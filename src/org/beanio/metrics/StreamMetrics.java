@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Metrics collected for a single stream by a {@link JmxMetricsListener}.
+ *
+ * <p>This class is thread safe.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StreamMetrics implements StreamMetricsMXBean {
+
+    /** The number of buckets in each timing histogram */
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private String name;
+    private boolean histogramsEnabled;
+
+    private AtomicLong recordsRead = new AtomicLong();
+    private AtomicLong recordsWritten = new AtomicLong();
+    private AtomicLong recordsFiltered = new AtomicLong();
+    private AtomicLong charactersRead = new AtomicLong();
+    private AtomicLong charactersWritten = new AtomicLong();
+    private AtomicLong errors = new AtomicLong();
+    private ConcurrentMap<String,AtomicLong> recordsReadByName = new ConcurrentHashMap<String,AtomicLong>();
+    private ConcurrentMap<String,AtomicLong> recordsWrittenByName = new ConcurrentHashMap<String,AtomicLong>();
+    private ConcurrentMap<String,AtomicLong> recordsFilteredByName = new ConcurrentHashMap<String,AtomicLong>();
+    private ConcurrentMap<String,AtomicLong> errorsByRule = new ConcurrentHashMap<String,AtomicLong>();
+    private AtomicLongArray phaseTimeNanos = new AtomicLongArray(PHASES.length);
+    private AtomicLongArray phaseSamples = new AtomicLongArray(PHASES.length);
+    private ConcurrentMap<String,AtomicLongArray> histograms = new ConcurrentHashMap<String,AtomicLongArray>();
+
+    /**
+     * Constructs a new <tt>StreamMetrics</tt>.
+     * @param name the stream name
+     * @param histogramsEnabled whether to collect a timing histogram for each
+     *   phase and component
+     */
+    public StreamMetrics(String name, boolean histogramsEnabled) {
+        this.name = name;
+        this.histogramsEnabled = histogramsEnabled;
+    }
+
+    /**
+     * Returns the stream name.
+     * @return the stream name
+     */
+    public String getName() {
+        return name;
+    }
+
+    void recordRead(String recordName) {
+        recordsRead.incrementAndGet();
+        increment(recordsReadByName, recordName);
+    }
+
+    void recordFiltered(String recordName) {
+        recordsFiltered.incrementAndGet();
+        increment(recordsFilteredByName, recordName);
+    }
+
+    void recordWritten(String recordName) {
+        recordsWritten.incrementAndGet();
+        increment(recordsWrittenByName, recordName);
+    }
+
+    void charactersRead(int count) {
+        charactersRead.addAndGet(count);
+    }
+
+    void charactersWritten(int count) {
+        charactersWritten.addAndGet(count);
+    }
+
+    void error(String rule) {
+        errors.incrementAndGet();
+        increment(errorsByRule, rule);
+    }
+
+    void timing(Phase phase, String componentName, long nanos) {
+        phaseTimeNanos.addAndGet(phase.ordinal(), nanos);
+        phaseSamples.incrementAndGet(phase.ordinal());
+
+        if (histogramsEnabled) {
+            String key = componentName == null ? phase.name() : phase.name() + ":" + componentName;
+            AtomicLongArray histogram = histograms.get(key);
+            if (histogram == null) {
+                histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+                AtomicLongArray existing = histograms.putIfAbsent(key, histogram);
+                if (existing != null) {
+                    histogram = existing;
+                }
+            }
+            int bucket = 64 - Long.numberOfLeadingZeros(nanos / 1000);
+            histogram.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsRead()
+     */
+    public long getRecordsRead() {
+        return recordsRead.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsFiltered()
+     */
+    public long getRecordsFiltered() {
+        return recordsFiltered.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsWritten()
+     */
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getCharactersRead()
+     */
+    public long getCharactersRead() {
+        return charactersRead.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getCharactersWritten()
+     */
+    public long getCharactersWritten() {
+        return charactersWritten.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getErrors()
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsReadByName()
+     */
+    public Map<String,Long> getRecordsReadByName() {
+        return toMap(recordsReadByName);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsWrittenByName()
+     */
+    public Map<String,Long> getRecordsWrittenByName() {
+        return toMap(recordsWrittenByName);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getRecordsFilteredByName()
+     */
+    public Map<String,Long> getRecordsFilteredByName() {
+        return toMap(recordsFilteredByName);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getErrorsByRule()
+     */
+    public Map<String,Long> getErrorsByRule() {
+        return toMap(errorsByRule);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getPhaseTimeNanos()
+     */
+    public Map<String,Long> getPhaseTimeNanos() {
+        return toMap(phaseTimeNanos);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getPhaseSamples()
+     */
+    public Map<String,Long> getPhaseSamples() {
+        return toMap(phaseSamples);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#getHistograms()
+     */
+    public Map<String,long[]> getHistograms() {
+        Map<String,long[]> map = new TreeMap<String,long[]>();
+        for (Map.Entry<String,AtomicLongArray> entry : histograms.entrySet()) {
+            AtomicLongArray histogram = entry.getValue();
+            long[] buckets = new long[histogram.length()];
+            for (int i=0; i<buckets.length; i++) {
+                buckets[i] = histogram.get(i);
+            }
+            map.put(entry.getKey(), buckets);
+        }
+        return map;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.metrics.StreamMetricsMXBean#reset()
+     */
+    public void reset() {
+        recordsRead.set(0);
+        recordsWritten.set(0);
+        recordsFiltered.set(0);
+        charactersRead.set(0);
+        charactersWritten.set(0);
+        errors.set(0);
+        recordsReadByName.clear();
+        recordsWrittenByName.clear();
+        recordsFilteredByName.clear();
+        errorsByRule.clear();
+        for (int i=0; i<PHASES.length; i++) {
+            phaseTimeNanos.set(i, 0);
+            phaseSamples.set(i, 0);
+        }
+        histograms.clear();
+    }
+
+    private static void increment(ConcurrentMap<String,AtomicLong> map, String key) {
+        if (key == null) {
+            key = "";
+        }
+        AtomicLong counter = map.get(key);
+        if (counter == null) {
+            counter = new AtomicLong();
+            AtomicLong existing = map.putIfAbsent(key, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private static Map<String,Long> toMap(ConcurrentMap<String,AtomicLong> counters) {
+        Map<String,Long> map = new TreeMap<String,Long>();
+        for (Map.Entry<String,AtomicLong> entry : counters.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().get());
+        }
+        return map;
+    }
+
+    private static Map<String,Long> toMap(AtomicLongArray counters) {
+        Map<String,Long> map = new LinkedHashMap<String,Long>();
+        for (Phase phase : PHASES) {
+            map.put(phase.name(), counters.get(phase.ordinal()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface for the metrics collected for a stream by a
+ * {@link JmxMetricsListener}.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public interface StreamMetricsMXBean {
+
+    /**
+     * Returns the number of records read.
+     * @return the number of records read
+     */
+    public long getRecordsRead();
+
+    /**
+     * Returns the number of records written.
+     * @return the number of records written
+     */
+    public long getRecordsWritten();
+
+    /**
+     * Returns the number of records skipped because they were rejected by a record filter.
+     * @return the number of records filtered
+     */
+    public long getRecordsFiltered();
+
+    /**
+     * Returns the number of characters read from input streams.
+     * @return the number of characters read
+     */
+    public long getCharactersRead();
+
+    /**
+     * Returns the number of characters written to output streams.
+     * @return the number of characters written
+     */
+    public long getCharactersWritten();
+
+    /**
+     * Returns the total number of field and record errors.
+     * @return the number of errors
+     */
+    public long getErrors();
+
+    /**
+     * Returns the number of records read keyed by record name.
+     * @return the map of record name to record count
+     */
+    public Map<String,Long> getRecordsReadByName();
+
+    /**
+     * Returns the number of records written keyed by record name.
+     * @return the map of record name to record count
+     */
+    public Map<String,Long> getRecordsWrittenByName();
+
+    /**
+     * Returns the number of records rejected by a record filter keyed by record name.
+     * @return the map of record name to record count
+     */
+    public Map<String,Long> getRecordsFilteredByName();
+
+    /**
+     * Returns the number of field and record errors keyed by the name of the
+     * failed validation rule.
+     * @return the map of rule name to error count
+     */
+    public Map<String,Long> getErrorsByRule();
+
+    /**
+     * Returns the total time spent in each {@link Phase} by sampled records,
+     * keyed by phase name.
+     * @return the map of phase name to elapsed nanoseconds
+     */
+    public Map<String,Long> getPhaseTimeNanos();
+
+    /**
+     * Returns the number of timings reported for each {@link Phase}, keyed by phase name.
+     * @return the map of phase name to sample count
+     */
+    public Map<String,Long> getPhaseSamples();
+
+    /**
+     * Returns a histogram of sampled timings for each phase and component, keyed by
+     * the phase name followed by a colon and the component name.  Bucket 0 counts
+     * timings under 1 microsecond, and bucket <tt>i</tt> counts timings of at
+     * least 2<sup>i-1</sup> and less than 2<sup>i</sup> microseconds.  The last
+     * bucket also counts longer timings.
+     * @return the map of phase and component name to histogram buckets, which
+     *   is empty if histograms are disabled
+     */
+    public Map<String,long[]> getHistograms();
+
+    /**
+     * Resets all metrics to zero.
+     */
+    public void reset();
+
+}
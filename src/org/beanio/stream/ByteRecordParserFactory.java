@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.stream;
+
+import java.io.*;
+
+/**
+ * A {@link RecordParserFactory} that can also create record parsers for byte oriented
+ * input and output streams.  Record parsers created by other factories read and write
+ * bytes using the default character set.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see org.beanio.StreamFactory#createReader(String, InputStream)
+ * @see org.beanio.StreamFactory#createWriter(String, OutputStream)
+ */
+public interface ByteRecordParserFactory extends RecordParserFactory {
+
+    /**
+     * Creates a parser for reading records from a byte input stream.
+     * @param in the input stream to read from
+     * @return the created {@link RecordReader}
+     * @throws IllegalArgumentException if this factory is improperly configured
+     *   and a {@link RecordReader} cannot be created
+     */
+    public RecordReader createReader(InputStream in) throws IllegalArgumentException;
+
+    /**
+     * Creates a parser for writing records to a byte output stream.
+     * @param out the output stream to write to
+     * @return the new {@link RecordWriter}
+     * @throws IllegalArgumentException if this factory is improperly configured
+     *   and a {@link RecordWriter} cannot be created
+     */
+    public RecordWriter createWriter(OutputStream out) throws IllegalArgumentException;
+
+}
@@ -63,6 +63,7 @@ public class CsvReader implements RecordReader {
     private transient int lineNumber = 0;
     private transient boolean skipLF = false;
     private transient List<String> fieldList = new ArrayList<String>();
+    private transient int fieldLimit = -1;
     
     /**
      * Constructs a new <tt>CsvReader</tt>.
@@ -217,7 +218,7 @@ public class CsvReader implements RecordReader {
                 }
 
                 if (escapeChar == endQuote) {
-                    fieldList.add(field.toString());
+                    addField(field);
                     field = new StringBuilder();
                     state = 10;
                 }
@@ -264,7 +265,7 @@ public class CsvReader implements RecordReader {
                     escaped = true;
                 }
                 else if (c == endQuote) {
-                    fieldList.add(field.toString());
+                    addField(field);
                     field = new StringBuilder();
                     state = 10; // look for next delimiter
                 }
@@ -288,7 +289,7 @@ public class CsvReader implements RecordReader {
 
             case 2: // unquoted field, look for next delimiter
                 if (c == delim) {
-                    fieldList.add(field.toString());
+                    addField(field);
                     field = new StringBuilder();
                     state = 0;
                 }
@@ -298,13 +299,13 @@ public class CsvReader implements RecordReader {
                         "Quotation character '" + quote + "' must be quoted at line " + lineNumber);
                 }
                 else if (c == '\n') {
-                    fieldList.add(field.toString());
+                    addField(field);
                     field = new StringBuilder();
                     eol = true;
                 }
                 else if (c == '\r') {
                     skipLF = true;
-                    fieldList.add(field.toString());
+                    addField(field);
                     field = new StringBuilder();
                     eol = true;
                 }
@@ -352,7 +353,7 @@ public class CsvReader implements RecordReader {
         // handle escaped mode
         if (escaped) {
             if (escapeChar == endQuote) {
-                fieldList.add(field.toString());
+                addField(field);
                 state = 10;
             } /* unreachable code:
               else {
@@ -375,7 +376,7 @@ public class CsvReader implements RecordReader {
             throw new RecordIOException(
                 "Expected end quote before end of line at line " + lineNumber);
         case 2:
-            fieldList.add(field.toString());
+            addField(field);
             break;
         case 10:
             break;
@@ -426,6 +427,42 @@ public class CsvReader implements RecordReader {
         fieldList = null;
     }
 
+    /**
+     * Sets the maximum number of fields to return the text of.  Fields beyond the
+     * limit are still parsed, but their values are returned as <tt>null</tt>, which
+     * avoids creating strings for fields that will not be used.  The length of the
+     * returned array is not affected.
+     * @param fieldLimit the maximum number of fields to return the text of,
+     *   or -1 for no limit
+     * @since 3.0
+     */
+    public void setFieldLimit(int fieldLimit) {
+        this.fieldLimit = fieldLimit;
+    }
+    
+    /**
+     * Returns the maximum number of fields to return the text of.
+     * @return the field limit, or -1 if there is no limit
+     * @since 3.0
+     */
+    public int getFieldLimit() {
+        return fieldLimit;
+    }
+    
+    /**
+     * Adds a parsed field to the field list, or <tt>null</tt> if the field
+     * is beyond the field limit.
+     * @param field the parsed field text
+     */
+    private void addField(StringBuilder field) {
+        if (fieldLimit >= 0 && fieldList.size() >= fieldLimit) {
+            fieldList.add(null);
+        }
+        else {
+            fieldList.add(field.toString());
+        }
+    }
+    
     /*
      * (non-Javadoc)
      * @see org.beanio.stream.RecordReader#close()
@@ -69,6 +69,7 @@ public class DelimitedReader implements RecordReader {
     private transient int lineNumber = 0;
     private transient boolean skipLF = false;
     private transient List<String> fieldList = new ArrayList<String>();
+    private transient int fieldLimit = -1;
 
     /**
      * Constructs a new <tt>DelimitedReader</tt> using a tab character for
@@ -275,11 +276,11 @@ public class DelimitedReader implements RecordReader {
                 continued = true;
             }
             else if (c == delim) {
-                fieldList.add(field.toString());
+                addField(field);
                 field = new StringBuilder();
             }
             else if (endOfRecord(c, true)) {
-                fieldList.add(field.toString());
+                addField(field);
                 eol = true;
             }
             else {
@@ -312,7 +313,7 @@ public class DelimitedReader implements RecordReader {
         }
 
         if (text.length() > 0) {
-            fieldList.add(field.toString());
+            addField(field);
 
             String[] record = new String[fieldList.size()];
             record = fieldList.toArray(record);
@@ -351,6 +352,42 @@ public class DelimitedReader implements RecordReader {
         }
     }
     
+    /**
+     * Sets the maximum number of fields to return the text of.  Fields beyond the
+     * limit are still parsed, but their values are returned as <tt>null</tt>, which
+     * avoids creating strings for fields that will not be used.  The length of the
+     * returned array is not affected.
+     * @param fieldLimit the maximum number of fields to return the text of,
+     *   or -1 for no limit
+     * @since 3.0
+     */
+    public void setFieldLimit(int fieldLimit) {
+        this.fieldLimit = fieldLimit;
+    }
+    
+    /**
+     * Returns the maximum number of fields to return the text of.
+     * @return the field limit, or -1 if there is no limit
+     * @since 3.0
+     */
+    public int getFieldLimit() {
+        return fieldLimit;
+    }
+    
+    /**
+     * Adds a parsed field to the field list, or <tt>null</tt> if the field
+     * is beyond the field limit.
+     * @param field the parsed field text
+     */
+    private void addField(StringBuilder field) {
+        if (fieldLimit >= 0 && fieldList.size() >= fieldLimit) {
+            fieldList.add(null);
+        }
+        else {
+            fieldList.add(field.toString());
+        }
+    }
+    
     /*
      * (non-Javadoc)
      * @see org.beanio.stream.RecordReader#close()
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.stream.fixedlength;
+
+/**
+ * Stores configuration settings for parsing fixed length formatted byte streams,
+ * such as mainframe datasets with a fixed block record format.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class FixedLengthByteParserConfiguration {
+
+    /** The default code page, EBCDIC US/Canada */
+    public static final String DEFAULT_ENCODING = "IBM037";
+
+    private int recordLength = 0;
+    private String encoding = DEFAULT_ENCODING;
+
+    /**
+     * Constructs a new <tt>FixedLengthByteParserConfiguration</tt>.
+     */
+    public FixedLengthByteParserConfiguration() { }
+
+    /**
+     * Returns the length of every record in bytes.
+     * @return the record length
+     */
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * Sets the length of every record in bytes.  Records are not terminated, and a
+     * record length must be set to read them.
+     * @param recordLength the record length
+     */
+    public void setRecordLength(int recordLength) {
+        this.recordLength = recordLength;
+    }
+
+    /**
+     * Returns the single byte character set used to decode and encode records.
+     * By default, <tt>IBM037</tt> is used.
+     * @return the character set name
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Sets the single byte character set used to decode and encode records.  Every byte
+     * of a record is decoded as one character, so that binary fields can be decoded
+     * by a type handler configured with the same encoding.
+     * @param encoding the character set name, or <tt>null</tt> to use <tt>IBM037</tt>
+     * @see org.beanio.internal.util.CodePage
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = encoding != null ? encoding : DEFAULT_ENCODING;
+    }
+}
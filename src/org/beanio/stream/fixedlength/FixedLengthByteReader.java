@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.stream.fixedlength;
+
+import java.io.*;
+
+import org.beanio.internal.util.CodePage;
+import org.beanio.stream.*;
+
+/**
+ * A <tt>FixedLengthByteReader</tt> is used to read unterminated records of a fixed
+ * number of bytes, such as a mainframe dataset with a fixed block record format.
+ * A record is represented using the {@link String} class, where each byte is decoded
+ * as exactly one character using a single byte code page, so that field positions and
+ * lengths are counted in bytes.
+ *
+ * <p>Binary fields, such as packed decimals, are decoded by type handlers configured
+ * with the same encoding.  When reading from a {@link Reader}, the characters must
+ * already have been decoded one per byte using the same code page.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see CodePage
+ */
+public class FixedLengthByteReader implements RecordReader {
+
+    private int recordLength;
+    private CodePage codePage;
+
+    private transient InputStream in;
+    private transient Reader reader;
+    private transient byte[] bytes;
+    private transient char[] chars;
+    private transient String recordText;
+    private transient int recordCount = 0;
+    private transient boolean eof = false;
+
+    /**
+     * Constructs a new <tt>FixedLengthByteReader</tt>.
+     * @param in the input stream to read from
+     * @param config the reader configuration settings
+     * @throws IllegalArgumentException if a configuration setting is invalid
+     */
+    public FixedLengthByteReader(InputStream in, FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        this(config);
+        this.in = in;
+        this.bytes = new byte[recordLength];
+    }
+
+    /**
+     * Constructs a new <tt>FixedLengthByteReader</tt> for reading characters that were
+     * decoded one per byte.
+     * @param in the input stream to read from
+     * @param config the reader configuration settings
+     * @throws IllegalArgumentException if a configuration setting is invalid
+     */
+    public FixedLengthByteReader(Reader in, FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        this(config);
+        this.reader = in;
+    }
+
+    private FixedLengthByteReader(FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        if (config.getRecordLength() <= 0) {
+            throw new IllegalArgumentException("recordLength must be greater than 0");
+        }
+        this.recordLength = config.getRecordLength();
+        this.codePage = CodePage.forName(config.getEncoding());
+        this.chars = new char[recordLength];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#read()
+     */
+    public String read() throws IOException, RecordIOException {
+        if (eof) {
+            recordText = null;
+            return null;
+        }
+
+        int length = 0;
+        if (in != null) {
+            int n;
+            while (length < recordLength && (n = in.read(bytes, length, recordLength - length)) != -1) {
+                length += n;
+            }
+            codePage.decode(bytes, 0, length, chars);
+        }
+        else {
+            int n;
+            while (length < recordLength && (n = reader.read(chars, length, recordLength - length)) != -1) {
+                length += n;
+            }
+        }
+
+        if (length == 0) {
+            eof = true;
+            recordText = null;
+            return null;
+        }
+
+        ++recordCount;
+        recordText = new String(chars, 0, length);
+        if (length < recordLength) {
+            eof = true;
+            throw new RecordIOException("Unexpected end of stream after " + length + " of " +
+                recordLength + " bytes of record " + recordCount);
+        }
+        return recordText;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordLineNumber()
+     */
+    public int getRecordLineNumber() {
+        return recordText == null ? -1 : 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#getRecordText()
+     */
+    public String getRecordText() {
+        return recordText;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordReader#close()
+     */
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        else {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.stream.fixedlength;
+
+import java.io.*;
+
+import org.beanio.internal.util.CodePage;
+import org.beanio.stream.*;
+
+/**
+ * A {@link RecordParserFactory} for the fixed length stream format that reads and writes
+ * unterminated records of a fixed number of bytes, such as EBCDIC encoded mainframe datasets.
+ * Records should be read and written using a byte stream, for example, using
+ * {@link org.beanio.StreamFactory#createReader(String, InputStream)}.
+ *
+ * <p>This factory can be configured in a mapping file as follows:</p>
+ * <pre>
+ * &lt;stream name="accounts" format="fixedlength"&gt;
+ *   &lt;parser class="org.beanio.stream.fixedlength.FixedLengthByteRecordParserFactory"&gt;
+ *     &lt;property name="recordLength" value="80" /&gt;
+ *     &lt;property name="encoding" value="IBM037" /&gt;
+ *   &lt;/parser&gt;
+ *   ...
+ * &lt;/stream&gt;</pre>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see org.beanio.types.PackedDecimalTypeHandler
+ * @see org.beanio.types.ZonedDecimalTypeHandler
+ * @see org.beanio.types.BinaryIntegerTypeHandler
+ */
+public class FixedLengthByteRecordParserFactory extends FixedLengthByteParserConfiguration implements ByteRecordParserFactory {
+
+    private static FixedLengthRecordParser parser = new FixedLengthRecordParser();
+
+    /**
+     * Constructs a new <tt>FixedLengthByteRecordParserFactory</tt>.
+     */
+    public FixedLengthByteRecordParserFactory() { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordParserFactory#init()
+     */
+    public void init() throws IllegalArgumentException {
+        if (getRecordLength() <= 0) {
+            throw new IllegalArgumentException("recordLength must be greater than 0");
+        }
+        CodePage.forName(getEncoding());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.ByteRecordParserFactory#createReader(java.io.InputStream)
+     */
+    public RecordReader createReader(InputStream in) throws IllegalArgumentException {
+        return new FixedLengthByteReader(in, this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordParserFactory#createReader(java.io.Reader)
+     */
+    public RecordReader createReader(Reader in) throws IllegalArgumentException {
+        return new FixedLengthByteReader(in, this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.ByteRecordParserFactory#createWriter(java.io.OutputStream)
+     */
+    public RecordWriter createWriter(OutputStream out) throws IllegalArgumentException {
+        return new FixedLengthByteWriter(out, this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordParserFactory#createWriter(java.io.Writer)
+     */
+    public RecordWriter createWriter(Writer out) throws IllegalArgumentException {
+        return new FixedLengthByteWriter(out, this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordParserFactory#createMarshaller()
+     */
+    public RecordMarshaller createMarshaller() throws IllegalArgumentException {
+        return parser;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordParserFactory#createUnmarshaller()
+     */
+    public RecordUnmarshaller createUnmarshaller() throws IllegalArgumentException {
+        return parser;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.stream.fixedlength;
+
+import java.io.*;
+
+import org.beanio.internal.util.CodePage;
+import org.beanio.stream.*;
+
+/**
+ * A <tt>FixedLengthByteWriter</tt> is used to write unterminated records of a fixed
+ * number of bytes, where each character of a record is encoded as exactly one byte
+ * using a single byte code page.  Records shorter than the record length are padded
+ * with spaces.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see FixedLengthByteReader
+ */
+public class FixedLengthByteWriter implements RecordWriter {
+
+    private int recordLength;
+    private CodePage codePage;
+
+    private OutputStream out;
+    private Writer writer;
+    private byte[] bytes;
+
+    /**
+     * Constructs a new <tt>FixedLengthByteWriter</tt>.
+     * @param out the output stream to write to
+     * @param config the writer configuration settings
+     * @throws IllegalArgumentException if a configuration setting is invalid
+     */
+    public FixedLengthByteWriter(OutputStream out, FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        this(config);
+        this.out = out;
+        this.bytes = new byte[recordLength];
+    }
+
+    /**
+     * Constructs a new <tt>FixedLengthByteWriter</tt> for writing characters that will
+     * be encoded one per byte.
+     * @param out the output stream to write to
+     * @param config the writer configuration settings
+     * @throws IllegalArgumentException if a configuration setting is invalid
+     */
+    public FixedLengthByteWriter(Writer out, FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        this(config);
+        this.writer = out;
+    }
+
+    private FixedLengthByteWriter(FixedLengthByteParserConfiguration config) throws IllegalArgumentException {
+        if (config.getRecordLength() <= 0) {
+            throw new IllegalArgumentException("recordLength must be greater than 0");
+        }
+        this.recordLength = config.getRecordLength();
+        this.codePage = CodePage.forName(config.getEncoding());
+        if (codePage.toByte(' ') < 0) {
+            throw new IllegalArgumentException("Encoding '" + config.getEncoding() + "' does not map the space character");
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordWriter#write(java.lang.Object)
+     */
+    public void write(Object value) throws IOException, RecordIOException {
+        String text = value.toString();
+        int length = text.length();
+        if (length > recordLength) {
+            throw new RecordIOException("Record length " + length + " exceeds " + recordLength + " bytes");
+        }
+
+        if (out != null) {
+            int index = codePage.encode(text, bytes);
+            if (index >= 0) {
+                throw new RecordIOException("Character '" + text.charAt(index) + "' at position " +
+                    (index + 1) + " cannot be encoded using " + codePage.getName());
+            }
+            if (length < recordLength) {
+                byte space = (byte) codePage.toByte(' ');
+                for (int i=length; i<recordLength; i++) {
+                    bytes[i] = space;
+                }
+            }
+            out.write(bytes);
+        }
+        else {
+            writer.write(text);
+            for (int i=length; i<recordLength; i++) {
+                writer.write(' ');
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordWriter#flush()
+     */
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+        else {
+            writer.flush();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.stream.RecordWriter#close()
+     */
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        else {
+            writer.close();
+        }
+    }
+}
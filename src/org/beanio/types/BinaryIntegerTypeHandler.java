@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types;
+
+/**
+ * A type handler for big endian binary integer (COBOL <tt>COMP</tt> or <tt>COMP-4</tt>)
+ * fields of 1 to 8 bytes.  Signed values use two's complement.  The length defaults
+ * to 4 bytes.
+ *
+ * <p>Because any byte of a binary integer may match the padding character, fields using
+ * this type handler should be configured with <tt>keepPadding="true"</tt>.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class BinaryIntegerTypeHandler extends EncodedNumberTypeHandler {
+
+    /**
+     * Constructs a new <tt>BinaryIntegerTypeHandler</tt>.
+     */
+    public BinaryIntegerTypeHandler() {
+        setLength(4);
+    }
+
+    @Override
+    protected long decode(String text) throws TypeConversionException {
+        int length = text.length();
+        if (length > 8) {
+            throw new TypeConversionException("Binary integer " + toHex(text) + " exceeds 8 bytes");
+        }
+
+        long value = 0;
+        for (int i=0; i<length; i++) {
+            value = (value << 8) | toByte(text, i);
+        }
+        if (isSigned()) {
+            // extend the sign bit
+            int shift = 64 - length * 8;
+            value = (value << shift) >> shift;
+        }
+        else if (value < 0) {
+            throw new TypeConversionException("Binary integer " + toHex(text) + " out of range");
+        }
+        return value;
+    }
+
+    @Override
+    protected String encode(long value) throws IllegalArgumentException {
+        int length = getLength();
+        if (length < 8) {
+            int bits = length * 8;
+            long min = isSigned() ? -(1L << (bits - 1)) : 0;
+            long max = isSigned() ? (1L << (bits - 1)) - 1 : (1L << bits) - 1;
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("Value " + value + " exceeds " + length + " bytes");
+            }
+        }
+
+        char[] c = new char[length];
+        for (int i=length-1; i>=0; i--) {
+            c[i] = toChar((int) (value & 0xFF));
+            value >>= 8;
+        }
+        return new String(c);
+    }
+
+    @Override
+    public void setLength(int length) {
+        if (length < 1 || length > 8) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        super.setLength(length);
+    }
+}
@@ -35,10 +35,11 @@ public abstract class DateTypeHandlerSupport extends LocaleSupport implements Co
     protected boolean lenient = false;
     protected TimeZone timeZone = null;
     
-    // the same format instance can be reused if this type handler is not shared
-    // by multiple unmarshallers/marshallers, this can lead to significant
-    // performance improvements when parsing many records
-    private transient DateFormat format;
+    // a format instance can be reused by the same thread, which can lead to
+    // significant performance improvements when parsing many records, but
+    // DateFormat is not thread safe and this type handler may be shared by
+    // parallel marshallers
+    private transient ThreadLocal<DateFormat> format;
     
     /**
      * Constructs a new AbstractDateTypeHandler.
@@ -81,7 +82,7 @@ public abstract class DateTypeHandlerSupport extends LocaleSupport implements Co
     }
     
     private DateFormat getFormat() {
-        return this.format != null ? this.format : createDateFormat();
+        return this.format != null ? this.format.get() : createDateFormat();
     }
     
     /**
@@ -128,7 +129,7 @@ public abstract class DateTypeHandlerSupport extends LocaleSupport implements Co
             handler.setPattern(pattern);
             handler.lenient = this.lenient;
             handler.timeZone = this.timeZone;
-            handler.format = handler.createDateFormat();
+            handler.format = handler.new FormatLocal();
             return handler;
         }
         catch (CloneNotSupportedException e) {
@@ -211,4 +212,14 @@ public abstract class DateTypeHandlerSupport extends LocaleSupport implements Co
     public void setLenient(boolean lenient) {
         this.lenient = lenient;
     }
+    
+    /**
+     * Lazily creates a <tt>DateFormat</tt> for each thread using this type handler.
+     */
+    private class FormatLocal extends ThreadLocal<DateFormat> {
+        @Override
+        protected DateFormat initialValue() {
+            return createDateFormat();
+        }
+    }
 }
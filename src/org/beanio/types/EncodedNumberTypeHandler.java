@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types;
+
+import java.math.*;
+
+import org.beanio.internal.util.*;
+
+/**
+ * Base class for type handlers that parse numbers encoded in the bytes of a field,
+ * such as COBOL packed decimal, zoned decimal and binary fields.
+ *
+ * <p>Field text is expected to have been decoded one character per byte using a single
+ * byte code page, for example by a {@link org.beanio.stream.fixedlength.FixedLengthByteReader}
+ * configured with the same encoding.  Each character is mapped back to its byte and the number
+ * is computed directly from the bytes, so a number is never formatted as, or parsed from,
+ * decimal text.</p>
+ *
+ * <p>A number is encoded as an unscaled <tt>long</tt> value.  By default, numbers are
+ * parsed into a <tt>BigDecimal</tt> with the configured scale (i.e. the number of implied
+ * decimal places).  If <tt>numberType</tt> is set to <tt>int</tt> or <tt>long</tt>,
+ * the unscaled value is returned instead.</p>
+ *
+ * <p>Because the last byte of a binary field may match the padding character of a fixed
+ * length field, fields using this type handler should be configured with
+ * <tt>keepPadding="true"</tt> unless the encoding never ends with a space.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ * @see org.beanio.internal.util.CodePage
+ */
+public abstract class EncodedNumberTypeHandler implements TypeHandler {
+
+    private CodePage codePage = CodePage.forName("IBM037");
+    private int length;
+    private int scale;
+    private boolean signed = true;
+    private Class<?> type = BigDecimal.class;
+
+    /**
+     * Constructs a new <tt>EncodedNumberTypeHandler</tt>.
+     */
+    public EncodedNumberTypeHandler() { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#parse(java.lang.String)
+     */
+    public Object parse(String text) throws TypeConversionException {
+        if (text == null || "".equals(text)) {
+            return null;
+        }
+
+        long value = decode(text);
+        if (type == Long.class) {
+            return value;
+        }
+        else if (type == Integer.class) {
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new TypeConversionException("Integer value " + value + " out of range");
+            }
+            return (int) value;
+        }
+        else {
+            return BigDecimal.valueOf(value, scale);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#format(java.lang.Object)
+     */
+    public String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        long unscaled;
+        if (value instanceof BigDecimal) {
+            BigInteger bi;
+            try {
+                bi = ((BigDecimal) value).setScale(scale).unscaledValue();
+            }
+            catch (ArithmeticException ex) {
+                throw new IllegalArgumentException("Value " + value + " exceeds scale " + scale);
+            }
+            if (bi.bitLength() > 63) {
+                throw new IllegalArgumentException("Value " + value + " out of range");
+            }
+            unscaled = bi.longValue();
+        }
+        else {
+            unscaled = ((Number) value).longValue();
+        }
+        if (unscaled < 0 && !signed) {
+            throw new IllegalArgumentException("Negative value " + value + " not supported by unsigned field");
+        }
+        return encode(unscaled);
+    }
+
+    /**
+     * Decodes field text into an unscaled value.
+     * @param text the field text to decode, which is never null or empty
+     * @return the unscaled value
+     * @throws TypeConversionException if the text is not a valid encoding
+     */
+    protected abstract long decode(String text) throws TypeConversionException;
+
+    /**
+     * Encodes an unscaled value into field text.
+     * @param value the unscaled value
+     * @return the field text
+     * @throws IllegalArgumentException if the value cannot be encoded in the configured length
+     */
+    protected abstract String encode(long value) throws IllegalArgumentException;
+
+    /**
+     * Returns the byte value of a character of field text.
+     * @param text the field text
+     * @param index the index of the character
+     * @return the byte value from 0 to 255
+     * @throws TypeConversionException if the character is not mapped by the code page
+     */
+    protected int toByte(String text, int index) throws TypeConversionException {
+        int b = codePage.toByte(text.charAt(index));
+        if (b < 0) {
+            throw new TypeConversionException("Character '" + text.charAt(index) +
+                "' is not mapped by encoding " + codePage.getName());
+        }
+        return b;
+    }
+
+    /**
+     * Returns the character of field text for a byte value.
+     * @param b the byte value
+     * @return the character
+     */
+    protected char toChar(int b) {
+        return codePage.toChar(b);
+    }
+
+    /**
+     * Returns field text formatted as hexadecimal bytes for error messages.
+     * @param text the field text
+     * @return the hexadecimal text
+     */
+    protected String toHex(String text) {
+        StringBuilder s = new StringBuilder("X'");
+        for (int i=0,j=text.length(); i<j; i++) {
+            int b = codePage.toByte(text.charAt(i));
+            if (b < 0) {
+                s.append("??");
+            }
+            else {
+                s.append(Character.toUpperCase(Character.forDigit(b >> 4, 16)));
+                s.append(Character.toUpperCase(Character.forDigit(b & 0x0F, 16)));
+            }
+        }
+        return s.append("'").toString();
+    }
+
+    /**
+     * Returns the name of the single byte character set used to map field text to bytes.
+     * @return the character set name
+     */
+    public String getEncoding() {
+        return codePage.getName();
+    }
+
+    /**
+     * Sets the single byte character set used to map field text to bytes, which must
+     * match the encoding used to read and write records.  By default, <tt>IBM037</tt> is used.
+     * @param encoding the character set name
+     * @throws IllegalArgumentException if the encoding is not a single byte character set
+     */
+    public void setEncoding(String encoding) throws IllegalArgumentException {
+        this.codePage = CodePage.forName(encoding);
+    }
+
+    /**
+     * Returns the number of bytes of formatted field text.
+     * @return the field length in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the number of bytes of formatted field text, which should match the field length.
+     * @param length the field length in bytes
+     */
+    public void setLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of implied decimal places.
+     * @return the scale
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets the number of implied decimal places of a <tt>BigDecimal</tt> value.  The scale
+     * is ignored if <tt>numberType</tt> is <tt>int</tt> or <tt>long</tt>.
+     * @param scale the scale
+     */
+    public void setScale(int scale) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("Invalid scale: " + scale);
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Returns whether negative values are supported.
+     * @return <tt>true</tt> if signed
+     */
+    public boolean isSigned() {
+        return signed;
+    }
+
+    /**
+     * Sets whether negative values are supported.  Defaults to <tt>true</tt>.
+     * @param signed <tt>true</tt> if signed
+     */
+    public void setSigned(boolean signed) {
+        this.signed = signed;
+    }
+
+    /**
+     * Returns the Java type parsed by this type handler.
+     * @return <tt>int</tt>, <tt>long</tt>, or <tt>BigDecimal</tt>
+     */
+    public String getNumberType() {
+        return type == BigDecimal.class ? "BigDecimal" : type == Long.class ? "long" : "int";
+    }
+
+    /**
+     * Sets the Java type parsed by this type handler.  Defaults to <tt>BigDecimal</tt>.
+     * @param numberType <tt>int</tt>, <tt>long</tt>, or <tt>BigDecimal</tt>
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    public void setNumberType(String numberType) throws IllegalArgumentException {
+        Class<?> type = TypeUtil.toType(getClass().getClassLoader(), numberType);
+        if (type != BigDecimal.class && type != Long.class && type != Integer.class) {
+            throw new IllegalArgumentException("Invalid numberType '" + numberType + "'");
+        }
+        this.type = type;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#getType()
+     */
+    public Class<?> getType() {
+        return type;
+    }
+}
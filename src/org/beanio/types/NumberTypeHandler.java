@@ -33,10 +33,11 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
 
     private String pattern;
     
-    // the same format instance can be reused if this type handler is not shared
-    // by multiple unmarshallers/marshallers, this can lead to significant
-    // performance improvements if parsing thousands of records
-    private transient DecimalFormat format;
+    // a format instance can be reused by the same thread, which can lead to
+    // significant performance improvements if parsing thousands of records,
+    // but DecimalFormat is not thread safe and this type handler may be shared
+    // by parallel marshallers
+    private transient ThreadLocal<DecimalFormat> format;
     
     /**
      * Parses a <tt>Number</tt> from the given text.
@@ -63,11 +64,7 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
         }
         else {
             // create a DecimaFormat for parsing the number
-            DecimalFormat df = format;
-            if (df == null) {
-                df = createDecimalFormat();
-                df.setParseBigDecimal(true);
-            }
+            DecimalFormat df = format != null ? format.get() : createParseFormat();
             
             // parse the number using the DecimalFormat
             ParsePosition pp = new ParsePosition(0);
@@ -122,8 +119,7 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
         try {
             NumberTypeHandler handler = (NumberTypeHandler) this.clone();
             handler.setPattern(pattern);
-            handler.format = handler.createDecimalFormat();
-            handler.format.setParseBigDecimal(true);
+            handler.format = handler.new FormatLocal();
             return handler;
         }
         catch (CloneNotSupportedException ex) {
@@ -131,6 +127,15 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
         }
     }
     
+    /*
+     * Creates a DecimalFormat for parsing (and formatting) BigDecimal values.
+     */
+    private DecimalFormat createParseFormat() {
+        DecimalFormat df = createDecimalFormat();
+        df.setParseBigDecimal(true);
+        return df;
+    }
+    
     /**
      * Creates a <tt>DecimalFormat</tt> for parsing and formatting the number value.
      * @return the new <tt>DecimalFormat</tt>
@@ -151,7 +156,7 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
         else if (pattern == null)
             return ((Number) value).toString();
         else if (format != null) 
-            return format.format(value);
+            return format.get().format(value);
         else
             return createDecimalFormat().format(value);
     }
@@ -184,4 +189,14 @@ public abstract class NumberTypeHandler extends LocaleSupport implements Configu
         
         this.pattern = pattern;
     }
+    
+    /**
+     * Lazily creates a <tt>DecimalFormat</tt> for each thread using this type handler.
+     */
+    private class FormatLocal extends ThreadLocal<DecimalFormat> {
+        @Override
+        protected DecimalFormat initialValue() {
+            return createParseFormat();
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types;
+
+/**
+ * A type handler for packed decimal (COBOL <tt>COMP-3</tt>) fields, where each byte holds
+ * two decimal digits and the low order 4 bits of the last byte hold the sign.  A sign of
+ * <tt>D</tt> or <tt>B</tt> is negative, and <tt>C</tt>, <tt>A</tt>, <tt>E</tt> or
+ * <tt>F</tt> is positive.  Values are formatted using a sign of <tt>C</tt> or <tt>D</tt>,
+ * or <tt>F</tt> if unsigned.
+ *
+ * <p>If a length is not set, values are formatted using the fewest bytes needed.  A field
+ * of <i>n</i> bytes holds up to <i>2n-1</i> digits, so that <tt>PIC S9(7)V99 COMP-3</tt>
+ * is mapped using a length of 5 and a scale of 2.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class PackedDecimalTypeHandler extends EncodedNumberTypeHandler {
+
+    /**
+     * Constructs a new <tt>PackedDecimalTypeHandler</tt>.
+     */
+    public PackedDecimalTypeHandler() { }
+
+    @Override
+    protected long decode(String text) throws TypeConversionException {
+        long value = 0;
+        int last = text.length() - 1;
+        for (int i=0; i<last; i++) {
+            int b = toByte(text, i);
+            value = append(value, b >> 4, text);
+            value = append(value, b & 0x0F, text);
+        }
+
+        int b = toByte(text, last);
+        value = append(value, b >> 4, text);
+        switch (b & 0x0F) {
+            case 0x0C:
+            case 0x0A:
+            case 0x0E:
+            case 0x0F:
+                return value;
+            case 0x0D:
+            case 0x0B:
+                return -value;
+            default:
+                throw new TypeConversionException("Invalid packed decimal sign " + toHex(text));
+        }
+    }
+
+    private long append(long value, int digit, String text) throws TypeConversionException {
+        if (digit > 9) {
+            throw new TypeConversionException("Invalid packed decimal digit " + toHex(text));
+        }
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+            throw new TypeConversionException("Packed decimal value " + toHex(text) + " out of range");
+        }
+        return value * 10 + digit;
+    }
+
+    @Override
+    protected String encode(long value) throws IllegalArgumentException {
+        if (value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Value " + value + " out of range");
+        }
+
+        int sign = !isSigned() ? 0x0F : value < 0 ? 0x0D : 0x0C;
+        long n = Math.abs(value);
+
+        int length = getLength();
+        if (length == 0) {
+            int digits = 1;
+            for (long v = n / 10; v > 0; v /= 10) {
+                ++digits;
+            }
+            length = digits / 2 + 1;
+        }
+
+        char[] c = new char[length];
+        c[length - 1] = toChar((int) (n % 10) << 4 | sign);
+        n /= 10;
+        for (int i=length-2; i>=0; i--) {
+            int lo = (int) (n % 10);
+            n /= 10;
+            int hi = (int) (n % 10);
+            n /= 10;
+            c[i] = toChar(hi << 4 | lo);
+        }
+        if (n != 0) {
+            throw new IllegalArgumentException("Value " + value + " exceeds " + length + " bytes");
+        }
+        return new String(c);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types;
+
+/**
+ * A type handler for EBCDIC zoned decimal (COBOL <tt>DISPLAY</tt>) fields, where each
+ * byte holds one decimal digit in its low order 4 bits, and the high order 4 bits of the
+ * last byte hold the sign.  A sign of <tt>D</tt> or <tt>B</tt> is negative, and any other
+ * sign is positive.  Values are formatted using a sign of <tt>C</tt> or <tt>D</tt>, or
+ * <tt>F</tt> if unsigned.
+ *
+ * <p>If a length is not set, values are formatted using the fewest digits needed.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ZonedDecimalTypeHandler extends EncodedNumberTypeHandler {
+
+    /**
+     * Constructs a new <tt>ZonedDecimalTypeHandler</tt>.
+     */
+    public ZonedDecimalTypeHandler() { }
+
+    @Override
+    protected long decode(String text) throws TypeConversionException {
+        long value = 0;
+        int b = 0;
+        for (int i=0,j=text.length(); i<j; i++) {
+            b = toByte(text, i);
+            if (i < j - 1 && (b >> 4) != 0x0F) {
+                throw new TypeConversionException("Invalid zoned decimal digit " + toHex(text));
+            }
+
+            int digit = b & 0x0F;
+            if (digit > 9) {
+                throw new TypeConversionException("Invalid zoned decimal digit " + toHex(text));
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw new TypeConversionException("Zoned decimal value " + toHex(text) + " out of range");
+            }
+            value = value * 10 + digit;
+        }
+
+        switch (b >> 4) {
+            case 0x0D:
+            case 0x0B:
+                return -value;
+            case 0x0C:
+            case 0x0A:
+            case 0x0E:
+            case 0x0F:
+                return value;
+            default:
+                throw new TypeConversionException("Invalid zoned decimal sign " + toHex(text));
+        }
+    }
+
+    @Override
+    protected String encode(long value) throws IllegalArgumentException {
+        if (value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Value " + value + " out of range");
+        }
+
+        int sign = !isSigned() ? 0x0F : value < 0 ? 0x0D : 0x0C;
+        long n = Math.abs(value);
+
+        int length = getLength();
+        if (length == 0) {
+            length = 1;
+            for (long v = n / 10; v > 0; v /= 10) {
+                ++length;
+            }
+        }
+
+        char[] c = new char[length];
+        c[length - 1] = toChar(sign << 4 | (int) (n % 10));
+        n /= 10;
+        for (int i=length-2; i>=0; i--) {
+            c[i] = toChar(0xF0 | (int) (n % 10));
+            n /= 10;
+        }
+        if (n != 0) {
+            throw new IllegalArgumentException("Value " + value + " exceeds " + length + " digits");
+        }
+        return new String(c);
+    }
+}
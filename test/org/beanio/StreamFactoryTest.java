@@ -18,7 +18,8 @@ package org.beanio;
 import static org.junit.Assert.*;
 
 import java.io.*;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.beanio.internal.DefaultStreamFactory;
 import org.junit.Test;
@@ -109,4 +110,71 @@ public class StreamFactoryTest {
         out.flush();
         out.close();
     }
+    
+    @Test
+    public void testCreateAsyncWriter() throws IOException {
+        StreamFactory factory = StreamFactory.newInstance();
+        factory.loadResource("org/beanio/mapping.xml");
+        
+        StringWriter text = new StringWriter();
+        BeanWriter out = factory.createAsyncWriter("stream1", text, 2, 1);
+        out.write("header", null);
+        out.flush();
+        assertEquals("H" + System.getProperty("line.separator"), text.toString());
+        out.write("trailer", null);
+        out.close();
+        assertEquals("H" + System.getProperty("line.separator") + "T" + 
+            System.getProperty("line.separator"), text.toString());
+    }
+    
+    @Test
+    public void testLazyCompilation() throws Exception {
+        final DefaultStreamFactory factory = (DefaultStreamFactory) StreamFactory.newInstance();
+        factory.setLazyCompilation(true);
+        
+        // the invalid stream is not compiled until used
+        factory.loadResource("org/beanio/lazyMapping.xml");
+        assertTrue(factory.isMapped("stream1"));
+        assertTrue(factory.isMapped("invalid"));
+        
+        // concurrent first use compiles the stream once
+        List<Callable<BeanReader>> tasks = new ArrayList<Callable<BeanReader>>();
+        for (int i=0; i<8; i++) {
+            tasks.add(new Callable<BeanReader>() {
+                public BeanReader call() {
+                    return factory.createReader("stream1", new StringReader("value"));
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<BeanReader> future : executor.invokeAll(tasks)) {
+                BeanReader in = future.get();
+                assertEquals("value", ((Map<?,?>) in.read()).get("field"));
+                in.close();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        
+        factory.precompile("stream1");
+        for (int i=0; i<2; i++) {
+            try {
+                factory.createReader("invalid", new StringReader(""));
+                fail("expected BeanIOConfigurationException");
+            }
+            catch (BeanIOConfigurationException ex) { }
+        }
+        try {
+            factory.precompile();
+            fail("expected BeanIOConfigurationException");
+        }
+        catch (BeanIOConfigurationException ex) { }
+        try {
+            factory.precompile("stream3");
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex) { }
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.config;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.internal.DefaultStreamFactory;
+import org.beanio.internal.compiler.StreamCompiler;
+import org.beanio.internal.config.*;
+import org.beanio.internal.config.xml.XmlConfigurationLoader;
+import org.beanio.internal.util.IOUtil;
+import org.junit.*;
+
+/**
+ * JUnit test cases for the {@link CachingConfigurationLoader}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CachingConfigurationLoaderTest {
+
+    private File directory;
+    private CountingLoader delegate;
+    private ClassLoader classLoader = getClass().getClassLoader();
+
+    @Before
+    public void setup() throws IOException {
+        directory = File.createTempFile("beanio", "");
+        directory.delete();
+        delegate = new CountingLoader(new XmlConfigurationLoader(classLoader));
+    }
+
+    @After
+    public void teardown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testCachedImport() throws IOException {
+        for (int i=0; i<2; i++) {
+            StreamFactory factory = newStreamFactory();
+            InputStream in = getClass().getResourceAsStream("import.xml");
+            try {
+                factory.load(in);
+            }
+            finally {
+                IOUtil.closeQuietly(in);
+            }
+
+            // the imported type handler is restored from the cache
+            BeanReader reader = factory.createReader("stream", new StringReader("010214"));
+            Map<?,?> map = (Map<?,?>) reader.read();
+            assertTrue(map.get("field") instanceof Date);
+            reader.close();
+        }
+        assertEquals(1, delegate.count);
+        assertEquals(1, directory.list().length);
+    }
+
+    @Test
+    public void testPropertiesChanged() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("name", "a");
+        load(getClass().getResourceAsStream("import.xml"), properties);
+        load(getClass().getResourceAsStream("import.xml"), properties);
+        assertEquals(1, delegate.count);
+
+        properties.setProperty("name", "b");
+        load(getClass().getResourceAsStream("import.xml"), properties);
+        assertEquals(2, delegate.count);
+    }
+
+    @Test
+    public void testImportedFileChanged() throws IOException {
+        File imported = File.createTempFile("beanio", ".xml");
+        try {
+            String mapping =
+                "<beanio xmlns=\"http://www.beanio.org/2012/03\">\n" +
+                "  <import resource=\"file:" + imported.getAbsolutePath() + "\" />\n" +
+                "  <stream name=\"s\" format=\"csv\">\n" +
+                "    <record name=\"r\" class=\"map\">\n" +
+                "      <field name=\"f\" typeHandler=\"h\" />\n" +
+                "    </record>\n" +
+                "  </stream>\n" +
+                "</beanio>";
+
+            writeHandler(imported, "MMddyy");
+            assertEquals("MMddyy", loadPattern(mapping));
+            assertEquals("MMddyy", loadPattern(mapping));
+            assertEquals(1, delegate.count);
+
+            // the cache entry is stale once the imported mapping file changes
+            writeHandler(imported, "yyMMdd");
+            assertEquals("yyMMdd", loadPattern(mapping));
+            assertEquals(2, delegate.count);
+        }
+        finally {
+            imported.delete();
+        }
+    }
+
+    @Test
+    public void testClassNotAllowed() throws IOException {
+        directory.mkdirs();
+        File file = new File(directory, "test.mapping");
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        try {
+            out.writeInt(1);
+            out.writeObject(new TreeMap<String,String>());
+            out.writeObject(new ArrayList<Object>(Collections.singleton(new Date())));
+        }
+        finally {
+            out.close();
+        }
+
+        ExposedLoader loader = new ExposedLoader();
+        assertNull(loader.read(file));
+    }
+
+    private String loadPattern(String mapping) throws IOException {
+        Collection<BeanIOConfig> configList = load(new ByteArrayInputStream(mapping.getBytes("UTF-8")), null);
+        for (BeanIOConfig config : configList) {
+            for (TypeHandlerConfig handler : config.getTypeHandlerList()) {
+                return handler.getProperties().getProperty("pattern");
+            }
+        }
+        return null;
+    }
+
+    private void writeHandler(File file, String pattern) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(
+                "<beanio xmlns=\"http://www.beanio.org/2012/03\">\n" +
+                "  <typeHandler name=\"h\" class=\"org.beanio.types.DateTypeHandler\">\n" +
+                "    <property name=\"pattern\" value=\"" + pattern + "\" />\n" +
+                "  </typeHandler>\n" +
+                "</beanio>");
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private Collection<BeanIOConfig> load(InputStream in, Properties properties) throws IOException {
+        try {
+            return new CachingConfigurationLoader(delegate, classLoader, directory).loadConfiguration(in, properties);
+        }
+        finally {
+            IOUtil.closeQuietly(in);
+        }
+    }
+
+    private StreamFactory newStreamFactory() {
+        StreamCompiler compiler = new StreamCompiler(classLoader);
+        compiler.setConfigurationLoader(new CachingConfigurationLoader(delegate, classLoader, directory));
+
+        DefaultStreamFactory factory = (DefaultStreamFactory) StreamFactory.newInstance();
+        factory.setCompiler(compiler);
+        return factory;
+    }
+
+    private class ExposedLoader extends CachingConfigurationLoader {
+        public ExposedLoader() {
+            super(delegate, classLoader, directory);
+        }
+
+        public Collection<BeanIOConfig> read(File file) {
+            return readCache(file);
+        }
+    }
+
+    private static class CountingLoader implements ConfigurationLoader {
+        private ConfigurationLoader loader;
+        private int count;
+
+        public CountingLoader(ConfigurationLoader loader) {
+            this.loader = loader;
+        }
+
+        public Collection<BeanIOConfig> loadConfiguration(InputStream in, Properties properties)
+            throws IOException, BeanIOConfigurationException {
+            ++count;
+            return loader.loadConfiguration(in, properties);
+        }
+    }
+}
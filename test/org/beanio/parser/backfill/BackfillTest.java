@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.backfill;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for backfilling counts and totals into previously written records.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class BackfillTest extends ParserTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private StreamFactory factory;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("backfill_mapping.xml");
+        file = File.createTempFile("beanio-backfill", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testBackfillHeader() throws Exception {
+        Backfill header = new Backfill("header")
+            .count("count", "detail")
+            .sum("total", "detail", "amount");
+        Backfill trailer = new Backfill("trailer")
+            .count("count", "detail");
+
+        BeanWriter out = factory.createWriter("b1", file, ASCII, header, trailer);
+        Map<String,Object> map = new HashMap<String,Object>();
+        map.put("date", new SimpleDateFormat("yyyyMMdd").parse("20140101"));
+        out.write("header", map);
+        for (int i=1; i<=3; i++) {
+            map = new HashMap<String,Object>();
+            map.put("amount", new BigDecimal(i * 10));
+            out.write("detail", map);
+        }
+        out.write("trailer", new HashMap<String,Object>());
+        out.close();
+
+        assertEquals(
+            "H201401010000300000060" + lineSeparator +
+            "D00010" + lineSeparator +
+            "D00020" + lineSeparator +
+            "D00030" + lineSeparator +
+            "T00003" + lineSeparator, read());
+    }
+
+    @Test
+    public void testNoRecords() throws Exception {
+        BeanWriter out = factory.createWriter("b1", file, ASCII, 
+            new Backfill("header").count("count", "detail").sum("total", "detail", "amount"));
+        out.write("header", new HashMap<String,Object>());
+        out.close();
+
+        assertEquals("H        0000000000000" + lineSeparator, read());
+    }
+
+    @Test
+    public void testLengthChanged() throws Exception {
+        BeanWriter out = factory.createWriter("b2", file, ASCII, 
+            new Backfill("header").count("count", "detail"));
+        out.write("header", null);
+        Map<String,Object> map;
+        for (int i=0; i<10; i++) {
+            map = new HashMap<String,Object>();
+            map.put("amount", i);
+            out.write("detail", map);
+        }
+        try {
+            out.close();
+            fail("BeanWriterException expected");
+        }
+        catch (BeanWriterException ex) {
+            assertTrue(ex.getMessage().contains("'header'"));
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFieldNotFound() throws Exception {
+        factory.createWriter("b1", file, ASCII, new Backfill("header").count("missing", "detail"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRecordNotFound() throws Exception {
+        factory.createWriter("b1", file, ASCII, new Backfill("header").count("count", "missing"));
+    }
+
+    private String read() throws IOException {
+        Reader in = new InputStreamReader(new FileInputStream(file), ASCII);
+        try {
+            StringBuilder s = new StringBuilder();
+            char[] buf = new char[1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                s.append(buf, 0, n);
+            }
+            return s.toString();
+        }
+        finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.columnar;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.columnar.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for the {@link ColumnarReader}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ColumnarReaderTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("columnar_mapping.xml");
+    }
+
+    @Test
+    public void testReadBatches() {
+        String input =
+            "H,20140101" + lineSeparator +
+            "D,1,100,1.5,true,Chicago,IL,10.25,A,B" + lineSeparator +
+            "D,2,,2.5,false,Austin,TX,3" + lineSeparator +
+            "D,3,300,3.5,true,,,0" + lineSeparator;
+
+        ColumnarReader in = factory.createColumnarReader("c1", new StringReader(input), "detail", 2);
+        try {
+            ColumnBatch batch = in.read();
+            assertEquals(2, batch.size());
+            assertEquals(2, batch.capacity());
+
+            List<String> names = new ArrayList<String>();
+            for (Column column : batch.getColumns()) {
+                names.add(column.getName());
+            }
+            assertEquals(Arrays.asList("id", "count", "amount", "active", "address.city",
+                "address.state", "price"), names);
+
+            IntColumn id = (IntColumn) batch.getColumn("id");
+            assertEquals(Integer.class, id.getType());
+            assertEquals(1, id.get(0));
+            assertEquals(2, id.getValues()[1]);
+
+            LongColumn count = (LongColumn) batch.getColumn(1);
+            assertFalse(count.isNull(0));
+            assertEquals(100L, count.get(0));
+            assertTrue(count.isNull(1));
+            assertEquals(0L, count.get(1));
+            assertNull(count.getObject(1));
+            assertEquals(1, count.getNullCount());
+
+            assertEquals(2.5, ((DoubleColumn) batch.getColumn("amount")).get(1), 0);
+            assertEquals(Boolean.TRUE, batch.getColumn("active").getObject(0));
+
+            StringColumn city = (StringColumn) batch.getColumn("address.city");
+            assertEquals("Chicago", city.get(0));
+            assertEquals("Austin", new String(city.getChars(), city.getOffset(1), city.getLength(1)));
+
+            ObjectColumn price = (ObjectColumn) batch.getColumn("price");
+            assertEquals(new BigDecimal("10.25"), price.getObject(0));
+
+            // the same batch is reused
+            assertSame(batch, in.read());
+            assertEquals(1, batch.size());
+            assertEquals(3, id.get(0));
+            assertEquals(0, count.getNullCount());
+            assertEquals("", city.get(0));
+            StringColumn state = (StringColumn) batch.getColumn("address.state");
+            assertTrue(state.isNull(0));
+            assertNull(state.get(0));
+            assertEquals(1, state.getNullCount());
+
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testInvalidRecordsSkipped() {
+        String input =
+            "D,1,100,1.5,true,Chicago,IL,10.25" + lineSeparator +
+            "D,x,100,1.5,true,Chicago,IL,10.25" + lineSeparator +
+            "X" + lineSeparator +
+            "D,4,400,4.5,true,Denver,CO,1" + lineSeparator;
+
+        final List<BeanReaderException> errors = new ArrayList<BeanReaderException>();
+        ColumnarReader in = factory.createColumnarReader("c1", new StringReader(input), "detail", 10);
+        in.setErrorHandler(new BeanReaderErrorHandler() {
+            public void handleError(BeanReaderException ex) throws Exception {
+                errors.add(ex);
+            }
+        });
+        try {
+            ColumnBatch batch = in.read();
+            assertEquals(2, batch.size());
+            assertEquals(4, ((IntColumn) batch.getColumn("id")).get(1));
+            assertNull(in.read());
+
+            assertEquals(2, errors.size());
+            assertTrue(errors.get(0) instanceof InvalidRecordException);
+            assertTrue(errors.get(1) instanceof UnidentifiedRecordException);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testUnboundRecord() {
+        ColumnarReader in = factory.createColumnarReader("c2", new StringReader("1,Joe"), 16);
+        ColumnBatch batch = in.read();
+        assertEquals(1, batch.size());
+        assertEquals(1, ((IntColumn) batch.getColumn("id")).get(0));
+        assertEquals("Joe", batch.getColumn("name").getObject(0));
+        assertNull(in.read());
+        in.close();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRecordNameRequired() {
+        factory.createColumnarReader("c1", new StringReader(""), 10);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.compactmap;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for records and segments mapped to a {@link CompactMap}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CompactMapTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("compactmap_mapping.xml");
+    }
+
+    @Test
+    public void testReadAndWrite() {
+        String input =
+            "1,Joe,Chicago,IL,A,B" + lineSeparator +
+            "2,Mary,Austin,TX" + lineSeparator;
+
+        List<Object> list = new ArrayList<Object>();
+        BeanReader in = factory.createReader("c1", new StringReader(input));
+        try {
+            CompactMap map = (CompactMap) in.read();
+            assertEquals(Arrays.asList("id", "name", "address", "codes"), new ArrayList<String>(map.keySet()));
+            assertEquals(1, map.getKeys().indexOf("name"));
+            assertEquals("Joe", map.get(1));
+            assertEquals(1, map.get("id"));
+            assertEquals(Arrays.asList("A", "B"), map.get("codes"));
+
+            CompactMap address = (CompactMap) map.get("address");
+            assertEquals("Chicago", address.get(0));
+            assertEquals("IL", address.get("state"));
+            list.add(map);
+
+            CompactMap map2 = (CompactMap) in.read();
+            assertSame(map.getKeys(), map2.getKeys());
+            assertNotSame(map.getKeys(), ((CompactMap) map2.get("address")).getKeys());
+
+            Map<String,Object> expected = new HashMap<String,Object>();
+            expected.put("id", 2);
+            expected.put("name", "Mary");
+            Map<String,Object> expectedAddress = new HashMap<String,Object>();
+            expectedAddress.put("city", "Austin");
+            expectedAddress.put("state", "TX");
+            expected.put("address", expectedAddress);
+            expected.put("codes", new ArrayList<Object>());
+            assertEquals(expected, map2);
+            assertEquals(map2, expected);
+            assertEquals(expected.hashCode(), map2.hashCode());
+            list.add(expected);
+
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+
+        // any map can be marshalled, but the record class must match
+        StringWriter text = new StringWriter();
+        BeanWriter out = factory.createWriter("c1", text);
+        out.write(list.get(0));
+        CompactMap record = new CompactMap(((CompactMap) list.get(0)).getKeys());
+        record.putAll((Map<String,?>) list.get(1));
+        out.write(record);
+        out.close();
+        assertEquals(input, text.toString());
+    }
+
+    @Test
+    public void testMapOperations() throws Exception {
+        CompactMap.Keys keys = new CompactMap.Keys("a", "b", "c");
+        CompactMap map = new CompactMap(keys);
+        assertTrue(map.isEmpty());
+
+        map.put("c", 3);
+        map.put("a", null);
+        map.put("z", 26);
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("b"));
+        assertFalse(map.isSet(1));
+        assertEquals("{a=null, c=3, z=26}", map.toString());
+
+        assertEquals(3, map.remove("c"));
+        assertNull(map.remove("c"));
+        assertEquals(26, map.remove("z"));
+        assertEquals(Collections.singletonMap("a", null), map);
+
+        map.set(1, "B");
+        map.put("y", 25);
+        Iterator<Map.Entry<String,Object>> iter = map.entrySet().iterator();
+        iter.next();
+        iter.remove();
+        Map.Entry<String,Object> entry = iter.next();
+        assertEquals("b", entry.getKey());
+        entry.setValue("BB");
+        assertEquals("BB", map.get(1));
+        iter.next();
+        iter.remove();
+        assertFalse(iter.hasNext());
+        assertEquals(Collections.singletonMap("b", "BB"), map);
+
+        // serialization
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(buf);
+        oos.writeObject(map);
+        oos.close();
+        CompactMap copy = (CompactMap) new ObjectInputStream(
+            new ByteArrayInputStream(buf.toByteArray())).readObject();
+        assertEquals(map, copy);
+        assertFalse(copy.containsKey("a"));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testDuplicateKeys() {
+        new CompactMap.Keys("a", "b", "a");
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.compress;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.*;
+
+import org.beanio.*;
+import org.beanio.internal.util.IOUtil;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reading and writing compressed files.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class CompressionTest extends ParserTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int COUNT = 20000;
+
+    private StreamFactory factory;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("compress_mapping.xml");
+        file = File.createTempFile("beanio-compress", ".gz");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testParallelGzip() throws IOException {
+        BeanWriter out = factory.createCompressedWriter("c1", file, UTF8, 3);
+        for (int i=0; i<COUNT; i++) {
+            out.write(record(i));
+        }
+        out.close();
+
+        // readable by any gzip reader
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(new FileInputStream(file)), UTF8));
+        try {
+            assertEquals("0,name-0-\u00e9", in.readLine());
+        }
+        finally {
+            in.close();
+        }
+
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 3), COUNT);
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 1), COUNT);
+    }
+
+    @Test
+    public void testSerialGzip() throws IOException {
+        // two members without block sizes
+        OutputStream out = new FileOutputStream(file);
+        try {
+            GZIPOutputStream gz = new GZIPOutputStream(out);
+            gz.write(text(0, 10).getBytes(UTF8));
+            gz.finish();
+            gz = new GZIPOutputStream(out);
+            gz.write(text(10, COUNT).getBytes(UTF8));
+            gz.finish();
+        }
+        finally {
+            out.close();
+        }
+
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 2), COUNT);
+    }
+
+    @Test
+    public void testMixedGzip() throws IOException {
+        BeanWriter writer = factory.createCompressedWriter("c1", file, UTF8, 2);
+        for (int i=0; i<100; i++) {
+            writer.write(record(i));
+        }
+        writer.close();
+
+        OutputStream out = new FileOutputStream(file, true);
+        try {
+            GZIPOutputStream gz = new GZIPOutputStream(out);
+            gz.write(text(100, 200).getBytes(UTF8));
+            gz.finish();
+        }
+        finally {
+            out.close();
+        }
+
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 2), 200);
+    }
+
+    @Test
+    public void testZlib() throws IOException {
+        OutputStream out = new DeflaterOutputStream(new FileOutputStream(file));
+        try {
+            out.write(text(0, COUNT).getBytes(UTF8));
+        }
+        finally {
+            out.close();
+        }
+
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 2), COUNT);
+    }
+
+    @Test
+    public void testUncompressed() throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text(0, 10).getBytes(UTF8));
+        }
+        finally {
+            out.close();
+        }
+
+        assertRecords(factory.createCompressedReader("c1", file, UTF8, 2), 10);
+    }
+
+    @Test
+    public void testTextResemblingZlibHeader() throws IOException {
+        InputStream in = IOUtil.decompress(new ByteArrayInputStream("x^2".getBytes(UTF8)), 1);
+        try {
+            assertEquals('x', in.read());
+            assertEquals('^', in.read());
+            assertEquals('2', in.read());
+            assertEquals(-1, in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCorruptMember() throws IOException {
+        BeanWriter writer = factory.createCompressedWriter("c1", file, UTF8, 2);
+        for (int i=0; i<COUNT; i++) {
+            writer.write(record(i));
+        }
+        writer.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(100);
+            int b = raf.read();
+            raf.seek(100);
+            raf.write(b ^ 0xff);
+        }
+        finally {
+            raf.close();
+        }
+
+        BeanReader in = factory.createCompressedReader("c1", file, UTF8, 2);
+        try {
+            while (in.read() != null) { }
+            fail("BeanReaderIOException expected");
+        }
+        catch (BeanReaderIOException ex) {
+            assertTrue(ex.getCause() instanceof ZipException);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCorruptMemberSize() throws IOException {
+        BeanWriter writer = factory.createCompressedWriter("c1", file, UTF8, 2);
+        for (int i=0; i<COUNT; i++) {
+            writer.write(record(i));
+        }
+        writer.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            // overwrite the ISIZE trailer of the first member, located using its BC subfield
+            raf.seek(16);
+            int size = (raf.read() | (raf.read() << 8)) + 1;
+            raf.seek(size - 4);
+            raf.write(new byte[] { 0x00, 0x00, (byte) 0xff, 0x7f });
+        }
+        finally {
+            raf.close();
+        }
+
+        BeanReader in = factory.createCompressedReader("c1", file, UTF8, 2);
+        try {
+            while (in.read() != null) { }
+            fail("BeanReaderIOException expected");
+        }
+        catch (BeanReaderIOException ex) {
+            assertTrue(ex.getCause() instanceof ZipException);
+            assertEquals("Corrupt gzip member", ex.getCause().getMessage());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertRecords(BeanReader in, int count) {
+        try {
+            int i = 0;
+            Map<String,Object> map;
+            while ((map = (Map<String,Object>) in.read()) != null) {
+                assertEquals(record(i), map);
+                ++i;
+            }
+            assertEquals(count, i);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private Map<String,Object> record(int i) {
+        Map<String,Object> map = new HashMap<String,Object>();
+        map.put("id", i);
+        map.put("name", "name-" + i + "-\u00e9");
+        return map;
+    }
+
+    private String text(int from, int to) {
+        StringBuilder s = new StringBuilder();
+        for (int i=from; i<to; i++) {
+            s.append(i).append(",name-").append(i).append("-\u00e9\n");
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.dedupe;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.builder.*;
+import org.beanio.internal.util.StringCache;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for deduplicating field values.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class DedupeTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("dedupe_mapping.xml");
+    }
+
+    @Test
+    public void testDedupe() {
+        String input =
+            "USAUSD IL " + lineSeparator +
+            "USAUSDIL  " + lineSeparator +
+            "CANCAD ON " + lineSeparator;
+
+        List<Map<?,?>> list = read(factory, "d1", input);
+        assertEquals("USA", list.get(0).get("country"));
+        assertSame(list.get(0).get("country"), list.get(1).get("country"));
+        assertEquals("USD", list.get(1).get("currency"));
+        assertNotSame(list.get(0).get("currency"), list.get(1).get("currency"));
+        assertEquals("IL", list.get(1).get("state"));
+        assertSame(list.get(0).get("state"), list.get(1).get("state"));
+        assertEquals("ON", list.get(2).get("state"));
+    }
+
+    @Test
+    public void testBuilder() {
+        StreamFactory factory = StreamFactory.newInstance();
+        factory.define(new StreamBuilder("d2")
+            .format("csv")
+            .addRecord(new RecordBuilder("record")
+                .type(HashMap.class)
+                .addField(new FieldBuilder("country").dedupe())
+                .addField(new FieldBuilder("currency"))));
+
+        List<Map<?,?>> list = read(factory, "d2", "USA,USD" + lineSeparator + "USA,USD" + lineSeparator);
+        assertSame(list.get(0).get("country"), list.get(1).get("country"));
+        assertNotSame(list.get(0).get("currency"), list.get(1).get("currency"));
+    }
+
+    @Test
+    public void testStringCache() {
+        StringCache cache = new StringCache(3, 4);
+        assertEquals(4, cache.size());
+
+        String s = cache.get(new String("abc"));
+        assertSame(s, cache.get(new String("abc")));
+        assertNull(cache.get(null));
+
+        String t = new String("abcde");
+        assertSame(t, cache.get(t));
+        assertNotSame(t, cache.get(new String("abcde")));
+    }
+
+    @Test
+    public void testStringCacheRange() {
+        StringCache cache = new StringCache(16, 4);
+
+        // a range of characters is found by the same hash as the equal string
+        String s = cache.get("xxabcyy", 2, 5);
+        assertEquals("abc", s);
+        assertSame(s, cache.get(new StringBuilder("-abc"), 1, 4));
+        assertSame(s, cache.get(new String("abc")));
+        assertEquals("", cache.get("abc", 1, 1));
+
+        // ranges longer than the maximum length are not cached
+        String t = cache.get("-abcde", 1, 6);
+        assertEquals("abcde", t);
+        assertNotSame(t, cache.get("-abcde", 1, 6));
+    }
+
+    private List<Map<?,?>> read(StreamFactory factory, String name, String input) {
+        List<Map<?,?>> list = new ArrayList<Map<?,?>>();
+        BeanReader in = factory.createReader(name, new StringReader(input));
+        try {
+            Map<?,?> map;
+            while ((map = (Map<?,?>) in.read()) != null) {
+                list.add(map);
+            }
+        }
+        finally {
+            in.close();
+        }
+        return list;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.ebcdic;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reading and writing EBCDIC fixed length byte streams.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class EbcdicParserTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("ebcdic_mapping.xml");
+    }
+
+    @Test
+    public void testReadAndWrite() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        // id 64 ends with a space (0x40) and id 37 with a line feed (0x25) in IBM037
+        writeRecord(input, 0x00000040, "WIDGET  ", 0x1234567C, 0xF0F1D2);
+        writeRecord(input, 0x00000025, "A       ", 0x0000005D, 0xF0F0C7);
+
+        BeanReader in = factory.createReader("e1", new ByteArrayInputStream(input.toByteArray()));
+        List<Object> list = new ArrayList<Object>();
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals(64L, map.get("id"));
+            assertEquals("WIDGET", map.get("name"));
+            assertEquals(new BigDecimal("12345.67"), map.get("amount"));
+            assertEquals(-12, map.get("quantity"));
+            list.add(map);
+
+            map = (Map<?,?>) in.read();
+            assertEquals(37L, map.get("id"));
+            assertEquals("A", map.get("name"));
+            assertEquals(new BigDecimal("-0.05"), map.get("amount"));
+            assertEquals(7, map.get("quantity"));
+            list.add(map);
+
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BeanWriter out = factory.createWriter("e1", output);
+        for (Object bean : list) {
+            out.write(bean);
+        }
+        out.close();
+        assertArrayEquals(input.toByteArray(), output.toByteArray());
+    }
+
+    @Test
+    public void testInvalidPackedDecimal() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        writeRecord(input, 1, "WIDGET  ", 0x1234567A, 0xF0F1C2);
+        writeRecord(input, 2, "WIDGET  ", 0x1234A67C, 0xF0F1C2);
+
+        BeanReader in = factory.createReader("e1", new ByteArrayInputStream(input.toByteArray()));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals(new BigDecimal("12345.67"), map.get("amount"));
+            try {
+                in.read();
+                fail("Invalid packed decimal not detected");
+            }
+            catch (InvalidRecordException ex) {
+                assertEquals(1, ex.getRecordContext().getFieldErrors("amount").size());
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testIncompleteRecord() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        writeRecord(input, 1, "WIDGET  ", 0x1234567C, 0xF0F1C2);
+        input.write(0xC9);
+
+        BeanReader in = factory.createReader("e1", new ByteArrayInputStream(input.toByteArray()));
+        try {
+            in.read();
+            in.read();
+            fail("Incomplete record not detected");
+        }
+        catch (MalformedRecordException ex) {
+            assertEquals(1, ex.getRecordContext().getRecordText().length());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private void writeRecord(ByteArrayOutputStream out, int id, String name, int amount, int quantity) throws IOException {
+        out.write("I".getBytes("IBM037"));
+        out.write(new byte[] { (byte) (id >> 24), (byte) (id >> 16), (byte) (id >> 8), (byte) id });
+        out.write(name.getBytes("IBM037"));
+        out.write(new byte[] { (byte) (amount >> 24), (byte) (amount >> 16), (byte) (amount >> 8), (byte) amount });
+        out.write(new byte[] { (byte) (quantity >> 16), (byte) (quantity >> 8), (byte) quantity });
+    }
+}
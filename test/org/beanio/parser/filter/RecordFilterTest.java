@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.filter;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.metrics.MetricsListenerSupport;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for skipping records rejected by a {@link RecordFilter}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class RecordFilterTest extends ParserTest {
+
+    private static final String INPUT =
+        "H,2014-01-01" + lineSeparator +
+        "D,1,OPEN,2014-01-02,1.00,a,b" + lineSeparator +
+        "D,2,CLOSED,2014-01-03,invalid" + lineSeparator +
+        "D,x,CLOSED,2014-01-04,3.00,c" + lineSeparator +
+        "D,4,OPEN,2014-02-01,4.00" + lineSeparator +
+        "T,4" + lineSeparator;
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("filter_mapping.xml");
+    }
+
+    @Test
+    public void testFilter() {
+        final List<String> filtered = new ArrayList<String>();
+        factory.setMetricsListener(new MetricsListenerSupport() {
+            @Override
+            public void recordFiltered(String streamName, String recordName) {
+                filtered.add(streamName + ":" + recordName);
+            }
+        });
+
+        BeanReader in = factory.createReader("f1", new StringReader(INPUT));
+        try {
+            in.setRecordFilter("detail", new RecordFilter() {
+                public boolean accept(String[] fieldText) {
+                    return "OPEN".equals(fieldText[0]) && fieldText[1].startsWith("2014-01");
+                }
+            }, "status.code", "status.date");
+
+            assertEquals("header", readName(in));
+
+            // the invalid records are skipped without validation
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals(1, map.get("id"));
+            assertEquals(Arrays.asList("a", "b"), map.get("tags"));
+
+            map = (Map<?,?>) in.read();
+            assertEquals("trailer", in.getRecordName());
+            assertEquals(4, map.get("count"));
+            assertNull(in.read());
+
+            assertEquals(3, in.getFilteredRecordCount());
+            assertEquals(Arrays.asList("f1:detail", "f1:detail", "f1:detail"), filtered);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testSkip() {
+        BeanReader in = factory.createReader("f1", new StringReader(INPUT));
+        try {
+            in.setRecordFilter("detail", new RecordFilter() {
+                public boolean accept(String[] fieldText) {
+                    return !fieldText[0].equals("x");
+                }
+            }, "id");
+
+            // the filtered record is not counted as a skipped bean object
+            assertEquals(4, in.skip(4));
+            assertEquals("detail", in.getRecordName());
+            assertEquals(1, in.getFilteredRecordCount());
+
+            in.setRecordFilter("detail", null);
+            assertEquals("trailer", readName(in));
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testRawFieldText() {
+        final List<String> text = new ArrayList<String>();
+        BeanReader in = factory.createReader("f3", new StringReader(
+            "IAB  x" + lineSeparator +
+            "ICD  hello" + lineSeparator));
+        try {
+            in.setRecordFilter("item", new RecordFilter() {
+                public boolean accept(String[] fieldText) {
+                    text.addAll(Arrays.asList(fieldText));
+                    return fieldText[1].length() == 5;
+                }
+            }, "code", "name");
+
+            // the field with an invalid length is passed to the filter as is
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals("CD", map.get("code"));
+            assertEquals("hello", map.get("name"));
+            assertNull(in.read());
+            assertEquals(Arrays.asList("AB  ", "x", "CD  ", "hello"), text);
+            assertEquals(1, in.getFilteredRecordCount());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testInvalidFilter() {
+        BeanReader in = factory.createReader("f1", new StringReader(INPUT));
+        RecordFilter filter = new RecordFilter() {
+            public boolean accept(String[] fieldText) {
+                return true;
+            }
+        };
+        try {
+            assertInvalid(in, "invalid", filter, "id");
+            assertInvalid(in, "detail", filter, "code");
+            assertInvalid(in, "detail", filter, "status");
+            assertInvalid(in, "detail", filter, "tags");
+        }
+        finally {
+            in.close();
+        }
+
+        in = factory.createReader("f2", new StringReader("H001"));
+        try {
+            assertInvalid(in, "header", filter, "id");
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private void assertInvalid(BeanReader in, String recordName, RecordFilter filter, String... fieldNames) {
+        try {
+            in.setRecordFilter(recordName, filter, fieldNames);
+            fail("Invalid record filter not detected");
+        }
+        catch (IllegalArgumentException ex) { }
+    }
+
+    private String readName(BeanReader in) {
+        in.read();
+        return in.getRecordName();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.introspect;
+
+import static org.junit.Assert.*;
+
+import java.beans.PropertyDescriptor;
+import java.io.*;
+
+import javax.xml.validation.Schema;
+
+import org.beanio.*;
+import org.beanio.internal.config.xml.XmlMappingReader;
+import org.beanio.internal.util.IntrospectionCache;
+import org.beanio.parser.ParserTest;
+import org.junit.Test;
+
+/**
+ * JUnit test cases for sharing the mapping schema and class metadata across stream factories.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class IntrospectionCacheTest extends ParserTest {
+
+    @Test
+    public void testMultipleFactories() throws Exception {
+        for (int i=0; i<3; i++) {
+            StreamFactory factory = newStreamFactory("introspect_mapping.xml");
+            BeanReader in = factory.createReader("s1", new StringReader("Joe,10" + lineSeparator));
+            try {
+                Person person = (Person) in.read();
+                assertEquals("Joe", person.getName());
+                assertEquals(10, person.age);
+            }
+            finally {
+                in.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSchemaShared() {
+        assertSame(new SchemaReader().schema(), new SchemaReader().schema());
+    }
+
+    @Test
+    public void testPropertyMetadataShared() throws Exception {
+        PropertyDescriptor pd = IntrospectionCache.getPropertyDescriptor(Person.class, "name");
+        assertNotNull(pd);
+        assertSame(pd, IntrospectionCache.getPropertyDescriptor(Person.class, "name"));
+        assertNull(IntrospectionCache.getPropertyDescriptor(Person.class, "age"));
+
+        assertNotNull(IntrospectionCache.getDeclaredField(Person.class, "age"));
+        assertSame(IntrospectionCache.getDeclaredField(Person.class, "age"),
+            IntrospectionCache.getDeclaredField(Person.class, "age"));
+        assertNull(IntrospectionCache.getDeclaredField(Person.class, "missing"));
+
+        assertEquals(1, IntrospectionCache.getDeclaredConstructors(Person.class).length);
+
+        IntrospectionCache.clear();
+        assertEquals(pd.getName(), IntrospectionCache.getPropertyDescriptor(Person.class, "name").getName());
+    }
+
+    @Test
+    public void testInvalidMapping() throws Exception {
+        String xml = "<beanio xmlns=\"http://www.beanio.org/2012/03\"><stream name=\"s1\"/></beanio>";
+        StreamFactory factory = StreamFactory.newInstance();
+        try {
+            factory.load(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+            fail("invalid mapping loaded");
+        }
+        catch (BeanIOConfigurationException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid mapping file"));
+        }
+    }
+
+    private static class SchemaReader extends XmlMappingReader {
+        Schema schema() {
+            return getSchema();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.memoize;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.builder.*;
+import org.beanio.parser.ParserTest;
+import org.beanio.types.*;
+import org.junit.*;
+
+/**
+ * JUnit test cases for caching values parsed by a type handler.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class MemoizeTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("memoize_mapping.xml");
+    }
+
+    @Test
+    public void testMemoize() throws Exception {
+        String input =
+            "2014-01-01,1.50,1" + lineSeparator +
+            "2014-01-01,1.50,2" + lineSeparator +
+            "2014-01-01,x,3" + lineSeparator;
+
+        BeanReader in = factory.createReader("m1", new StringReader(input));
+        try {
+            Map<?,?> first = (Map<?,?>) in.read();
+            Date date = (Date) first.get("date");
+            assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2014-01-01"), date);
+            assertEquals(new BigDecimal("1.50"), first.get("amount"));
+
+            // mutable dates are copied
+            date.setTime(0);
+            Map<?,?> second = (Map<?,?>) in.read();
+            assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2014-01-01"), second.get("date"));
+            assertNotSame(first.get("date"), second.get("date"));
+            assertSame(first.get("amount"), second.get("amount"));
+
+            try {
+                in.read();
+                fail("Invalid amount not detected");
+            }
+            catch (InvalidRecordException ex) {
+                assertEquals(1, ex.getRecordContext().getFieldErrors("amount").size());
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testParsedOnce() {
+        final int[] count = new int[1];
+        TypeHandler handler = new TypeHandler() {
+            public Object parse(String text) throws TypeConversionException {
+                ++count[0];
+                return Integer.valueOf(text);
+            }
+            public String format(Object value) {
+                return value.toString();
+            }
+            public Class<?> getType() {
+                return Integer.class;
+            }
+        };
+
+        StreamFactory factory = StreamFactory.newInstance();
+        factory.define(new StreamBuilder("m2")
+            .format("csv")
+            .addRecord(new RecordBuilder("record")
+                .type(HashMap.class)
+                .addField(new FieldBuilder("value").typeHandler(handler).memoize())));
+
+        BeanReader in = factory.createReader("m2", new StringReader(
+            "10" + lineSeparator + "10" + lineSeparator + "20" + lineSeparator + "10" + lineSeparator));
+        try {
+            int sum = 0;
+            Map<?,?> map;
+            while ((map = (Map<?,?>) in.read()) != null) {
+                sum += (Integer) map.get("value");
+            }
+            assertEquals(50, sum);
+            assertEquals(2, count[0]);
+        }
+        finally {
+            in.close();
+        }
+    }
+}
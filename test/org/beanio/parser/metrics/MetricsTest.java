@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.metrics;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import javax.management.*;
+
+import org.beanio.*;
+import org.beanio.metrics.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reporting metrics to a {@link MetricsListener}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class MetricsTest extends ParserTest {
+
+    private static final String DOMAIN = "org.beanio.test";
+
+    private StreamFactory factory;
+    private JmxMetricsListener listener;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("metrics_mapping.xml");
+        listener = new JmxMetricsListener(ManagementFactory.getPlatformMBeanServer(), DOMAIN, true);
+    }
+
+    @After
+    public void teardown() {
+        listener.unregister();
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        factory.setMetricsListener(listener, 1);
+
+        String input =
+            "H,2014-01-01" + lineSeparator +
+            "D,1,ab" + lineSeparator +
+            "D,x,ab" + lineSeparator +
+            "D,2,a" + lineSeparator +
+            "Z" + lineSeparator +
+            "D,3,abc" + lineSeparator;
+
+        final List<String> errors = new ArrayList<String>();
+        BeanReader in = factory.createReader("m1", new StringReader(input));
+        in.setErrorHandler(new BeanReaderErrorHandler() {
+            public void handleError(BeanReaderException ex) throws Exception {
+                errors.add(ex.getClass().getSimpleName());
+            }
+        });
+        int count = 0;
+        while (in.read() != null) {
+            ++count;
+        }
+        in.close();
+        assertEquals(3, count);
+        assertEquals(3, errors.size());
+
+        StreamMetrics metrics = listener.getMetrics("m1");
+        assertEquals(5, metrics.getRecordsRead());
+        assertEquals(Long.valueOf(1), metrics.getRecordsReadByName().get("header"));
+        assertEquals(Long.valueOf(4), metrics.getRecordsReadByName().get("detail"));
+        assertEquals(input.length(), metrics.getCharactersRead());
+        assertEquals(3, metrics.getErrors());
+        assertEquals(Long.valueOf(1), metrics.getErrorsByRule().get("type"));
+        assertEquals(Long.valueOf(1), metrics.getErrorsByRule().get("minLength"));
+        assertEquals(Long.valueOf(1), metrics.getErrorsByRule().get("unidentified"));
+
+        // every bean object is timed, including the end of the stream
+        Map<String,Long> samples = metrics.getPhaseSamples();
+        assertEquals(Long.valueOf(7), samples.get("READ"));
+        assertEquals(Long.valueOf(5), samples.get("UNMARSHAL"));
+        assertEquals(Long.valueOf(3), samples.get("ERROR"));
+        assertEquals(Long.valueOf(0), samples.get("WRITE"));
+        assertTrue(metrics.getHistograms().containsKey("CONVERT:id"));
+        assertEquals(StreamMetrics.HISTOGRAM_BUCKETS, metrics.getHistograms().get("UNMARSHAL:detail").length);
+
+        // metrics are registered with the MBean server
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DOMAIN + ":type=StreamMetrics,name=\"m1\"");
+        assertEquals(5L, server.getAttribute(name, "RecordsRead"));
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, metrics.getRecordsRead());
+        assertTrue(metrics.getRecordsReadByName().isEmpty());
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        factory.setMetricsListener(listener, 1);
+
+        BeanReader in = factory.createReader("m1", new StringReader("H,2014-01-01" + lineSeparator));
+        assertNotNull(in.read());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DOMAIN + ":type=StreamMetrics,name=\"m1\"");
+        assertTrue(server.isRegistered(name));
+
+        listener.unregister();
+        assertFalse(server.isRegistered(name));
+
+        // metrics reported after unregister() do not register the MBean again
+        assertNull(in.read());
+        in.close();
+        listener.recordRead("m1", "header");
+        assertFalse(server.isRegistered(name));
+        assertNull(listener.getMetrics("m1"));
+    }
+
+    @Test
+    public void testSamplingInterval() {
+        factory.setMetricsListener(listener, 2);
+
+        BeanReader in = factory.createReader("m1", new StringReader(
+            "H,2014-01-01" + lineSeparator +
+            "D,1,ab" + lineSeparator +
+            "D,2,ab" + lineSeparator +
+            "D,3,ab" + lineSeparator));
+        while (in.read() != null) { }
+        in.close();
+
+        StreamMetrics metrics = listener.getMetrics("m1");
+        assertEquals(4, metrics.getRecordsRead());
+        assertEquals(Long.valueOf(2), metrics.getPhaseSamples().get("UNMARSHAL"));
+    }
+
+    @Test
+    public void testWrite() {
+        factory.setMetricsListener(listener, 0);
+
+        StringWriter text = new StringWriter();
+        BeanWriter out = factory.createWriter("m1", text);
+        Map<String,Object> record = new HashMap<String,Object>();
+        record.put("type", "H");
+        record.put("date", new Date(0));
+        out.write("header", record);
+        record = new HashMap<String,Object>();
+        record.put("type", "D");
+        record.put("id", 1);
+        record.put("name", "ab");
+        out.write("detail", record);
+        out.close();
+
+        StreamMetrics metrics = listener.getMetrics("m1");
+        assertEquals(2, metrics.getRecordsWritten());
+        assertEquals(Long.valueOf(1), metrics.getRecordsWrittenByName().get("detail"));
+        assertEquals(text.toString().length(), metrics.getCharactersWritten());
+
+        // timing is disabled
+        for (Long n : metrics.getPhaseSamples().values()) {
+            assertEquals(Long.valueOf(0), n);
+        }
+    }
+
+    @Test
+    public void testWriteFile() throws Exception {
+        factory.setMetricsListener(listener, 0);
+
+        File file = File.createTempFile("beanio-metrics", ".txt");
+        try {
+            Charset utf8 = Charset.forName("UTF-8");
+            BeanWriter out = factory.createWriter("m1", file, utf8);
+            Map<String,Object> record = new HashMap<String,Object>();
+            record.put("type", "H");
+            record.put("date", new Date(0));
+            out.write("header", record);
+            record = new HashMap<String,Object>();
+            record.put("type", "D");
+            record.put("id", 1);
+            record.put("name", "\u00e4\u00e9\u00fc");
+            out.write("detail", record);
+            out.close();
+
+            // characters are counted before they are encoded
+            byte[] b = new byte[(int) file.length()];
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                in.readFully(b);
+            }
+            finally {
+                in.close();
+            }
+            String text = new String(b, utf8);
+            assertTrue(b.length > text.length());
+            assertEquals(text.length(), listener.getMetrics("m1").getCharactersWritten());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        factory.setMetricsListener(listener, 1);
+        factory.setMetricsListener(null);
+
+        BeanReader in = factory.createReader("m1", new StringReader("H,2014-01-01" + lineSeparator));
+        assertNotNull(in.read());
+        in.close();
+        assertNull(listener.getMetrics("m1"));
+    }
+}
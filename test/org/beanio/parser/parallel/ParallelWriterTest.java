@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.parallel;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for marshalling bean objects using a {@link ParallelBeanWriter}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ParallelWriterTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("parallel_mapping.xml");
+    }
+
+    @Test
+    public void testWriteAll() {
+        Map<String,Object> header = record("type", "H", "date", new Date(0));
+        Map<String,Object> trailer = record("type", "T", "count", 1000);
+        List<Map<String,Object>> details = new ArrayList<Map<String,Object>>();
+        for (int i=0; i<1000; i++) {
+            details.add(record("type", "D", "id", i, "name", "name" + i,
+                "amount", new BigDecimal(i * 1001).movePointLeft(2),
+                "date", new Date(i * 3600000L)));
+        }
+
+        StringWriter expected = new StringWriter();
+        BeanWriter out = factory.createWriter("p1", expected);
+        out.write(header);
+        for (Map<String,Object> detail : details) {
+            out.write(detail);
+        }
+        out.write(trailer);
+        out.close();
+
+        StringWriter text = new StringWriter();
+        ParallelBeanWriter parallel = factory.createParallelWriter("p1", text, 4, 7);
+        parallel.write(header);
+        parallel.writeAll(details);
+        parallel.write("trailer", trailer);
+        parallel.close();
+
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    @Test
+    public void testGroups() {
+        List<Map<String,Object>> orders = new ArrayList<Map<String,Object>>();
+        for (int i=0; i<50; i++) {
+            List<Map<String,Object>> items = new ArrayList<Map<String,Object>>();
+            for (int j=0; j<i % 4; j++) {
+                items.add(record("name", "item" + j, "quantity", i + j));
+            }
+            orders.add(record("header", record("id", i), "items", items));
+        }
+
+        StringWriter expected = new StringWriter();
+        BeanWriter out = factory.createWriter("p3", expected);
+        for (Map<String,Object> order : orders) {
+            out.write(order);
+        }
+        out.close();
+
+        StringWriter text = new StringWriter();
+        ParallelBeanWriter parallel = factory.createParallelWriter("p3", text, 3, 5);
+        parallel.writeAll("order", orders);
+        parallel.close();
+
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    @Test
+    public void testRecordOrderViolated() {
+        List<Map<String,Object>> records = new ArrayList<Map<String,Object>>();
+        records.add(record("type", "H", "date", new Date(0)));
+        records.add(record("type", "D", "id", 1));
+        records.add(record("type", "D", "id", 2));
+        records.add(record("type", "H", "date", new Date(0)));
+        records.add(record("type", "D", "id", 3));
+
+        StringWriter text = new StringWriter();
+        ParallelBeanWriter parallel = factory.createParallelWriter("p1", text, 2, 2);
+        try {
+            parallel.writeAll(records);
+            fail("Record order violation not detected");
+        }
+        catch (BeanWriterException ex) { }
+
+        // records before the invalid bean object are written
+        parallel.write(record("type", "T", "count", 2));
+        parallel.close();
+        assertEquals(
+            "H,1970-01-01" + lineSeparator +
+            "D,1,,," + lineSeparator +
+            "D,2,,," + lineSeparator +
+            "T,2" + lineSeparator, text.toString());
+    }
+
+    @Test
+    public void testMarshalFailure() {
+        List<Map<String,Object>> details = new ArrayList<Map<String,Object>>();
+        for (int i=0; i<20; i++) {
+            details.add(record("id", i, "amount", i == 12 ? (Object) "invalid" : (Object) (i / 4.0)));
+        }
+        Map<String,Object> trailer = record("type", "T");
+
+        StringWriter expected = new StringWriter();
+        BeanWriter out = factory.createWriter("p2", expected);
+        for (Map<String,Object> detail : details) {
+            try {
+                out.write(detail);
+            }
+            catch (BeanWriterException ex) { }
+        }
+        out.write(trailer);
+        out.close();
+
+        StringWriter text = new StringWriter();
+        ParallelBeanWriter parallel = factory.createParallelWriter("p2", text, 3, 4);
+        try {
+            parallel.writeAll(details);
+            fail("Marshalling failure not detected");
+        }
+        catch (BeanWriterException ex) {
+            assertTrue(ex.getMessage().contains("'invalid'"));
+        }
+        parallel.flush();
+        assertEquals(12, text.toString().split(lineSeparator).length);
+
+        // the layout counts the failed detail record, so 7 more are allowed
+        parallel.writeAll(details.subList(13, 20));
+        try {
+            parallel.write(details.get(0));
+            fail("Record maxOccurs violation not detected");
+        }
+        catch (BeanWriterException ex) { }
+        parallel.write(trailer);
+        parallel.close();
+
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testXmlNotSupported() {
+        factory.createParallelWriter("p4", new StringWriter(), 2);
+    }
+
+    private static Map<String,Object> record(Object... entries) {
+        Map<String,Object> map = new HashMap<String,Object>();
+        for (int i=0; i<entries.length; i+=2) {
+            map.put((String) entries[i], entries[i + 1]);
+        }
+        return map;
+    }
+}
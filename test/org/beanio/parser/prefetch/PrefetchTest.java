@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.prefetch;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.beanio.*;
+import org.beanio.builder.*;
+import org.beanio.internal.util.PrefetchRecordReader;
+import org.beanio.parser.ParserTest;
+import org.beanio.stream.*;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reading records ahead using a background thread.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class PrefetchTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("prefetch_mapping.xml");
+    }
+
+    @Test
+    public void testRead() {
+        StringBuilder s = new StringBuilder();
+        for (int i=1; i<=100; i++) {
+            s.append(i).append(",name").append(i).append(lineSeparator);
+        }
+
+        BeanReader in = factory.createReader("p1", new StringReader(s.toString()));
+        try {
+            for (int i=1; i<=100; i++) {
+                Map<?,?> map = (Map<?,?>) in.read();
+                assertEquals(i, map.get("id"));
+                assertEquals("name" + i, map.get("name"));
+                assertEquals(i, in.getLineNumber());
+                assertEquals(i + ",name" + i, in.getRecordContext(0).getRecordText());
+            }
+            assertNull(in.read());
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testMalformedRecord() {
+        BeanReader in = factory.createReader("p1", new StringReader(
+            "1,a" + lineSeparator +
+            "2,\"b" + lineSeparator +
+            "3,c" + lineSeparator));
+        try {
+            assertEquals("a", ((Map<?,?>) in.read()).get("name"));
+            try {
+                in.read();
+                fail("Record expected to be malformed");
+            }
+            catch (MalformedRecordException ex) {
+                assertEquals(2, ex.getRecordContext().getLineNumber());
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCloseBeforeEnd() {
+        StringBuilder s = new StringBuilder();
+        for (int i=1; i<=1000; i++) {
+            s.append(i).append(",name").append(lineSeparator);
+        }
+
+        BeanReader in = factory.createReader("p1", new StringReader(s.toString()));
+        assertEquals(1, ((Map<?,?>) in.read()).get("id"));
+        in.close();
+    }
+
+    @Test
+    public void testStreamBuilder() {
+        StreamFactory factory = StreamFactory.newInstance();
+        factory.define(new StreamBuilder("p2")
+            .format("csv")
+            .prefetch(4)
+            .addRecord(new RecordBuilder("record", HashMap.class)
+                .addField(new FieldBuilder("id").type(Integer.class))));
+
+        BeanReader in = factory.createReader("p2", new StringReader("1" + lineSeparator + "2" + lineSeparator));
+        try {
+            assertEquals(1, ((Map<?,?>) in.read()).get("id"));
+            assertEquals(2, ((Map<?,?>) in.read()).get("id"));
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testErrorsInOrder() throws IOException {
+        RecordReader in = new PrefetchRecordReader(new TestRecordReader(), 3);
+        try {
+            assertEquals("r1", in.read());
+            assertEquals(1, in.getRecordLineNumber());
+            assertEquals("r1", in.getRecordText());
+            try {
+                in.read();
+                fail("RecordIOException expected");
+            }
+            catch (RecordIOException ex) {
+                assertEquals("malformed", ex.getMessage());
+                assertEquals(2, in.getRecordLineNumber());
+                assertEquals("bad", in.getRecordText());
+            }
+            assertEquals("r3", in.read());
+            assertEquals(3, in.getRecordLineNumber());
+            for (int i=0; i<2; i++) {
+                try {
+                    in.read();
+                    fail("IOException expected");
+                }
+                catch (IOException ex) {
+                    assertEquals("failed", ex.getMessage());
+                }
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCloseWhileBlocked() throws Exception {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        RecordReader source = new TestRecordReader() {
+            @Override
+            public Object read() throws IOException, RecordIOException {
+                Object record = super.read();
+                if ("r1".equals(record)) {
+                    return record;
+                }
+                // ignores interrupts like a read from a stalled network file system
+                reading.countDown();
+                while (true) {
+                    try {
+                        release.await();
+                        return record;
+                    }
+                    catch (InterruptedException ex) { }
+                }
+            }
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+
+        RecordReader in = new PrefetchRecordReader(source, 1);
+        assertEquals("r1", in.read());
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // close() returns while the background thread is still reading
+        long start = System.currentTimeMillis();
+        in.close();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, closed.getCount());
+
+        // the record reader is closed once the blocked read returns
+        release.countDown();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Returns a record, a malformed record, a record and then fails.
+     */
+    private static class TestRecordReader implements RecordReader {
+        private int lineNumber;
+        private String text;
+
+        public Object read() throws IOException, RecordIOException {
+            ++lineNumber;
+            switch (lineNumber) {
+            case 2:
+                text = "bad";
+                throw new RecordIOException("malformed");
+            case 4:
+                text = null;
+                throw new IOException("failed");
+            case 5:
+                throw new IllegalStateException("read after failure");
+            default:
+                text = "r" + lineNumber;
+                return text;
+            }
+        }
+
+        public void close() { }
+
+        public int getRecordLineNumber() {
+            return lineNumber;
+        }
+
+        public String getRecordText() {
+            return text;
+        }
+    }
+}
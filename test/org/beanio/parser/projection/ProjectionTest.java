@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.projection;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.beanio.stream.csv.CsvReader;
+import org.beanio.stream.delimited.DelimitedReader;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reading only the bean properties requested by the caller.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ProjectionTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("projection_mapping.xml");
+    }
+
+    @Test
+    public void testSkippedFieldsNotValidated() {
+        String input =
+            "H,2014-01-01" + lineSeparator +
+            "D,1,x,Main St,,bad" + lineSeparator +
+            "D,2,ab,,Chicago,1.50" + lineSeparator;
+
+        BeanReader in = factory.createReader("p1", new StringReader(input), null,
+            properties("id", "address.city"));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals(Collections.singletonMap("type", "H"), map);
+
+            // the invalid name and amount fields are skipped
+            try {
+                in.read();
+                fail("Missing required field not detected");
+            }
+            catch (InvalidRecordException ex) {
+                assertEquals(1, ex.getRecordContext().getFieldErrors("city").size());
+            }
+
+            map = (Map<?,?>) in.read();
+            assertEquals(2, map.get("id"));
+            assertEquals(Collections.singletonMap("city", "Chicago"), map.get("address"));
+            assertFalse(map.containsKey("name"));
+            assertFalse(map.containsKey("amount"));
+            assertNull(in.read());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testQualifiedPaths() {
+        String input =
+            "H,2014-01-01" + lineSeparator +
+            "D,1,ab,Main St,Chicago,1.50" + lineSeparator;
+
+        BeanReader in = factory.createReader("p1", new StringReader(input), null,
+            properties("header", "detail.amount", "detail.address"));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertTrue(map.get("date") instanceof Date);
+
+            map = (Map<?,?>) in.read();
+            assertEquals(new BigDecimal("1.50"), map.get("amount"));
+            assertEquals("Main St", ((Map<?,?>) map.get("address")).get("street"));
+            assertFalse(map.containsKey("id"));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testRecordLengthValidated() {
+        String input =
+            "H,2014-01-01" + lineSeparator +
+            "D,1,ab,Main St,Chicago,1.50,extra" + lineSeparator;
+
+        BeanReader in = factory.createReader("p1", new StringReader(input), null, properties("id"));
+        try {
+            in.read();
+            in.read();
+            fail("Record maxLength violation not detected");
+        }
+        catch (InvalidRecordException ex) {
+            assertEquals(1, ex.getRecordContext().getRecordErrors().size());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testSkippedCollection() {
+        String input = "1,a,x,b,y,10" + lineSeparator;
+
+        BeanReader in = factory.createReader("p2", new StringReader(input), null, properties("total"));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals(Collections.singletonMap("total", 10), map);
+        }
+        finally {
+            in.close();
+        }
+
+        in = factory.createReader("p2", new StringReader(input), null, properties("items.sku"));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            List<?> items = (List<?>) map.get("items");
+            assertEquals(2, items.size());
+            assertEquals(Collections.singletonMap("sku", "b"), items.get(1));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testUnmarshaller() {
+        Unmarshaller u = factory.createUnmarshaller("p2", null, properties("id"));
+        Map<?,?> map = (Map<?,?>) u.unmarshal("7,a,x,b,y,z");
+        assertEquals(Collections.singletonMap("id", 7), map);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidPath() {
+        factory.createReader("p1", new StringReader(""), null, properties("address.zip"));
+    }
+
+    @Test
+    public void testFieldLimit() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"b\",c,\"d\"" + lineSeparator + "e"));
+        csv.setFieldLimit(2);
+        assertArrayEquals(new String[] { "a", "b", null, null }, csv.read());
+        assertEquals("a,\"b\",c,\"d\"", csv.getRecordText());
+        assertArrayEquals(new String[] { "e" }, csv.read());
+
+        DelimitedReader delimited = new DelimitedReader(new StringReader("a\tb\tc"));
+        delimited.setFieldLimit(1);
+        assertArrayEquals(new String[] { "a", null, null }, delimited.read());
+    }
+
+    private static Set<String> properties(String... names) {
+        return new HashSet<String>(Arrays.asList(names));
+    }
+}
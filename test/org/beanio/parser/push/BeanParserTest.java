@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Kevin Seim
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.push;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for push parsing using a {@link BeanParser}.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class BeanParserTest extends ParserTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("push_mapping.xml");
+    }
+    
+    @Test
+    public void testMultilineGroups() throws IOException {
+        List<String> expected = readAll("p1", "p1.txt");
+        assertEquals(3, expected.size());
+        
+        byte[] input = loadBytes("p1.txt");
+        for (int chunkSize : new int[] { 1, 2, 3, 7, input.length }) {
+            assertEquals("chunk size " + chunkSize, expected, parseAll("p1", input, chunkSize));
+        }
+    }
+
+    @Test
+    public void testLineContinuation() throws IOException {
+        List<String> expected = readAll("p2", "p2.txt");
+        assertEquals(3, expected.size());
+        
+        byte[] input = loadBytes("p2.txt");
+        for (int chunkSize : new int[] { 1, 4, input.length }) {
+            assertEquals("chunk size " + chunkSize, expected, parseAll("p2", input, chunkSize));
+        }
+    }
+    
+    @Test
+    public void testInvalidRecord() {
+        final List<Integer> lines = new ArrayList<Integer>();
+        BeanParser parser = factory.createParser("p2", UTF8, new BeanParserListener() {
+            public void beanRead(BeanParser parser, Object bean) {
+                lines.add(parser.getLineNumber());
+            }
+        });
+        
+        parser.feed("1,a\nX,");
+        try {
+            parser.feed("b\n3,");
+            fail("Record expected to fail validation");
+        }
+        catch (InvalidRecordException ex) {
+            assertEquals(2, ex.getRecordContext().getLineNumber());
+        }
+        parser.feed("c");
+        assertEquals(Arrays.asList(1), lines);
+        
+        parser.endOfInput();
+        assertEquals(Arrays.asList(1, 3), lines);
+        
+        try {
+            parser.feed("4,d");
+            fail("Expected BeanReaderIOException");
+        }
+        catch (BeanReaderIOException ex) { }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testXmlNotSupported() {
+        factory.createParser("p3", UTF8, new BeanParserListener() {
+            public void beanRead(BeanParser parser, Object bean) { }
+        });
+    }
+    
+    private List<String> readAll(String stream, String filename) {
+        List<String> list = new ArrayList<String>();
+        BeanReader in = factory.createReader(stream, new BufferedReader(new InputStreamReader(
+            getClass().getResourceAsStream(filename), UTF8)));
+        try {
+            Object bean;
+            while ((bean = in.read()) != null) {
+                list.add(in.getRecordName() + ":" + in.getLineNumber() + ":" + bean);
+            }
+        }
+        finally {
+            in.close();
+        }
+        return list;
+    }
+    
+    private List<String> parseAll(String stream, byte[] input, int chunkSize) {
+        final List<String> list = new ArrayList<String>();
+        BeanParser parser = factory.createParser(stream, UTF8, new BeanParserListener() {
+            public void beanRead(BeanParser parser, Object bean) {
+                list.add(parser.getRecordName() + ":" + parser.getLineNumber() + ":" + bean);
+            }
+        });
+        for (int i=0; i<input.length; i+=chunkSize) {
+            parser.feed(ByteBuffer.wrap(input, i, Math.min(chunkSize, input.length - i)));
+        }
+        parser.endOfInput();
+        return list;
+    }
+    
+    private byte[] loadBytes(String filename) throws IOException {
+        InputStream in = getClass().getResourceAsStream(filename);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] b = new byte[1024];
+            int n;
+            while ((n = in.read(b)) != -1) {
+                out.write(b, 0, n);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            in.close();
+        }
+    }
+}
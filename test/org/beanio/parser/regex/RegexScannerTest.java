@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.regex;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.beanio.*;
+import org.beanio.internal.parser.RegexScanner;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for validating field text using compiled regular expressions.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class RegexScannerTest extends ParserTest {
+
+    private static final String[] TEXT = {
+        "", "a", "A", "0", "12345678", "1234567", "123456789", "ABC", "AB", "abc", "A-1",
+        "AB-12345", "AB12345", "AB-123456", "a.b", "a\nb", "x y", "_w0", "-", "\\", "a$",
+        "\u00e9t\u00e9", "\ud83d\ude00", "a\ud83d\ude00", "AAAB", "ABAB"
+    };
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("regex_mapping.xml");
+    }
+
+    @Test
+    public void testSupportedPatterns() {
+        String[] patterns = {
+            "", "[0-9]{8}", "[A-Z]{3}", "\\d+", "\\d*", "\\D+", "\\w+", "\\W?", "\\s", "\\S{2,}",
+            "^[A-Z]{2}-?\\d{1,5}$", "[^,]*", ".{3}", ".+", "a\\.b", "a\\$", "\\\\",
+            "[a-z_0-9]{1,3}", "[-a]", "[a-]+", "[\\-\\]]", "[\\d.]+", "[^\\s]+", "A*B",
+            "\\p{L}*", "[\u00e0-\u00ff]+t[\u00e0-\u00ff]"
+        };
+        for (String p : patterns) {
+            RegexScanner scanner = RegexScanner.compile(Pattern.compile(p));
+            if (!p.startsWith("\\p")) {
+                assertNotNull(p, scanner);
+            }
+            assertSameMatches(p, scanner);
+        }
+    }
+
+    @Test
+    public void testUnsupportedPatterns() {
+        String[] patterns = {
+            "(AB)+", "A|B", "[A-Z]*[A-Z]", "\\d+\\d", "a?a", ".*x", "[a-z&&[^b]]", "[[a-b]c]",
+            "\\d+?", "\\d*+", "\\bA", "\\p{Alpha}", "\\x41", "\\u0041", "a{2,}?", "(?i)abc"
+        };
+        for (String p : patterns) {
+            assertNull(p, RegexScanner.compile(Pattern.compile(p)));
+        }
+        assertNull(RegexScanner.compile(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+    }
+
+    @Test
+    public void testFieldValidation() {
+        BeanReader in = factory.createReader("r1", new StringReader(
+            "ABC,20140101,ABAB" + lineSeparator +
+            "ABC,2014010,AB" + lineSeparator +
+            "ABC,20140101,ABA" + lineSeparator +
+            "123,name" + lineSeparator +
+            "ab,name" + lineSeparator));
+        try {
+            Map<?,?> map = (Map<?,?>) in.read();
+            assertEquals("code", in.getRecordName());
+            assertEquals("20140101", map.get("date"));
+            assertEquals("ABAB", map.get("group"));
+
+            assertFieldError(in, 2, "code", "date", "2014010", "Unmatched regular expression '[0-9]{8}'");
+            assertFieldError(in, 3, "code", "group", "ABA", "Unmatched regular expression '(AB)+'");
+
+            map = (Map<?,?>) in.read();
+            assertEquals("number", in.getRecordName());
+            assertEquals("name", map.get("name"));
+
+            try {
+                in.read();
+                fail("Record expected to be unidentified");
+            }
+            catch (UnidentifiedRecordException ex) {
+                assertEquals(5, in.getLineNumber());
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private void assertSameMatches(String p, RegexScanner scanner) {
+        Pattern pattern = Pattern.compile(p);
+        for (String text : TEXT) {
+            boolean expected = pattern.matcher(text).matches();
+            int result = scanner == null ? RegexScanner.UNDECIDED : scanner.match(text);
+            if (result != RegexScanner.UNDECIDED) {
+                assertEquals("'" + p + "' matching '" + text + "'", expected, result == RegexScanner.MATCH);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.shard;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for writing bean objects to multiple files.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ShardedWriterTest extends ParserTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private StreamFactory factory;
+    private File dir;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("shard_mapping.xml");
+        dir = File.createTempFile("beanio-shard", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testShardByKeyAndCount() throws IOException {
+        ParallelBeanWriter out = factory.createShardedWriter("s1", new RegionPolicy(2), ASCII, 1);
+        for (String region : new String[] { "aa", "bb", "aa", "aa", "bb" }) {
+            out.write("detail", detail(region));
+        }
+        out.close();
+        assertRegions();
+    }
+
+    @Test
+    public void testWriteAllConcurrently() throws IOException {
+        ParallelBeanWriter out = factory.createShardedWriter("s1", new RegionPolicy(2), ASCII, 3);
+        List<Map<String,Object>> list = new ArrayList<Map<String,Object>>();
+        for (String region : new String[] { "aa", "bb", "aa", "aa", "bb" }) {
+            list.add(detail(region));
+        }
+        out.writeAll("detail", list);
+        out.close();
+        assertRegions();
+    }
+
+    @Test
+    public void testRollBySize() throws IOException {
+        RegionPolicy policy = new RegionPolicy(0) {
+            @Override
+            public Object getKey(String recordName, Object bean) {
+                return "cc";
+            }
+        };
+        // the header and 2 details
+        policy.setMaxBytes((5 + lineSeparator.length()) + 2 * (6 + lineSeparator.length()));
+
+        ParallelBeanWriter out = factory.createShardedWriter("s1", policy, ASCII, 1);
+        for (int i=0; i<5; i++) {
+            out.write("detail", detail("cc"));
+        }
+        out.close();
+
+        assertEquals(3, dir.listFiles().length);
+        assertEquals(lines("Hcc00", "Dcc000", "Dcc001", "T002"), read("cc-0.txt"));
+        assertEquals(lines("Hcc01", "Dcc002", "Dcc003", "T002"), read("cc-1.txt"));
+        assertEquals(lines("Hcc02", "Dcc004", "T001"), read("cc-2.txt"));
+    }
+
+    @Test
+    public void testInvalidBean() throws IOException {
+        ParallelBeanWriter out = factory.createShardedWriter("s1", new RegionPolicy(0), ASCII, 2);
+        try {
+            out.write("header", detail("aa"));
+            fail("BeanWriterException expected");
+        }
+        catch (BeanWriterException ex) {
+            // the header was already written by the policy
+        }
+        finally {
+            out.close();
+        }
+        assertEquals(lines("Haa00", "T000"), read("aa-0.txt"));
+    }
+
+    private void assertRegions() throws IOException {
+        assertEquals(3, dir.listFiles().length);
+        assertEquals(lines("Haa00", "Daa000", "Daa002", "T002"), read("aa-0.txt"));
+        assertEquals(lines("Haa01", "Daa003", "T001"), read("aa-1.txt"));
+        assertEquals(lines("Hbb00", "Dbb001", "Dbb004", "T002"), read("bb-0.txt"));
+    }
+
+    private int sequence = 0;
+
+    private Map<String,Object> detail(String region) {
+        Map<String,Object> map = new HashMap<String,Object>();
+        map.put("region", region);
+        map.put("id", sequence++);
+        return map;
+    }
+
+    private String lines(String... lines) {
+        StringBuilder s = new StringBuilder();
+        for (String line : lines) {
+            s.append(line).append(lineSeparator);
+        }
+        return s.toString();
+    }
+
+    private String read(String name) throws IOException {
+        Reader in = new InputStreamReader(new FileInputStream(new File(dir, name)), ASCII);
+        try {
+            StringBuilder s = new StringBuilder();
+            char[] buf = new char[1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                s.append(buf, 0, n);
+            }
+            return s.toString();
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Divides details by region, and writes a header and trailer to every file.
+     */
+    private class RegionPolicy extends ShardPolicy {
+        public RegionPolicy(long maxRecords) {
+            setMaxRecords(maxRecords);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object getKey(String recordName, Object bean) {
+            return ((Map<String,Object>) bean).get("region");
+        }
+
+        @Override
+        public File getFile(Object key, int index) {
+            return new File(dir, key + "-" + index + ".txt");
+        }
+
+        @Override
+        public void writeHeader(BeanWriter out, Object key, int index) {
+            Map<String,Object> map = new HashMap<String,Object>();
+            map.put("region", key);
+            map.put("file", index);
+            out.write("header", map);
+        }
+
+        @Override
+        public void writeTrailer(BeanWriter out, Object key, int index, long count) {
+            Map<String,Object> map = new HashMap<String,Object>();
+            map.put("count", count);
+            out.write("trailer", map);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.sort;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for sorting the records of a stream.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StreamSorterTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("sort_mapping.xml");
+    }
+
+    @Test
+    public void testSortInMemory() {
+        StreamSorter sorter = factory.createSorter("s1", "account", "date");
+        assertEquals(
+            "H20140101" + lineSeparator +
+            "DA00120140102" + "00003" + lineSeparator +
+            "DA00120140102" + "00004" + lineSeparator +
+            "DA00120140105" + "00002" + lineSeparator +
+            "DB00120140101" + "00001" + lineSeparator +
+            "T00004" + lineSeparator,
+            sort(sorter,
+                "H20140101\n" +
+                "DB0012014010100001\n" +
+                "DA0012014010500002\n" +
+                "DA0012014010200003\n" +
+                "DA0012014010200004\n" +
+                "T00004\n"));
+    }
+
+    @Test
+    public void testSortRuns() {
+        Random random = new Random(7);
+        List<String> details = new ArrayList<String>();
+        StringBuilder input = new StringBuilder("H20140101\n");
+        for (int i=0; i<1000; i++) {
+            String s = String.format("DA%03d20140101%05d", random.nextInt(100), i);
+            details.add(s);
+            input.append(s).append("\n");
+        }
+        input.append("T01000\n");
+
+        // stable sort of the account only
+        Collections.sort(details, new Comparator<String>() {
+            public int compare(String o1, String o2) {
+                return o1.substring(1, 5).compareTo(o2.substring(1, 5));
+            }
+        });
+        StringBuilder expected = new StringBuilder("H20140101").append(lineSeparator);
+        for (String s : details) {
+            expected.append(s).append(lineSeparator);
+        }
+        expected.append("T01000").append(lineSeparator);
+
+        for (int threads=1; threads<=3; threads++) {
+            StreamSorter sorter = factory.createSorter("s1", "account");
+            sorter.setRunSize(64);
+            sorter.setThreads(threads);
+            assertEquals(expected.toString(), sort(sorter, input.toString()));
+        }
+    }
+
+    @Test
+    public void testRepeatingSegment() {
+        StreamSorter sorter = factory.createSorter("s2", "id");
+        sorter.setRunSize(2);
+        assertEquals(
+            ",z" + lineSeparator +
+            "1,a,b" + lineSeparator +
+            "2" + lineSeparator +
+            "3,c" + lineSeparator,
+            sort(sorter, "3,c\n1,a,b\n,z\n2\n"));
+    }
+
+    @Test
+    public void testSortFile() throws IOException {
+        File in = File.createTempFile("beanio-sort", ".txt");
+        File out = File.createTempFile("beanio-sort", ".txt");
+        try {
+            Writer writer = new FileWriter(in);
+            writer.write("A,2\nB,1,x\nA,1\n");
+            writer.close();
+
+            factory.sort("s3", in, out, "id");
+
+            BufferedReader reader = new BufferedReader(new FileReader(out));
+            try {
+                assertEquals("B,1,x", reader.readLine());
+                assertEquals("A,1", reader.readLine());
+                assertEquals("A,2", reader.readLine());
+                assertNull(reader.readLine());
+            }
+            finally {
+                reader.close();
+            }
+        }
+        finally {
+            in.delete();
+            out.delete();
+        }
+    }
+
+    @Test
+    public void testInvalidKey() {
+        try {
+            sort(factory.createSorter("s1", "account", "date"), "H20140101\nDA0012014X10100001\n");
+            fail("InvalidRecordException expected");
+        }
+        catch (InvalidRecordException ex) {
+            assertEquals("detail", ex.getRecordName());
+        }
+    }
+
+    @Test(expected=UnidentifiedRecordException.class)
+    public void testUnidentifiedRecord() {
+        sort(factory.createSorter("s1", "account"), "H20140101\nX\n");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testKeyNotFound() {
+        factory.createSorter("s1", "missing");
+    }
+
+    @Test
+    public void testPartialKey() {
+        // records that do not map every key field are not sorted
+        StreamSorter sorter = factory.createSorter("s3", "id", "name");
+        assertEquals(
+            "A,3" + lineSeparator +
+            "B,1,y" + lineSeparator +
+            "B,2,x" + lineSeparator +
+            "B,2,y" + lineSeparator +
+            "A,2" + lineSeparator +
+            "A,1" + lineSeparator,
+            sort(sorter, "A,3\nB,2,y\nB,1,y\nA,2\nB,2,x\nA,1\n"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testXmlNotSupported() {
+        factory.createSorter("s4", "id");
+    }
+
+    private String sort(StreamSorter sorter, String input) {
+        StringWriter out = new StringWriter();
+        sorter.sort(new StringReader(input), out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.split;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for planning and reading input splits.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class InputSplitTest extends ParserTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private StreamFactory factory;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("split_mapping.xml");
+        file = File.createTempFile("beanio-split", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testCsvSplits() throws IOException {
+        StringBuilder s = new StringBuilder();
+        for (int i=1; i<=50; i++) {
+            if (i % 7 == 0) {
+                s.append("# comment\r\n");
+            }
+            if (i % 3 == 0) {
+                s.append(i).append(",\"multi\r\nline \u00e9\u20ac\"\r\n");
+            }
+            else {
+                s.append(i).append(",caf\u00e9 \ud83d\ude00\r\n");
+            }
+        }
+        write(s.toString());
+        assertSplits("s1", 1);
+        assertSplits("s1", 4);
+        assertSplits("s1", 17);
+        assertSplits("s1", 100);
+    }
+
+    @Test
+    public void testDelimitedSplits() throws IOException {
+        StringBuilder s = new StringBuilder();
+        for (int i=1; i<=40; i++) {
+            s.append(i).append('\t');
+            if (i % 2 == 0) {
+                s.append("continued\\\n");
+            }
+            s.append("text\n");
+        }
+        write(s.toString());
+        assertSplits("s2", 3);
+        assertSplits("s2", 9);
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        write("");
+        assertTrue(factory.planSplits("s1", file, UTF8, 4).isEmpty());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testXmlNotSupported() {
+        factory.planSplits("s3", file, UTF8, 2);
+    }
+
+    /*
+     * Asserts the records read from all splits match the records read from the file.
+     */
+    private void assertSplits(String name, int count) throws IOException {
+        List<String> expected = readAll(factory.createReader(name, new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), UTF8))));
+
+        List<InputSplit> splits = factory.planSplits(name, file, UTF8, count);
+        assertTrue(splits.size() <= count);
+        assertTrue(count == 1 || splits.size() > 1);
+        assertEquals(0, splits.get(0).getStart());
+        assertEquals(file.length(), splits.get(splits.size() - 1).getEnd());
+
+        List<String> actual = new ArrayList<String>();
+        for (int i=0; i<splits.size(); i++) {
+            InputSplit split = splits.get(i);
+            if (i > 0) {
+                assertEquals(splits.get(i - 1).getEnd(), split.getStart());
+            }
+            List<String> records = readAll(factory.createReader(name, file, UTF8, split));
+            assertFalse(records.isEmpty());
+            actual.addAll(records);
+        }
+        assertEquals(expected, actual);
+    }
+
+    private List<String> readAll(BeanReader in) {
+        List<String> list = new ArrayList<String>();
+        try {
+            Object record;
+            while ((record = in.read()) != null) {
+                list.add(in.getLineNumber() + ":" + record);
+            }
+        }
+        finally {
+            in.close();
+        }
+        return list;
+    }
+
+    private void write(String text) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), UTF8);
+        try {
+            out.write(text);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
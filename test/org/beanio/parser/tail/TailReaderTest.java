@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.tail;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for reading the last records of a file.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class TailReaderTest extends ParserTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private StreamFactory factory;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("tail_mapping.xml");
+        file = File.createTempFile("beanio-tail", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadTrailer() throws IOException {
+        write("H20140101\r\nD00010\r\nD00020\r\nD00030\r\nT0000300000060\r\n");
+
+        List<Object> list = factory.readTail("t1", file, ASCII, "trailer", 1);
+        assertEquals(1, list.size());
+        Map<String,Object> trailer = (Map<String,Object>) list.get(0);
+        assertEquals(3, trailer.get("count"));
+        assertEquals(60, trailer.get("total"));
+
+        // details are returned in file order
+        list = factory.readTail("t1", file, ASCII, "detail", 2);
+        assertEquals(2, list.size());
+        assertEquals(20, ((Map<String,Object>) list.get(0)).get("amount"));
+        assertEquals(30, ((Map<String,Object>) list.get(1)).get("amount"));
+
+        // any record
+        list = factory.readTail("t1", file, ASCII, null, 10);
+        assertEquals(5, list.size());
+        assertTrue(((Map<String,Object>) list.get(0)).containsKey("date"));
+
+        assertTrue(factory.readTail("t1", file, ASCII, "trailer", 0).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNoTerminatorAndLongLines() throws IOException {
+        StringBuilder s = new StringBuilder("H20140101\n");
+        for (int i=0; i<5000; i++) {
+            s.append("D").append(String.format("%05d", i % 100000)).append('\n');
+        }
+        s.append("T0500000001234");
+        write(s.toString());
+
+        List<Object> list = factory.readTail("t1", file, ASCII, "detail", 3);
+        assertEquals(3, list.size());
+        assertEquals(4997, ((Map<String,Object>) list.get(0)).get("amount"));
+        assertEquals(4999, ((Map<String,Object>) list.get(2)).get("amount"));
+        assertEquals(1234, ((Map<String,Object>) factory.readTail("t1", file, ASCII, "trailer", 1).get(0)).get("total"));
+    }
+
+    @Test
+    public void testInvalidTrailer() throws IOException {
+        write("H20140101\nT00003xxxxxxxx\n");
+        try {
+            factory.readTail("t1", file, ASCII, "trailer", 1);
+            fail("Expected InvalidRecordException");
+        }
+        catch (InvalidRecordException ex) {
+            assertEquals("trailer", ex.getRecordContext().getRecordName());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMultilineNotSupported() throws IOException {
+        write("1\n");
+        factory.readTail("t2", file, ASCII, null, 1);
+    }
+
+    private void write(String text) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), ASCII);
+        try {
+            out.write(text);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.parser.validation;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.parser.ParserTest;
+import org.junit.*;
+
+/**
+ * JUnit test cases for validating a stream without creating bean objects.
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class StreamValidationTest extends ParserTest {
+
+    private StreamFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = newStreamFactory("stream_validation.xml");
+    }
+
+    @Test
+    public void testSerial() {
+        assertValidation(1);
+    }
+
+    @Test
+    public void testParallel() {
+        assertValidation(4);
+    }
+
+    @Test
+    public void testNoErrorHandler() {
+        String input =
+            "H,2014-01-01" + lineSeparator +
+            "D,1,ab" + lineSeparator +
+            "D,x,ab" + lineSeparator +
+            "T,2" + lineSeparator;
+        try {
+            factory.validate("s1", new StringReader(input), null, 2);
+            fail("Invalid record not detected");
+        }
+        catch (InvalidRecordException ex) {
+            assertEquals(3, ex.getRecordContext().getLineNumber());
+        }
+    }
+
+    @Test
+    public void testXml() {
+        String input = "<s2><detail><id>1</id></detail><detail><id>x</id></detail></s2>";
+        ErrorCollector errors = new ErrorCollector();
+        assertEquals(2, factory.validate("s2", new StringReader(input), errors, 3));
+        assertEquals(1, errors.list.size());
+    }
+
+    private void assertValidation(int threads) {
+        String input = createInput();
+
+        // the errors reported by a bean reader
+        ErrorCollector expected = new ErrorCollector();
+        BeanReader in = factory.createReader("s1", new StringReader(input));
+        in.setErrorHandler(expected);
+        while (in.read() != null) { }
+        in.close();
+        assertTrue(Detail.count > 0);
+
+        Detail.count = 0;
+        ErrorCollector errors = new ErrorCollector();
+        long count = factory.validate("s1", new StringReader(input), errors, threads);
+        assertEquals(input.split(lineSeparator).length, count);
+        assertEquals(expected.list, errors.list);
+        assertEquals(0, Detail.count);
+    }
+
+    private String createInput() {
+        StringBuilder s = new StringBuilder();
+        s.append("H,2014-01-01").append(lineSeparator);
+        for (int i=0; i<1000; i++) {
+            s.append("D,");
+            s.append(i % 7 == 0 ? "x" : String.valueOf(i)).append(',');
+            s.append(i % 11 == 0 ? "a" : "name").append(',');
+            s.append(i % 13 == 0 ? "1,y" : "1,2");
+            s.append(lineSeparator);
+            if (i == 500) {
+                s.append("Z,unidentified").append(lineSeparator);
+            }
+        }
+        s.append("O,1").append(lineSeparator);
+        s.append("I,2").append(lineSeparator);
+        s.append("I,x").append(lineSeparator);
+        s.append("O,2").append(lineSeparator);
+        s.append("D,1,name").append(lineSeparator);
+        s.append("T,x").append(lineSeparator);
+        return s.toString();
+    }
+
+    private static class ErrorCollector implements BeanReaderErrorHandler {
+        private List<String> list = new ArrayList<String>();
+
+        public void handleError(BeanReaderException ex) throws Exception {
+            StringBuilder s = new StringBuilder();
+            s.append(ex.getClass().getSimpleName()).append(": ").append(ex.getMessage());
+            for (int i=0; i<ex.getRecordCount(); i++) {
+                RecordContext context = ex.getRecordContext(i);
+                s.append(" ").append(context.getRecordText());
+                s.append(" ").append(context.getFieldErrors());
+                s.append(" ").append(context.getRecordErrors());
+            }
+            list.add(s.toString());
+        }
+    }
+
+    public static class Detail {
+        private static int count;
+
+        private int id;
+        private String name;
+        private List<Integer> codes;
+
+        public Detail() {
+            ++count;
+        }
+
+        public int getId() {
+            return id;
+        }
+        public void setId(int id) {
+            this.id = id;
+        }
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+        public List<Integer> getCodes() {
+            return codes;
+        }
+        public void setCodes(List<Integer> codes) {
+            this.codes = codes;
+        }
+    }
+}
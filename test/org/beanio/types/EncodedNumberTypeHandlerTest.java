@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.beanio.internal.util.CodePage;
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the packed decimal, zoned decimal and binary integer type handlers.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class EncodedNumberTypeHandlerTest {
+
+    private CodePage codePage = CodePage.forName("IBM037");
+
+    @Test
+    public void testCodePage() {
+        // the JDK decodes both 0x15 and 0x25 as a line feed
+        assertEquals('\n', codePage.toChar(0x15));
+        assertEquals('\u0085', codePage.toChar(0x25));
+        for (int i=0; i<256; i++) {
+            assertEquals(i, codePage.toByte(codePage.toChar(i)));
+        }
+        assertEquals(-1, codePage.toByte('\u20AC'));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMultiByteEncoding() {
+        CodePage.forName("UTF-8");
+    }
+
+    @Test
+    public void testPackedDecimal() throws TypeConversionException {
+        PackedDecimalTypeHandler handler = new PackedDecimalTypeHandler();
+        handler.setScale(2);
+        assertEquals(new BigDecimal("123.45"), handler.parse(text(0x12, 0x34, 0x5C)));
+        assertEquals(new BigDecimal("-123.45"), handler.parse(text(0x12, 0x34, 0x5D)));
+        assertEquals(new BigDecimal("123.45"), handler.parse(text(0x12, 0x34, 0x5F)));
+        assertEquals(text(0x12, 0x34, 0x5D), handler.format(new BigDecimal("-123.45")));
+        assertEquals(text(0x0C), handler.format(new BigDecimal("0.0")));
+
+        handler.setLength(4);
+        handler.setSigned(false);
+        assertEquals(text(0x00, 0x12, 0x34, 0x5F), handler.format(new BigDecimal("123.45")));
+        assertNull(handler.parse(""));
+        assertNull(handler.format(null));
+
+        handler.setNumberType("long");
+        assertEquals(Long.class, handler.getType());
+        assertEquals(12345L, handler.parse(text(0x12, 0x34, 0x5C)));
+        assertEquals(text(0x00, 0x12, 0x34, 0x5F), handler.format(12345L));
+
+        assertInvalid(handler, text(0x12, 0x34, 0x56));
+        assertInvalid(handler, text(0x1A, 0x34, 0x5C));
+        assertInvalid(handler, text(0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x9C));
+        assertFormatInvalid(handler, 12345678L);
+        assertFormatInvalid(handler, -1L);
+    }
+
+    @Test
+    public void testZonedDecimal() throws TypeConversionException {
+        ZonedDecimalTypeHandler handler = new ZonedDecimalTypeHandler();
+        handler.setNumberType("int");
+        assertEquals(123, handler.parse(text(0xF1, 0xF2, 0xC3)));
+        assertEquals(-123, handler.parse(text(0xF1, 0xF2, 0xD3)));
+        assertEquals(123, handler.parse("123"));
+        assertEquals(text(0xF1, 0xF2, 0xD3), handler.format(-123));
+
+        handler.setLength(5);
+        handler.setSigned(false);
+        assertEquals("00123", handler.format(123));
+
+        assertInvalid(handler, text(0xC1, 0xF2, 0xF3));
+        assertInvalid(handler, text(0xF1, 0xFA, 0xF3));
+        assertInvalid(handler, text(0xF1, 0xF2, 0x43));
+        assertFormatInvalid(handler, 123456);
+    }
+
+    @Test
+    public void testBinaryInteger() throws TypeConversionException {
+        BinaryIntegerTypeHandler handler = new BinaryIntegerTypeHandler();
+        handler.setNumberType("int");
+        assertEquals(4, handler.getLength());
+        assertEquals(258, handler.parse(text(0x00, 0x00, 0x01, 0x02)));
+        assertEquals(-2, handler.parse(text(0xFF, 0xFF, 0xFF, 0xFE)));
+        assertEquals(text(0xFF, 0xFF, 0xFF, 0xFE), handler.format(-2));
+        assertEquals(text(0x00, 0x00, 0x00, 0x25), handler.format(37));
+
+        handler.setLength(2);
+        handler.setSigned(false);
+        assertEquals(65534, handler.parse(text(0xFF, 0xFE)));
+        assertEquals(text(0xFF, 0xFE), handler.format(65534));
+        assertFormatInvalid(handler, 65536);
+        assertFormatInvalid(handler, -1);
+
+        handler.setNumberType("BigDecimal");
+        handler.setScale(1);
+        assertEquals(new BigDecimal("25.8"), handler.parse(text(0x01, 0x02)));
+        assertEquals(text(0x01, 0x02), handler.format(new BigDecimal("25.8")));
+        assertFormatInvalid(handler, new BigDecimal("25.85"));
+
+        handler.setLength(8);
+        assertInvalid(handler, text(0x80, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidNumberType() {
+        new PackedDecimalTypeHandler().setNumberType("double");
+    }
+
+    private void assertInvalid(TypeHandler handler, String text) {
+        try {
+            handler.parse(text);
+            fail("Invalid value not detected");
+        }
+        catch (TypeConversionException ex) { }
+    }
+
+    private void assertFormatInvalid(TypeHandler handler, Object value) {
+        try {
+            handler.format(value);
+            fail("Invalid value not detected");
+        }
+        catch (IllegalArgumentException ex) { }
+    }
+
+    private String text(int... bytes) {
+        StringBuilder s = new StringBuilder();
+        for (int b : bytes) {
+            s.append(codePage.toChar(b));
+        }
+        return s.toString();
+    }
+}
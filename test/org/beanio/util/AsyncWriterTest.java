@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Kevin Seim
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.util;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.beanio.internal.util.AsyncWriter;
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the <tt>AsyncWriter</tt> class.
+ * 
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class AsyncWriterTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        final boolean[] closed = new boolean[1];
+        StringWriter text = new StringWriter() {
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        
+        StringBuilder expected = new StringBuilder();
+        AsyncWriter out = new AsyncWriter(text, 2, 5);
+        for (int i=0; i<1000; i++) {
+            String s = "record" + i + "\n";
+            out.write(s);
+            out.write('|');
+            expected.append(s).append('|');
+        }
+        out.flush();
+        assertEquals(expected.toString(), text.toString());
+        
+        out.write("end".toCharArray());
+        out.close();
+        assertEquals(expected.toString() + "end", text.toString());
+        assertTrue(closed[0]);
+        
+        try {
+            out.write("more");
+            fail("Expected IOException");
+        }
+        catch (IOException ex) { }
+    }
+    
+    @Test
+    public void testErrorRethrown() throws IOException {
+        final boolean[] closed = new boolean[1];
+        Writer failing = new StringWriter() {
+            public void write(char[] cbuf, int off, int len) {
+                throw new IllegalStateException("disk full");
+            }
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        
+        AsyncWriter out = new AsyncWriter(failing, 2, 4);
+        out.write("abc");
+        try {
+            out.flush();
+            fail("Expected IOException");
+        }
+        catch (IOException ex) { }
+        
+        try {
+            out.write("defghijk");
+            fail("Expected IOException");
+        }
+        catch (IOException ex) { }
+        
+        try {
+            out.close();
+            fail("Expected IOException");
+        }
+        catch (IOException ex) { }
+        assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import java.time.temporal.*;
+
+/**
+ * A fixed width date/time pattern that is parsed and formatted without a
+ * <tt>DateTimeFormatter</tt>.
+ *
+ * <p>Only patterns made up of the letters <tt>yyyy</tt>, <tt>MM</tt>, <tt>dd</tt>,
+ * <tt>HH</tt>, <tt>mm</tt> and <tt>ss</tt>, and literal characters, are supported.
+ * For example, <tt>yyyyMMdd</tt>, <tt>yyyy-MM-dd</tt> and <tt>HHmmss</tt>.
+ * Field text that does not exactly match the layout of the pattern must be parsed
+ * using a <tt>DateTimeFormatter</tt>, which also reports the error if it is invalid.</p>
+ *
+ * <p>A <tt>FixedDateTimePattern</tt> is immutable.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+class FixedDateTimePattern {
+
+    static final int YEAR = 0x01;
+    static final int MONTH = 0x02;
+    static final int DAY = 0x04;
+    static final int HOUR = 0x08;
+    static final int MINUTE = 0x10;
+    static final int SECOND = 0x20;
+
+    private static final int[] FIELDS = { YEAR, MONTH, DAY, HOUR, MINUTE, SECOND };
+    private static final char[] LETTERS = { 'y', 'M', 'd', 'H', 'm', 's' };
+    private static final ChronoField[] CHRONO_FIELDS = {
+        ChronoField.YEAR, ChronoField.MONTH_OF_YEAR, ChronoField.DAY_OF_MONTH,
+        ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR, ChronoField.SECOND_OF_MINUTE
+    };
+
+    // the literal characters of the pattern, and whether each position is a digit
+    private final char[] layout;
+    private final boolean[] digit;
+    // the position of each field in the layout, or -1 if not used
+    private final int[] position;
+    private final int fields;
+
+    private FixedDateTimePattern(char[] layout, boolean[] digit, int[] position, int fields) {
+        this.layout = layout;
+        this.digit = digit;
+        this.position = position;
+        this.fields = fields;
+    }
+
+    /**
+     * Compiles a <tt>DateTimeFormatter</tt> pattern.
+     * @param pattern the pattern to compile
+     * @return the <tt>FixedDateTimePattern</tt>, or null if the pattern is not supported
+     */
+    static FixedDateTimePattern compile(String pattern) {
+        StringBuilder layout = new StringBuilder();
+        StringBuilder digits = new StringBuilder();
+        int[] position = { -1, -1, -1, -1, -1, -1 };
+        int fields = 0;
+
+        int i = 0;
+        int n = pattern.length();
+        while (i < n) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                // quoted literal text, escaped quotes are not supported
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0 || end == i + 1) {
+                    return null;
+                }
+                for (int j=i+1; j<end; j++) {
+                    layout.append(pattern.charAt(j));
+                    digits.append('0');
+                }
+                i = end + 1;
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int field = indexOf(c);
+                if (field < 0) {
+                    return null;
+                }
+                int count = 1;
+                while (i + count < n && pattern.charAt(i + count) == c) {
+                    ++count;
+                }
+                if (count != (field == 0 ? 4 : 2) || position[field] >= 0) {
+                    return null;
+                }
+                position[field] = layout.length();
+                fields |= FIELDS[field];
+                for (int j=0; j<count; j++) {
+                    layout.append(c);
+                    digits.append('1');
+                }
+                i += count;
+            }
+            else if (c >= '0' && c <= '9') {
+                return null;
+            }
+            else {
+                layout.append(c);
+                digits.append('0');
+                ++i;
+            }
+        }
+
+        if (fields == 0) {
+            return null;
+        }
+
+        boolean[] digit = new boolean[digits.length()];
+        for (int j=0; j<digit.length; j++) {
+            digit[j] = digits.charAt(j) == '1';
+        }
+        return new FixedDateTimePattern(layout.toString().toCharArray(), digit, position, fields);
+    }
+
+    private static int indexOf(char c) {
+        for (int i=0; i<LETTERS.length; i++) {
+            if (LETTERS[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the fields included in this pattern.
+     * @return a bit mask of {@link #YEAR}, {@link #MONTH}, {@link #DAY}, {@link #HOUR},
+     *   {@link #MINUTE} and {@link #SECOND}
+     */
+    int getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns whether the given text exactly matches the layout of this pattern.
+     * @param text the text to test
+     * @return true if the text has a digit where each field digit is expected, and
+     *   the literal characters of this pattern everywhere else
+     */
+    boolean matches(String text) {
+        if (text.length() != layout.length) {
+            return false;
+        }
+        for (int i=0; i<layout.length; i++) {
+            char c = text.charAt(i);
+            if (digit[i]) {
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            else if (c != layout[i]) {
+                return false;
+            }
+        }
+        // year 0 is not a valid year of era
+        return position[0] < 0 || get(text, YEAR) != 0;
+    }
+
+    /**
+     * Returns the value of a field from text that matches this pattern.
+     * @param text the matching text
+     * @param field the field, such as {@link #YEAR}
+     * @return the field value, or 0 if the field is not included in this pattern
+     */
+    int get(String text, int field) {
+        int index = Integer.numberOfTrailingZeros(field);
+        int start = position[index];
+        if (start < 0) {
+            return 0;
+        }
+        int value = 0;
+        for (int i=start, end=start+(index == 0 ? 4 : 2); i<end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Formats a date/time value.
+     * @param value the value to format, which must support each field in this pattern
+     * @return the formatted text, or null if the year cannot be formatted using 4 digits
+     */
+    String format(TemporalAccessor value) {
+        char[] text = layout.clone();
+        for (int index=0; index<FIELDS.length; index++) {
+            int start = position[index];
+            if (start < 0) {
+                continue;
+            }
+            int n = value.get(CHRONO_FIELDS[index]);
+            int length = index == 0 ? 4 : 2;
+            if (index == 0 && (n < 1 || n > 9999)) {
+                return null;
+            }
+            for (int i=start+length-1; i>=start; i--) {
+                text[i] = (char) ('0' + n % 10);
+                n /= 10;
+            }
+        }
+        return new String(text);
+    }
+}
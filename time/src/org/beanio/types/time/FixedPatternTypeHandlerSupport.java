@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import static org.beanio.types.time.FixedDateTimePattern.*;
+
+import java.time.DateTimeException;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.*;
+
+import org.beanio.types.TypeConversionException;
+
+/**
+ * Base class for the <tt>java.time</tt> type handlers of local date and time types, which
+ * parse and format fixed width patterns directly, without the overhead of the formatter.
+ *
+ * <p>A fixed width pattern is made up of only <tt>yyyy</tt>, <tt>MM</tt>, <tt>dd</tt>,
+ * <tt>HH</tt>, <tt>mm</tt> and <tt>ss</tt>, such as <tt>yyyyMMdd</tt> or <tt>HHmmss</tt>.
+ * If no pattern is set, the ISO format is handled the same way, for example using
+ * <tt>yyyy-MM-dd</tt> for a <tt>LocalDate</tt>.  Text that does not exactly match the
+ * pattern, and lenient type handlers, always use the formatter.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+abstract class FixedPatternTypeHandlerSupport extends TemporalTypeHandlerSupport {
+
+    // set when the formatter is created, or null if not supported
+    private FixedDateTimePattern fixedPattern;
+
+    /**
+     * Constructs a new <tt>FixedPatternTypeHandlerSupport</tt>.
+     */
+    FixedPatternTypeHandlerSupport() { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.time.TemporalTypeHandlerSupport#parse(java.lang.String)
+     */
+    @Override
+    public Object parse(String text) throws TypeConversionException {
+        getFormatter();
+        FixedDateTimePattern fixed = fixedPattern;
+        if (fixed != null && text != null && fixed.matches(text)) {
+            try {
+                return parse(fixed, text);
+            }
+            catch (DateTimeException ex) {
+                throw new TypeConversionException("Invalid " + getType().getSimpleName(), ex);
+            }
+        }
+        return super.parse(text);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.time.TemporalTypeHandlerSupport#format(java.lang.Object)
+     */
+    @Override
+    public String format(Object value) {
+        getFormatter();
+        FixedDateTimePattern fixed = fixedPattern;
+        if (fixed != null && value != null && isFixedWidth(fixed, (TemporalAccessor) value)) {
+            String text = fixed.format((TemporalAccessor) value);
+            if (text != null) {
+                return text;
+            }
+        }
+        return super.format(value);
+    }
+
+    /*
+     * Returns whether a value is formatted using only the fields of a fixed width pattern.
+     * The ISO time format also includes any fraction of a second.
+     */
+    private boolean isFixedWidth(FixedDateTimePattern fixed, TemporalAccessor value) {
+        if (getPattern() != null || (fixed.getFields() & SECOND) == 0) {
+            return true;
+        }
+        return value.get(ChronoField.NANO_OF_SECOND) == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.time.TemporalTypeHandlerSupport#createFormatter()
+     */
+    @Override
+    protected DateTimeFormatter createFormatter() {
+        FixedDateTimePattern fixed = null;
+        if (!isLenient()) {
+            fixed = FixedDateTimePattern.compile(getPattern() != null ? getPattern() : getDefaultPattern());
+            if (fixed != null && !isSupported(fixed.getFields())) {
+                fixed = null;
+            }
+        }
+        fixedPattern = fixed;
+        return super.createFormatter();
+    }
+
+    /**
+     * Parses text that matches a fixed width pattern supported by this type handler.
+     * @param pattern the {@link FixedDateTimePattern}
+     * @param text the text to parse
+     * @return the parsed value
+     * @throws DateTimeException if the text is invalid
+     */
+    abstract Object parse(FixedDateTimePattern pattern, String text) throws DateTimeException;
+
+    /**
+     * Returns whether a fixed width pattern can be parsed and formatted directly.
+     * @param fields the fields included in the pattern
+     * @return true if supported, false otherwise
+     */
+    abstract boolean isSupported(int fields);
+
+    /**
+     * Returns the fixed width pattern equivalent to the ISO format used when no
+     * pattern is set, for text that includes every field.
+     * @return the default pattern
+     */
+    abstract String getDefaultPattern();
+}
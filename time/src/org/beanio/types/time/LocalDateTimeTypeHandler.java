@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import static org.beanio.types.time.FixedDateTimePattern.*;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A type handler for <tt>java.time.LocalDateTime</tt> values.  If no pattern is set,
+ * the ISO format is used, for example <tt>2014-01-31T13:45:00</tt>.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class LocalDateTimeTypeHandler extends FixedPatternTypeHandlerSupport {
+
+    /**
+     * Constructs a new <tt>LocalDateTimeTypeHandler</tt>.
+     */
+    public LocalDateTimeTypeHandler() { }
+
+    @Override
+    protected Object parse(DateTimeFormatter formatter, String text) throws DateTimeException {
+        return LocalDateTime.parse(text, formatter);
+    }
+
+    @Override
+    Object parse(FixedDateTimePattern pattern, String text) throws DateTimeException {
+        return LocalDateTime.of(pattern.get(text, YEAR), pattern.get(text, MONTH), pattern.get(text, DAY),
+            pattern.get(text, HOUR), pattern.get(text, MINUTE), pattern.get(text, SECOND));
+    }
+
+    @Override
+    boolean isSupported(int fields) {
+        return (fields | SECOND) == (YEAR | MONTH | DAY | HOUR | MINUTE | SECOND);
+    }
+
+    @Override
+    String getDefaultPattern() {
+        return "yyyy-MM-dd'T'HH:mm:ss";
+    }
+
+    @Override
+    protected DateTimeFormatter getDefaultFormatter() {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#getType()
+     */
+    public Class<?> getType() {
+        return LocalDateTime.class;
+    }
+}
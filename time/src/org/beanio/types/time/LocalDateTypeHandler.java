@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import static org.beanio.types.time.FixedDateTimePattern.*;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A type handler for <tt>java.time.LocalDate</tt> values.  If no pattern is set,
+ * values are formatted as <tt>yyyy-MM-dd</tt>.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class LocalDateTypeHandler extends FixedPatternTypeHandlerSupport {
+
+    /**
+     * Constructs a new <tt>LocalDateTypeHandler</tt>.
+     */
+    public LocalDateTypeHandler() { }
+
+    @Override
+    protected Object parse(DateTimeFormatter formatter, String text) throws DateTimeException {
+        return LocalDate.parse(text, formatter);
+    }
+
+    @Override
+    Object parse(FixedDateTimePattern pattern, String text) throws DateTimeException {
+        return LocalDate.of(pattern.get(text, YEAR), pattern.get(text, MONTH), pattern.get(text, DAY));
+    }
+
+    @Override
+    boolean isSupported(int fields) {
+        return fields == (YEAR | MONTH | DAY);
+    }
+
+    @Override
+    String getDefaultPattern() {
+        return "yyyy-MM-dd";
+    }
+
+    @Override
+    protected DateTimeFormatter getDefaultFormatter() {
+        return DateTimeFormatter.ISO_LOCAL_DATE;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#getType()
+     */
+    public Class<?> getType() {
+        return LocalDate.class;
+    }
+}
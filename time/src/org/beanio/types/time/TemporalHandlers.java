@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import java.time.*;
+
+import org.beanio.internal.util.TypeHandlerFactory;
+
+/**
+ * Registers the <tt>java.time</tt> type handlers in a {@link TypeHandlerFactory}.
+ *
+ * <p>This class is loaded by name from the default <tt>TypeHandlerFactory</tt> when
+ * running on Java 8 or later, so that the Java 7 core does not reference <tt>java.time</tt>.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public final class TemporalHandlers {
+
+    private TemporalHandlers() { }
+
+    /**
+     * Registers type handlers for <tt>java.time</tt> types.
+     * @param factory the <tt>TypeHandlerFactory</tt> to register the type handlers in
+     */
+    public static void register(TypeHandlerFactory factory) {
+        factory.registerHandlerFor(LocalDate.class, new LocalDateTypeHandler());
+        factory.registerHandlerFor(LocalDateTime.class, new LocalDateTimeTypeHandler());
+        factory.registerHandlerFor(LocalTime.class, new LocalTimeTypeHandler());
+        factory.registerHandlerFor(Instant.class, new InstantTypeHandler());
+        factory.registerHandlerFor(OffsetDateTime.class, new OffsetDateTimeTypeHandler());
+        factory.registerHandlerFor(ZonedDateTime.class, new ZonedDateTimeTypeHandler());
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.*;
+import java.util.Properties;
+
+import org.beanio.types.*;
+
+/**
+ * Base class for <tt>java.time</tt> type handlers, which use an immutable
+ * <tt>DateTimeFormatter</tt> to parse and format values.  Unlike the <tt>java.util.Date</tt>
+ * type handlers, a <tt>java.time</tt> type handler can be shared by any number of threads.
+ *
+ * <p>If no pattern is set, the ISO format of the value type is used.  If a pattern is set,
+ * it is interpreted by <tt>DateTimeFormatter.ofPattern</tt> using the configured locale.
+ * By default, <tt>lenient</tt> is false and invalid dates such as <tt>2014-02-30</tt>
+ * are rejected.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public abstract class TemporalTypeHandlerSupport extends LocaleSupport implements ConfigurableTypeHandler, Cloneable {
+
+    private String pattern;
+    private boolean lenient;
+    private ZoneId zone;
+
+    // formatters are immutable, and may be lazily created by racing threads
+    private DateTimeFormatter formatter;
+
+    /**
+     * Constructs a new <tt>TemporalTypeHandlerSupport</tt>.
+     */
+    public TemporalTypeHandlerSupport() { }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#parse(java.lang.String)
+     */
+    public Object parse(String text) throws TypeConversionException {
+        if (text == null || "".equals(text)) {
+            return null;
+        }
+
+        DateTimeFormatter formatter = getFormatter();
+        try {
+            return parse(formatter, text);
+        }
+        catch (DateTimeException ex) {
+            throw new TypeConversionException("Invalid " + getType().getSimpleName(), ex);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#format(java.lang.Object)
+     */
+    public String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        return getFormatter().format((TemporalAccessor) value);
+    }
+
+    /**
+     * Parses text using a <tt>DateTimeFormatter</tt>.
+     * @param formatter the <tt>DateTimeFormatter</tt>
+     * @param text the text to parse
+     * @return the parsed value
+     * @throws DateTimeException if the text is invalid
+     */
+    protected abstract Object parse(DateTimeFormatter formatter, String text) throws DateTimeException;
+
+    /**
+     * Returns the ISO formatter used when no pattern is set.
+     * @return the default <tt>DateTimeFormatter</tt>
+     */
+    protected abstract DateTimeFormatter getDefaultFormatter();
+
+    /**
+     * Returns the time zone used to format and parse values when no time zone is set.
+     * @return the default <tt>ZoneId</tt>, or null if values are not converted to a time zone
+     */
+    protected ZoneId getDefaultZone() {
+        return null;
+    }
+
+    /**
+     * Returns the <tt>DateTimeFormatter</tt> used to parse and format values.
+     * @return the <tt>DateTimeFormatter</tt>
+     */
+    protected DateTimeFormatter getFormatter() {
+        DateTimeFormatter f = formatter;
+        if (f == null) {
+            f = createFormatter();
+            formatter = f;
+        }
+        return f;
+    }
+
+    /**
+     * Creates the <tt>DateTimeFormatter</tt> used to parse and format values.
+     * @return the new <tt>DateTimeFormatter</tt>
+     */
+    protected DateTimeFormatter createFormatter() {
+        DateTimeFormatter f;
+        if (pattern == null) {
+            f = getDefaultFormatter();
+        }
+        else {
+            // default the era so that 'yyyy' resolves to a year in strict mode
+            f = new DateTimeFormatterBuilder()
+                .appendPattern(pattern)
+                .parseDefaulting(ChronoField.ERA, 1)
+                .toFormatter(locale);
+        }
+
+        f = f.withResolverStyle(lenient ? ResolverStyle.LENIENT : ResolverStyle.STRICT);
+        ZoneId z = zone != null ? zone : getDefaultZone();
+        if (z != null) {
+            f = f.withZone(z);
+        }
+        return f;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.ConfigurableTypeHandler#newInstance(java.util.Properties)
+     */
+    public TemporalTypeHandlerSupport newInstance(Properties properties) throws IllegalArgumentException {
+        String pattern = properties.getProperty(FORMAT_SETTING);
+        if (pattern == null || "".equals(pattern)) {
+            return this;
+        }
+        if (pattern.equals(getPattern())) {
+            return this;
+        }
+
+        try {
+            TemporalTypeHandlerSupport handler = (TemporalTypeHandlerSupport) this.clone();
+            handler.setPattern(pattern);
+            return handler;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the pattern used by the <tt>DateTimeFormatter</tt>.
+     * @return the pattern, or null if the ISO format is used
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Sets the pattern used by the <tt>DateTimeFormatter</tt>.
+     * @param pattern the pattern, or null to use the ISO format
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public void setPattern(String pattern) throws IllegalArgumentException {
+        if ("".equals(pattern)) {
+            pattern = null;
+        }
+        // validate the pattern
+        try {
+            if (pattern != null) {
+                DateTimeFormatter.ofPattern(pattern);
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid date format pattern '" + pattern + "': " + ex.getMessage());
+        }
+
+        this.pattern = pattern;
+        reset();
+    }
+
+    /**
+     * Returns whether invalid dates and times are resolved leniently.
+     * @return true if lenient, false otherwise
+     */
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    /**
+     * Sets whether invalid dates and times are resolved leniently.  For example,
+     * if lenient, <tt>2014-02-30</tt> is parsed as <tt>2014-03-02</tt>.
+     * @param lenient true if lenient, false otherwise
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+        reset();
+    }
+
+    /**
+     * Returns the time zone ID used to parse and format values.
+     * @return the time zone ID, or null if not set
+     */
+    public String getZoneId() {
+        return zone == null ? null : zone.getId();
+    }
+
+    /**
+     * Sets the time zone used to parse and format values.  A time zone only applies to
+     * instants, and to zoned and offset date times.  If set, values are formatted in this
+     * time zone, and it is used when parsed text does not include a time zone.
+     * @param name the time zone ID
+     * @throws IllegalArgumentException if the time zone ID is invalid
+     */
+    public void setZoneId(String name) throws IllegalArgumentException {
+        if (name == null || "".equals(name)) {
+            zone = null;
+        }
+        else {
+            try {
+                zone = ZoneId.of(name);
+            }
+            catch (DateTimeException ex) {
+                throw new IllegalArgumentException("Invalid time zone ID '" + name + "'", ex);
+            }
+        }
+        reset();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.LocaleSupport#setLocale(java.lang.String)
+     */
+    @Override
+    public void setLocale(String localeString) {
+        super.setLocale(localeString);
+        reset();
+    }
+
+    private void reset() {
+        formatter = null;
+    }
+}
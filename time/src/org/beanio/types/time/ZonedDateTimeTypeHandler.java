@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A type handler for <tt>java.time.ZonedDateTime</tt> values.  If no pattern is set,
+ * the ISO format is used, for example <tt>2014-01-31T13:45:30+01:00[Europe/Paris]</tt>.
+ *
+ * <p>If a time zone is set, values are formatted in that time zone.</p>
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class ZonedDateTimeTypeHandler extends TemporalTypeHandlerSupport {
+
+    /**
+     * Constructs a new <tt>ZonedDateTimeTypeHandler</tt>.
+     */
+    public ZonedDateTimeTypeHandler() { }
+
+    @Override
+    protected Object parse(DateTimeFormatter formatter, String text) throws DateTimeException {
+        return ZonedDateTime.parse(text, formatter);
+    }
+
+    @Override
+    protected DateTimeFormatter getDefaultFormatter() {
+        return DateTimeFormatter.ISO_ZONED_DATE_TIME;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.beanio.types.TypeHandler#getType()
+     */
+    public Class<?> getType() {
+        return ZonedDateTime.class;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2014 Kevin Seim
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.beanio.types.time;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.time.*;
+import java.util.*;
+
+import org.beanio.*;
+import org.beanio.builder.*;
+import org.beanio.internal.util.TypeHandlerFactory;
+import org.beanio.types.*;
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the <tt>java.time</tt> type handlers.
+ *
+ * @author Kevin Seim
+ * @since 3.0
+ */
+public class TemporalTypeHandlerTest {
+
+    @Test
+    public void testLocalDate() throws TypeConversionException {
+        LocalDateTypeHandler handler = new LocalDateTypeHandler();
+        assertEquals(LocalDate.of(2014, 1, 31), handler.parse("2014-01-31"));
+        assertEquals("2014-01-31", handler.format(LocalDate.of(2014, 1, 31)));
+        assertNull(handler.parse(""));
+        assertNull(handler.format(null));
+
+        handler.setPattern("yyyyMMdd");
+        assertEquals(LocalDate.of(2014, 1, 31), handler.parse("20140131"));
+        assertEquals("20140131", handler.format(LocalDate.of(2014, 1, 31)));
+        assertInvalid(handler, "20140230");
+        assertInvalid(handler, "2014013");
+        assertInvalid(handler, "2014013a");
+        assertInvalid(handler, "00000101");
+
+        handler.setPattern("dd/MM/yyyy");
+        assertEquals(LocalDate.of(2014, 1, 31), handler.parse("31/01/2014"));
+        assertEquals("31/01/2014", handler.format(LocalDate.of(2014, 1, 31)));
+
+        handler.setLenient(true);
+        assertEquals(LocalDate.of(2014, 3, 2), handler.parse("30/02/2014"));
+    }
+
+    @Test
+    public void testLocalDateTime() throws TypeConversionException {
+        LocalDateTimeTypeHandler handler = new LocalDateTimeTypeHandler();
+        assertEquals(LocalDateTime.of(2014, 1, 31, 13, 45, 30), handler.parse("2014-01-31T13:45:30"));
+
+        handler.setPattern("yyyy-MM-dd'T'HH:mm:ss");
+        assertEquals(LocalDateTime.of(2014, 1, 31, 13, 45, 30), handler.parse("2014-01-31T13:45:30"));
+        assertEquals("2014-01-31T13:45:00", handler.format(LocalDateTime.of(2014, 1, 31, 13, 45)));
+        assertInvalid(handler, "2014-01-31T24:00:00");
+
+        handler.setPattern("yyyyMMddHHmm");
+        assertEquals(LocalDateTime.of(2014, 1, 31, 13, 45), handler.parse("201401311345"));
+        assertEquals("201401311345", handler.format(LocalDateTime.of(2014, 1, 31, 13, 45)));
+    }
+
+    @Test
+    public void testLocalTime() throws TypeConversionException {
+        LocalTimeTypeHandler handler = new LocalTimeTypeHandler();
+        assertEquals(LocalTime.of(13, 45), handler.parse("13:45"));
+
+        handler.setPattern("HHmmss");
+        assertEquals(LocalTime.of(13, 45, 30), handler.parse("134530"));
+        assertEquals("090500", handler.format(LocalTime.of(9, 5)));
+        assertInvalid(handler, "136000");
+
+        handler.setPattern("hh:mm a");
+        handler.setLocale("en_US");
+        assertEquals(LocalTime.of(13, 45), handler.parse("01:45 PM"));
+    }
+
+    @Test
+    public void testIsoFixedPattern() throws TypeConversionException {
+        LocalDateTypeHandler date = new LocalDateTypeHandler();
+        assertEquals(LocalDate.of(2014, 2, 28), date.parse("2014-02-28"));
+        assertEquals(LocalDate.of(0, 1, 1), date.parse("0000-01-01"));
+        assertEquals("+10000-01-01", date.format(LocalDate.of(10000, 1, 1)));
+        assertInvalid(date, "2014-02-30");
+        date.setLenient(true);
+        assertEquals(LocalDate.of(2014, 3, 2), date.parse("2014-02-30"));
+
+        LocalTimeTypeHandler time = new LocalTimeTypeHandler();
+        assertEquals(LocalTime.of(9, 5, 7), time.parse("09:05:07"));
+        assertEquals("09:05:07", time.format(LocalTime.of(9, 5, 7)));
+        assertEquals("09:05:00", time.format(LocalTime.of(9, 5)));
+        assertEquals("09:05:07.001", time.format(LocalTime.of(9, 5, 7, 1000000)));
+        assertInvalid(time, "09:60:00");
+
+        LocalDateTimeTypeHandler dateTime = new LocalDateTimeTypeHandler();
+        assertEquals("2014-01-31T13:45:30", dateTime.format(LocalDateTime.of(2014, 1, 31, 13, 45, 30)));
+        assertEquals("2014-01-31T13:45:00", dateTime.format(LocalDateTime.of(2014, 1, 31, 13, 45)));
+        assertEquals("2014-01-31T13:45:00.5", dateTime.format(LocalDateTime.of(2014, 1, 31, 13, 45, 0, 500000000)));
+        assertInvalid(dateTime, "2014-01-31T24:00:00");
+    }
+
+    @Test
+    public void testInstant() throws TypeConversionException {
+        InstantTypeHandler handler = new InstantTypeHandler();
+        Instant instant = Instant.parse("2014-01-31T13:45:30Z");
+        assertEquals(instant, handler.parse("2014-01-31T13:45:30Z"));
+        assertEquals("2014-01-31T13:45:30Z", handler.format(instant));
+
+        handler.setPattern("yyyy-MM-dd HH:mm:ss");
+        assertEquals(instant, handler.parse("2014-01-31 13:45:30"));
+        assertEquals("2014-01-31 13:45:30", handler.format(instant));
+
+        handler.setZoneId("America/Chicago");
+        assertEquals(instant, handler.parse("2014-01-31 07:45:30"));
+        assertEquals("2014-01-31 07:45:30", handler.format(instant));
+    }
+
+    @Test
+    public void testZonedAndOffsetDateTime() throws TypeConversionException {
+        OffsetDateTimeTypeHandler offset = new OffsetDateTimeTypeHandler();
+        OffsetDateTime odt = OffsetDateTime.of(2014, 1, 31, 13, 45, 30, 0, ZoneOffset.ofHours(1));
+        assertEquals(odt, offset.parse("2014-01-31T13:45:30+01:00"));
+        assertEquals("2014-01-31T13:45:30+01:00", offset.format(odt));
+
+        ZonedDateTimeTypeHandler zoned = new ZonedDateTimeTypeHandler();
+        ZonedDateTime zdt = ZonedDateTime.of(2014, 1, 31, 13, 45, 30, 0, ZoneId.of("Europe/Paris"));
+        assertEquals(zdt, zoned.parse("2014-01-31T13:45:30+01:00[Europe/Paris]"));
+        assertEquals("2014-01-31T13:45:30+01:00[Europe/Paris]", zoned.format(zdt));
+
+        zoned.setZoneId("UTC");
+        assertEquals("2014-01-31T12:45:30Z[UTC]", zoned.format(zdt));
+    }
+
+    @Test
+    public void testTypeHandlerFactory() throws TypeConversionException {
+        Properties props = new Properties();
+        props.setProperty(ConfigurableTypeHandler.FORMAT_SETTING, "yyyyMMdd");
+
+        TypeHandlerFactory factory = TypeHandlerFactory.getDefault();
+        TypeHandler handler = factory.getTypeHandlerFor(LocalDate.class, null, props);
+        assertEquals(LocalDate.of(2014, 1, 31), handler.parse("20140131"));
+
+        handler = factory.getTypeHandlerFor(LocalDate.class);
+        assertEquals(LocalDate.of(2014, 1, 31), handler.parse("2014-01-31"));
+
+        assertTrue(factory.getTypeHandlerFor(LocalDateTime.class) instanceof LocalDateTimeTypeHandler);
+        assertTrue(factory.getTypeHandlerFor(LocalTime.class) instanceof LocalTimeTypeHandler);
+        assertTrue(factory.getTypeHandlerFor(Instant.class) instanceof InstantTypeHandler);
+        assertTrue(factory.getTypeHandlerFor(OffsetDateTime.class) instanceof OffsetDateTimeTypeHandler);
+        assertTrue(factory.getTypeHandlerFor(ZonedDateTime.class) instanceof ZonedDateTimeTypeHandler);
+    }
+
+    @Test
+    public void testMemoize() {
+        StreamFactory factory = StreamFactory.newInstance();
+        factory.define(new StreamBuilder("t1")
+            .format("csv")
+            .addRecord(new RecordBuilder("record")
+                .type(HashMap.class)
+                .addField(new FieldBuilder("date").type(LocalDate.class).memoize())
+                .addField(new FieldBuilder("time").type(Instant.class).memoize())));
+
+        BeanReader in = factory.createReader("t1", new StringReader(
+            "2014-01-31,2014-01-31T13:45:30Z\n" +
+            "2014-01-31,2014-01-31T13:45:30Z\n"));
+        try {
+            Map<?,?> first = (Map<?,?>) in.read();
+            Map<?,?> second = (Map<?,?>) in.read();
+            assertEquals(LocalDate.of(2014, 1, 31), first.get("date"));
+            assertSame(first.get("date"), second.get("date"));
+            assertSame(first.get("time"), second.get("time"));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        new LocalDateTypeHandler().setPattern("yyyy-MM-dd{");
+    }
+
+    private void assertInvalid(TypeHandler handler, String text) {
+        try {
+            handler.parse(text);
+            fail("Invalid value not detected");
+        }
+        catch (TypeConversionException ex) { }
+    }
+}